@@ -1,6 +1,9 @@
 package com.desk.config;
 
+import com.desk.service.ai.AiKomoran;
+import kr.co.shineware.nlp.komoran.core.Komoran;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -12,8 +15,9 @@ import java.util.List;
 
 /**
  * [AI 공통 설정]
- * 1. 타임아웃 5분 설정
+ * 1. 타임아웃 설정 (기본 연결 100초 / 읽기 5분, ai.http.* 로 변경 가능)
  * 2. API Key 자동 주입 (Interceptor)
+ * 3. Komoran 형태소 분석기 공유 빈 (사전 분류기 / 파일조회 / BM25 가 같은 인스턴스)
  */
 @Configuration
 @RequiredArgsConstructor
@@ -21,12 +25,18 @@ public class AIConfig {
 
     private final OllamaConfig ollamaConfig;
 
+    @Value("${ai.http.connect-timeout-ms:100000}")
+    private int connectTimeoutMs;
+
+    @Value("${ai.http.read-timeout-ms:300000}")
+    private int readTimeoutMs;
+
     @Bean("aiRestTemplate")
     public RestTemplate aiRestTemplate() {
         // 1. 타임아웃 설정
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(100 * 1000);      // 연결 10초
-        factory.setReadTimeout(5 * 60 * 1000);     // 읽기 5분
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
 
         RestTemplate restTemplate = new RestTemplate(factory);
 
@@ -42,4 +52,12 @@ public class AIConfig {
 
         return restTemplate;
     }
-}
\ No newline at end of file
+
+    /**
+     * BM25 정적 토큰화(AiKomoran.get())와 같은 인스턴스. 초기화에 실패하면 null 빈이라 주입 측은 @Nullable 로 받는다.
+     */
+    @Bean
+    public Komoran komoran() {
+        return AiKomoran.get();
+    }
+}
@@ -89,6 +89,8 @@ public class CustomSecurityConfig {
                 .requestMatchers("/api/member/**").permitAll()
                 // 이미지 <img src>는 Authorization 헤더를 못 싣기 때문에 공개 허용
                 .requestMatchers("/api/files/view/**").permitAll()
+                // 헬스/readiness 프로브 (쿠버네티스/로드밸런서)
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 // 나머지는 JWT 인증 필요
                 .anyRequest().authenticated()
         );
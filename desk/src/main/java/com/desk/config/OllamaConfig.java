@@ -15,9 +15,44 @@ public class OllamaConfig {
     @Value("${OLLAMA_BASE_URL:http://127.0.0.1:11434}")
     private String baseUrl;
     
+    /**
+     * 여러 Ollama 노드 사용 시 (비어 있으면 baseUrl 1대만 사용)
+     * 형식: url[;models=모델1|모델2],url[;models=...]
+     * 예) http://gpu1:11434;models=qwen3:8b,http://cpu1:11434;models=nomic-embed-text
+     * models 를 지정하지 않은 노드는 /api/tags 로 조회한 모델 목록을 사용한다.
+     */
+    @Value("${OLLAMA_ENDPOINTS:}")
+    private String endpoints;
+    
     @Value("${OLLAMA_MODEL_NAME:qwen3:8b}")
     private String modelName;
     
+    /**
+     * 임베딩 전용 모델 (RAG / 부서 중심점 라우터). 채팅 모델보다 작고 빠른 모델을 쓴다.
+     * 모든 임베딩은 AiEmbeddingModel 을 거쳐 /api/embed 배치로 요청한다.
+     */
+    @Value("${OLLAMA_EMBED_MODEL:nomic-embed-text}")
+    private String embedModelName;
+    
+    // 기대 차원 (0 = 모델 기본값, 첫 응답에서 결정). 다른 차원의 벡터는 버린다.
+    @Value("${OLLAMA_EMBED_DIMENSION:0}")
+    private int embedDimension;
+    
+    // 클라이언트에서 L2 정규화 (코사인 유사도 = 내적)
+    @Value("${OLLAMA_EMBED_NORMALIZE:true}")
+    private boolean embedNormalize;
+    
+    // /api/embed 1회 요청에 담을 최대 입력 수
+    @Value("${OLLAMA_EMBED_BATCH_SIZE:32}")
+    private int embedBatchSize;
+    
+    /**
+     * 모든 요청에 keep_alive 로 전달 (모델을 메모리에 유지할 시간, 예: 30m / -1m = 무기한)
+     * 재시작 직후 첫 요청이 모델 로딩 비용을 내지 않도록 AiModelWarmup 과 함께 사용한다.
+     */
+    @Value("${OLLAMA_KEEP_ALIVE:30m}")
+    private String keepAlive;
+    
     @Value("${OLLAMA_API_KEY:}")
     private String apiKey;
     
@@ -1,14 +1,17 @@
 package com.desk.controller;
 
+import com.desk.dto.AiUsageReportDTO;
 import com.desk.dto.MemberDTO;
 import com.desk.dto.PageRequestDTO;
 import com.desk.dto.PageResponseDTO;
 import com.desk.service.AdminService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -50,4 +53,14 @@ public class AdminController {
         adminService.deleteMember(email);
         return Map.of("result", "SUCCESS");
     }
-}
\ No newline at end of file
+
+    // 5. AI 사용량 보고서 (기본: 최근 7일, 부서/사용자/기능별 합계 + 현재 한도 윈도우)
+    @GetMapping("/ai-usage")
+    public AiUsageReportDTO getAiUsage(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(6);
+        return adminService.getAiUsageReport(start, end);
+    }
+}
@@ -3,8 +3,17 @@ package com.desk.controller;
 import com.desk.dto.AITicketRequestDTO;
 import com.desk.dto.AITicketResponseDTO;
 import com.desk.dto.MeetingMinutesDTO;
+import com.desk.service.AITicketRAGService;
 import com.desk.service.AITicketService;
 import com.desk.service.OllamaService;
+import com.desk.service.ai.AITicketCentroidRouter;
+import com.desk.service.ai.AITicketIntentClassifier;
+import com.desk.service.ai.AiEmbeddingCache;
+import com.desk.service.ai.AiEmbeddingModel;
+import com.desk.service.ai.AiFileSearchIndex;
+import com.desk.service.ai.AiQueryEmbeddingCache;
+import com.desk.service.ai.AiQueryFanOut;
+import com.desk.service.chat.ai.AiChatJobQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.HttpHeaders;
@@ -24,6 +33,15 @@ public class AiController {
 
     private final OllamaService ollamaService;
     private final AITicketService aiTicketService;
+    private final AITicketIntentClassifier intentClassifier;
+    private final AITicketCentroidRouter centroidRouter;
+    private final AiEmbeddingModel embeddingModel;
+    private final AiEmbeddingCache embeddingCache;
+    private final AiQueryEmbeddingCache queryEmbeddingCache;
+    private final AiChatJobQueue chatJobQueue;
+    private final AITicketRAGService ragService;
+    private final AiFileSearchIndex fileSearchIndex;
+    private final AiQueryFanOut queryFanOut;
 
     // 1. 단순 텍스트 요약 요청
     @PostMapping(value = "/summary")
@@ -81,4 +99,75 @@ public class AiController {
         // 핵심 로직 실행 (라우팅 -> 담당자 -> 인터뷰)
         return aiTicketService.processRequest(request);
     }
-}
\ No newline at end of file
+
+    // 인터뷰 대화 종료 (티켓 전송/취소 시 프론트에서 호출, 대화 상태와 세션 주제 벡터 정리)
+    @DeleteMapping("/ticket/chat/{conversationId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> endChat(@PathVariable String conversationId) {
+        aiTicketService.endConversation(conversationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 티켓 라우팅/담당자 사전 분류기 통계 (escalation 비율, 절약된 LLM 시간)
+    @GetMapping("/ticket/classifier/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> classifierStats() {
+        return intentClassifier.snapshot();
+    }
+
+    // 임베딩 중심점 부서 라우터 통계 (LLM fallback 비율, 부서별 학습 건수)
+    @GetMapping("/ticket/centroid/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> centroidStats() {
+        return centroidRouter.snapshot();
+    }
+
+    // 임베딩 모델 통계 (모델/차원/배치 요청 수/차원 불일치로 버린 벡터 수)
+    @GetMapping("/embedding/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> embeddingStats() {
+        return embeddingModel.snapshot();
+    }
+
+    // 지식 문서 임베딩 디스크 캐시 통계 (hit/miss, 모델별 저장 건수)
+    @GetMapping("/embedding/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> embeddingCacheStats() {
+        return embeddingCache.snapshot();
+    }
+
+    // RAG 질문 임베딩 캐시 통계 (hit rate, 세션 주제 벡터 재사용/주제 변경 횟수)
+    @GetMapping("/embedding/query-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> queryEmbeddingCacheStats() {
+        return queryEmbeddingCache.snapshot();
+    }
+
+    // 채팅 AI 정제 작업 큐 통계 (적재/재시도/dead-letter/회수 건수, 스트림 backlog)
+    @GetMapping("/chat-queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> chatQueueStats() {
+        return chatJobQueue.snapshot();
+    }
+
+    // RAG 지식 검색 상태 (적재 중/완료/실패, 문서 수, HNSW 사용 여부)
+    @GetMapping("/rag/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> ragStats() {
+        return ragService.snapshot();
+    }
+
+    // AI 파일조회 역색인 상태 (문서/term/사용자 수, 삭제 흔적, 재구성 시간, 검색 지연)
+    @GetMapping("/file-index/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> fileIndexStats() {
+        return fileSearchIndex.snapshot();
+    }
+
+    // AI 파일조회 쿼리 병렬 실행 통계 (작업 수, 예산 초과/취소/실패 건수)
+    @GetMapping("/file-search/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> fileSearchStats() {
+        return queryFanOut.snapshot();
+    }
+}
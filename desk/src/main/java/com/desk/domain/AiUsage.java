@@ -0,0 +1,55 @@
+package com.desk.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * AI 사용량 집계 (1시간 버킷 x 사용자 x 기능)
+ * - AiUsageAccountant 가 메모리 카운터를 주기적으로 누적 저장한다. (AiUsageRepository.addUsage 원자적 upsert)
+ * - 사용자 없는 호출(기동 시 임베딩 등)은 member_email = "system"
+ */
+@Entity
+@Table(name = "ai_usage", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"bucket_start", "member_email", "feature"})
+}, indexes = {
+        @Index(name = "idx_ai_usage_bucket", columnList = "bucket_start"),
+        @Index(name = "idx_ai_usage_department", columnList = "department, bucket_start")
+})
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class AiUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart; // 시간 단위 버킷 시작 시각
+
+    @Column(name = "member_email", nullable = false, length = 100)
+    private String memberEmail;
+
+    @Column(name = "department", length = 20)
+    private String department;
+
+    @Column(name = "feature", nullable = false, length = 30)
+    private String feature; // AiFeature key
+
+    private long calls;
+
+    private long failures;
+
+    @Column(name = "prompt_tokens")
+    private long promptTokens;
+
+    @Column(name = "completion_tokens")
+    private long completionTokens;
+
+    @Column(name = "wall_ms")
+    private long wallMs;
+}
@@ -44,6 +44,14 @@ public class ChatMessage {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // AI 정제 실패(모델 서버 장애/timeout)로 원문이 그대로 전송된 경우 true → 사후 검토 대상
+    @Column(name = "ai_review_required")
+    private Boolean aiReviewRequired;
+
+    // AI 정제 작업 ID (작업 큐 재전달 시 같은 메시지가 두 번 저장되지 않도록 유니크)
+    @Column(name = "ai_job_id", length = 36, unique = true)
+    private String aiJobId;
+
     @PrePersist
     void onCreate() {
         this.createdAt = LocalDateTime.now();
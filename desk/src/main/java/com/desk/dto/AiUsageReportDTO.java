@@ -0,0 +1,49 @@
+package com.desk.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 관리자용 AI 사용량 보고서 (기간 합계 + 현재 한도 윈도우 사용량)
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiUsageReportDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+
+    @Builder.Default
+    private List<Row> byDepartment = new ArrayList<>();
+
+    @Builder.Default
+    private List<Row> byMember = new ArrayList<>();
+
+    @Builder.Default
+    private List<Row> byFeature = new ArrayList<>();
+
+    // AiUsageAccountant.snapshot() (슬라이딩 윈도우 사용량 / 한도)
+    private Map<String, Object> currentWindow;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Row {
+        private String key;        // 부서명 / 이메일 / 기능 key
+        private String department; // byMember 일 때만
+        private long calls;
+        private long failures;
+        private long promptTokens;
+        private long completionTokens;
+        private long totalTokens;
+        private long wallMs;
+        private long avgWallMs;
+    }
+}
@@ -1,5 +1,6 @@
 package com.desk.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,12 +26,17 @@ public class OllamaDTO {
         private List<Message> messages; // 대화 내역
         private boolean stream;         // 스트리밍 여부 (false 권장)
         
-        // JSON 모드 사용 시 "json" 입력 (구조화된 출력 필요할 때)
+        // JSON 모드 사용 시 "json" 또는 JSON 스키마 객체 (구조화된 출력 필요할 때, AiJsonSchema 참고)
         // 일반 대화 시에는 null
-        private String format; 
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Object format;
         
         private Options options;        // 온도(temperature) 등 상세 설정
 
+        // 모델 메모리 유지 시간 (예: "30m")
+        @JsonProperty("keep_alive")
+        private String keepAlive;
+
         @Data
         @Builder
         @AllArgsConstructor
@@ -53,6 +59,13 @@ public class OllamaDTO {
         private Message message; // AI의 답변 내용이 여기 들어있음
         
         private boolean done;
+
+        // 토큰 사용량 (AiUsageAccountant 집계용)
+        @JsonProperty("prompt_eval_count")
+        private long promptEvalCount;
+
+        @JsonProperty("eval_count")
+        private long evalCount;
     }
 
     // [공통] 대화 메시지 객체 (User, Assistant, System)
@@ -0,0 +1,62 @@
+package com.desk.dto.chat;
+
+import com.desk.domain.ChatMessageType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 채팅 AI 정제 작업 DTO (Redis Stream 에 JSON 으로 저장)
+ * 요청 스레드의 메모리/MultipartFile 에 의존하지 않도록 처리에 필요한 값만 담는다.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiChatJobDTO {
+
+    private String jobId;        // 멱등 키 (chat_message.ai_job_id)
+    private Long roomId;
+    private String senderId;
+    private ChatMessageType messageType;
+    private String content;      // 원문
+    private Long ticketId;
+
+    private boolean ticketTrigger;     // 키워드로 이미 감지된 티켓 트리거
+    private boolean profanityDetected;
+    private boolean ticketPreview;
+
+    // 요청 중에 물리 저장을 끝낸 첨부 파일 (DB 기록은 결과 저장 시)
+    @Builder.Default
+    private List<FileRef> files = new ArrayList<>();
+
+    private long enqueuedAt;
+    private int attempt;
+    private String lastError;
+
+    // AI 처리 결과 (재시도 시 AI 호출을 반복하지 않도록 보관)
+    private String processedContent;
+    private boolean aiTicketTrigger;
+    private boolean reviewRequired;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileRef {
+        private String uuid;
+        private String fileName;
+        private Long fileSize;
+        private int ord;
+    }
+
+    @JsonIgnore
+    public boolean isProcessed() {
+        return processedContent != null;
+    }
+}
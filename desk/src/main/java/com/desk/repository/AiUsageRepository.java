@@ -0,0 +1,60 @@
+package com.desk.repository;
+
+import com.desk.domain.AiUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AiUsageRepository extends JpaRepository<AiUsage, Long> {
+
+    /**
+     * 변경분 누적 (버킷 x 사용자 x 기능 유니크 키 기준 INSERT ... ON DUPLICATE KEY UPDATE)
+     * 여러 노드가 같은 행을 동시에 올려도 DB 에서 더하므로 합계가 유실되지 않는다.
+     * 행마다 별도 트랜잭션: 실패해도 호출 측 트랜잭션을 rollback-only 로 만들지 않는다.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "insert into ai_usage (bucket_start, member_email, department, feature, " +
+            "calls, failures, prompt_tokens, completion_tokens, wall_ms) " +
+            "values (:bucketStart, :memberEmail, :department, :feature, " +
+            ":calls, :failures, :promptTokens, :completionTokens, :wallMs) " +
+            "on duplicate key update calls = calls + :calls, failures = failures + :failures, " +
+            "prompt_tokens = prompt_tokens + :promptTokens, completion_tokens = completion_tokens + :completionTokens, " +
+            "wall_ms = wall_ms + :wallMs", nativeQuery = true)
+    int addUsage(@Param("bucketStart") LocalDateTime bucketStart,
+                 @Param("memberEmail") String memberEmail,
+                 @Param("department") String department,
+                 @Param("feature") String feature,
+                 @Param("calls") long calls,
+                 @Param("failures") long failures,
+                 @Param("promptTokens") long promptTokens,
+                 @Param("completionTokens") long completionTokens,
+                 @Param("wallMs") long wallMs);
+
+    // 재시작 시 슬라이딩 윈도우 복원용
+    List<AiUsage> findByBucketStartGreaterThanEqual(LocalDateTime from);
+
+    // 부서별 합계: department, calls, failures, promptTokens, completionTokens, wallMs
+    @Query("select u.department, sum(u.calls), sum(u.failures), sum(u.promptTokens), sum(u.completionTokens), sum(u.wallMs) " +
+            "from AiUsage u where u.bucketStart >= :from and u.bucketStart < :to " +
+            "group by u.department order by sum(u.promptTokens) + sum(u.completionTokens) desc")
+    List<Object[]> sumByDepartment(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 사용자별 합계: memberEmail, department, calls, failures, promptTokens, completionTokens, wallMs
+    @Query("select u.memberEmail, max(u.department), sum(u.calls), sum(u.failures), sum(u.promptTokens), sum(u.completionTokens), sum(u.wallMs) " +
+            "from AiUsage u where u.bucketStart >= :from and u.bucketStart < :to " +
+            "group by u.memberEmail order by sum(u.promptTokens) + sum(u.completionTokens) desc")
+    List<Object[]> sumByMember(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 기능별 합계: feature, calls, failures, promptTokens, completionTokens, wallMs
+    @Query("select u.feature, sum(u.calls), sum(u.failures), sum(u.promptTokens), sum(u.completionTokens), sum(u.wallMs) " +
+            "from AiUsage u where u.bucketStart >= :from and u.bucketStart < :to " +
+            "group by u.feature order by sum(u.wallMs) desc")
+    List<Object[]> sumByFeature(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface TicketFileRepository extends JpaRepository<TicketFile, String> {
 
@@ -65,6 +67,37 @@ public interface TicketFileRepository extends JpaRepository<TicketFile, String>
                                                @Param("dept") Department dept,
                                                Pageable pageable);
 
+    /**
+     * [AI 파일조회 역색인 후보 확인]
+     * - 역색인(AiFileSearchIndex)이 고른 uuid 중 지금도 접근 가능한 파일만 (PK IN 조회)
+     */
+    @Query("""
+            SELECT DISTINCT f
+            FROM TicketFile f
+            JOIN FETCH f.ticket t
+            JOIN t.writer w
+            LEFT JOIN t.personalList tp
+            LEFT JOIN tp.receiver r
+            WHERE f.uuid IN :uuids
+              AND (w.email = :myEmail OR r.email = :myEmail)
+            """)
+    List<TicketFile> findAccessibleByUuidIn(@Param("myEmail") String myEmail,
+                                            @Param("uuids") Collection<String> uuids);
+
+    /**
+     * [AI 파일조회 역색인 재구성]
+     * - 색인 텍스트(티켓 제목/본문, 작성자/수신자)를 한 번에 읽는다.
+     */
+    @Query("""
+            SELECT DISTINCT f
+            FROM TicketFile f
+            JOIN FETCH f.ticket t
+            JOIN FETCH t.writer
+            LEFT JOIN FETCH t.personalList tp
+            LEFT JOIN FETCH tp.receiver
+            """)
+    List<TicketFile> findAllForSearchIndex();
+
     /**
      * [AI 파일 미리보기/다운로드 권한 체크]
      */
@@ -1,10 +1,12 @@
 package com.desk.repository;
 
 import com.desk.domain.TicketPersonal;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TicketPersonalRepository extends JpaRepository<TicketPersonal, Long>, TicketPersonalSearch{
@@ -13,6 +15,11 @@ public interface TicketPersonalRepository extends JpaRepository<TicketPersonal,
     @Query("select tp.pno from TicketPersonal tp where tp.receiver.email = :receiver and tp.ticket.tno = :tno")
     Optional<Long> findPnoByReceiverAndTno(@Param("receiver") String receiver, @Param("tno") Long tno);
     
+    // AI 의도 분류기 학습용: 최근 티켓의 [제목, 내용, 수신자 부서]
+    @Query("select t.title, t.content, r.department from TicketPersonal tp join tp.ticket t join tp.receiver r " +
+            "where r.department is not null order by t.tno desc")
+    List<Object[]> findClassifierSamples(Pageable pageable);
+
     // 삭제 검증용 (테스트)
     long countByTicket_Tno(Long tno);
 }
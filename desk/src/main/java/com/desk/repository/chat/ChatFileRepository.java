@@ -128,6 +128,35 @@ public interface ChatFileRepository extends JpaRepository<ChatFile, String> {
                                                   @Param("dept") Department dept,
                                                   Pageable pageable);
 
+    /**
+     * [AI 파일조회 역색인 후보 확인]
+     * - 역색인(AiFileSearchIndex)이 고른 uuid 중 지금도 입장 구간 안에 있는 파일만 (PK IN 조회)
+     */
+    @Query("""
+            SELECT DISTINCT f
+            FROM ChatFile f
+            JOIN FETCH f.chatRoom cr
+            JOIN cr.participants p
+            WHERE f.uuid IN :uuids
+              AND p.userId = :myEmail
+              AND (p.joinedAt IS NULL OR f.createdAt >= p.joinedAt)
+              AND (p.leftAt IS NULL OR f.createdAt <= p.leftAt)
+            """)
+    java.util.List<ChatFile> findAccessibleByUuidIn(@Param("myEmail") String myEmail,
+                                                    @Param("uuids") java.util.Collection<String> uuids);
+
+    /**
+     * [AI 파일조회 역색인 재구성]
+     * - 채팅방 이름/참여자 입장 구간을 한 번에 읽는다.
+     */
+    @Query("""
+            SELECT DISTINCT f
+            FROM ChatFile f
+            JOIN FETCH f.chatRoom cr
+            LEFT JOIN FETCH cr.participants
+            """)
+    java.util.List<ChatFile> findAllForSearchIndex();
+
     /**
      * [AI/다운로드 권한 체크]
      */
@@ -36,6 +36,11 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     @Query("SELECT COUNT(m) FROM ChatMessage m " +
            "WHERE m.chatRoom.id = :roomId AND m.messageSeq > :lastReadSeq")
     Long countUnreadMessages(@Param("roomId") Long roomId, @Param("lastReadSeq") Long lastReadSeq);
+
+    /**
+     * AI 정제 작업 결과가 이미 저장되었는지 확인 (작업 큐 멱등 처리용)
+     */
+    boolean existsByAiJobId(String aiJobId);
 }
 
 
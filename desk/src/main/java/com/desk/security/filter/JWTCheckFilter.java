@@ -50,6 +50,11 @@ public class JWTCheckFilter extends OncePerRequestFilter{
             return true;
         }
 
+        // 헬스/readiness 프로브는 체크하지 않음
+        if (path.startsWith("/actuator/health")) {
+            return true;
+        }
+
         return false;
     }
     @Override // 실제 JWT 검증 처리를 수행. 성공 → SecurityContext에 인증 정보 설정, 실패 → JSON 에러 응답
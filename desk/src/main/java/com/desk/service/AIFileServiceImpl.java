@@ -2,26 +2,35 @@ package com.desk.service;
 
 import com.desk.domain.Department;
 import com.desk.domain.Member;
+import com.desk.domain.Ticket;
 import com.desk.domain.TicketFile;
 import com.desk.domain.ChatFile;
+import com.desk.domain.ChatParticipant;
 import com.desk.dto.AIFileRequestDTO;
 import com.desk.dto.AIFileResponseDTO;
 import com.desk.dto.AIFileResultDTO;
 import com.desk.repository.MemberRepository;
 import com.desk.repository.TicketFileRepository;
 import com.desk.repository.chat.ChatFileRepository;
+import com.desk.service.ai.AiConditionOverlap;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiFileSearchIndex;
+import com.desk.service.ai.AiQueryFanOut;
 import com.desk.util.AIFilePromptUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import kr.co.shineware.nlp.komoran.constant.DEFAULT_MODEL;
 import kr.co.shineware.nlp.komoran.core.Komoran;
 import kr.co.shineware.nlp.komoran.model.Token;
 import lombok.extern.log4j.Log4j2;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -35,7 +44,10 @@ import java.util.Set;
 import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,31 +62,39 @@ public class AIFileServiceImpl implements AIFileService {
     private final MemberRepository memberRepository;
     private final AITicketClientService aiClient; // AI 클라이언트 추가
     private final ObjectMapper objectMapper; // JSON 파싱용
+    private final AiFileSearchIndex fileSearchIndex; // 키워드 검색 역색인 (준비 전에는 DB LIKE)
+    private final AiQueryFanOut queryFanOut; // 티켓/채팅 쿼리 병렬 실행 (요청당 동시 실행 한도 / 시간 예산)
+    private final PlatformTransactionManager transactionManager; // 병렬 쿼리는 요청 스레드 세션 밖이라 각자 읽기 트랜잭션에서 연관까지 채운다
 
-    // 한국어 형태소 분석기 (Komoran) - 자연어에서 명사만 추출
-    private Komoran komoran;
+    // 역색인 후보를 종류별로 한 번에 몇 개씩 PK IN 으로 확인할지 (걸러져서 페이지가 덜 차면 다음 묶음)
+    @Value("${ai.file-index.max-candidates:200}")
+    private int indexMaxCandidates;
+
+    // 겹치는 조건 단계: 조건 하나짜리 조회마다 종류별 최신 몇 건까지 후보로 모을지
+    @Value("${ai.file-search.overlap-candidates:200}")
+    private int overlapCandidates;
+
+    // 한국어 형태소 분석기 (Komoran) - 자연어에서 명사만 추출 (공유 인스턴스, 초기화 실패 시 null → 기본 토큰화)
+    private final Komoran komoran;
 
     public AIFileServiceImpl(TicketFileRepository ticketFileRepository,
                              ChatFileRepository chatFileRepository,
                              MemberRepository memberRepository,
                              AITicketClientService aiClient,
-                             ObjectMapper objectMapper) {
+                             ObjectMapper objectMapper,
+                             AiFileSearchIndex fileSearchIndex,
+                             AiQueryFanOut queryFanOut,
+                             PlatformTransactionManager transactionManager,
+                             @Nullable Komoran komoran) {
         this.ticketFileRepository = ticketFileRepository;
         this.chatFileRepository = chatFileRepository;
         this.memberRepository = memberRepository;
         this.aiClient = aiClient;
         this.objectMapper = objectMapper;
-    }
-
-    @PostConstruct
-    public void initKomoran() {
-        try {
-            this.komoran = new Komoran(DEFAULT_MODEL.LIGHT); // LIGHT 모델 사용 (빠름)
-            log.info("[Komoran] 형태소 분석기 초기화 완료");
-        } catch (Exception e) {
-            log.warn("[Komoran] 초기화 실패, 기본 토큰화 사용: {}", e.getMessage());
-            this.komoran = null;
-        }
+        this.fileSearchIndex = fileSearchIndex;
+        this.queryFanOut = queryFanOut;
+        this.transactionManager = transactionManager;
+        this.komoran = komoran;
     }
 
     private static final Pattern EMAIL_PATTERN =
@@ -145,7 +165,7 @@ public class AIFileServiceImpl implements AIFileService {
         if (needsAIParsing) {
             try {
                 String prompt = AIFilePromptUtil.getFileSearchParsePrompt(base);
-                String jsonResult = aiClient.generateJson(prompt);
+                String jsonResult = aiClient.generateJson(AiFeature.FILE_SEARCH, prompt);
                 
                 JsonNode rootNode = objectMapper.readTree(jsonResult);
                 JsonNode dateRangeNode = rootNode.path("dateRange");
@@ -234,7 +254,7 @@ public class AIFileServiceImpl implements AIFileService {
         // 1) 사용자가 준 조건(기간/상대/부서/키워드)을 모두 AND로 검색
         // 2) 0건이면 AI가 "같은 조건"을 더 잘 해석(키워드 분해/정규화 중심)하여 다시 AND 검색
         // 3) 그래도 0건이면 "겹치는 조건 개수"가 가장 큰 결과를 제시 (3개→2개→1개), 안내문에는 '맞춘 조건'만 표시
-        return searchWithAiAndOverlap(receiverEmail, request, base, range, filter, keywordTokens, pageable);
+        return searchWithAiAndOverlap(receiverEmail, request, base, range, filter, keywordTokens, pageable, queryFanOut.begin());
     }
 
     private enum Cond {
@@ -269,6 +289,12 @@ public class AIFileServiceImpl implements AIFileService {
         }
     }
 
+    // 겹치는 조건 단계 후보 (최신순, 파일별 조건 비트마스크)
+    private static class OverlapCandidates {
+        final AiConditionOverlap<TicketFile> tickets = new AiConditionOverlap<>();
+        final AiConditionOverlap<ChatFile> chats = new AiConditionOverlap<>();
+    }
+
     private static class AiParsed {
         final DateRange range;
         final NaturalFilter filter;
@@ -289,7 +315,7 @@ public class AIFileServiceImpl implements AIFileService {
         if (originalInput == null || originalInput.isBlank()) return null;
         try {
             String prompt = AIFilePromptUtil.getFileSearchParsePrompt(originalInput);
-            String jsonResult = aiClient.generateJson(prompt);
+            String jsonResult = aiClient.generateJson(AiFeature.FILE_SEARCH, prompt);
             JsonNode rootNode = objectMapper.readTree(jsonResult);
 
             DateRange nextRange = currentRange;
@@ -370,7 +396,8 @@ public class AIFileServiceImpl implements AIFileService {
                                                      DateRange range,
                                                      NaturalFilter filter,
                                                      List<String> keywordTokens,
-                                                     PageRequest pageable) {
+                                                     PageRequest pageable,
+                                                     AiQueryFanOut.Budget budget) {
         LocalDateTime fromDt = range != null ? range.from : null;
         LocalDateTime toDt = range != null ? range.to : null;
 
@@ -378,7 +405,7 @@ public class AIFileServiceImpl implements AIFileService {
 
         // [1] strict AND search (all recognized conditions)
         Set<Cond> strict = buildPresentConds(params);
-        SearchResult strictRes = runSearch(myEmail, params, filter, strict, pageable);
+        SearchResult strictRes = runSearch(myEmail, params, filter, strict, pageable, budget);
         if (!strictRes.isEmpty()) {
             AIFileResponseDTO resp = buildResponseMerged(request, strictRes.ticketFiles, strictRes.chatFiles, "", params.keywordTokens);
             // buildResponseMerged가 기본 메시지를 세팅하므로 그대로 둔다.
@@ -396,7 +423,7 @@ public class AIFileServiceImpl implements AIFileService {
             List<String> aiKeywordTokens = extractKeywordTokens(aiFilter.keyword);
             SearchParams aiParamsAll = new SearchParams(aiFrom, aiTo, aiFilter.counterEmail, aiFilter.department, aiKeywordTokens);
             Set<Cond> aiStrictAll = buildPresentConds(aiParamsAll);
-            SearchResult aiStrictAllRes = runSearch(myEmail, aiParamsAll, aiFilter, aiStrictAll, pageable);
+            SearchResult aiStrictAllRes = runSearch(myEmail, aiParamsAll, aiFilter, aiStrictAll, pageable, budget);
             if (!aiStrictAllRes.isEmpty()) {
                 AIFileResponseDTO resp = buildResponseMerged(request, aiStrictAllRes.ticketFiles, aiStrictAllRes.chatFiles, "", aiKeywordTokens);
                 return resp;
@@ -417,7 +444,7 @@ public class AIFileServiceImpl implements AIFileService {
             if (aiTokens != null && !aiTokens.isEmpty() && !aiTokens.equals(params.keywordTokens)) {
                 SearchParams aiParams = new SearchParams(fromDt, toDt, params.counterEmail, params.dept, aiTokens);
                 Set<Cond> aiStrict = buildPresentConds(aiParams);
-                SearchResult aiStrictRes = runSearch(myEmail, aiParams, filter, aiStrict, pageable);
+                SearchResult aiStrictRes = runSearch(myEmail, aiParams, filter, aiStrict, pageable, budget);
                 if (!aiStrictRes.isEmpty()) {
                     AIFileResponseDTO resp = buildResponseMerged(request, aiStrictRes.ticketFiles, aiStrictRes.chatFiles, "", aiTokens);
                     return resp;
@@ -430,24 +457,43 @@ public class AIFileServiceImpl implements AIFileService {
 
         // [3] overlap: 조건 개수(4→3→2→1) 순으로 "가장 많이 겹치는 조건 조합 1개"를 선택해서 그 결과만 보여준다.
         // ✅ 중요: 여러 조합을 UNION으로 섞어버리면(예: {기간} + {키워드}) 사용자가 "파일명에 있는데 왜 못찾냐"로 체감한다.
+        // 조합마다 runSearch 하지 않는다: 조건 하나짜리 후보를 한 번 모으고, 파일별 조건 비트마스크로 조합 결과를 메모리에서 거른다.
+        OverlapCandidates candidates = strict.size() > 1
+                ? fetchOverlapCandidates(myEmail, params, filter, strict, budget) : new OverlapCandidates();
+        int size = pageable.getPageSize();
         SearchResult best = null;
         Set<Cond> bestConds = null;
         int bestScore = Integer.MIN_VALUE;
+        boolean bestExact = true;
         int maxK = strict.size();
         for (int k = maxK - 1; k >= 1; k--) {
-            List<Set<Cond>> subsets = subsetsOfSize(strict, k);
-            for (Set<Cond> s : subsets) {
-                SearchResult r = runSearch(myEmail, params, filter, s, pageable);
+            for (int mask : AiConditionOverlap.submasksOfSize(maskOf(strict), k)) {
+                Set<Cond> s = condsOf(mask);
+                int required = requiredBits(s);
+                SearchResult r = new SearchResult(candidates.tickets.matching(required, size),
+                        candidates.chats.matching(required, size));
+                boolean exact = candidates.tickets.covers(required) && candidates.chats.covers(required);
+                if (r.isEmpty() && !exact) {
+                    // 후보 상한에 잘려 비어 보일 수 있는 조합만 DB 로 확인
+                    r = runSearch(myEmail, params, filter, s, pageable, budget);
+                    exact = true;
+                }
                 if (r.isEmpty()) continue;
                 int score = subsetScore(s, r);
                 if (score > bestScore) {
                     bestScore = score;
                     best = r;
                     bestConds = s;
+                    bestExact = exact;
                 }
             }
             if (best != null) break; // 가장 큰 k에서 하나라도 찾으면 종료
         }
+        if (best != null && !bestExact) {
+            // 뽑힌 조합의 최신순 결과는 후보 밖(더 오래된 파일 사이)에 빠진 게 있을 수 있어 한 번만 DB 로
+            SearchResult r = runSearch(myEmail, params, filter, bestConds, pageable, budget);
+            if (!r.isEmpty()) best = r;
+        }
 
         if (best != null && bestConds != null && !best.isEmpty()) {
             List<String> shownTokens = bestConds.contains(Cond.KEYWORD) ? params.keywordTokens : List.of();
@@ -519,32 +565,43 @@ public class AIFileServiceImpl implements AIFileService {
         return s;
     }
 
-    private List<Set<Cond>> subsetsOfSize(Set<Cond> base, int k) {
-        List<Cond> items = new ArrayList<>(base);
-        List<Set<Cond>> out = new ArrayList<>();
-        backtrackSubsets(items, 0, k, new LinkedHashSet<>(), out);
-        return out;
+    // 조합 비트마스크: Cond i → 1 << ordinal
+    // SIMILAR_BIT 는 조건이 아니라 "필터와 함께 쓰인 키워드" 판정용 (runSearchWithSimilarity 와 같은 유사도 0.7 이상)
+    private static final int SIMILAR_BIT = 1 << Cond.values().length;
+
+    private static int bitOf(Cond c) {
+        return 1 << c.ordinal();
     }
 
-    private void backtrackSubsets(List<Cond> items, int idx, int k, LinkedHashSet<Cond> cur, List<Set<Cond>> out) {
-        if (cur.size() == k) {
-            out.add(new LinkedHashSet<>(cur));
-            return;
-        }
-        if (idx >= items.size()) return;
-        // pick
-        cur.add(items.get(idx));
-        backtrackSubsets(items, idx + 1, k, cur, out);
-        cur.remove(items.get(idx));
-        // skip
-        backtrackSubsets(items, idx + 1, k, cur, out);
+    private static int maskOf(Set<Cond> conds) {
+        int mask = 0;
+        for (Cond c : conds) mask |= bitOf(c);
+        return mask;
+    }
+
+    private static Set<Cond> condsOf(int mask) {
+        LinkedHashSet<Cond> s = new LinkedHashSet<>();
+        for (Cond c : Cond.values()) {
+            if ((mask & bitOf(c)) != 0) s.add(c);
+        }
+        return s;
+    }
+
+    // 조합이 실제로 요구하는 비트 (runSearch 분기와 같게: 필터 + 키워드면 AND 대신 유사도)
+    private static int requiredBits(Set<Cond> conds) {
+        int mask = maskOf(conds);
+        if (conds.contains(Cond.KEYWORD) && conds.size() > 1) {
+            mask = (mask & ~bitOf(Cond.KEYWORD)) | SIMILAR_BIT;
+        }
+        return mask;
     }
 
     private SearchResult runSearch(String myEmail,
                                    SearchParams params,
                                    NaturalFilter filter,
                                    Set<Cond> conds,
-                                   PageRequest pageable) {
+                                   PageRequest pageable,
+                                   AiQueryFanOut.Budget budget) {
         LocalDateTime fromDt = conds.contains(Cond.DATE) ? params.fromDt : null;
         LocalDateTime toDt = conds.contains(Cond.DATE) ? params.toDt : null;
         String counter = conds.contains(Cond.COUNTER) ? params.counterEmail : null;
@@ -558,7 +615,13 @@ public class AIFileServiceImpl implements AIFileService {
         // 키워드만 있고 필터가 없으면 DB LIKE가 훨씬 빠르므로 기존 방식 (전체 스캔 방지)
         // 필터가 있으면 "후보군 Fetch -> 유사도 Scoring" 전략 사용
         if (hasFilter && hasKeyword) {
-            return runSearchWithSimilarity(myEmail, fromDt, toDt, counter, dept, tokens, filter, pageable);
+            return runSearchWithSimilarity(myEmail, fromDt, toDt, counter, dept, tokens, filter, pageable, budget);
+        }
+
+        // 필터 없이 키워드만 있으면 역색인으로 후보를 찾고 PK IN 조회로 확인 (색인 준비 전/짧은 키워드는 아래 DB LIKE)
+        if (hasKeyword) {
+            SearchResult indexed = runIndexedSearch(myEmail, tokens, filter, pageable, budget);
+            if (indexed != null) return indexed;
         }
 
         // 기존 로직 (키워드가 없거나, 필터 없이 키워드만 있는 경우)
@@ -570,17 +633,23 @@ public class AIFileServiceImpl implements AIFileService {
 
         if (seeds.isEmpty()) seeds = List.of("");
 
-        for (String seed : seeds) {
-            String kw = seed == null ? "" : seed.trim();
-            Page<TicketFile> ticketPage = ticketFileRepository.searchAccessibleFilesForAI(
-                    myEmail, kw, fromDt, toDt, counter, dept, pageable
-            );
-            Page<ChatFile> chatPage = chatFileRepository.searchAccessibleChatFilesForAI(
-                    myEmail, kw, fromDt, toDt, counter, dept, pageable
-            );
+        // seed × (티켓, 채팅) 쿼리는 서로 독립 → 가상 스레드로 동시에 (결과 병합은 아래에서 seed 순서 그대로)
+        List<AiQueryFanOut.Subtask<List<TicketFile>>> ticketTasks = new ArrayList<>();
+        List<AiQueryFanOut.Subtask<List<ChatFile>>> chatTasks = new ArrayList<>();
+        try (AiQueryFanOut.Scope scope = budget.open()) {
+            for (String seed : seeds) {
+                String kw = seed == null ? "" : seed.trim();
+                ticketTasks.add(scope.fork(() -> fetchTicketFiles(() -> contentOf(ticketFileRepository.searchAccessibleFilesForAI(
+                        myEmail, kw, fromDt, toDt, counter, dept, pageable)), hasKeyword)));
+                chatTasks.add(scope.fork(() -> fetchChatFiles(() -> contentOf(chatFileRepository.searchAccessibleChatFilesForAI(
+                        myEmail, kw, fromDt, toDt, counter, dept, pageable)), false)));
+            }
+            if (!scope.join()) log.warn("[AI File] 조회 시간 예산 초과 - 끝난 쿼리 결과만 사용 | seeds={}", seeds);
+        }
 
-            List<TicketFile> tf = ticketPage != null ? ticketPage.getContent() : List.of();
-            List<ChatFile> cf = chatPage != null ? chatPage.getContent() : List.of();
+        for (int i = 0; i < seeds.size(); i++) {
+            List<TicketFile> tf = orEmpty(ticketTasks.get(i).result());
+            List<ChatFile> cf = orEmpty(chatTasks.get(i).result());
 
             // AND 후처리 (내용 조건이 있을 때만)
             if (tokens != null && !tokens.isEmpty()) {
@@ -613,6 +682,340 @@ public class AIFileServiceImpl implements AIFileService {
         return new SearchResult(new ArrayList<>(ticketMap.values()), new ArrayList<>(chatMap.values()));
     }
 
+    /**
+     * [역색인 검색]
+     * 1. AiFileSearchIndex: 접근 비트맵 ∧ 키워드별 posting 교집합 ∧ 보낸/받은 → 종류별 최신순 후보 uuid (한 번에 N건)
+     * 2. DB: uuid IN + 접근 조건으로 한 번씩 조회 (재입장 등으로 바뀐 권한은 여기서 걸러진다)
+     * 3. Java: 기존과 같은 AND 확인(matchesAllTokens) + 보낸/받은 필터
+     * 4. 걸러져서 페이지가 덜 찬 종류만 다음 후보 N건으로 2~3 반복 (후보가 끝나거나 시간 예산이 다 될 때까지)
+     *
+     * @return 색인으로 답할 수 없으면 null (호출 측이 DB LIKE 검색)
+     */
+    private SearchResult runIndexedSearch(String myEmail,
+                                          List<String> tokens,
+                                          NaturalFilter filter,
+                                          PageRequest pageable,
+                                          AiQueryFanOut.Budget budget) {
+        int size = pageable.getPageSize();
+        int step = Math.max(1, indexMaxCandidates);
+        List<TicketFile> tf = new ArrayList<>();
+        List<ChatFile> cf = new ArrayList<>();
+        Map<String, String> emailToNickname = new HashMap<>();
+        boolean ticketsDone = false;
+        boolean chatsDone = false;
+        int matched = 0;
+        int pages = 0;
+
+        for (int offset = 0; !(ticketsDone && chatsDone); offset += step) {
+            AiFileSearchIndex.Candidates candidates = fileSearchIndex.search(
+                    myEmail, tokens, filter.senderOnly, filter.receiverOnly, offset, step);
+            if (candidates == null) {
+                if (pages == 0) return null;
+                break; // 도중에 색인이 내려감: 모은 데까지
+            }
+            matched = candidates.matched();
+            pages++;
+            List<String> ticketUuids = ticketsDone ? List.of() : candidates.ticketUuids();
+            List<String> chatUuids = chatsDone ? List.of() : candidates.chatUuids();
+
+            AiQueryFanOut.Subtask<List<TicketFile>> ticketTask;
+            AiQueryFanOut.Subtask<List<ChatFile>> chatTask;
+            boolean inTime;
+            try (AiQueryFanOut.Scope scope = budget.open()) {
+                ticketTask = scope.fork(() -> ticketUuids.isEmpty() ? List.of() : fetchTicketFiles(
+                        () -> ticketFileRepository.findAccessibleByUuidIn(myEmail, ticketUuids), true));
+                chatTask = scope.fork(() -> chatUuids.isEmpty() ? List.of() : fetchChatFiles(
+                        () -> chatFileRepository.findAccessibleByUuidIn(myEmail, chatUuids), false));
+                inTime = scope.join();
+                if (!inTime) log.warn("[AI File Index] 조회 시간 예산 초과 - 끝난 쿼리 결과만 사용 | offset={}", offset);
+            }
+
+            inCandidateOrder(ticketUuids, orEmpty(ticketTask.result()), TicketFile::getUuid).stream()
+                    .filter(f -> matchesAllTokens(f, tokens))
+                    .filter(f -> matchesDirection(f, filter, myEmail))
+                    .limit(size - tf.size())
+                    .forEach(tf::add);
+            inCandidateOrder(chatUuids, orEmpty(chatTask.result()), ChatFile::getUuid).stream()
+                    .filter(f -> matchesAllTokensChat(f, tokens, emailToNickname))
+                    .filter(f -> matchesDirection(f, filter, myEmail))
+                    .limit(size - cf.size())
+                    .forEach(cf::add);
+
+            // 후보가 step 보다 적게 왔으면 그 종류는 끝
+            ticketsDone = ticketsDone || tf.size() >= size || ticketUuids.size() < step;
+            chatsDone = chatsDone || cf.size() >= size || chatUuids.size() < step;
+            if (!inTime || budget.expired()) break;
+        }
+
+        log.info("[AI File Index] matched={} | pages={} | tickets={} | chats={}", matched, pages, tf.size(), cf.size());
+        return new SearchResult(tf, cf);
+    }
+
+    // 보낸/받은 필터 (runSearch 와 같은 조건. 색인이 걸러도 DB 값으로 다시 확인)
+    private static boolean matchesDirection(TicketFile f, NaturalFilter filter, String myEmail) {
+        if (filter.senderOnly && !myEmail.equalsIgnoreCase(f.getWriter())) return false;
+        return !filter.receiverOnly || myEmail.equalsIgnoreCase(f.getReceiver());
+    }
+
+    // chat은 writer != myEmail로 받은 파일 판단 (receiver는 group에서 null일 수 있음)
+    private static boolean matchesDirection(ChatFile f, NaturalFilter filter, String myEmail) {
+        if (filter.senderOnly && !myEmail.equalsIgnoreCase(f.getWriter())) return false;
+        return !filter.receiverOnly || f.getWriter() == null || !myEmail.equalsIgnoreCase(f.getWriter());
+    }
+
+    /**
+     * [겹치는 조건 후보]
+     * 1. DB: 조건 하나짜리 조회만 한 Scope 에서 동시에 (조합마다 runSearch 하던 것 대신)
+     *    - 기간/부서/상대: 키워드 없이 그 조건 하나로 종류별 최신 N건 (ai.file-search.overlap-candidates)
+     *    - 키워드: 역색인 후보 PK IN, 색인으로 답할 수 없으면 seed LIKE
+     *    두 개 이상 조건을 만족하는 파일은 그 조건 하나짜리 결과에도 들어 있다. (상한 N 안에서)
+     * 2. Java: 보낸/받은 필터 후 파일마다 만족하는 조건 비트마스크 (Repository 쿼리 조건 그대로)
+     */
+    private OverlapCandidates fetchOverlapCandidates(String myEmail,
+                                                     SearchParams params,
+                                                     NaturalFilter filter,
+                                                     Set<Cond> strict,
+                                                     AiQueryFanOut.Budget budget) {
+        PageRequest fetchPageable = PageRequest.of(0, overlapCandidates, Sort.by(Sort.Direction.DESC, "createdAt"));
+        List<String> tokens = strict.contains(Cond.KEYWORD) ? params.keywordTokens : List.of();
+        AiFileSearchIndex.Candidates indexed = tokens.isEmpty() ? null : fileSearchIndex.search(
+                myEmail, tokens, filter.senderOnly, filter.receiverOnly, 0, overlapCandidates);
+        List<String> seeds = tokens.isEmpty() || indexed != null ? List.of() : buildKeywordSeeds(tokens);
+
+        // 조회마다 어떤 조건 비트의 후보인지 (상한보다 적게 나오면 그 조건을 만족하는 파일은 빠짐없이 모인 것)
+        List<AiQueryFanOut.Subtask<List<TicketFile>>> ticketTasks = new ArrayList<>();
+        List<AiQueryFanOut.Subtask<List<ChatFile>>> chatTasks = new ArrayList<>();
+        List<Cond> taskConds = new ArrayList<>();
+        try (AiQueryFanOut.Scope scope = budget.open()) {
+            for (Cond c : strict) {
+                if (c == Cond.KEYWORD) continue;
+                LocalDateTime fromDt = c == Cond.DATE ? params.fromDt : null;
+                LocalDateTime toDt = c == Cond.DATE ? params.toDt : null;
+                String counter = c == Cond.COUNTER ? params.counterEmail : null;
+                Department dept = c == Cond.DEPT ? params.dept : null;
+                ticketTasks.add(scope.fork(() -> fetchTicketFiles(() -> contentOf(ticketFileRepository.searchAccessibleFilesForAI(
+                        myEmail, "", fromDt, toDt, counter, dept, fetchPageable)), true)));
+                chatTasks.add(scope.fork(() -> fetchChatFiles(() -> contentOf(chatFileRepository.searchAccessibleChatFilesForAI(
+                        myEmail, "", fromDt, toDt, counter, dept, fetchPageable)), true)));
+                taskConds.add(c);
+            }
+            if (indexed != null) {
+                ticketTasks.add(scope.fork(() -> indexed.ticketUuids().isEmpty() ? List.of() : fetchTicketFiles(
+                        () -> ticketFileRepository.findAccessibleByUuidIn(myEmail, indexed.ticketUuids()), true)));
+                chatTasks.add(scope.fork(() -> indexed.chatUuids().isEmpty() ? List.of() : fetchChatFiles(
+                        () -> chatFileRepository.findAccessibleByUuidIn(myEmail, indexed.chatUuids()), true)));
+                taskConds.add(Cond.KEYWORD);
+            }
+            for (String seed : seeds) {
+                ticketTasks.add(scope.fork(() -> fetchTicketFiles(() -> contentOf(ticketFileRepository.searchAccessibleFilesForAI(
+                        myEmail, seed, null, null, null, null, fetchPageable)), true)));
+                chatTasks.add(scope.fork(() -> fetchChatFiles(() -> contentOf(chatFileRepository.searchAccessibleChatFilesForAI(
+                        myEmail, seed, null, null, null, null, fetchPageable)), true)));
+                taskConds.add(Cond.KEYWORD); // 모든 토큰을 포함하는 파일은 seed 하나짜리 결과에도 들어 있다
+            }
+            if (!scope.join()) log.warn("[AI File] 조회 시간 예산 초과 - 끝난 쿼리 결과만 사용 (겹치는 조건)");
+        }
+
+        LinkedHashMap<String, TicketFile> ticketMap = new LinkedHashMap<>();
+        LinkedHashMap<String, ChatFile> chatMap = new LinkedHashMap<>();
+        for (AiQueryFanOut.Subtask<List<TicketFile>> task : ticketTasks) {
+            for (TicketFile f : orEmpty(task.result())) {
+                if (f != null && f.getUuid() != null) ticketMap.putIfAbsent(f.getUuid(), f);
+            }
+        }
+        for (AiQueryFanOut.Subtask<List<ChatFile>> task : chatTasks) {
+            for (ChatFile f : orEmpty(task.result())) {
+                if (f != null && f.getUuid() != null) chatMap.putIfAbsent(f.getUuid(), f);
+            }
+        }
+        List<TicketFile> tf = new ArrayList<>(ticketMap.values());
+        List<ChatFile> cf = new ArrayList<>(chatMap.values());
+
+        if (filter.senderOnly) {
+            tf = tf.stream().filter(f -> myEmail.equalsIgnoreCase(f.getWriter())).toList();
+            cf = cf.stream().filter(f -> myEmail.equalsIgnoreCase(f.getWriter())).toList();
+        }
+        if (filter.receiverOnly) {
+            tf = tf.stream().filter(f -> myEmail.equalsIgnoreCase(f.getReceiver())).toList();
+            cf = cf.stream().filter(f -> f.getWriter() == null || !myEmail.equalsIgnoreCase(f.getWriter())).toList();
+        }
+
+        // 조합별 결과는 DB 조회와 같은 최신순
+        tf = tf.stream().sorted(Comparator.comparing(TicketFile::getCreatedAt,
+                Comparator.nullsLast(Comparator.reverseOrder()))).toList();
+        cf = cf.stream().sorted(Comparator.comparing(ChatFile::getCreatedAt,
+                Comparator.nullsLast(Comparator.reverseOrder()))).toList();
+
+        // 채팅 부서/닉네임: 업로더 + 참여자를 한 번에 (파일마다 findById 하지 않게)
+        Set<String> emails = new HashSet<>();
+        for (ChatFile f : cf) {
+            if (f.getWriter() != null) emails.add(f.getWriter());
+            if (f.getChatRoom() != null) f.getChatRoom().getParticipants().forEach(cp -> emails.add(cp.getUserId()));
+        }
+        Map<String, Member> members = new HashMap<>();
+        if (!emails.isEmpty()) {
+            memberRepository.findAllById(emails).forEach(m -> members.put(m.getEmail().toLowerCase(Locale.ROOT), m));
+        }
+        Map<String, String> emailToNickname = new HashMap<>();
+        for (ChatFile f : cf) {
+            Member w = f.getWriter() != null ? members.get(f.getWriter().toLowerCase(Locale.ROOT)) : null;
+            if (w != null && w.getNickname() != null) emailToNickname.put(f.getWriter(), w.getNickname());
+        }
+
+        // 키워드 비트: 키워드만 쓰는 조합은 AND 포함(matchesAllTokens), 필터와 함께 쓰는 조합은 유사도(SIMILAR_BIT)
+        boolean withFilter = strict.size() > (tokens.isEmpty() ? 0 : 1);
+        String userQuery = String.join(" ", tokens);
+        OverlapCandidates out = new OverlapCandidates();
+        for (int i = 0; i < taskConds.size(); i++) {
+            // 역색인 후보는 색인 단계에서 이미 상한으로 잘렸을 수 있다
+            boolean indexCut = indexed != null && taskConds.get(i) == Cond.KEYWORD;
+            List<TicketFile> ticketRows = ticketTasks.get(i).result();
+            List<ChatFile> chatRows = chatTasks.get(i).result();
+            if (ticketRows != null && (indexCut ? indexed.ticketUuids().size() : ticketRows.size()) < overlapCandidates) {
+                out.tickets.markComplete(bitOf(taskConds.get(i)));
+            }
+            if (chatRows != null && (indexCut ? indexed.chatUuids().size() : chatRows.size()) < overlapCandidates) {
+                out.chats.markComplete(bitOf(taskConds.get(i)));
+            }
+        }
+        for (TicketFile f : tf) {
+            int keywordBits = 0;
+            if (!tokens.isEmpty()) {
+                if (matchesAllTokens(f, tokens)) keywordBits |= bitOf(Cond.KEYWORD);
+                if (withFilter && calculateMaxScore(f, userQuery) >= 0.7) keywordBits |= SIMILAR_BIT;
+            }
+            out.tickets.add(f, ticketConditionMasks(f, myEmail, params, keywordBits));
+        }
+        for (ChatFile f : cf) {
+            int keywordBits = 0;
+            if (!tokens.isEmpty()) {
+                if (matchesAllTokensChat(f, tokens, emailToNickname)) keywordBits |= bitOf(Cond.KEYWORD);
+                if (withFilter && calculateMaxScoreChat(f, userQuery, emailToNickname) >= 0.7) keywordBits |= SIMILAR_BIT;
+            }
+            out.chats.add(f, chatConditionMask(f, params, members, keywordBits));
+        }
+
+        log.info("[AI File Overlap] conds={} | queries={} | tickets={} | chats={}",
+                strict, ticketTasks.size() + chatTasks.size(), out.tickets.size(), out.chats.size());
+        return out;
+    }
+
+    // 티켓 파일의 조건 비트마스크. searchAccessibleFilesForAI 는 수신자 행(LEFT JOIN)마다 접근/상대/부서를 함께 보므로 행마다 하나씩
+    private static int[] ticketConditionMasks(TicketFile f, String myEmail, SearchParams p, int keywordBits) {
+        Ticket t = f.getTicket();
+        if (t == null || t.getWriter() == null) return new int[0];
+        Member w = t.getWriter();
+        LocalDateTime at = f.getCreatedAt() != null ? f.getCreatedAt() : t.getBirth();
+        int base = keywordBits | (inRange(at, p) ? bitOf(Cond.DATE) : 0);
+
+        List<Member> receivers = new ArrayList<>();
+        if (t.getPersonalList() != null) t.getPersonalList().forEach(tp -> receivers.add(tp != null ? tp.getReceiver() : null));
+        if (receivers.isEmpty()) receivers.add(null); // 수신자 없는 티켓도 한 행
+
+        return receivers.stream()
+                .filter(r -> sameEmail(w, myEmail) || sameEmail(r, myEmail))
+                .mapToInt(r -> {
+                    int mask = base;
+                    if (p.counterEmail != null && (sameEmail(w, p.counterEmail) || sameEmail(r, p.counterEmail))) mask |= bitOf(Cond.COUNTER);
+                    if (p.dept != null && (deptOf(w) == p.dept || deptOf(r) == p.dept)) mask |= bitOf(Cond.DEPT);
+                    return mask;
+                })
+                .distinct()
+                .toArray();
+    }
+
+    // 채팅 파일의 조건 비트마스크 (searchAccessibleChatFilesForAI: 상대는 방 참여자, 부서는 업로더 또는 참여자)
+    private static int chatConditionMask(ChatFile f, SearchParams p, Map<String, Member> members, int keywordBits) {
+        int mask = keywordBits | (inRange(f.getCreatedAt(), p) ? bitOf(Cond.DATE) : 0);
+        List<ChatParticipant> participants = f.getChatRoom() != null ? f.getChatRoom().getParticipants() : List.of();
+        if (p.counterEmail != null && participants.stream().anyMatch(cp -> p.counterEmail.equalsIgnoreCase(cp.getUserId()))) {
+            mask |= bitOf(Cond.COUNTER);
+        }
+        if (p.dept != null && (deptOf(members, f.getWriter()) == p.dept
+                || participants.stream().anyMatch(cp -> deptOf(members, cp.getUserId()) == p.dept))) {
+            mask |= bitOf(Cond.DEPT);
+        }
+        return mask;
+    }
+
+    private static boolean inRange(LocalDateTime at, SearchParams p) {
+        if (at == null || (p.fromDt == null && p.toDt == null)) return false;
+        return (p.fromDt == null || !at.isBefore(p.fromDt)) && (p.toDt == null || !at.isAfter(p.toDt));
+    }
+
+    private static boolean sameEmail(Member m, String email) {
+        return m != null && email != null && email.equalsIgnoreCase(m.getEmail());
+    }
+
+    private static Department deptOf(Member m) {
+        return m != null ? m.getDepartment() : null;
+    }
+
+    private static Department deptOf(Map<String, Member> members, String email) {
+        return email != null ? deptOf(members.get(email.toLowerCase(Locale.ROOT))) : null;
+    }
+
+    /**
+     * 병렬 작업 안에서 티켓 파일 조회. 요청 스레드의 세션(OSIV) 밖이므로 읽기 트랜잭션 안에서
+     * 이후 단계가 읽는 연관(티켓, AND 확인용 작성자/수신자)을 미리 채워 둔다.
+     */
+    private List<TicketFile> fetchTicketFiles(Supplier<List<TicketFile>> query, boolean withPeople) {
+        return readOnlyTx().execute(status -> {
+            List<TicketFile> files = query.get();
+            for (TicketFile f : files) {
+                if (f.getTicket() == null) continue;
+                Hibernate.initialize(f.getTicket());
+                if (withPeople) {
+                    Hibernate.initialize(f.getTicket().getWriter());
+                    f.getTicket().getPersonalList().forEach(tp -> Hibernate.initialize(tp.getReceiver()));
+                }
+            }
+            return files;
+        });
+    }
+
+    // 병렬 작업 안에서 채팅 파일 조회 (채팅방 이름까지, 조건 비트 계산용이면 참여자까지 채운다)
+    private List<ChatFile> fetchChatFiles(Supplier<List<ChatFile>> query, boolean withParticipants) {
+        return readOnlyTx().execute(status -> {
+            List<ChatFile> files = query.get();
+            for (ChatFile f : files) {
+                if (f.getChatRoom() == null) continue;
+                Hibernate.initialize(f.getChatRoom());
+                if (withParticipants) Hibernate.initialize(f.getChatRoom().getParticipants());
+            }
+            return files;
+        });
+    }
+
+    // 병렬 작업의 읽기 트랜잭션. 남은 시간 예산을 timeout 으로 걸어 예산을 넘긴 쿼리는 DB 가 끊는다.
+    // (AiQueryFanOut 은 이미 시작한 작업을 인터럽트하지 않는다: 소켓 I/O 중 인터럽트는 풀 커넥션을 죽인다)
+    private TransactionTemplate readOnlyTx() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setTimeout(AiQueryFanOut.queryTimeoutSeconds());
+        return tx;
+    }
+
+    private static <T> List<T> contentOf(Page<T> page) {
+        return page != null ? page.getContent() : List.of();
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    // IN 조회 결과를 후보(최신순) 순서로 되돌린다
+    private static <T> List<T> inCandidateOrder(List<String> uuids, List<T> rows, Function<T, String> uuidOf) {
+        Map<String, T> byUuid = new HashMap<>();
+        for (T row : rows) byUuid.put(uuidOf.apply(row), row);
+        List<T> ordered = new ArrayList<>();
+        for (String uuid : uuids) {
+            T row = byUuid.get(uuid);
+            if (row != null) ordered.add(row);
+        }
+        return ordered;
+    }
+
     /**
      * [역발상 검색]
      * 1. DB: 키워드 조건 없이(kw="") 필터(기간/부서/상대)만으로 최신 100건 조회
@@ -624,21 +1027,25 @@ public class AIFileServiceImpl implements AIFileService {
                                                  String counter, Department dept,
                                                  List<String> tokens,
                                                  NaturalFilter filter,
-                                                 PageRequest originalPageable) {
+                                                 PageRequest originalPageable,
+                                                 AiQueryFanOut.Budget budget) {
         // DB Fetch용 페이징: 정렬은 최신순, 개수는 좀 넉넉하게 (예: 100개)
         // 너무 많이 가져오면 느리니까 적당히 끊음.
         PageRequest fetchPageable = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "createdAt"));
 
-        // 1. DB Fetch (Keyword = "")
-        Page<TicketFile> ticketPage = ticketFileRepository.searchAccessibleFilesForAI(
-                myEmail, "", fromDt, toDt, counter, dept, fetchPageable
-        );
-        Page<ChatFile> chatPage = chatFileRepository.searchAccessibleChatFilesForAI(
-                myEmail, "", fromDt, toDt, counter, dept, fetchPageable
-        );
+        // 1. DB Fetch (Keyword = "") - 티켓/채팅 동시에
+        AiQueryFanOut.Subtask<List<TicketFile>> ticketTask;
+        AiQueryFanOut.Subtask<List<ChatFile>> chatTask;
+        try (AiQueryFanOut.Scope scope = budget.open()) {
+            ticketTask = scope.fork(() -> fetchTicketFiles(() -> contentOf(ticketFileRepository.searchAccessibleFilesForAI(
+                    myEmail, "", fromDt, toDt, counter, dept, fetchPageable)), false));
+            chatTask = scope.fork(() -> fetchChatFiles(() -> contentOf(chatFileRepository.searchAccessibleChatFilesForAI(
+                    myEmail, "", fromDt, toDt, counter, dept, fetchPageable)), false));
+            if (!scope.join()) log.warn("[AI File] 조회 시간 예산 초과 - 끝난 쿼리 결과만 사용 (유사도 검색)");
+        }
 
-        List<TicketFile> tf = ticketPage != null ? ticketPage.getContent() : new ArrayList<>();
-        List<ChatFile> cf = chatPage != null ? chatPage.getContent() : new ArrayList<>();
+        List<TicketFile> tf = orEmpty(ticketTask.result());
+        List<ChatFile> cf = orEmpty(chatTask.result());
 
         // 2. 보낸/받은 필터 적용
         if (filter.senderOnly) {
@@ -732,7 +1139,7 @@ public class AIFileServiceImpl implements AIFileService {
         try {
             // 기존 parse 프롬프트를 재활용하되, 목적은 keyword 정규화/분해다.
             String prompt = AIFilePromptUtil.getFileSearchParsePrompt(originalInput == null ? "" : originalInput);
-            String jsonResult = aiClient.generateJson(prompt);
+            String jsonResult = aiClient.generateJson(AiFeature.FILE_SEARCH, prompt);
             JsonNode rootNode = objectMapper.readTree(jsonResult);
             String aiKeyword = rootNode.path("keyword").asText("").trim();
             if (aiKeyword == null || aiKeyword.isBlank()) return List.of();
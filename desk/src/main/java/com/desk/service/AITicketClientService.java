@@ -1,5 +1,7 @@
 package com.desk.service;
 
+import com.desk.service.ai.AiFeature;
+
 import java.util.List;
 
 public interface AITicketClientService {
@@ -7,9 +9,21 @@ public interface AITicketClientService {
     // 단순 텍스트 생성 (라우팅, 담당자 확인용)
     String generateText(String prompt);
 
+    // 호출 기능(AiFeature)을 지정한 텍스트 생성 (서킷/timeout 단위 분리)
+    String generateText(AiFeature feature, String prompt);
+
     // JSON 형식 응답 생성 (티켓 인터뷰용)
     String generateJson(String prompt);
 
-    // 텍스트 임베딩 (벡터 변환, RAG용)
-    List<Double> getEmbedding(String text, String embeddingModel);
-}
\ No newline at end of file
+    // 호출 기능(AiFeature)을 지정한 JSON 응답 생성
+    String generateJson(AiFeature feature, String prompt);
+
+    // 텍스트 배치 임베딩 (/api/embed, 입력 순서 유지). 실패 시 빈 리스트
+    // 직접 쓰지 말고 AiEmbeddingModel(모델/차원/정규화/배치 크기 관리)을 거친다.
+    default List<List<Double>> getEmbeddings(List<String> texts, String embeddingModel) {
+        return getEmbeddings(AiFeature.EMBEDDING, texts, embeddingModel);
+    }
+
+    // 호출 기능을 지정한 배치 임베딩 (EMBEDDING: 질의, EMBEDDING_INGEST: 지식 문서 일괄 적재)
+    List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel);
+}
@@ -2,11 +2,19 @@ package com.desk.service;
 
 import com.desk.config.OllamaConfig;
 import com.desk.dto.OllamaDTO;
+import com.desk.service.ai.AiCallGuard;
+import com.desk.service.ai.AiEndpointRouter;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiJsonParser;
+import com.desk.service.ai.AiJsonSchema;
+import com.desk.service.ai.AiUsageAccountant;
+import com.desk.util.AiUnavailableException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -14,8 +22,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Log4j2
@@ -26,46 +37,94 @@ public class AITicketClientServiceImpl implements AITicketClientService {
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final OllamaConfig ollamaConfig;
+    private final AiCallGuard aiCallGuard;
+    private final AiEndpointRouter endpointRouter;
+    private final AiUsageAccountant usageAccountant;
+
+    // false 면 스키마 대신 format:"json" (스키마 미지원 Ollama 버전용)
+    @Value("${ai.json.schema-enabled:true}")
+    private boolean schemaEnabled;
 
     @Override
     public String generateText(String prompt) {
-        return callOllama(prompt, false);
+        return generateText(AiFeature.TICKET_ROUTING, prompt);
+    }
+
+    @Override
+    public String generateText(AiFeature feature, String prompt) {
+        return aiCallGuard.execute(feature, () -> callOllama(feature, prompt, false), e -> { throw unavailable(feature, e); });
     }
 
     @Override
     public String generateJson(String prompt) {
-        return callOllama(prompt, true);
+        return generateJson(AiFeature.TICKET_INTERVIEW, prompt);
     }
 
     @Override
-    public List<Double> getEmbedding(String text, String embeddingModel) {
-        String apiUrl = ollamaConfig.getBaseUrl() + "/api/embeddings";
-        // JSON 문자열 직접 구성 (간단한 구조)
-        String requestJson = String.format("{\"model\": \"%s\", \"prompt\": \"%s\"}", embeddingModel, text.replace("\"", "\\\""));
+    public String generateJson(AiFeature feature, String prompt) {
+        String raw = aiCallGuard.execute(feature, () -> callOllama(feature, prompt, true), e -> { throw unavailable(feature, e); });
+        // 파싱 실패는 서버 장애가 아니므로 서킷 집계 밖에서 처리: 첫 유효 객체만 추려 순수 JSON 으로 돌려준다.
+        try {
+            return AiJsonParser.parseObject(raw).toString();
+        } catch (IllegalArgumentException e) {
+            log.warn("[AI Client] JSON 추출 실패 ({}): {}", feature, e.getMessage());
+            return raw;
+        }
+    }
+
+    @Override
+    public List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+        if (texts == null || texts.isEmpty()) return Collections.emptyList();
+        // 임베딩 실패 시 빈 리스트 (RAG 컨텍스트 없이 진행)
+        return aiCallGuard.execute(feature, () -> requestEmbeddings(feature, texts, embeddingModel), e -> {
+            log.error("[AI Client] Embedding Error ({}): {}", feature, e.getMessage());
+            return Collections.emptyList();
+        });
+    }
+
+    private AiUnavailableException unavailable(AiFeature feature, Throwable e) {
+        if (e instanceof AiUnavailableException ue) return ue;
+        return new AiUnavailableException("AI Server Connection Failed (" + feature + "): " + e.getMessage(), e);
+    }
+
+    private List<List<Double>> requestEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+        // /api/embed : input 배열 1회 요청으로 여러 텍스트 임베딩 (응답 embeddings 는 입력 순서)
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", embeddingModel);
+        body.put("input", texts);
+        body.put("truncate", true); // 모델 컨텍스트보다 긴 입력은 잘라서 임베딩
+        body.put("keep_alive", ollamaConfig.getKeepAlive());
 
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> entity = new HttpEntity<>(requestJson, headers);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+
+            ResponseEntity<String> response = endpointRouter.call(feature, embeddingModel,
+                    baseUrl -> restTemplate.postForEntity(baseUrl + "/api/embed", entity, String.class));
 
-            ResponseEntity<String> response = restTemplate.postForEntity(apiUrl, entity, String.class);
-            
             JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode embeddingNode = root.get("embedding");
-            
-            if (embeddingNode != null && embeddingNode.isArray()) {
-                return objectMapper.convertValue(embeddingNode, List.class);
+            usageAccountant.recordTokens(feature, root.path("prompt_eval_count").asLong(), 0);
+            JsonNode embeddingsNode = root.get("embeddings");
+            if (embeddingsNode == null || !embeddingsNode.isArray() || embeddingsNode.size() != texts.size()) {
+                throw new IllegalStateException("embeddings count mismatch (expected " + texts.size() + ")");
             }
-            return Collections.emptyList();
+
+            List<List<Double>> result = new ArrayList<>(texts.size());
+            for (JsonNode vectorNode : embeddingsNode) {
+                List<Double> vector = new ArrayList<>(vectorNode.size());
+                vectorNode.forEach(n -> vector.add(n.asDouble()));
+                result.add(vector);
+            }
+            return result;
 
         } catch (Exception e) {
-            log.error("[AI Client] Embedding Error: {}", e.getMessage());
-            return Collections.emptyList();
+            // 서킷 브레이커가 실패로 집계하도록 그대로 전파
+            throw new RuntimeException("Embedding request failed: " + e.getMessage(), e);
         }
     }
 
-    private String callOllama(String prompt, boolean jsonMode) {
-        String apiUrl = ollamaConfig.getBaseUrl() + "/api/chat";
+    private String callOllama(AiFeature feature, String prompt, boolean jsonMode) {
 
         OllamaDTO.Request requestDTO = OllamaDTO.Request.builder()
                 .model(ollamaConfig.getModelName())
@@ -73,8 +132,9 @@ public class AITicketClientServiceImpl implements AITicketClientService {
                         OllamaDTO.Message.builder().role("user").content(prompt).build()
                 ))
                 .stream(false)
-                .format(jsonMode ? "json" : null)
+                .format(jsonMode ? AiJsonSchema.format(feature, schemaEnabled) : null)
                 .options(OllamaDTO.Request.Options.builder().temperature(0.0).build())
+                .keepAlive(ollamaConfig.getKeepAlive())
                 .build();
 
         try {
@@ -82,12 +142,14 @@ public class AITicketClientServiceImpl implements AITicketClientService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<OllamaDTO.Request> entity = new HttpEntity<>(requestDTO, headers);
 
-            ResponseEntity<OllamaDTO.Response> response = restTemplate.postForEntity(apiUrl, entity, OllamaDTO.Response.class);
+            ResponseEntity<OllamaDTO.Response> response = endpointRouter.call(feature, requestDTO.getModel(),
+                    baseUrl -> restTemplate.postForEntity(baseUrl + "/api/chat", entity, OllamaDTO.Response.class));
 
             if (response.getBody() == null || response.getBody().getMessage() == null) {
                 throw new RuntimeException("Ollama response body is null");
             }
 
+            usageAccountant.recordTokens(feature, response.getBody().getPromptEvalCount(), response.getBody().getEvalCount());
             return response.getBody().getMessage().getContent();
 
         } catch (Exception e) {
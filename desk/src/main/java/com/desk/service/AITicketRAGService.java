@@ -1,10 +1,29 @@
 package com.desk.service;
 
+import java.util.Map;
+
 public interface AITicketRAGService {
 
-    // 초기화 (서버 시작 시 데이터 로딩)
+    // 지식 검색 준비 상태 (LOADING: 백그라운드 적재 중 / READY: 벡터 검색 / FAILED: 임베딩 실패, 키워드 검색만)
+    enum State {
+        LOADING, READY, FAILED
+    }
+
+    // 초기화 (서버 시작 시 백그라운드 데이터 로딩 시작)
     void init();
 
-    // 검색 (부서명과 사용자 질문을 받아 가장 유사한 가이드라인 반환)
+    // 검색 (부서명과 사용자 질문을 받아 가장 유사한 가이드라인 반환, 적재 중이면 키워드 검색)
     String searchContext(String targetDept, String userInput);
-}
\ No newline at end of file
+
+    // 인터뷰 세션 검색 (주제가 크게 바뀌지 않으면 세션의 첫 질문 임베딩을 재사용)
+    String searchContext(String targetDept, String userInput, String sessionId);
+
+    // 인터뷰 세션 종료 (세션 주제 벡터 정리)
+    void endSession(String sessionId);
+
+    // 현재 준비 상태
+    State getState();
+
+    // 상태 스냅샷 (관리/모니터링용)
+    Map<String, Object> snapshot();
+}
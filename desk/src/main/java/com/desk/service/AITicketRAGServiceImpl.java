@@ -1,129 +1,694 @@
 package com.desk.service;
 
-import com.desk.config.OllamaConfig;
+import com.desk.service.ai.AITicketCentroidRouter;
+import com.desk.service.ai.AiBm25Index;
+import com.desk.service.ai.AiEmbeddingCache;
+import com.desk.service.ai.AiLatencyTracker;
+import com.desk.service.ai.AiQueryEmbeddingCache;
+import com.desk.service.ai.AiRankFusion;
+import com.desk.service.ai.AiTextChunker;
+import com.desk.service.ai.AiTokenEstimator;
+import com.desk.service.ai.InMemoryKnowledgeStore;
+import com.desk.service.ai.KnowledgeStore;
+import com.desk.service.ai.PgVectorKnowledgeStore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Log4j2
 @RequiredArgsConstructor
 public class AITicketRAGServiceImpl implements AITicketRAGService {
 
-    private final AITicketClientService aiClient; // 인터페이스 주입
     private final ObjectMapper objectMapper;
-    private final OllamaConfig ollamaConfig;
+    private final AiQueryEmbeddingCache queryEmbeddingCache; // 질문 임베딩 LRU (+ 인터뷰 세션 주제 벡터 재사용)
+    private final AiEmbeddingCache embeddingCache; // 지식 문서 임베딩 디스크 캐시 (바뀐 문서만 임베딩)
+    private final AITicketCentroidRouter centroidRouter; // 부서 중심점 라우터 (지식 문서 임베딩 재사용)
+    private final ObjectProvider<PgVectorKnowledgeStore> pgVectorStore; // 노드 공유 저장소 (ai.rag.store.type=pgvector 일 때만 빈 등록)
 
-    // 메모리에 상주할 지식 데이터베이스
-    private final List<Document> knowledgeBase = new ArrayList<>();
+    // 지식 저장소: memory (노드별 JVM 힙) | pgvector (PostgreSQL 공유 테이블)
+    @Value("${ai.rag.store.type:memory}")
+    private String storeType;
 
-    // 내부 클래스: 문서 단위
-    private static class Document {
-        String content;
-        String dept;
-        List<Double> vector;
+    // int8 양자화 저장 (메모리 1/4, 근사 점수)
+    @Value("${ai.rag.quantized:false}")
+    private boolean quantized;
 
-        public Document(String content, String dept, List<Double> vector) {
-            this.content = content;
-            this.dept = dept;
-            this.vector = vector;
+    // HNSW 근사 검색 (memory 저장소, 문서 수가 min-documents 이상일 때만, 그 아래는 전수 검색이 더 빠르고 정확하다)
+    @Value("${ai.rag.hnsw.enabled:true}")
+    private boolean hnswEnabled;
+
+    @Value("${ai.rag.hnsw.min-documents:2000}")
+    private int hnswMinDocuments;
+
+    @Value("${ai.rag.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${ai.rag.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${ai.rag.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${ai.rag.hnsw.path:data/rag/knowledge.hnsw}")
+    private String hnswPath;
+
+    // 백그라운드 적재: 임베딩 배치 크기 / 동시에 진행할 배치 수
+    @Value("${ai.rag.ingest.batch-size:64}")
+    private int ingestBatchSize;
+
+    @Value("${ai.rag.ingest.concurrency:2}")
+    private int ingestConcurrency;
+
+    // 임베딩 실패(AI 서버 장애)로 벡터가 없는 청크가 남으면 retry-initial-ms 부터 두 배씩(최대 retry-max-ms) 다시 적재 (0 이면 안 함)
+    @Value("${ai.rag.ingest.retry-initial-ms:30000}")
+    private long retryInitialMs;
+
+    @Value("${ai.rag.ingest.retry-max-ms:600000}")
+    private long retryMaxMs;
+
+    // 하이브리드 검색: 벡터 + BM25 후보를 각각 candidates 개씩 뽑아 RRF 로 합친다. (제품명/오류 코드 보완)
+    @Value("${ai.rag.hybrid.enabled:true}")
+    private boolean hybridEnabled;
+
+    @Value("${ai.rag.hybrid.candidates:20}")
+    private int hybridCandidates;
+
+    @Value("${ai.rag.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    // 청크 분할: 긴 지식 항목을 문장 단위로 max-tokens 이하 청크로 나눈다. (앞 청크 끝 문장 overlap-tokens 만큼 겹침)
+    @Value("${ai.rag.chunk.max-tokens:200}")
+    private int chunkMaxTokens;
+
+    @Value("${ai.rag.chunk.overlap-tokens:40}")
+    private int chunkOverlapTokens;
+
+    // 프롬프트에 넣을 검색 결과: 최대 청크 수 / 토큰 상한
+    @Value("${ai.rag.context.max-chunks:4}")
+    private int contextMaxChunks;
+
+    @Value("${ai.rag.context.max-tokens:600}")
+    private int contextMaxTokens;
+
+    // 지식 청크 (JSON 을 읽자마자 공개. 임베딩이 끝나기 전에는 키워드 검색에 사용)
+    // parent = 원래 항목 ("파일명#항목 번호"), part/parts = 항목 안 순서(1부터)/청크 수, overlap = 앞 청크와 겹치는 앞부분 글자 수
+    private record KnowledgeText(String content, String dept, String key, String parent, int part, int parts, int overlap) {
+
+        KnowledgeText(String content, String dept, String parent, int part, int parts, int overlap) {
+            this(content, dept, KnowledgeStore.chunkKey(dept, content), parent, part, parts, overlap);
         }
     }
 
+    // 로컬 지식 디렉터리 (비어 있거나 knowledge_*.json 이 없으면 classpath:data/)
+    @Value("${ai.rag.knowledge.dir:}")
+    private String knowledgeDir;
+
+    // 로컬 디렉터리 변경 확인 주기 (0 이면 감시하지 않음)
+    @Value("${ai.rag.knowledge.watch-interval-ms:10000}")
+    private long watchIntervalMs;
+
+    private volatile State state = State.LOADING;
+    private volatile List<KnowledgeText> knowledgeTexts = List.of();
+    private volatile Map<String, KnowledgeText> chunkLookup = Map.of(); // (부서, 본문) → 청크 (검색 결과에 항목 정보 붙이기)
+    private volatile AiBm25Index lexicalIndex; // knowledgeTexts 와 같은 문서의 BM25 인덱스 (먼저 공개)
+    private volatile KnowledgeStore knowledgeStore; // 적재 완료 전에는 null
+    private volatile Set<String> publishedKeys = Set.of(); // 벡터까지 공개된 청크 key (재적재 비교용)
+    private volatile String sourceFingerprint;
+    private volatile String source;
+    private volatile long loadMs = -1;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile int lastAdded;
+    private volatile int lastRemoved;
+    private volatile int lastEmbedded;
+    private volatile int unembedded; // 공개본에서 벡터가 없는 청크 수 (키워드 검색으로만 찾힌다)
+    private volatile int retryAttempt;
+    private ScheduledFuture<?> retryTask; // loader 스레드에서만 바꾼다
+
+    // 검색 단계별 지연 (µs, 최근 500건)
+    private final AiLatencyTracker embedLatency = new AiLatencyTracker(500);
+    private final AiLatencyTracker vectorLatency = new AiLatencyTracker(500);
+    private final AiLatencyTracker lexicalLatency = new AiLatencyTracker(500);
+    private final AiLatencyTracker fuseLatency = new AiLatencyTracker(500);
+    private final AiLatencyTracker totalLatency = new AiLatencyTracker(500);
+    private final AtomicLong hybridQueries = new AtomicLong();
+    private final AtomicLong lexicalPromoted = new AtomicLong(); // 벡터 상위 3개에 없던 문서를 BM25 가 끌어올린 수
+
+    // 적재/재적재는 이 스레드 하나에서만 (동시에 두 번 돌지 않는다)
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rag-knowledge-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 기동을 막지 않는다. 지식 적재(임베딩)는 백그라운드에서 진행하고, 끝나면 인덱스를 한 번에 공개한다.
+     * 그 전까지 searchContext 는 BM25 키워드 검색으로 응답한다.
+     * 로컬 디렉터리를 쓰면 watch-interval-ms 마다 파일 변경을 확인해 바뀐 청크만 다시 임베딩한다.
+     * 기동 때 AI 서버가 죽어 있었으면(FAILED / 벡터 없는 청크) backoff 로 다시 적재한다.
+     */
     @Override
     @PostConstruct // 서버 시작 시 자동 실행
     public void init() {
+        loader.submit(this::load);
+        if (watchIntervalMs > 0 && knowledgeDir != null && !knowledgeDir.isBlank()) {
+            loader.scheduleWithFixedDelay(this::reloadIfChanged, watchIntervalMs, watchIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 지식 파일 목록/수정 시각/크기가 바뀌었으면 재적재
+     */
+    void reloadIfChanged() {
+        try {
+            if (fingerprint(knowledgeResources()).equals(sourceFingerprint)) return;
+            log.info("[RAG] 지식 파일 변경 감지 - 재적재 시작");
+            load();
+        } catch (Exception e) {
+            log.warn("[RAG] 지식 파일 변경 확인 실패 | error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 지식 적재 / 재적재
+     * (JSON 읽기 → 직전 공개본/공유 저장소에 없는 청크만 병렬 배치 임베딩 → 새 사본 구성 → 참조 교체로 공개)
+     * 메모리 저장소는 매번 새 사본을 만들어 교체하므로(copy-on-write) 검색은 적재 중에도 막히지 않는다.
+     */
+    void load() {
+        long start = System.currentTimeMillis();
+        boolean initial = knowledgeStore == null;
+        String fingerprint = null;
         try {
             log.info("[RAG] Loading knowledge base from JSON files...");
-            
-            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-            // resources/data 폴더 아래의 knowledge_*.json 파일들 스캔
-            Resource[] resources = resolver.getResources("classpath:data/knowledge_*.json");
+            Resource[] resources = knowledgeResources();
+            fingerprint = fingerprint(resources);
+            List<KnowledgeText> texts = readKnowledgeFiles(resources);
 
-            if (resources.length == 0) {
-                log.warn("[RAG] No knowledge JSON files found in 'classpath:data/'.");
+            Set<String> previousKeys = publishedKeys;
+            KnowledgeStore previousStore = knowledgeStore;
+            Map<String, KnowledgeText> byKey = new LinkedHashMap<>();
+            texts.forEach(t -> byKey.putIfAbsent(t.key(), t));
+            Set<String> keys = byKey.keySet();
+            if (!initial && keys.equals(previousKeys)) {
+                // 파일은 바뀌었지만 청크 내용은 같다 (공백/순서 외 변경 없음)
+                sourceFingerprint = fingerprint;
+                log.info("[RAG] 지식 청크 변경 없음 - 재적재 생략");
+                scheduleRetry(false);
                 return;
             }
 
-            for (Resource res : resources) {
-                String filename = res.getFilename();
-                String dept = extractDeptFromFilename(filename); // 파일명에서 부서 추출
-                
-                try (InputStream is = res.getInputStream()) {
-                    // 파일 포맷: {"DEVELOPMENT": ["내용1", "내용2"]} 구조 대응
-                    Map<String, List<String>> data = objectMapper.readValue(is, new TypeReference<>() {});
-                    
-                    for (Map.Entry<String, List<String>> entry : data.entrySet()) {
-                        String jsonDept = entry.getKey(); // JSON 키값 사용 (부서명)
-                        for (String text : entry.getValue()) {
-                            // 텍스트를 벡터로 변환 (AI 서버 호출)
-                            List<Double> vector = aiClient.getEmbedding(text, ollamaConfig.getModelName());
-                            if (!vector.isEmpty()) {
-                                knowledgeBase.add(new Document(text, jsonDept, vector));
-                            }
+            AiBm25Index lexical = AiBm25Index.build(texts.stream()
+                    .map(t -> new AiBm25Index.Document(t.content(), t.dept()))
+                    .toList());
+            if (initial) {
+                // 임베딩이 끝나기 전 키워드 검색용 (인덱스를 먼저 공개)
+                lexicalIndex = lexical;
+                chunkLookup = lookup(texts);
+                knowledgeTexts = texts;
+            }
+
+            boolean shared = "pgvector".equalsIgnoreCase(storeType);
+            KnowledgeStore store = shared ? pgVectorStore.getObject() : new InMemoryKnowledgeStore(quantized);
+
+            // 공유 저장소: 이미 저장된 청크(다른 노드가 임베딩한 것 포함)는 key 만 남기고, 벡터는 한 행씩 중심점에만 더한다.
+            // (테이블 전체를 노드마다 힙에 올리지 않는다)
+            // 메모리 저장소: 직전 공개본에서 지금 파일에도 있는 청크의 벡터만 key 로 꺼내 새 사본에 다시 넣는다.
+            // (공개본 밖에 벡터 사본을 따로 들고 있지 않는다. 꺼낸 벡터는 이번 적재 동안만 쓴다)
+            AITicketCentroidRouter.KnowledgeExamples examples = new AITicketCentroidRouter.KnowledgeExamples();
+            Set<String> published = new HashSet<>();
+            Map<String, double[]> reused = new HashMap<>();
+            if (shared && !texts.isEmpty()) {
+                store.forEachStored((key, vector) -> {
+                    KnowledgeText text = byKey.get(key);
+                    if (text != null && published.add(key)) examples.add(text.dept(), vector);
+                });
+            } else if (previousStore instanceof InMemoryKnowledgeStore && !texts.isEmpty()) {
+                previousStore.forEachStored((key, vector) -> {
+                    if (byKey.containsKey(key)) reused.put(key, vector);
+                });
+            }
+            List<KnowledgeText> missing = byKey.values().stream()
+                    .filter(t -> !reused.containsKey(t.key()) && !published.contains(t.key()))
+                    .toList();
+            List<List<Double>> embedded = embedInParallel(missing);
+            Map<String, List<Double>> fresh = new HashMap<>();
+            for (int i = 0; i < missing.size(); i++) fresh.put(missing.get(i).key(), embedded.get(i));
+
+            // 문서 순서를 유지한다. (HNSW 저장 파일이 같은 순서의 문서를 기준으로 재사용된다)
+            List<KnowledgeStore.Chunk> chunks = new ArrayList<>(texts.size());
+            for (KnowledgeText text : texts) {
+                double[] kept = reused.get(text.key());
+                List<Double> vector = kept != null ? toList(kept) : fresh.get(text.key());
+                if (vector == null || vector.isEmpty()) continue;
+                if (!published.add(text.key())) continue; // 같은 청크 중복 / 공유 저장소에 이미 있음
+                examples.add(text.dept(), vector);
+                chunks.add(new KnowledgeStore.Chunk(text.key(), text.content(), text.dept(), vector));
+            }
+            store.addAll(chunks);
+            // 공유 저장소: 파일에서 사라진 청크 삭제 (메모리 저장소는 새 사본이라 필요 없음)
+            if (shared && !texts.isEmpty()) store.retainOnly(published);
+            if (store instanceof InMemoryKnowledgeStore memory && hnswEnabled) {
+                memory.enableHnsw(Path.of(hnswPath), hnswM, hnswEfConstruction, hnswEfSearch, hnswMinDocuments);
+            }
+
+            // 공개 (참조 교체. 검색 중인 요청은 이전 사본으로 끝난다)
+            int added = (int) published.stream().filter(k -> !previousKeys.contains(k)).count();
+            int removed = (int) previousKeys.stream().filter(k -> !published.contains(k)).count();
+            lexicalIndex = lexical;
+            chunkLookup = lookup(texts);
+            knowledgeTexts = texts;
+            knowledgeStore = store;
+            publishedKeys = published;
+            centroidRouter.replaceKnowledge(examples); // 지식 문서 몫 재계산 (빠진 청크 제거, 티켓 예시는 유지)
+            sourceFingerprint = fingerprint;
+            // 임베딩이 하나도 안 됐으면 (AI 서버 장애) BM25 키워드 검색을 계속 쓴다.
+            state = texts.isEmpty() || store.size() > 0 ? State.READY : State.FAILED;
+            loadMs = System.currentTimeMillis() - start;
+            lastAdded = added;
+            lastRemoved = removed;
+            lastEmbedded = missing.size();
+            unembedded = keys.size() - published.size();
+            if (!initial) reloads.incrementAndGet();
+
+            log.info("[RAG] {} {}/{} documents. | state={} | source={} | store={} | added={} | removed={} | embedded={} | elapsed={}ms",
+                    initial ? "Successfully loaded" : "Reloaded", published.size(), texts.size(), state, source,
+                    storeType, added, removed, missing.size(), loadMs);
+            // 벡터가 빠진 청크는 다음 적재 때 다시 임베딩된다. (공개본에 없는 key 라 변경 없음으로 건너뛰지 않음)
+            scheduleRetry(state == State.FAILED || unembedded > 0);
+
+        } catch (Exception e) {
+            // 재적재 실패면 이전 사본을 계속 쓴다. (같은 파일로 반복 실패하지 않게 파일이 다시 바뀔 때까지 대기)
+            // 기동 적재 실패(공유 저장소 연결 실패 등)나 불완전한 공개본이면 backoff 로 다시 시도한다.
+            if (initial) state = State.FAILED;
+            if (fingerprint != null) sourceFingerprint = fingerprint;
+            log.error("[RAG] {} Failed: {}", initial ? "Initialization" : "Reload", e.getMessage());
+            scheduleRetry(state == State.FAILED || unembedded > 0);
+        }
+    }
+
+    /**
+     * 적재 재시도 예약 (retry-initial-ms * 2^시도, 최대 retry-max-ms). 필요 없으면 예약을 지우고 시도 횟수를 초기화한다.
+     * 파일 감시 재적재가 먼저 돌아 다 채우면 예약된 재시도는 "변경 없음" 으로 끝난다.
+     */
+    private synchronized void scheduleRetry(boolean needed) {
+        if (retryTask != null) retryTask.cancel(false);
+        retryTask = null;
+        if (!needed || retryInitialMs <= 0) {
+            retryAttempt = 0;
+            return;
+        }
+        long delay = Math.min(Math.max(retryInitialMs, retryMaxMs), retryInitialMs << Math.min(retryAttempt, 16));
+        retryAttempt++;
+        try {
+            retryTask = loader.schedule(this::load, delay, TimeUnit.MILLISECONDS);
+            log.warn("[RAG] 임베딩 안 된 청크 {}개 - {}ms 후 다시 적재 | attempt={} | state={}",
+                    unembedded, delay, retryAttempt, state);
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+        }
+    }
+
+    /**
+     * 지식 파일 목록: 로컬 디렉터리에 knowledge_*.json 이 있으면 그것, 없으면 classpath:data/ (파일명 순)
+     */
+    private Resource[] knowledgeResources() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Resource[] resources = new Resource[0];
+        if (knowledgeDir != null && !knowledgeDir.isBlank()) {
+            Path dir = Path.of(knowledgeDir).toAbsolutePath();
+            if (Files.isDirectory(dir)) {
+                resources = resolver.getResources(dir.toUri() + "knowledge_*.json");
+                source = dir.toString();
+            }
+        }
+        if (resources.length == 0) {
+            // resources/data 폴더 아래의 knowledge_*.json 파일들 스캔
+            resources = resolver.getResources("classpath:data/knowledge_*.json");
+            source = "classpath:data/";
+        }
+        Arrays.sort(resources, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+        return resources;
+    }
+
+    private static List<Double> toList(double[] vector) {
+        List<Double> list = new ArrayList<>(vector.length);
+        for (double v : vector) list.add(v);
+        return list;
+    }
+
+    private static String fingerprint(Resource[] resources) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Resource res : resources) {
+            sb.append(res.getFilename()).append(':').append(res.lastModified()).append(':').append(res.contentLength()).append(';');
+        }
+        return sb.toString();
+    }
+
+    private List<KnowledgeText> readKnowledgeFiles(Resource[] resources) throws IOException {
+        if (resources.length == 0) {
+            log.warn("[RAG] No knowledge JSON files found in '{}'.", source);
+            return List.of();
+        }
+
+        AiTextChunker chunker = new AiTextChunker(chunkMaxTokens, chunkOverlapTokens);
+        List<KnowledgeText> texts = new ArrayList<>();
+        int entries = 0;
+        for (Resource res : resources) {
+            int item = 0;
+            try (InputStream is = res.getInputStream()) {
+                // 파일 포맷: {"DEVELOPMENT": ["내용1", "내용2"]} 구조 대응
+                Map<String, List<String>> data = objectMapper.readValue(is, new TypeReference<>() {});
+
+                for (Map.Entry<String, List<String>> entry : data.entrySet()) {
+                    String jsonDept = entry.getKey(); // JSON 키값 사용 (부서명)
+                    for (String content : entry.getValue()) {
+                        if (content == null || content.isBlank()) continue;
+                        // 항목 → 청크 (짧은 항목은 원문 그대로 하나)
+                        String parent = res.getFilename() + "#" + (++item);
+                        entries++;
+                        List<AiTextChunker.Chunk> chunks = chunker.split(content);
+                        for (int i = 0; i < chunks.size(); i++) {
+                            AiTextChunker.Chunk chunk = chunks.get(i);
+                            texts.add(new KnowledgeText(chunk.text(), jsonDept, parent, i + 1, chunks.size(), chunk.overlapChars()));
                         }
                     }
                 }
             }
-            log.info("[RAG] Successfully loaded {} documents from {} files.", knowledgeBase.size(), resources.length);
+        }
+        log.info("[RAG] Read {} entries ({} chunks) from {} files. | source={}", entries, texts.size(), resources.length, source);
+        return texts;
+    }
 
-        } catch (Exception e) {
-            log.error("[RAG] Initialization Failed: {}", e.getMessage());
+    /**
+     * 배치 단위로 나눠 최대 ingestConcurrency 개 배치를 동시에 임베딩한다. (캐시에 있는 문서는 AI 서버 호출 없음)
+     * 결과는 입력과 같은 순서이며 실패한 문서는 빈 리스트다.
+     */
+    private List<List<Double>> embedInParallel(List<KnowledgeText> texts) throws InterruptedException {
+        int batchSize = Math.max(1, ingestBatchSize);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, ingestConcurrency), r -> {
+            Thread t = new Thread(r, "rag-embed-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<List<List<Double>>>> futures = new ArrayList<>();
+            for (int from = 0; from < texts.size(); from += batchSize) {
+                List<String> batch = texts.subList(from, Math.min(texts.size(), from + batchSize)).stream()
+                        .map(KnowledgeText::content)
+                        .toList();
+                futures.add(workers.submit(() -> embeddingCache.embedAll(batch)));
+            }
+
+            List<List<Double>> vectors = new ArrayList<>(texts.size());
+            for (int b = 0; b < futures.size(); b++) {
+                int batchLength = Math.min(batchSize, texts.size() - b * batchSize);
+                List<List<Double>> batchVectors;
+                try {
+                    batchVectors = futures.get(b).get();
+                } catch (ExecutionException e) {
+                    log.warn("[RAG] 임베딩 배치 실패 | batch={} | error={}", b, e.getCause().getMessage());
+                    batchVectors = List.of();
+                }
+                for (int i = 0; i < batchLength; i++) {
+                    vectors.add(i < batchVectors.size() ? batchVectors.get(i) : List.of());
+                }
+            }
+            return vectors;
+        } finally {
+            workers.shutdownNow();
         }
     }
 
+    @Override
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        KnowledgeStore store = knowledgeStore;
+        AiBm25Index lexical = lexicalIndex;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", state.name());
+        List<KnowledgeText> texts = knowledgeTexts;
+        result.put("entries", texts.stream().map(KnowledgeText::parent).distinct().count());
+        result.put("documents", texts.size());
+        result.put("chunkMaxTokens", chunkMaxTokens);
+        result.put("chunkOverlapTokens", chunkOverlapTokens);
+        result.put("contextMaxChunks", contextMaxChunks);
+        result.put("contextMaxTokens", contextMaxTokens);
+        result.put("source", source);
+        result.put("store", store == null ? null : store.snapshot());
+        result.put("lexical", lexical == null ? null : lexical.snapshot());
+        result.put("loadMs", loadMs);
+        result.put("reloads", reloads.get());
+        result.put("lastAdded", lastAdded);
+        result.put("lastRemoved", lastRemoved);
+        result.put("lastEmbedded", lastEmbedded);
+        result.put("unembedded", unembedded);
+        result.put("retryAttempt", retryAttempt);
+
+        Map<String, Object> retrieval = new LinkedHashMap<>();
+        retrieval.put("hybrid", hybridEnabled);
+        retrieval.put("candidates", hybridCandidates);
+        retrieval.put("rrfK", rrfK);
+        retrieval.put("hybridQueries", hybridQueries.get());
+        retrieval.put("lexicalPromoted", lexicalPromoted.get());
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("embed", percentiles(embedLatency));
+        latency.put("vector", percentiles(vectorLatency));
+        latency.put("lexical", percentiles(lexicalLatency));
+        latency.put("fuse", percentiles(fuseLatency));
+        latency.put("total", percentiles(totalLatency));
+        retrieval.put("latencyUs", latency);
+        result.put("retrieval", retrieval);
+        return result;
+    }
+
+    private static Map<String, Object> percentiles(AiLatencyTracker tracker) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", tracker.count());
+        result.put("p50", tracker.percentile(0.50));
+        result.put("p95", tracker.percentile(0.95));
+        return result;
+    }
+
     @Override
     public String searchContext(String targetDept, String userInput) {
-        if (knowledgeBase.isEmpty()) return "관련 가이드라인 없음";
+        return searchContext(targetDept, userInput, null);
+    }
+
+    @Override
+    public void endSession(String sessionId) {
+        queryEmbeddingCache.endSession(sessionId);
+    }
+
+    /**
+     * 검색 순서
+     * 1. BM25 는 공용 ForkJoinPool 에서, 질문 임베딩 + 벡터 검색은 호출 스레드에서 동시에 진행
+     * 2. 두 결과(각 candidates 개, 부서 필터)를 RRF 로 합쳐 상위 context.max-chunks 개
+     * 3. 같은 항목의 청크를 묶고 항목 정보를 붙여 context.max-tokens 안에서 컨텍스트 구성
+     * 적재 중이거나 임베딩/벡터 저장소가 실패하면 BM25 결과만 쓴다.
+     */
+    @Override
+    public String searchContext(String targetDept, String userInput, String sessionId) {
+        List<KnowledgeText> texts = knowledgeTexts;
+        if (texts.isEmpty()) return "관련 가이드라인 없음";
 
-        // 1. 사용자 질문을 벡터로 변환
-        List<Double> queryVector = aiClient.getEmbedding(userInput, ollamaConfig.getModelName());
-        if (queryVector.isEmpty()) return "가이드라인 검색 실패";
+        long start = System.nanoTime();
+        int topK = Math.max(1, contextMaxChunks);
+        AiBm25Index lexical = lexicalIndex;
+        KnowledgeStore store = knowledgeStore;
+        List<KnowledgeStore.Hit> hits;
+        if (store == null || store.size() == 0) {
+            // 적재 중(또는 임베딩 실패): 키워드 검색으로 대신한다.
+            hits = lexicalSearch(lexical, targetDept, userInput, topK);
+        } else {
+            int candidates = Math.max(topK, hybridCandidates);
+            ForkJoinTask<List<KnowledgeStore.Hit>> lexicalTask = hybridEnabled
+                    ? ForkJoinPool.commonPool().submit(() -> lexicalSearch(lexical, targetDept, userInput, candidates))
+                    : null;
 
-        // 2. 유사도 계산 및 정렬 (우선순위 큐 사용)
-        PriorityQueue<Document> pq = new PriorityQueue<>(
-            (d1, d2) -> Double.compare(cosineSimilarity(queryVector, d2.vector), cosineSimilarity(queryVector, d1.vector))
-        );
+            // 1. 사용자 질문을 벡터로 변환 (캐시/세션 주제 벡터 우선)
+            long t = System.nanoTime();
+            List<Double> queryVector = queryEmbeddingCache.embedForSession(sessionId, userInput);
+            embedLatency.record(micros(t));
 
-        for (Document doc : knowledgeBase) {
-            // 해당 부서 문서만 검색 (부서 미정이면 전체 검색)
-            if (targetDept == null || targetDept.equalsIgnoreCase(doc.dept)) {
-                pq.offer(doc);
+            // 2. 유사도 상위 (해당 부서 문서만, 부서 미정이면 전체 검색). 임베딩/저장소 실패면 null
+            List<KnowledgeStore.Hit> dense = null;
+            if (!queryVector.isEmpty()) {
+                t = System.nanoTime();
+                dense = vectorSearch(store, queryVector, targetDept, lexicalTask != null ? candidates : topK);
+                vectorLatency.record(micros(t));
+            }
+
+            // 3. 합치기
+            List<KnowledgeStore.Hit> sparse = lexicalTask != null ? lexicalTask.join() : null;
+            if (dense == null) {
+                hits = sparse != null ? sparse.subList(0, Math.min(topK, sparse.size()))
+                        : lexicalSearch(lexical, targetDept, userInput, topK);
+            } else if (sparse == null) {
+                hits = dense;
+            } else {
+                t = System.nanoTime();
+                hits = AiRankFusion.reciprocalRank(List.of(dense, sparse), rrfK, topK);
+                fuseLatency.record(micros(t));
+                hybridQueries.incrementAndGet();
+                Set<String> denseTop = new HashSet<>();
+                dense.stream().limit(topK).forEach(h -> denseTop.add(h.content()));
+                lexicalPromoted.addAndGet(hits.stream().filter(h -> !denseTop.contains(h.content())).count());
             }
         }
+        // 4. 결과 합치기
+        String context = buildContext(hits);
+        totalLatency.record(micros(start));
+
+        return !context.isEmpty() ? context : "관련된 상세 가이드라인을 찾지 못했습니다. 육하원칙(5W1H)에 따라 상세히 작성해주세요.";
+    }
 
-        // 3. 상위 3개 결과 합치기
+    /**
+     * 검색된 청크(점수 순) → 프롬프트 컨텍스트
+     * - 같은 항목의 청크는 한 줄로 모아 항목 안 순서대로 잇는다. (바로 이어지는 청크는 겹치는 앞부분을 뺀다)
+     * - 여러 청크로 나뉜 항목은 앞에 [파일#항목 부분/전체] 를 붙인다.
+     * - 점수 순으로 담다가 context.max-tokens 를 넘기는 청크는 건너뛴다. (첫 청크부터 넘으면 잘라서 담는다)
+     */
+    private String buildContext(List<KnowledgeStore.Hit> hits) {
+        if (hits.isEmpty()) return "";
+        Map<String, KnowledgeText> lookup = chunkLookup;
+        int budget = contextMaxTokens > 0 ? contextMaxTokens : Integer.MAX_VALUE;
+        int used = 0;
+        Map<String, List<KnowledgeText>> groups = new LinkedHashMap<>();
+        for (KnowledgeStore.Hit hit : hits) {
+            KnowledgeText chunk = lookup.get(lookupKey(hit.dept(), hit.content()));
+            if (chunk == null) chunk = new KnowledgeText(hit.content(), hit.dept(), null, 1, 1, 0); // 공유 저장소에만 있는 청크
+            String key = chunk.parent() != null ? chunk.parent() : lookupKey(hit.dept(), hit.content());
+
+            List<KnowledgeText> current = groups.get(key);
+            List<KnowledgeText> candidate = new ArrayList<>(current == null ? List.of() : current);
+            candidate.add(chunk);
+            candidate.sort(Comparator.comparingInt(KnowledgeText::part));
+            int delta = contextTokens(candidate) - (current == null ? 0 : contextTokens(current));
+            if (used + delta > budget) continue;
+            groups.put(key, candidate);
+            used += delta;
+        }
+
+        if (groups.isEmpty()) {
+            // 가장 좋은 청크 하나도 상한보다 길다
+            KnowledgeStore.Hit best = hits.get(0);
+            KnowledgeText chunk = lookup.getOrDefault(lookupKey(best.dept(), best.content()),
+                    new KnowledgeText(best.content(), best.dept(), null, 1, 1, 0));
+            return truncateToTokens(contextLine(List.of(chunk)), budget - 1) + "\n";
+        }
         StringBuilder context = new StringBuilder();
-        int k = 3;
-        while (k-- > 0 && !pq.isEmpty()) {
-            context.append("- ").append(pq.poll().content).append("\n");
+        for (List<KnowledgeText> group : groups.values()) context.append(contextLine(group)).append("\n");
+        return context.toString();
+    }
+
+    // 같은 항목의 청크들 (part 순) → "- [파일#항목 2,3/5] 본문"
+    private static String contextLine(List<KnowledgeText> group) {
+        StringBuilder line = new StringBuilder("- ");
+        KnowledgeText first = group.get(0);
+        if (first.parts() > 1) {
+            StringJoiner parts = new StringJoiner(",");
+            group.forEach(c -> parts.add(String.valueOf(c.part())));
+            line.append('[').append(first.parent()).append(' ').append(parts).append('/').append(first.parts()).append("] ");
         }
-        
-        return context.length() > 0 ? context.toString() : "관련된 상세 가이드라인을 찾지 못했습니다. 육하원칙(5W1H)에 따라 상세히 작성해주세요.";
+        int previous = -1;
+        for (KnowledgeText chunk : group) {
+            String text = chunk.content();
+            if (chunk.part() == previous + 1) {
+                if (chunk.overlap() > 0 && chunk.overlap() < text.length()) text = text.substring(chunk.overlap());
+                line.append(' ');
+            } else if (previous > 0) {
+                line.append(" … ");
+            }
+            line.append(text);
+            previous = chunk.part();
+        }
+        return line.toString();
+    }
+
+    private static int contextTokens(List<KnowledgeText> group) {
+        return AiTokenEstimator.estimate(contextLine(group)) + 1; // + 줄바꿈
+    }
+
+    // 토큰 추정치가 maxTokens 이하가 되는 가장 긴 앞부분 + "…"
+    private static String truncateToTokens(String text, int maxTokens) {
+        int lo = 0;
+        int hi = text.length();
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (AiTokenEstimator.estimate(text.substring(0, mid)) + 1 <= maxTokens) lo = mid;
+            else hi = mid - 1;
+        }
+        return text.substring(0, lo) + "…";
+    }
+
+    private static Map<String, KnowledgeText> lookup(List<KnowledgeText> texts) {
+        Map<String, KnowledgeText> lookup = new HashMap<>(texts.size() * 2);
+        for (KnowledgeText text : texts) lookup.putIfAbsent(lookupKey(text.dept(), text.content()), text);
+        return lookup;
     }
 
-    private String extractDeptFromFilename(String filename) {
-        if (filename == null) return "COMMON";
-        // knowledge_dev.json -> DEV
-        return filename.replace("knowledge_", "").replace(".json", "").toUpperCase();
+    // pgvector 는 부서를 대문자로 저장하므로 대소문자를 무시한다.
+    private static String lookupKey(String dept, String content) {
+        return (dept == null ? "" : dept.toUpperCase(Locale.ROOT)) + '\u0000' + content;
     }
 
-    private double cosineSimilarity(List<Double> v1, List<Double> v2) {
-        if (v1.size() != v2.size()) return 0.0;
-        double dotProduct = 0.0, normA = 0.0, normB = 0.0;
-        for (int i = 0; i < v1.size(); i++) {
-            dotProduct += v1.get(i) * v2.get(i);
-            normA += Math.pow(v1.get(i), 2);
-            normB += Math.pow(v2.get(i), 2);
+    // 저장소 장애(pgvector 연결 실패 등)면 null → 호출 측이 키워드 검색으로 대신한다.
+    private static List<KnowledgeStore.Hit> vectorSearch(KnowledgeStore store, List<Double> queryVector, String targetDept, int k) {
+        try {
+            return store.search(queryVector, targetDept, k);
+        } catch (Exception e) {
+            log.warn("[RAG] 벡터 검색 실패 - 키워드 검색으로 대신 | error={}", e.getMessage());
+            return null;
         }
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
     }
-}
\ No newline at end of file
+
+    /**
+     * 키워드 검색: BM25 (Komoran 형태소 + 코드 원형). 부서 필터 적용
+     */
+    private List<KnowledgeStore.Hit> lexicalSearch(AiBm25Index lexical, String targetDept, String userInput, int k) {
+        if (lexical == null) return List.of();
+        long t = System.nanoTime();
+        List<KnowledgeStore.Hit> hits = lexical.search(userInput, targetDept, k);
+        lexicalLatency.record(micros(t));
+        return hits;
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000;
+    }
+}
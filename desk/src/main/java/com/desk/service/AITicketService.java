@@ -12,4 +12,11 @@ public interface AITicketService {
      * 3. 인터뷰 및 티켓 생성 (Step 3)
      */
     AITicketResponseDTO processRequest(AITicketRequestDTO request);
+
+    /**
+     * [인터뷰 대화 종료]
+     * 티켓 전송/취소(초기화, 창 닫기) 시 대화 상태와 세션 주제 벡터를 바로 정리한다.
+     * (호출되지 않아도 유휴 세션은 TTL 로 정리된다)
+     */
+    void endConversation(String conversationId);
 }
\ No newline at end of file
@@ -5,6 +5,15 @@ import com.desk.dto.AITicketRequestDTO;
 import com.desk.dto.AITicketRequestDTO.AITicketInfo;
 import com.desk.dto.AITicketResponseDTO;
 import com.desk.repository.MemberRepository;
+import com.desk.service.ai.AITicketCentroidRouter;
+import com.desk.service.ai.AITicketConversationManager;
+import com.desk.service.ai.AITicketConversationManager.InterviewContext;
+import com.desk.service.ai.AITicketIntentClassifier;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiTokenEstimator;
+import com.desk.util.AiTokenBudgetExceededException;
+import com.desk.util.AiQuotaExceededException;
+import com.desk.util.AiUnavailableException;
 import com.desk.util.AITicketPromptUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -17,6 +26,8 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional; // [중요] java.util 패키지 선택
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Log4j2
@@ -28,6 +39,9 @@ public class AITicketServiceImpl implements AITicketService {
     private final MemberRepository memberRepository; // 담당자 DB 조회
     private final ObjectMapper objectMapper;      // JSON 파싱
     private final AITicketScenarioService scenarioService; // 데모 시나리오
+    private final AITicketConversationManager conversationManager; // 인터뷰 대화 상태 압축
+    private final AITicketIntentClassifier intentClassifier; // 라우팅/담당자 로컬 사전 분류
+    private final AITicketCentroidRouter centroidRouter; // 임베딩 중심점 부서 라우팅
 
     @Value("${ai.demo-mode.enabled:false}")
     private boolean isDemoEnabled;
@@ -38,6 +52,11 @@ public class AITicketServiceImpl implements AITicketService {
         AITicketInfo currentTicket = request.getCurrentTicket();
         String targetDept = request.getTargetDept();
 
+        // 대화 id 가 없으면 이 요청용으로 새로 발급한다. (응답에 담기므로 클라이언트는 다음 요청에 그대로 보낸다)
+        if (request.getConversationId() == null || request.getConversationId().isBlank()) {
+            request.setConversationId(UUID.randomUUID().toString());
+        }
+
         log.info("[AI Logic] Processing... User Input: {}", userInput);
 
         // ------------------------------------------------------------------
@@ -55,18 +74,46 @@ public class AITicketServiceImpl implements AITicketService {
         // ------------------------------------------------------------------
         if (targetDept == null || targetDept.isEmpty()) {
             log.info("[Step 1] Routing Start");
-            
-            String prompt = AITicketPromptUtil.getRoutingPrompt(userInput);
-            String aiResult = aiClient.generateText(prompt).trim();
 
-            // "QUESTION:" 으로 시작하는 경우 (AI가 되묻는 경우)
-            if (aiResult.contains("QUESTION:")) {
-                String question = aiResult.substring(aiResult.indexOf("QUESTION:") + 9).trim();
-                return createResponse(request, question, null, false);
+            // 로컬 사전 분류기가 확신하면 LLM 호출 생략
+            String identifiedDept = null;
+            AITicketIntentClassifier.Prediction prediction = intentClassifier.classifyDepartment(userInput);
+            AITicketCentroidRouter.Route route = prediction.isConfident() ? null
+                    : centroidRouter.route(userInput).filter(AITicketCentroidRouter.Route::confident).orElse(null);
+            if (prediction.isConfident()) {
+                identifiedDept = prediction.getDepartment().name();
+                log.info("[Step 1] Routed locally: {} (p={})", identifiedDept, String.format("%.2f", prediction.getConfidence()));
+            } else if (route != null) {
+                // 임베딩 중심점 1위/2위 차이가 충분하면 LLM 호출 생략
+                identifiedDept = route.department().name();
+                log.info("[Step 1] Routed by centroid: {} (margin={})", identifiedDept, String.format("%.3f", route.margin()));
+            } else {
+                String prompt = AITicketPromptUtil.getRoutingPrompt(userInput);
+                String aiResult;
+                try {
+                    long start = System.nanoTime();
+                    aiResult = aiClient.generateText(AiFeature.TICKET_ROUTING, prompt).trim();
+                    intentClassifier.recordLlmLatency(AITicketIntentClassifier.Task.ROUTING, elapsedMs(start));
+                } catch (AiUnavailableException e) {
+                    // [Fallback] AI 서버 장애 시 즉시 "라우팅 불가" 응답 → 사용자가 부서를 직접 선택
+                    log.warn("[Step 1] Routing unavailable: {}", e.getMessage());
+                    AITicketResponseDTO resp = createResponse(request,
+                            "현재 AI 부서 분류 서버가 응답하지 않습니다.\n요청하실 부서(DEVELOPMENT, DESIGN, SALES, HR, FINANCE, PLANNING)를 직접 선택해 주세요.",
+                            null, false);
+                    resp.setNextAction("routing_unavailable");
+                    return resp;
+                }
+
+                // "QUESTION:" 으로 시작하는 경우 (AI가 되묻는 경우)
+                if (aiResult.contains("QUESTION:")) {
+                    String question = aiResult.substring(aiResult.indexOf("QUESTION:") + 9).trim();
+                    return createResponse(request, question, null, false);
+                }
+
+                // 부서명 추출
+                identifiedDept = extractDeptName(aiResult);
             }
 
-            // 부서명 추출
-            String identifiedDept = extractDeptName(aiResult);
             if (identifiedDept == null) {
                 return createResponse(request, "죄송합니다. 말씀하신 내용만으로는 어느 부서 업무인지 파악하기 어렵습니다. 조금 더 구체적으로 말씀해 주시겠어요?", null, false);
             }
@@ -82,9 +129,22 @@ public class AITicketServiceImpl implements AITicketService {
         if (currentTicket.getReceivers() == null || currentTicket.getReceivers().isEmpty()) {
             log.info("[Step 2] Assignee Check for {}", targetDept);
 
-            String prompt = AITicketPromptUtil.getAssigneePrompt(userInput);
+            // 로컬 매칭('없음' 류 또는 등록된 닉네임 1명)이 되면 LLM 호출 생략
+            String rawName = intentClassifier.resolveAssignee(userInput).orElse(null);
+            if (rawName == null) {
+                String prompt = AITicketPromptUtil.getAssigneePrompt(userInput);
+                try {
+                    long start = System.nanoTime();
+                    rawName = aiClient.generateText(AiFeature.TICKET_ROUTING, prompt);
+                    intentClassifier.recordLlmLatency(AITicketIntentClassifier.Task.ASSIGNEE, elapsedMs(start));
+                } catch (AiUnavailableException e) {
+                    // [Fallback] AI 서버 장애 시 사용자 입력 자체를 이름 후보로 사용 (DB 조회로 검증)
+                    log.warn("[Step 2] Assignee extraction unavailable, using raw input: {}", e.getMessage());
+                    rawName = userInput == null ? "" : userInput;
+                }
+            }
             // 따옴표 및 공백 제거
-            String extractedName = aiClient.generateText(prompt).trim().replace("\"", "").replace("'", "");
+            String extractedName = rawName.trim().replace("\"", "").replace("'", "");
 
             List<String> finalReceivers = new ArrayList<>();
             String aiMsg = "";
@@ -128,7 +188,7 @@ public class AITicketServiceImpl implements AITicketService {
         // ------------------------------------------------------------------
         log.info("[Step 3] Interview for {}", targetDept);
 
-        String ragContext = ragService.searchContext(targetDept, userInput);
+        String ragContext = ragService.searchContext(targetDept, userInput, request.getConversationId());
         List<String> missingFields = validateTicket(currentTicket);
         
         String missingInfoInstruction = missingFields.isEmpty() 
@@ -136,15 +196,20 @@ public class AITicketServiceImpl implements AITicketService {
                 : String.format("현재 %s 정보가 누락되었습니다. 이 내용을 반드시 질문하십시오.", String.join(", ", missingFields));
 
         try {
-            // 현재 상태 JSON 변환
-            String ticketJson = objectMapper.writeValueAsString(currentTicket);
-            
+            // 대화 상태 압축 (변경 필드 delta + 최근 대화 + 과거 요약, 토큰 상한 적용)
+            int fixedTokens = AiTokenEstimator.estimate(AITicketPromptUtil.getInterviewPrompt(
+                    targetDept, missingInfoInstruction, "", "", "", "", "", userInput));
+            InterviewContext ctx = conversationManager.prepare(request, ragContext, fixedTokens);
+
             String prompt = AITicketPromptUtil.getInterviewPrompt(
-                    targetDept, missingInfoInstruction, ragContext, ticketJson, userInput
+                    targetDept, missingInfoInstruction, ctx.getRagContext(),
+                    ctx.getMemory(), ctx.getRecentTurns(),
+                    ctx.getTicketSummary(), ctx.getTicketDelta(), userInput
             );
 
             // AI 호출 (JSON 응답 요청)
-            String jsonResult = aiClient.generateJson(prompt);
+            String jsonResult = aiClient.generateJson(AiFeature.TICKET_INTERVIEW, prompt);
+            int promptTokens = AiTokenEstimator.estimate(prompt);
             
             // AI 응답 파싱
             JsonNode rootNode = objectMapper.readTree(jsonResult);
@@ -152,8 +217,8 @@ public class AITicketServiceImpl implements AITicketService {
             String responseToUser = rootNode.path("responseToUser").asText(); // PromptUtil에서 수정한 CamelCase 키 사용
             JsonNode updatedTicketNode = rootNode.path("updatedTicket");
 
-            // JSON -> DTO 변환
-            AITicketInfo finalTicket = objectMapper.treeToValue(updatedTicketNode, AITicketInfo.class);
+            // 변경 필드(delta)만 받아 현재 티켓에 병합
+            AITicketInfo finalTicket = conversationManager.mergeDelta(currentTicket, updatedTicketNode);
             
             // 기존 담당자 정보 보존 (AI가 가끔 담당자를 누락하는 경우 방지)
             if ((finalTicket.getReceivers() == null || finalTicket.getReceivers().isEmpty()) 
@@ -172,6 +237,8 @@ public class AITicketServiceImpl implements AITicketService {
                 if (finalTicket.getCompletionRate() >= 100) finalTicket.setCompletionRate(90);
             }
 
+            conversationManager.recordTurn(request.getConversationId(), promptTokens, finalTicket);
+
             AITicketResponseDTO response = createResponse(request, responseToUser, targetDept, isReallyCompleted);
             response.setUpdatedTicket(finalTicket);
             response.setMissingInfoList(finalMissing);
@@ -183,9 +250,44 @@ public class AITicketServiceImpl implements AITicketService {
             log.error("JSON Parsing Error during Interview: {}", e.getMessage());
             // 파싱 실패 시 사용자에게 재시도 요청
             return createResponse(request, "죄송합니다. AI 응답을 처리하는 중 기술적인 오류가 발생했습니다. 다시 한번 말씀해 주시겠어요?", targetDept, false);
+        } catch (AiTokenBudgetExceededException e) {
+            // 세션 토큰 예산 소진 → 더 이상 AI 호출 없이 현재 내용으로 전송/새 대화 안내
+            log.warn("[Step 3] Token budget exceeded: {}", e.getMessage());
+            AITicketResponseDTO resp = createResponse(request,
+                    "대화가 길어져 AI 인터뷰를 더 진행할 수 없습니다.\n지금까지 작성된 내용으로 티켓을 전송하시거나, 새 대화로 다시 시작해 주세요.",
+                    targetDept, false);
+            resp.setMissingInfoList(missingFields);
+            resp.setNextAction("token_budget_exceeded");
+            return resp;
+        } catch (AiQuotaExceededException e) {
+            // [Fallback] 사용자/부서 사용량 한도 초과 (현재 티켓 상태 유지)
+            log.warn("[Step 3] Interview quota exceeded: {}", e.getMessage());
+            AITicketResponseDTO resp = createResponse(request,
+                    "AI 사용량 한도를 초과해 인터뷰를 잠시 진행할 수 없습니다.\n지금까지 작성된 내용은 유지되니 잠시 후 다시 시도하시거나, 현재 내용으로 티켓을 전송해 주세요.",
+                    targetDept, false);
+            resp.setMissingInfoList(missingFields);
+            resp.setNextAction("ai_quota_exceeded");
+            return resp;
+        } catch (AiUnavailableException e) {
+            // [Fallback] AI 서버 장애 시 현재 티켓 상태를 유지한 채 즉시 안내
+            log.warn("[Step 3] Interview unavailable: {}", e.getMessage());
+            AITicketResponseDTO resp = createResponse(request,
+                    "현재 AI 서버가 응답하지 않아 인터뷰를 잠시 진행할 수 없습니다.\n지금까지 작성된 내용은 유지되니 잠시 후 다시 말씀해 주세요.",
+                    targetDept, false);
+            resp.setMissingInfoList(missingFields);
+            resp.setNextAction("ai_unavailable");
+            return resp;
         }
     }
 
+    @Override
+    public void endConversation(String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) return;
+        conversationManager.endSession(conversationId);
+        ragService.endSession(conversationId);
+        log.info("[AI Ticket] Conversation ended | ConvID: {}", conversationId);
+    }
+
     // [Helper] 응답 생성기
     private AITicketResponseDTO createResponse(AITicketRequestDTO req, String msg, String dept, boolean isCompleted) {
         return AITicketResponseDTO.builder()
@@ -199,6 +301,11 @@ public class AITicketServiceImpl implements AITicketService {
                 .build();
     }
 
+    // [Helper] 경과 시간(ms)
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
     // [Helper] 부서명 추출
     private String extractDeptName(String text) {
         if (text == null) return null;
@@ -1,12 +1,16 @@
 package com.desk.service;
 
+import com.desk.dto.AiUsageReportDTO;
 import com.desk.dto.MemberDTO;
 import com.desk.dto.PageRequestDTO;
 import com.desk.dto.PageResponseDTO;
 
+import java.time.LocalDate;
+
 public interface AdminService {
     PageResponseDTO<MemberDTO> getPendingMembers(PageRequestDTO pageRequestDTO, String keyword, String department);
     PageResponseDTO<MemberDTO> getActiveMembers(PageRequestDTO pageRequestDTO, String keyword, String department);
     void approveMember(String email);
     void deleteMember(String email);
+    AiUsageReportDTO getAiUsageReport(LocalDate from, LocalDate to);
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package com.desk.service;
 
 import com.desk.domain.Member;
+import com.desk.dto.AiUsageReportDTO;
 import com.desk.dto.MemberDTO;
 import com.desk.dto.PageRequestDTO;
 import com.desk.dto.PageResponseDTO;
+import com.desk.repository.AiUsageRepository;
 import com.desk.repository.MemberRepository;
+import com.desk.service.ai.AiUsageAccountant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,6 +27,8 @@ import java.util.stream.Collectors;
 public class AdminServiceImpl implements AdminService {
 
     private final MemberRepository memberRepository;
+    private final AiUsageRepository aiUsageRepository;
+    private final AiUsageAccountant aiUsageAccountant;
 
     @Override
     public PageResponseDTO<MemberDTO> getPendingMembers(PageRequestDTO pageRequestDTO, String keyword, String department) {
@@ -46,6 +54,57 @@ public class AdminServiceImpl implements AdminService {
         member.changeDeleted(true);
     }
 
+    // 트랜잭션 밖에서 실행: flush 는 행마다 자기 트랜잭션으로 저장하고, 집계 조회는 트랜잭션이 필요 없다.
+    // (보고서 트랜잭션 안에서 저장이 실패하면 rollback-only 가 되어 조회까지 UnexpectedRollbackException 으로 끝났다)
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AiUsageReportDTO getAiUsageReport(LocalDate from, LocalDate to) {
+        // 메모리에만 있는 최근 변경분까지 반영한 뒤 조회
+        aiUsageAccountant.flush();
+
+        // [from, to] 일 단위 (to 포함)
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        return AiUsageReportDTO.builder()
+                .from(from)
+                .to(to)
+                .byDepartment(aiUsageRepository.sumByDepartment(start, end).stream()
+                        .map(r -> usageRow(r[0] == null ? "UNASSIGNED" : r[0].toString(), null, r, 1))
+                        .collect(Collectors.toList()))
+                .byMember(aiUsageRepository.sumByMember(start, end).stream()
+                        .map(r -> usageRow((String) r[0], (String) r[1], r, 2))
+                        .collect(Collectors.toList()))
+                .byFeature(aiUsageRepository.sumByFeature(start, end).stream()
+                        .map(r -> usageRow((String) r[0], null, r, 1))
+                        .collect(Collectors.toList()))
+                .currentWindow(aiUsageAccountant.snapshot())
+                .build();
+    }
+
+    // 집계 행(Object[]) -> DTO. offset 부터 calls, failures, promptTokens, completionTokens, wallMs 순서
+    private AiUsageReportDTO.Row usageRow(String key, String department, Object[] r, int offset) {
+        long calls = toLong(r[offset]);
+        long prompt = toLong(r[offset + 2]);
+        long completion = toLong(r[offset + 3]);
+        long wallMs = toLong(r[offset + 4]);
+        return AiUsageReportDTO.Row.builder()
+                .key(key)
+                .department(department)
+                .calls(calls)
+                .failures(toLong(r[offset + 1]))
+                .promptTokens(prompt)
+                .completionTokens(completion)
+                .totalTokens(prompt + completion)
+                .wallMs(wallMs)
+                .avgWallMs(calls == 0 ? 0 : wallMs / calls)
+                .build();
+    }
+
+    private static long toLong(Object o) {
+        return o instanceof Number n ? n.longValue() : 0L;
+    }
+
     private PageResponseDTO<MemberDTO> makePageResponse(Page<Member> result, PageRequestDTO pageRequestDTO) {
         List<MemberDTO> dtoList = result.getContent().stream()
                 .map(this::entityToDTO)
@@ -8,6 +8,7 @@ import com.desk.dto.TicketFileDTO;
 import com.desk.dto.TicketFilterDTO;
 import com.desk.repository.TicketFileRepository;
 import com.desk.repository.chat.ChatFileRepository;
+import com.desk.service.ai.AiFileSearchIndex;
 import com.desk.util.CustomFileUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -29,6 +30,7 @@ public class FileServiceImpl implements FileService {
     private final TicketFileRepository ticketFileRepository;
     private final ChatFileRepository chatFileRepository;
     private final CustomFileUtil fileUtil;
+    private final AiFileSearchIndex fileSearchIndex;
 
     @Override
     public PageResponseDTO<TicketFileDTO> getFileBoxList(String email, String type, TicketFilterDTO filter, PageRequestDTO pageRequestDTO) {
@@ -107,6 +109,7 @@ public class FileServiceImpl implements FileService {
 
             fileUtil.deleteFile(ticketFile.getUuid());
             ticketFileRepository.delete(ticketFile);
+            fileSearchIndex.onDeleted(uuid);
             return;
         }
 
@@ -123,6 +126,7 @@ public class FileServiceImpl implements FileService {
             }
             fileUtil.deleteFile(chatFile.getUuid());
             chatFileRepository.delete(chatFile);
+            fileSearchIndex.onDeleted(uuid);
             return;
         }
 
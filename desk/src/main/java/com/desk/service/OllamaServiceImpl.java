@@ -4,6 +4,13 @@ import com.desk.config.OllamaConfig;
 import com.desk.domain.Member;
 import com.desk.dto.MeetingMinutesDTO;
 import com.desk.repository.MemberRepository;
+import com.desk.service.ai.AiCallGuard;
+import com.desk.service.ai.AiEndpointRouter;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiJsonParser;
+import com.desk.service.ai.AiJsonSchema;
+import com.desk.service.ai.AiUsageAccountant;
+import com.desk.util.AiUnavailableException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -18,6 +25,8 @@ import java.util.regex.Pattern;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -48,6 +57,15 @@ public class OllamaServiceImpl implements OllamaService {
     private final ObjectMapper objectMapper;
     private final OllamaConfig ollamaConfig;
     private final MemberRepository memberRepository; // 담당자
+    private final AiCallGuard aiCallGuard;
+    private final AiEndpointRouter endpointRouter;
+    private final AiUsageAccountant usageAccountant;
+    @Qualifier("aiRestTemplate")
+    private final RestTemplate restTemplate;
+
+    // false 면 스키마 대신 format:"json" (스키마 미지원 Ollama 버전용)
+    @Value("${ai.json.schema-enabled:true}")
+    private boolean schemaEnabled;
 
     // 정규화 규칙 (순서 중요: LinkedHashMap) -> 가장 먼저 실행됨
     private final LinkedHashMap<Pattern, String> normalizeRules = new LinkedHashMap<>();
@@ -293,8 +311,6 @@ public class OllamaServiceImpl implements OllamaService {
         log.info("==================================================");
 
 
-        String url = ollamaConfig.getBaseUrl() + "/api/generate";
-
         // -----------------------------------------------------------
         // [프롬프트 수정] 티켓 필드(제목, 목적, 상세, 마감일) 매핑 강화
         // -----------------------------------------------------------
@@ -326,7 +342,7 @@ public class OllamaServiceImpl implements OllamaService {
         );
 
         // ... (이
-        return callOllamaApi(url, prompt); // (중복 코드 줄이기 위해 아래 메서드로 분리함)
+        return callOllamaApi(prompt); // (중복 코드 줄이기 위해 아래 메서드로 분리함)
     }
 
     private String extractTextFromFile(MultipartFile file) throws IOException {
@@ -363,31 +379,36 @@ public class OllamaServiceImpl implements OllamaService {
     }
 
     // [헬퍼] AI 호출 공통 로직
-    private MeetingMinutesDTO callOllamaApi(String url, String prompt) {
+    private MeetingMinutesDTO callOllamaApi(String prompt) {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", ollamaConfig.getModelName());
         requestBody.put("prompt", prompt);
-        requestBody.put("format", "json");
+        // 응답 스키마 강제 (MeetingMinutesDTO 필드와 타입 고정)
+        requestBody.put("format", AiJsonSchema.format(AiFeature.MEETING_SUMMARY, schemaEnabled));
         requestBody.put("stream", false);
+        requestBody.put("keep_alive", ollamaConfig.getKeepAlive());
         Map<String, Object> options = new HashMap<>();
         options.put("num_ctx", 4096);
         requestBody.put("options", options);
 
         try {
-            RestTemplate restTemplate = new RestTemplate();
+            // X-API-Key 헤더는 aiRestTemplate 인터셉터가 자동으로 붙인다.
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            String apiKey = ollamaConfig.getApiKey();  // ollamaConfig에서 가져오기
-            if (apiKey != null && !apiKey.isEmpty()) {
-                headers.set("X-API-Key", apiKey);
-            }
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+            // 서킷 브레이커 + 적응형 timeout + 동시 실행 1건 제한 (장애 시 즉시 실패 응답)
+            ResponseEntity<String> response = aiCallGuard.execute(AiFeature.MEETING_SUMMARY,
+                    () -> endpointRouter.call(AiFeature.MEETING_SUMMARY, ollamaConfig.getModelName(),
+                            baseUrl -> restTemplate.postForEntity(baseUrl + "/api/generate", entity, String.class)),
+                    e -> { throw new AiUnavailableException("회의록 AI 서버 응답 없음: " + e.getMessage(), e); });
 
             JsonNode root = objectMapper.readTree(response.getBody());
+            usageAccountant.recordTokens(AiFeature.MEETING_SUMMARY,
+                    root.path("prompt_eval_count").asLong(), root.path("eval_count").asLong());
             String jsonStr = root.path("response").asText();
-            MeetingMinutesDTO result = objectMapper.readValue(jsonStr, MeetingMinutesDTO.class);
+            // 첫 유효 JSON 객체 추출 (<think>/코드펜스/잡담/trailing comma 허용)
+            MeetingMinutesDTO result = objectMapper.treeToValue(AiJsonParser.parseObject(jsonStr), MeetingMinutesDTO.class);
 
             // [추가] attendees의 nickname을 email로 변환
             if (result.getAttendees() != null && !result.getAttendees().isEmpty()) {
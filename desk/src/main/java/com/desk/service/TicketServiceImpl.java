@@ -9,12 +9,16 @@ import com.desk.dto.*;
 import com.desk.repository.MemberRepository;
 import com.desk.repository.TicketFileRepository;
 import com.desk.repository.TicketRepository;
+import com.desk.service.ai.AITicketCentroidRouter;
+import com.desk.service.ai.AiFileSearchIndex;
 import com.desk.util.CustomFileUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
@@ -33,6 +37,8 @@ public class TicketServiceImpl implements TicketService {
     private final MemberRepository memberRepository;
     private final TicketFileRepository ticketFileRepository;
     private final CustomFileUtil fileUtil;
+    private final AITicketCentroidRouter centroidRouter;
+    private final AiFileSearchIndex fileSearchIndex;
 
     // 기존 create (파일 없는 버전 - 호환성 유지)
     @Override
@@ -115,10 +121,14 @@ public class TicketServiceImpl implements TicketService {
                             .build();
 
                     ticketFileRepository.save(ticketFile); // DB 기록
+                    fileSearchIndex.onSaved(ticketFile); // AI 파일조회 역색인 (커밋 후)
                     log.info("파일 DB 기록 완료: {}", i);
                 }
             }
 
+            // 4. 확정된 티켓을 부서 라우팅 중심점에 반영 (커밋 후, 백그라운드)
+            learnRoutingAfterCommit(savedTicket);
+
             log.info("--- 모든 저장 로직 성공, DTO 변환 시작 ---");
             return toSentDetailDTO(savedTicket);
 
@@ -130,6 +140,29 @@ public class TicketServiceImpl implements TicketService {
         }
     }
 
+    // 수신자가 한 부서로 모이는 티켓만 라우팅 학습에 사용 (여러 부서에 걸친 티켓은 중심점을 흐린다)
+    private void learnRoutingAfterCommit(Ticket ticket) {
+        Set<Department> depts = ticket.getPersonalList().stream()
+                .map(p -> p.getReceiver().getDepartment())
+                .filter(d -> d != null)
+                .collect(Collectors.toSet());
+        if (depts.size() != 1) return;
+
+        Department dept = depts.iterator().next();
+        String text = (ticket.getTitle() == null ? "" : ticket.getTitle()) + " "
+                + (ticket.getContent() == null ? "" : ticket.getContent());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    centroidRouter.learnTicketAsync(dept, text);
+                }
+            });
+        } else {
+            centroidRouter.learnTicketAsync(dept, text);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public PageResponseDTO<TicketSentListDTO> listSent(String writer, TicketFilterDTO filter, PageRequestDTO pageRequestDTO) {
@@ -0,0 +1,324 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import com.desk.repository.TicketPersonalRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [임베딩 중심점(centroid) 부서 라우터]
+ * 부서별로 임베딩 벡터의 중심점을 들고 있다가, 질의 임베딩과 가장 가까운 부서로 라우팅한다.
+ *
+ * 1. 학습 데이터 : RAG 지식 문서(knowledge_*.json) 임베딩 + 과거/확정된 티켓(제목 + 내용) 임베딩
+ * 2. 판단        : 1위/2위 부서의 코사인 유사도 차이(margin)가 충분할 때만 확정
+ *                  (비교 자체는 부서 수 x 차원 곱셈이라 수 µs. 질의 임베딩 1회만 필요)
+ * 3. 온라인 갱신 : 티켓이 실제로 전송(확정)되면 수신 부서 중심점에 반영
+ * 4. 지식 재적재 : 지식 문서 몫은 따로 합산해 두고 재적재 때마다 통째로 교체한다. (replaceKnowledge)
+ *                  지식 파일에서 빠진 문서가 중심점에 남지 않고, 티켓 예시는 그대로 유지된다.
+ *
+ * 확정하지 못하면 호출 측이 기존 generateText 라우팅 프롬프트로 넘긴다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AITicketCentroidRouter {
+
+    private final AiEmbeddingModel embeddingModel;
+    private final TicketPersonalRepository ticketPersonalRepository;
+
+    @Value("${ai.ticket.centroid.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.ticket.centroid.min-margin:0.05}")
+    private double minMargin;
+
+    @Value("${ai.ticket.centroid.min-similarity:0.3}")
+    private double minSimilarity;
+
+    @Value("${ai.ticket.centroid.history-limit:100}")
+    private int historyLimit;
+
+    private final Map<Department, Centroid> centroids = new ConcurrentHashMap<>();
+
+    private final AtomicLong routedLocally = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong learnedTickets = new AtomicLong();
+
+    // 과거 티켓 부트스트랩 / 확정 티켓 임베딩 (요청 스레드를 막지 않기 위해)
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 라우팅 결과
+     */
+    public record Route(Department department, double similarity, double margin, boolean confident) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled || historyLimit <= 0) return;
+        // 기동을 막지 않도록 과거 티켓 임베딩은 백그라운드에서 진행
+        executor.submit(this::bootstrapFromHistory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 지식 문서 임베딩 모음 (재적재 한 번 분량). 부서별 단위 벡터 합만 들고 있다.
+     * 적재 스레드 하나에서 모은 뒤 replaceKnowledge 로 넘긴다. (스레드 안전하지 않음)
+     */
+    public static final class KnowledgeExamples {
+        private final Map<Department, double[]> sums = new EnumMap<>(Department.class);
+        private final Map<Department, Integer> counts = new EnumMap<>(Department.class);
+
+        public void add(String dept, List<Double> vector) {
+            if (vector == null || vector.isEmpty()) return;
+            add(dept, toArray(vector));
+        }
+
+        public void add(String dept, double[] vector) {
+            Department d = toDepartment(dept);
+            double[] unit = vector == null ? null : normalize(vector);
+            if (d == null || unit == null) return;
+            double[] sum = sums.computeIfAbsent(d, k -> new double[unit.length]);
+            if (sum.length != unit.length) return; // 다른 임베딩 모델 벡터는 섞지 않는다
+            for (int i = 0; i < sum.length; i++) sum[i] += unit[i];
+            counts.merge(d, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 지식 문서 몫을 이번 재적재 결과로 교체 (티켓 예시는 유지). 예시가 하나도 안 남은 부서는 후보에서 빠진다.
+     */
+    public void replaceKnowledge(KnowledgeExamples examples) {
+        for (Department d : Department.values()) {
+            double[] sum = examples.sums.get(d);
+            if (sum == null && !centroids.containsKey(d)) continue;
+            Centroid c = centroids.computeIfAbsent(d, k -> new Centroid());
+            c.replaceKnowledge(sum, examples.counts.getOrDefault(d, 0));
+            centroids.computeIfPresent(d, (k, v) -> v.count == 0 ? null : v);
+        }
+    }
+
+    /**
+     * 학습 벡터 추가 (과거/확정 티켓. 재적재와 무관하게 계속 쌓인다)
+     */
+    public void addExample(String dept, List<Double> vector) {
+        Department d = toDepartment(dept);
+        if (d == null || vector == null || vector.isEmpty()) return;
+        addExample(d, toArray(vector));
+    }
+
+    void addExample(Department dept, double[] vector) {
+        double[] unit = normalize(vector);
+        if (unit == null) return;
+        centroids.computeIfAbsent(dept, k -> new Centroid()).add(unit);
+    }
+
+    /**
+     * 확정된 티켓을 백그라운드에서 임베딩해 수신 부서 중심점에 반영
+     */
+    public void learnTicketAsync(Department dept, String text) {
+        if (!enabled || dept == null || text == null || text.isBlank()) return;
+        executor.submit(() -> {
+            List<Double> vector = embeddingModel.embed(text);
+            if (!vector.isEmpty()) {
+                addExample(dept, toArray(vector));
+                learnedTickets.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 질의 텍스트를 임베딩해 라우팅. 임베딩 실패/중심점 부족 시 empty.
+     * confident=false 면 호출 측이 LLM 라우팅으로 넘겨야 한다.
+     */
+    public Optional<Route> route(String text) {
+        if (!enabled || centroids.size() < 2 || text == null || text.isBlank()) {
+            return Optional.empty();
+        }
+        List<Double> vector = embeddingModel.embed(text);
+        if (vector.isEmpty()) {
+            fallbacks.incrementAndGet();
+            return Optional.empty();
+        }
+        Route r = route(toArray(vector));
+        if (r != null && r.confident()) {
+            routedLocally.incrementAndGet();
+        } else {
+            fallbacks.incrementAndGet();
+        }
+        return Optional.ofNullable(r);
+    }
+
+    Route route(double[] vector) {
+        double[] q = normalize(vector);
+        if (q == null) return null;
+
+        Department best = null;
+        double top = Double.NEGATIVE_INFINITY;
+        double second = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<Department, Centroid> e : centroids.entrySet()) {
+            double[] c = e.getValue().unit;
+            if (c == null || c.length != q.length) continue; // 모델/차원이 다른 벡터는 무시
+            double sim = dot(q, c);
+            if (sim > top) {
+                second = top;
+                top = sim;
+                best = e.getKey();
+            } else if (sim > second) {
+                second = sim;
+            }
+        }
+        if (best == null) return null;
+
+        double margin = second == Double.NEGATIVE_INFINITY ? 0.0 : top - second;
+        boolean confident = second != Double.NEGATIVE_INFINITY && margin >= minMargin && top >= minSimilarity;
+        return new Route(best, top, margin, confident);
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long local = routedLocally.get();
+        long fallback = fallbacks.get();
+        result.put("enabled", enabled);
+        result.put("routedLocally", local);
+        result.put("fallbacks", fallback);
+        result.put("fallbackRate", local + fallback == 0 ? 0.0 : (double) fallback / (local + fallback));
+        result.put("learnedTickets", learnedTickets.get());
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (Department d : Department.values()) {
+            Centroid c = centroids.get(d);
+            if (c != null) counts.put(d.name(), c.count);
+        }
+        result.put("examples", counts);
+        return result;
+    }
+
+    private void bootstrapFromHistory() {
+        long start = System.nanoTime();
+        int added = 0;
+        try {
+            List<Department> depts = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (Object[] row : ticketPersonalRepository.findClassifierSamples(PageRequest.of(0, historyLimit))) {
+                if (!(row[2] instanceof Department d)) continue;
+                String text = (row[0] == null ? "" : row[0]) + " " + (row[1] == null ? "" : row[1]);
+                if (text.isBlank()) continue;
+                depts.add(d);
+                texts.add(text);
+            }
+            // /api/embed 배치 요청 (건당 왕복 대신 배치 크기 단위, 질의 임베딩과 별도 BATCH 레인)
+            List<List<Double>> vectors = embeddingModel.embedAll(AiFeature.EMBEDDING_INGEST, texts);
+            for (int i = 0; i < vectors.size(); i++) {
+                if (vectors.get(i).isEmpty()) continue;
+                addExample(depts.get(i), toArray(vectors.get(i)));
+                added++;
+            }
+            log.info("[AI Centroid] 과거 티켓 {}건 반영 완료 ({}ms)", added,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("[AI Centroid] 과거 티켓 반영 실패: {}", e.getMessage());
+        }
+    }
+
+    private static Department toDepartment(String name) {
+        if (name == null || name.isBlank()) return null;
+        try {
+            return Department.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static double[] toArray(List<Double> vector) {
+        double[] a = new double[vector.size()];
+        for (int i = 0; i < a.length; i++) {
+            Number n = vector.get(i);
+            a[i] = n == null ? 0.0 : n.doubleValue();
+        }
+        return a;
+    }
+
+    private static double[] normalize(double[] v) {
+        double norm = Math.sqrt(dot(v, v));
+        if (norm == 0.0 || Double.isNaN(norm)) return null;
+        double[] u = new double[v.length];
+        for (int i = 0; i < v.length; i++) u[i] = v[i] / norm;
+        return u;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0.0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    // ---------------------------------------------------------
+    // 부서별 중심점 (단위 벡터 합 → 정규화)
+    // 티켓 몫은 계속 더하고, 지식 문서 몫은 재적재마다 교체한다.
+    // ---------------------------------------------------------
+    private static class Centroid {
+        private double[] tickets;
+        private int ticketCount;
+        private double[] knowledge;
+        private int knowledgeCount;
+        volatile double[] unit; // 라우팅 시 읽는 정규화된 중심점 (갱신 시 통째로 교체)
+        volatile int count;
+
+        synchronized void add(double[] unitVector) {
+            if (tickets == null) {
+                tickets = new double[unitVector.length];
+            } else if (tickets.length != unitVector.length) {
+                return; // 다른 임베딩 모델 벡터는 섞지 않는다
+            }
+            for (int i = 0; i < tickets.length; i++) tickets[i] += unitVector[i];
+            ticketCount++;
+            publish();
+        }
+
+        synchronized void replaceKnowledge(double[] sum, int n) {
+            knowledge = sum;
+            knowledgeCount = sum == null ? 0 : n;
+            publish();
+        }
+
+        // 차원이 다르면(임베딩 모델 변경) 새로 적재한 지식 문서 몫만 쓴다.
+        private void publish() {
+            boolean mix = tickets != null && knowledge != null && tickets.length == knowledge.length;
+            double[] sum;
+            if (mix) {
+                sum = tickets.clone();
+                for (int i = 0; i < sum.length; i++) sum[i] += knowledge[i];
+            } else {
+                sum = knowledge != null ? knowledge : tickets;
+            }
+            count = (knowledge != null ? knowledgeCount : 0) + (mix || knowledge == null ? ticketCount : 0);
+            unit = sum == null ? null : normalize(sum);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.desk.service.ai;
+
+import com.desk.dto.AITicketRequestDTO;
+import com.desk.dto.AITicketRequestDTO.AITicketInfo;
+import com.desk.dto.AITicketRequestDTO.AITicketMessage;
+import com.desk.util.AiTokenBudgetExceededException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * [AI 티켓 인터뷰 대화 상태 관리]
+ * Step 3 인터뷰는 턴마다 프롬프트가 커져 CPU 추론 시간이 계속 늘어난다.
+ * 이 컴포넌트가 conversationId 단위로 상태를 들고 프롬프트를 압축한다.
+ *
+ * 1. 티켓 delta   : 직전 턴에 모델이 본(반환한) 티켓과 달라진 필드만 전체 값으로 전송
+ *                  나머지 필드는 "필드명: 짧은 값" 한 줄 요약
+ * 2. 최근 대화    : 최근 N 개 메시지만 원문(길이 제한)으로 전송
+ * 3. 압축 메모리  : 그 이전 사용자 발화는 한 줄 요약으로 접어서 누적 (최대 길이 제한)
+ * 4. 토큰 예산    : 프롬프트 1건 상한(cap) 초과 시 대화 → RAG → 메모리 → 티켓 요약 → delta 값 길이 순으로 줄이고,
+ *                  그래도 넘거나(지시문/입력만으로 초과) 세션 누적 프롬프트 토큰이 예산을 넘으면 AI 호출 자체를 막는다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AITicketConversationManager {
+
+    private static final int SUMMARY_VALUE_CHARS = 30;
+    private static final int MEMORY_LINE_CHARS = 60;
+    private static final int DELTA_VALUE_CHARS_START = 512; // 상한 초과 시 delta 값 길이를 여기서부터 절반씩 줄인다
+    private static final long SWEEP_INTERVAL_MS = 60_000;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${ai.ticket.conversation.recent-turns:4}")
+    private int recentTurns;
+
+    @Value("${ai.ticket.conversation.turn-max-chars:300}")
+    private int turnMaxChars;
+
+    @Value("${ai.ticket.conversation.memory-max-chars:600}")
+    private int memoryMaxChars;
+
+    @Value("${ai.ticket.conversation.rag-max-chars:1200}")
+    private int ragMaxChars;
+
+    @Value("${ai.ticket.conversation.prompt-token-cap:2500}")
+    private int promptTokenCap;
+
+    @Value("${ai.ticket.conversation.session-token-budget:30000}")
+    private long sessionTokenBudget;
+
+    @Value("${ai.ticket.conversation.session-ttl-minutes:60}")
+    private long sessionTtlMinutes;
+
+    private final Map<String, ConversationState> sessions = new ConcurrentHashMap<>();
+    private volatile long lastSweepAt = System.currentTimeMillis();
+
+    /**
+     * 세션별 상태
+     */
+    private static class ConversationState {
+        Map<String, Object> lastTicket = Map.of(); // 직전 턴에 모델이 본 티켓
+        final Deque<String> memory = new ArrayDeque<>(); // 접힌 과거 발화 요약
+        int memoryChars;
+        int foldedCount;        // memory 로 접힌 chatHistory 메시지 수
+        long promptTokensUsed;  // 세션 누적 프롬프트 토큰
+        int turns;
+        volatile long lastAccessAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 인터뷰 프롬프트에 넣을 압축된 구성 요소
+     */
+    @Getter
+    @Builder
+    public static class InterviewContext {
+        private final String ticketSummary;  // 변경 없는 필드 요약
+        private final String ticketDelta;    // 변경된 필드 (JSON)
+        private final String memory;         // 과거 대화 요약
+        private final String recentTurns;    // 최근 대화 원문
+        private final String ragContext;     // 길이 제한된 RAG 컨텍스트
+        private final int estimatedTokens;   // 고정 지시문 제외한 추정 토큰
+        private final long sessionTokensUsed;
+    }
+
+    /**
+     * 이번 턴의 프롬프트 구성 요소를 만든다.
+     *
+     * @param fixedTokens 지시문/사용자 입력 등 줄일 수 없는 부분의 추정 토큰
+     * @throws AiTokenBudgetExceededException 세션 누적 예산을 이미 모두 사용했거나, 다 줄여도 프롬프트 상한을 넘는 경우
+     */
+    public InterviewContext prepare(AITicketRequestDTO request, String ragContext, int fixedTokens) {
+        sweepIfDue();
+
+        String convId = conversationKey(request);
+        ConversationState state = sessions.computeIfAbsent(convId, k -> new ConversationState());
+        state.lastAccessAt = System.currentTimeMillis();
+
+        synchronized (state) {
+            if (state.promptTokensUsed >= sessionTokenBudget) {
+                throw new AiTokenBudgetExceededException("Ticket interview token budget exhausted: " + convId
+                        + " (" + state.promptTokensUsed + "/" + sessionTokenBudget + ")");
+            }
+
+            Map<String, Object> current = toFieldMap(request.getCurrentTicket());
+            String delta = buildDelta(state.lastTicket, current);
+            String summary = buildSummary(state.lastTicket, current);
+
+            List<AITicketMessage> history = recentHistory(request);
+            int windowStart = Math.max(0, history.size() - recentTurns);
+            foldIntoMemory(state, history, windowStart);
+
+            List<String> turns = new ArrayList<>();
+            for (AITicketMessage m : history.subList(windowStart, history.size())) {
+                turns.add(formatTurn(m, turnMaxChars));
+            }
+            String rag = truncate(ragContext, ragMaxChars);
+            String memory = String.join("\n", state.memory);
+
+            // 프롬프트 상한 초과 시: 오래된 대화 → RAG → 메모리 → 티켓 요약 → delta 값 길이 순으로 줄인다.
+            int total = fixedTokens + tokens(summary, delta, memory, rag) + tokens(turns);
+            while (total > promptTokenCap && !turns.isEmpty()) {
+                turns.remove(0);
+                total = fixedTokens + tokens(summary, delta, memory, rag) + tokens(turns);
+            }
+            if (total > promptTokenCap && !rag.isEmpty()) {
+                int over = total - promptTokenCap;
+                rag = truncate(rag, Math.max(0, rag.length() - over * 2));
+                total = fixedTokens + tokens(summary, delta, memory, rag);
+            }
+            if (total > promptTokenCap && !memory.isEmpty()) {
+                memory = "";
+                total = fixedTokens + tokens(summary, delta, rag);
+            }
+            if (total > promptTokenCap) {
+                summary = "(생략)"; // 바뀌지 않은 필드라 모델은 직전 턴에 이미 봤다
+                total = fixedTokens + tokens(summary, delta, rag);
+            }
+            for (int limit = DELTA_VALUE_CHARS_START; total > promptTokenCap && limit >= SUMMARY_VALUE_CHARS; limit /= 2) {
+                delta = buildDelta(state.lastTicket, current, limit);
+                total = fixedTokens + tokens(summary, delta, rag);
+            }
+            if (total > promptTokenCap) {
+                // 잘린 프롬프트로 호출하면 모델 서버가 앞부분(지시문)을 버려 응답 형식이 깨진다.
+                throw new AiTokenBudgetExceededException("Ticket interview prompt exceeds cap after compaction: " + convId
+                        + " (" + total + "/" + promptTokenCap + ")");
+            }
+
+            return InterviewContext.builder()
+                    .ticketSummary(summary)
+                    .ticketDelta(delta)
+                    .memory(memory)
+                    .recentTurns(String.join("\n", turns))
+                    .ragContext(rag)
+                    .estimatedTokens(total)
+                    .sessionTokensUsed(state.promptTokensUsed)
+                    .build();
+        }
+    }
+
+    /**
+     * AI 호출 후 상태 갱신 (사용한 프롬프트 토큰 누적 + 모델이 본 티켓 기록)
+     */
+    public void recordTurn(String conversationId, int promptTokens, AITicketInfo ticketSeenByModel) {
+        ConversationState state = sessions.get(conversationKey(conversationId));
+        if (state == null) return;
+        synchronized (state) {
+            state.promptTokensUsed += promptTokens;
+            state.lastTicket = toFieldMap(ticketSeenByModel);
+            state.turns++;
+            log.info("[AI Conversation] turn={} | conv={} | promptTokens={} | sessionTokens={}/{}",
+                    state.turns, conversationId, promptTokens, state.promptTokensUsed, sessionTokenBudget);
+        }
+    }
+
+    /**
+     * 모델이 반환한 updatedTicket(변경 필드만)을 현재 티켓에 덮어쓴다.
+     * - 비어있는 값은 무시 (기존 값 유지)
+     */
+    public AITicketInfo mergeDelta(AITicketInfo current, JsonNode updated) {
+        AITicketInfo merged = copy(current);
+        if (updated == null || !updated.isObject()) return merged;
+
+        String v;
+        if ((v = text(updated, "title")) != null) merged.setTitle(v);
+        if ((v = text(updated, "content")) != null) merged.setContent(v);
+        if ((v = text(updated, "purpose")) != null) merged.setPurpose(v);
+        if ((v = text(updated, "requirement")) != null) merged.setRequirement(v);
+        if ((v = text(updated, "deadline")) != null) merged.setDeadline(v);
+        if ((v = text(updated, "grade")) != null) merged.setGrade(v.toUpperCase());
+
+        JsonNode receivers = updated.path("receivers");
+        if (receivers.isArray() && !receivers.isEmpty()) {
+            List<String> list = new ArrayList<>();
+            receivers.forEach(n -> list.add(n.asText()));
+            merged.setReceivers(list);
+        }
+
+        JsonNode rate = updated.has("completionRate") ? updated.get("completionRate") : updated.get("completion_rate");
+        if (rate != null && rate.isNumber()) {
+            merged.setCompletionRate(Math.max(0, Math.min(100, rate.asInt())));
+        }
+        return merged;
+    }
+
+    public long getSessionTokensUsed(String conversationId) {
+        ConversationState state = sessions.get(conversationKey(conversationId));
+        return state == null ? 0 : state.promptTokensUsed;
+    }
+
+    public void endSession(String conversationId) {
+        sessions.remove(conversationKey(conversationId));
+    }
+
+    // ---------------------------------------------------------
+    // 내부 구현
+    // ---------------------------------------------------------
+
+    private String buildDelta(Map<String, Object> last, Map<String, Object> current) {
+        return buildDelta(last, current, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param valueMaxChars 문자열 값 길이 제한 (프롬프트 상한 초과 시)
+     */
+    private String buildDelta(Map<String, Object> last, Map<String, Object> current, int valueMaxChars) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : current.entrySet()) {
+            if (!Objects.equals(last.get(e.getKey()), e.getValue())) {
+                Object v = e.getValue();
+                delta.put(e.getKey(), v instanceof String str ? truncate(str, valueMaxChars) : v);
+            }
+        }
+        if (delta.isEmpty()) return "(변경 없음)";
+        try {
+            return objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            return delta.toString();
+        }
+    }
+
+    private String buildSummary(Map<String, Object> last, Map<String, Object> current) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> e : current.entrySet()) {
+            if (!Objects.equals(last.get(e.getKey()), e.getValue())) continue; // delta 로 전송됨
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(e.getKey()).append(": ").append(truncate(String.valueOf(e.getValue()), SUMMARY_VALUE_CHARS));
+        }
+        return sb.length() == 0 ? "(없음)" : sb.toString();
+    }
+
+    /**
+     * 비어있지 않은 필드만 추출 (빈 필드는 delta/요약 모두에서 생략)
+     */
+    private Map<String, Object> toFieldMap(AITicketInfo t) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        if (t == null) return m;
+        putIfPresent(m, "title", t.getTitle());
+        putIfPresent(m, "content", t.getContent());
+        putIfPresent(m, "purpose", t.getPurpose());
+        putIfPresent(m, "requirement", t.getRequirement());
+        putIfPresent(m, "deadline", t.getDeadline());
+        putIfPresent(m, "grade", t.getGrade());
+        if (t.getReceivers() != null && !t.getReceivers().isEmpty()) {
+            m.put("receivers", List.copyOf(t.getReceivers()));
+        }
+        return m;
+    }
+
+    private static void putIfPresent(Map<String, Object> m, String key, String value) {
+        if (value != null && !value.isBlank()) m.put(key, value);
+    }
+
+    /**
+     * chatHistory 에서 이번 사용자 입력(마지막 user 메시지와 동일)을 제외한 목록
+     */
+    private List<AITicketMessage> recentHistory(AITicketRequestDTO request) {
+        List<AITicketMessage> history = request.getChatHistory() == null ? List.of() : request.getChatHistory();
+        if (!history.isEmpty()) {
+            AITicketMessage last = history.get(history.size() - 1);
+            if ("user".equals(last.getRole()) && Objects.equals(last.getContent(), request.getUserInput())) {
+                return history.subList(0, history.size() - 1);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 윈도우 밖으로 밀려난 사용자 발화를 한 줄 요약으로 접는다. (이미 접은 메시지는 건너뜀)
+     */
+    private void foldIntoMemory(ConversationState state, List<AITicketMessage> history, int windowStart) {
+        if (history.size() < state.foldedCount) {
+            // 프론트에서 대화를 새로 시작한 경우
+            state.memory.clear();
+            state.memoryChars = 0;
+            state.foldedCount = 0;
+        }
+        for (int i = state.foldedCount; i < windowStart; i++) {
+            AITicketMessage m = history.get(i);
+            if (!"user".equals(m.getRole()) || m.getContent() == null || m.getContent().isBlank()) continue;
+            String line = "- " + truncate(firstSentence(m.getContent()), MEMORY_LINE_CHARS);
+            state.memory.addLast(line);
+            state.memoryChars += line.length();
+            while (state.memoryChars > memoryMaxChars && state.memory.size() > 1) {
+                state.memoryChars -= state.memory.removeFirst().length();
+            }
+        }
+        state.foldedCount = Math.max(state.foldedCount, windowStart);
+    }
+
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweepAt < SWEEP_INTERVAL_MS) return;
+        lastSweepAt = now;
+        long ttlMs = sessionTtlMinutes * 60_000;
+        sessions.entrySet().removeIf(e -> now - e.getValue().lastAccessAt > ttlMs);
+    }
+
+    private static String conversationKey(AITicketRequestDTO request) {
+        return conversationKey(request.getConversationId());
+    }
+
+    // 대화 id 없는 요청을 한 버킷에 모으면 동시에 진행 중인 인터뷰끼리 상태가 섞인다. (id 발급은 AITicketServiceImpl)
+    private static String conversationKey(String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) {
+            throw new IllegalArgumentException("conversationId is required");
+        }
+        return conversationId;
+    }
+
+    private static String formatTurn(AITicketMessage m, int maxChars) {
+        String role = "assistant".equals(m.getRole()) ? "AI" : "사용자";
+        return role + ": " + truncate(m.getContent() == null ? "" : m.getContent().strip(), maxChars);
+    }
+
+    private static String firstSentence(String s) {
+        String t = s.strip().replaceAll("\\s+", " ");
+        int idx = -1;
+        for (String end : new String[]{". ", "? ", "! ", "\n"}) {
+            int i = t.indexOf(end);
+            if (i > 0 && (idx < 0 || i < idx)) idx = i;
+        }
+        return idx > 0 ? t.substring(0, idx + 1).strip() : t;
+    }
+
+    private static String truncate(String s, int maxChars) {
+        if (s == null) return "";
+        if (s.length() <= maxChars) return s;
+        return maxChars <= 1 ? "" : s.substring(0, maxChars - 1) + "…";
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        if (v == null || v.isNull()) return null;
+        String s = v.asText();
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private static int tokens(String... parts) {
+        int sum = 0;
+        for (String p : parts) sum += AiTokenEstimator.estimate(p);
+        return sum;
+    }
+
+    private static int tokens(List<String> parts) {
+        int sum = 0;
+        for (String p : parts) sum += AiTokenEstimator.estimate(p);
+        return sum;
+    }
+
+    private static AITicketInfo copy(AITicketInfo t) {
+        if (t == null) return new AITicketInfo();
+        return AITicketInfo.builder()
+                .title(t.getTitle())
+                .content(t.getContent())
+                .purpose(t.getPurpose())
+                .requirement(t.getRequirement())
+                .deadline(t.getDeadline())
+                .grade(t.getGrade())
+                .receivers(t.getReceivers() == null ? new ArrayList<>() : new ArrayList<>(t.getReceivers()))
+                .completionRate(t.getCompletionRate())
+                .build();
+    }
+}
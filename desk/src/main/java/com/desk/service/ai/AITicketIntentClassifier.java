@@ -0,0 +1,461 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import com.desk.repository.MemberRepository;
+import com.desk.repository.TicketPersonalRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import kr.co.shineware.nlp.komoran.core.Komoran;
+import kr.co.shineware.nlp.komoran.model.Token;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * [AI 티켓 의도 사전 분류기]
+ * Step 1(부서 라우팅) / Step 2(담당자 추출)에서 LLM 을 부르기 전에 프로세스 안에서 먼저 판단한다.
+ * 확신할 수 있을 때만 바로 답하고, 애매하면 기존처럼 LLM 으로 넘긴다(escalation).
+ *
+ * 1. 부서 라우팅 : Komoran 형태소(명사/동사·형용사 어간/외국어) 기반 다항 나이브 베이즈
+ *                 학습 데이터 = 부서별 R&R 시드 + design_scenario.json + 과거 티켓(제목/내용 → 수신자 부서)
+ *                 사후확률이 임계값 이상이고 학습된 단어가 일정 수 이상일 때만 확정
+ * 2. 담당자 추출 : '없음/모름' 류 표현, 또는 입력에 등록된 닉네임이 정확히 하나만 있을 때만 확정
+ *
+ * 단계별 escalation 비율과 절약된 LLM 시간(추정)은 snapshot() 으로 노출한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AITicketIntentClassifier {
+
+    /** AITicketServiceImpl.isCommonTeam 이 인식하는 "담당자 없음" 값 */
+    public static final String COMMON_ASSIGNEE = "Team_Common";
+
+    private static final double ALPHA = 0.1; // 스무딩 (학습 데이터가 적어 1.0 이면 확신도가 지나치게 낮아진다)
+
+    private static final Pattern COMMON_PATTERN =
+            Pattern.compile("^(없음|없어요|없습니다|없어|모름|몰라요|모르겠어요|상관없음|상관없어요|아무나|none|no)$");
+    private static final Pattern ASSIGNEE_SUFFIX =
+            Pattern.compile("(님|씨)?(으로|로|에게|한테|이요|요|입니다|이에요|예요)?$");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]");
+
+    /**
+     * 부서별 기본 시드 (AITicketPromptUtil 라우팅 프롬프트의 R&R 과 동일한 범위)
+     */
+    private static final Map<Department, List<String>> SEED = new EnumMap<>(Map.of(
+            Department.DEVELOPMENT, List.of(
+                    "개발 시스템 오류 수정 요청", "ERP 그룹웨어 로그인 오류", "서버 점검 네트워크 장애",
+                    "보안 계정 권한 설정", "PC 노트북 지급 설치", "DB 데이터베이스 관리 백업", "앱 버그 배포"),
+            Department.DESIGN, List.of(
+                    "디자인 배너 제작", "이미지 로고 수정", "UI UX 화면 디자인", "영상 편집 썸네일",
+                    "포스터 디자인 제작 요청", "상세페이지 디자인 시안"),
+            Department.SALES, List.of(
+                    "영업 고객 계약 진행", "제안서 작성 요청", "파트너 거래처 관리", "매출 실적 관리",
+                    "견적서 발송", "고객사 미팅"),
+            Department.HR, List.of(
+                    "인사 채용 공고", "휴가 연차 신청", "급여 명세서 문의", "재직 증명서 발급",
+                    "복지 포인트 신청", "입사 퇴사 처리"),
+            Department.FINANCE, List.of(
+                    "재무 비용 집행 요청", "법인카드 사용 정산", "세금계산서 발행", "재무제표 작성",
+                    "경비 처리 영수증", "지출 결의서"),
+            Department.PLANNING, List.of(
+                    "기획 예산 수립", "사업 기획서 작성", "시장 분석 조사", "프로젝트 일정 관리",
+                    "신규 서비스 기획", "전략 보고서")
+    ));
+
+    private final ObjectMapper objectMapper;
+    private final TicketPersonalRepository ticketPersonalRepository;
+    private final MemberRepository memberRepository;
+    @Nullable
+    private final Komoran komoran; // 공유 형태소 분석기 (AiKomoran, 초기화 실패 시 null → 공백 토큰화)
+
+    @Value("${ai.ticket.classifier.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.ticket.classifier.route-threshold:0.85}")
+    private double routeThreshold;
+
+    // 아는 단어가 하나뿐이면 확신도가 높게 나와도(부서 고유 단어 하나로 사후확률이 쏠림) LLM 으로 넘긴다
+    @Value("${ai.ticket.classifier.min-known-tokens:2}")
+    private int minKnownTokens;
+
+    @Value("${ai.ticket.classifier.history-limit:2000}")
+    private int historyLimit;
+
+    @Value("${ai.demo-mode.scenario-path:data/design_scenario.json}")
+    private String scenarioPath;
+
+    private volatile Model model = Model.EMPTY;
+
+    private final Map<Task, TaskStats> stats = new EnumMap<>(Map.of(
+            Task.ROUTING, new TaskStats(),
+            Task.ASSIGNEE, new TaskStats()
+    ));
+
+    /**
+     * 사전 분류 단계
+     */
+    public enum Task {
+        ROUTING, ASSIGNEE
+    }
+
+    /**
+     * 부서 분류 결과
+     */
+    @Getter
+    public static class Prediction {
+        private final Department department;
+        private final double confidence; // 사후확률 (0 ~ 1)
+        private final int knownTokens;   // 학습된 단어 수
+        private final boolean confident; // LLM 없이 확정해도 되는지
+
+        Prediction(Department department, double confidence, int knownTokens, boolean confident) {
+            this.department = department;
+            this.confidence = confidence;
+            this.knownTokens = knownTokens;
+            this.confident = confident;
+        }
+    }
+
+    /**
+     * 학습 샘플 (텍스트 → 부서)
+     */
+    public record Sample(String text, Department department) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[AI Intent] 사전 분류기 비활성화");
+            return;
+        }
+        List<Sample> samples = new ArrayList<>(seedSamples());
+        samples.addAll(scenarioSamples());
+        samples.addAll(historySamples());
+        train(samples);
+    }
+
+    /**
+     * 샘플로 모델을 새로 만든다. (기존 모델과 교체)
+     */
+    public void train(Collection<Sample> samples) {
+        Model next = new Model();
+        for (Sample s : samples) {
+            if (s.department() == null) continue;
+            List<String> tokens = tokenize(s.text());
+            if (tokens.isEmpty()) continue;
+            next.add(s.department(), tokens);
+        }
+        this.model = next;
+        log.info("[AI Intent] 학습 완료 | docs={} | vocab={}", next.docs, next.vocab.size());
+    }
+
+    /**
+     * 부서 분류. 확신하지 못하면(confident=false) 호출 측이 LLM 으로 넘겨야 한다.
+     * 분류 결과에 따라 ROUTING 단계의 로컬 처리/escalation 건수가 집계된다.
+     */
+    public Prediction classifyDepartment(String text) {
+        if (!enabled) {
+            return new Prediction(null, 0.0, 0, false);
+        }
+        long start = System.nanoTime();
+        Prediction p = predict(text);
+        stats.get(Task.ROUTING).onDecision(p.isConfident(), System.nanoTime() - start);
+        return p;
+    }
+
+    /**
+     * 담당자 추출. 확실한 경우에만 값(닉네임 또는 COMMON_ASSIGNEE)을 돌려준다.
+     */
+    public Optional<String> resolveAssignee(String input) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        Optional<String> result = matchAssignee(input, memberRepository.findAllActiveNicknames());
+        stats.get(Task.ASSIGNEE).onDecision(result.isPresent(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * escalation 된 LLM 호출의 실제 지연 기록 (절약 시간 추정용)
+     */
+    public void recordLlmLatency(Task task, long latencyMs) {
+        stats.get(task).llmLatency.record(latencyMs);
+    }
+
+    Prediction predict(String text) {
+        Model m = this.model;
+        List<String> tokens = tokenize(text);
+        if (m.docs == 0 || tokens.isEmpty()) {
+            return new Prediction(null, 0.0, 0, false);
+        }
+
+        int known = 0;
+        for (String t : tokens) {
+            if (m.vocab.contains(t)) known++;
+        }
+        if (known == 0) {
+            return new Prediction(null, 0.0, 0, false);
+        }
+
+        // 부서별 로그 우도 (사전확률은 균등: 과거 티켓이 특정 부서에 몰려 있어도 편향되지 않게)
+        Map<Department, Double> scores = new EnumMap<>(Department.class);
+        double vocabSize = m.vocab.size();
+        for (Map.Entry<Department, ClassCounts> e : m.classes.entrySet()) {
+            ClassCounts c = e.getValue();
+            double denom = c.totalTokens + ALPHA * vocabSize;
+            double score = 0.0;
+            for (String t : tokens) {
+                if (!m.vocab.contains(t)) continue;
+                score += Math.log((c.tokenCounts.getOrDefault(t, 0) + ALPHA) / denom);
+            }
+            scores.put(e.getKey(), score);
+        }
+
+        // softmax → 사후확률
+        double max = scores.values().stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
+        double sum = 0.0;
+        Department best = null;
+        double bestExp = -1.0;
+        for (Map.Entry<Department, Double> e : scores.entrySet()) {
+            double exp = Math.exp(e.getValue() - max);
+            sum += exp;
+            if (exp > bestExp) {
+                bestExp = exp;
+                best = e.getKey();
+            }
+        }
+        double confidence = sum > 0 ? bestExp / sum : 0.0;
+        boolean confident = confidence >= routeThreshold && known >= minKnownTokens;
+        return new Prediction(best, confidence, known, confident);
+    }
+
+    Optional<String> matchAssignee(String input, Collection<String> nicknames) {
+        if (input == null) return Optional.empty();
+        String normalized = NON_WORD.matcher(input.toLowerCase(Locale.ROOT)).replaceAll("");
+        if (normalized.isEmpty()) return Optional.empty();
+
+        if (COMMON_PATTERN.matcher(normalized).matches()) {
+            return Optional.of(COMMON_ASSIGNEE);
+        }
+
+        String stripped = ASSIGNEE_SUFFIX.matcher(normalized).replaceFirst("");
+        Set<String> contained = new LinkedHashSet<>();
+        for (String nickname : nicknames) {
+            if (nickname == null || nickname.isBlank()) continue;
+            String n = NON_WORD.matcher(nickname.toLowerCase(Locale.ROOT)).replaceAll("");
+            if (n.isEmpty()) continue;
+            if (n.equals(normalized) || n.equals(stripped)) {
+                return Optional.of(nickname);
+            }
+            if (n.length() >= 2 && normalized.contains(n)) {
+                contained.add(nickname);
+            }
+        }
+        // 닉네임이 정확히 하나만 언급된 경우만 확정 (둘 이상이면 LLM 판단)
+        return contained.size() == 1 ? Optional.of(contained.iterator().next()) : Optional.empty();
+    }
+
+    /**
+     * Komoran 형태소 기반 특징 추출 (명사, 외국어, 동사/형용사 어간, 어근)
+     */
+    List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null || text.isBlank()) return result;
+
+        if (komoran != null) {
+            try {
+                for (Token token : komoran.analyze(text).getTokenList()) {
+                    String pos = token.getPos();
+                    String morph = token.getMorph().toLowerCase(Locale.ROOT);
+                    boolean noun = pos.startsWith("NN") && !pos.equals("NNB");
+                    boolean stem = pos.equals("VV") || pos.equals("VA") || pos.equals("XR");
+                    if ((noun || stem) && morph.length() >= 2) {
+                        result.add(morph);
+                    } else if (pos.equals("SL") && morph.length() >= 2) {
+                        result.add(morph);
+                    }
+                }
+                return result;
+            } catch (Exception e) {
+                log.warn("[AI Intent] 형태소 분석 실패: {}", e.getMessage());
+                result.clear();
+            }
+        }
+
+        for (String part : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            String p = NON_WORD.matcher(part).replaceAll("");
+            if (p.length() >= 2) result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * 단계별 통계 스냅샷 (관리/모니터링용)
+     * - escalationRate : LLM 으로 넘긴 비율
+     * - savedMs        : 로컬 처리 건수 * escalation 된 LLM 호출 지연 중앙값 - 로컬 분류 시간 (추정)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Model m = this.model;
+        result.put("enabled", enabled);
+        result.put("trainedDocs", m.docs);
+        result.put("vocabSize", m.vocab.size());
+        for (Map.Entry<Task, TaskStats> e : stats.entrySet()) {
+            TaskStats s = e.getValue();
+            long local = s.local.get();
+            long escalated = s.escalated.get();
+            long total = local + escalated;
+            long llmP50Ms = Math.max(0, s.llmLatency.percentile(0.5));
+            long localMs = TimeUnit.NANOSECONDS.toMillis(s.localNanos.get());
+
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("local", local);
+            t.put("escalated", escalated);
+            t.put("escalationRate", total == 0 ? 0.0 : (double) escalated / total);
+            t.put("llmP50Ms", llmP50Ms);
+            t.put("savedMs", Math.max(0, local * llmP50Ms - localMs));
+            result.put(e.getKey().name().toLowerCase(Locale.ROOT), t);
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------
+    // 학습 데이터
+    // ---------------------------------------------------------
+    private List<Sample> seedSamples() {
+        List<Sample> samples = new ArrayList<>();
+        SEED.forEach((dept, texts) -> texts.forEach(t -> samples.add(new Sample(t, dept))));
+        return samples;
+    }
+
+    /**
+     * design_scenario.json : DEPT 단계 트리거 → identifiedTargetDept, TASK/REQUIREMENT 단계 → dept
+     */
+    private List<Sample> scenarioSamples() {
+        List<Sample> samples = new ArrayList<>();
+        try {
+            Resource res = new ClassPathResource(scenarioPath);
+            if (!res.exists()) return samples;
+            JsonNode root;
+            try (InputStream is = res.getInputStream()) {
+                root = objectMapper.readTree(is);
+            }
+            for (JsonNode sc : root.path("scenarios")) {
+                String stage = sc.path("stage").asText("");
+                String text = sc.path("trigger").asText("");
+                String dept;
+                if ("DEPT".equalsIgnoreCase(stage)) {
+                    dept = sc.path("identifiedTargetDept").asText(null);
+                } else if ("TASK".equalsIgnoreCase(stage) || "REQUIREMENT".equalsIgnoreCase(stage)) {
+                    dept = sc.path("dept").asText(null);
+                    JsonNode update = sc.path("ticketUpdate");
+                    text = String.join(" ", text, update.path("title").asText(""), update.path("requirement").asText(""));
+                } else {
+                    continue;
+                }
+                Department d = toDepartment(dept);
+                if (d != null) samples.add(new Sample(text, d));
+            }
+        } catch (Exception e) {
+            log.warn("[AI Intent] 시나리오 학습 데이터 로드 실패: {}", e.getMessage());
+        }
+        return samples;
+    }
+
+    /**
+     * 과거 티켓 : 제목 + 내용 → 수신자 부서 (최근 historyLimit 건)
+     */
+    private List<Sample> historySamples() {
+        List<Sample> samples = new ArrayList<>();
+        if (historyLimit <= 0) return samples;
+        try {
+            for (Object[] row : ticketPersonalRepository.findClassifierSamples(PageRequest.of(0, historyLimit))) {
+                String title = row[0] == null ? "" : row[0].toString();
+                String content = row[1] == null ? "" : row[1].toString();
+                if (row[2] instanceof Department d) {
+                    samples.add(new Sample(title + " " + content, d));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[AI Intent] 과거 티켓 학습 데이터 로드 실패: {}", e.getMessage());
+        }
+        return samples;
+    }
+
+    private static Department toDepartment(String name) {
+        if (name == null || name.isBlank()) return null;
+        try {
+            return Department.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------
+    // 모델 / 통계
+    // ---------------------------------------------------------
+    private static class Model {
+        static final Model EMPTY = new Model();
+
+        final Map<Department, ClassCounts> classes = new EnumMap<>(Department.class);
+        final Set<String> vocab = new HashSet<>();
+        int docs;
+
+        void add(Department dept, List<String> tokens) {
+            ClassCounts c = classes.computeIfAbsent(dept, k -> new ClassCounts());
+            for (String t : tokens) {
+                c.tokenCounts.merge(t, 1, Integer::sum);
+                c.totalTokens++;
+                vocab.add(t);
+            }
+            docs++;
+        }
+    }
+
+    private static class ClassCounts {
+        final Map<String, Integer> tokenCounts = new HashMap<>();
+        long totalTokens;
+    }
+
+    private static class TaskStats {
+        final AtomicLong local = new AtomicLong();
+        final AtomicLong escalated = new AtomicLong();
+        final AtomicLong localNanos = new AtomicLong();
+        final AiLatencyTracker llmLatency = new AiLatencyTracker(200);
+
+        void onDecision(boolean handledLocally, long elapsedNanos) {
+            localNanos.addAndGet(elapsedNanos);
+            if (handledLocally) {
+                local.incrementAndGet();
+            } else {
+                escalated.incrementAndGet();
+            }
+        }
+    }
+}
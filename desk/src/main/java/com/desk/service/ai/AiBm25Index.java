@@ -0,0 +1,227 @@
+package com.desk.service.ai;
+
+import kr.co.shineware.nlp.komoran.core.Komoran;
+import kr.co.shineware.nlp.komoran.model.Token;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * [BM25 키워드 인덱스]
+ * 벡터 검색은 의미는 잘 잡지만 제품명/오류 코드처럼 글자 그대로 맞아야 하는 단어에 약하다.
+ * 지식 청크를 형태소 단위로 역색인해 BM25 점수로 상위 k 개를 찾는다. (벡터 검색과 RRF 로 합친다)
+ *
+ * 1. 토큰 : Komoran 형태소 (명사/동사·형용사 어간/외국어/숫자/한자, 2글자 이상)
+ *           + 영문/숫자 코드 원형 (ERR-504, v2.3 처럼 구분자나 숫자가 섞인 단어는 통째로도 색인)
+ * 2. 점수 : BM25 (k1=1.2, b=0.75), idf = ln(1 + (N - df + 0.5) / (df + 0.5))
+ * 3. 필터 : dept 가 있으면 해당 부서 청크만 (대소문자 무시)
+ *
+ * 만든 뒤에는 바뀌지 않는다. 지식이 바뀌면 새로 만들어 참조를 교체한다. (검색은 락 없이 동시 호출 가능)
+ */
+@Log4j2
+public final class AiBm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 구분자(-, _, ., /)나 숫자가 섞인 영문/숫자 단어
+    private static final Pattern CODE = Pattern.compile("[a-z0-9]+(?:[-_./][a-z0-9]+)*");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * 색인할 문서 (본문, 부서)
+     */
+    public record Document(String content, String dept) {
+    }
+
+    // term → 해당 term 이 나온 문서 번호와 빈도
+    private record Posting(int[] docs, int[] tfs, float idf) {
+    }
+
+    private final Function<String, List<String>> tokenizer;
+    private final String[] contents;
+    private final String[] depts;
+    private final int[] deptIds;
+    private final Map<String, Integer> deptIdByName;
+    private final int[] lengths;
+    private final double avgLength;
+    private final Map<String, Posting> postings;
+
+    private AiBm25Index(Function<String, List<String>> tokenizer, List<Document> documents) {
+        this.tokenizer = tokenizer;
+        int n = documents.size();
+        this.contents = new String[n];
+        this.depts = new String[n];
+        this.deptIds = new int[n];
+        this.deptIdByName = new HashMap<>();
+        this.lengths = new int[n];
+
+        Map<String, List<int[]>> raw = new HashMap<>(); // term → [doc, tf]
+        long totalLength = 0;
+        for (int d = 0; d < n; d++) {
+            Document doc = documents.get(d);
+            contents[d] = doc.content();
+            depts[d] = doc.dept();
+            deptIds[d] = deptIdByName.computeIfAbsent(normalizeDept(doc.dept()), k -> deptIdByName.size());
+
+            List<String> tokens = tokenizer.apply(doc.content());
+            lengths[d] = tokens.size();
+            totalLength += tokens.size();
+            Map<String, Integer> tf = new LinkedHashMap<>();
+            for (String token : tokens) tf.merge(token, 1, Integer::sum);
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                raw.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(new int[]{d, e.getValue()});
+            }
+        }
+        this.avgLength = n == 0 ? 0.0 : (double) totalLength / n;
+
+        this.postings = new HashMap<>(raw.size() * 2);
+        for (Map.Entry<String, List<int[]>> e : raw.entrySet()) {
+            List<int[]> list = e.getValue();
+            int[] docs = new int[list.size()];
+            int[] tfs = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                docs[i] = list.get(i)[0];
+                tfs[i] = list.get(i)[1];
+            }
+            double df = docs.length;
+            float idf = (float) Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+            postings.put(e.getKey(), new Posting(docs, tfs, idf));
+        }
+    }
+
+    /**
+     * Komoran 토큰화로 색인
+     */
+    public static AiBm25Index build(List<Document> documents) {
+        return build(documents, AiBm25Index::tokenize);
+    }
+
+    static AiBm25Index build(List<Document> documents, Function<String, List<String>> tokenizer) {
+        return new AiBm25Index(tokenizer, documents);
+    }
+
+    /**
+     * BM25 상위 k 개 (점수 내림차순, 같은 점수는 먼저 색인된 문서 우선). 질문 단어가 하나도 없으면 빈 리스트
+     *
+     * @param dept null 이면 전체, 아니면 해당 부서 청크만 (대소문자 무시)
+     */
+    public List<KnowledgeStore.Hit> search(String query, String dept, int k) {
+        if (query == null || query.isBlank() || k <= 0 || contents.length == 0) return List.of();
+        int deptFilter = -1;
+        if (dept != null) {
+            Integer id = deptIdByName.get(normalizeDept(dept));
+            if (id == null) return List.of();
+            deptFilter = id;
+        }
+
+        float[] scores = new float[contents.length];
+        boolean[] touched = new boolean[contents.length];
+        List<Integer> candidates = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(tokenizer.apply(query))) {
+            Posting posting = postings.get(term);
+            if (posting == null) continue;
+            for (int i = 0; i < posting.docs().length; i++) {
+                int d = posting.docs()[i];
+                if (deptFilter >= 0 && deptIds[d] != deptFilter) continue;
+                double tf = posting.tfs()[i];
+                double norm = K1 * (1.0 - B + B * lengths[d] / Math.max(avgLength, 1e-9));
+                scores[d] += (float) (posting.idf() * tf * (K1 + 1.0) / (tf + norm));
+                if (!touched[d]) {
+                    touched[d] = true;
+                    candidates.add(d);
+                }
+            }
+        }
+        if (candidates.isEmpty()) return List.of();
+
+        // 최소 힙으로 상위 k 개 (점수 낮은 것, 같으면 나중 문서가 먼저 빠진다)
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (a, b) -> {
+            int c = Float.compare(scores[a], scores[b]);
+            return c != 0 ? c : Integer.compare(b, a);
+        });
+        for (int d : candidates) {
+            heap.add(d);
+            if (heap.size() > k) heap.poll();
+        }
+        List<KnowledgeStore.Hit> hits = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int d = heap.poll();
+            hits.add(0, new KnowledgeStore.Hit(contents[d], depts[d], scores[d]));
+        }
+        return hits;
+    }
+
+    public int size() {
+        return contents.length;
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("documents", contents.length);
+        result.put("terms", postings.size());
+        result.put("avgLength", avgLength);
+        return result;
+    }
+
+    /**
+     * 색인/질문 공통 토큰화. Komoran 을 못 쓰면 공백/기호 기준으로 자른다.
+     */
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null || text.isBlank()) return result;
+
+        Komoran komoran = AiKomoran.get();
+        boolean analyzed = false;
+        if (komoran != null) {
+            try {
+                for (Token token : komoran.analyze(text).getTokenList()) {
+                    String pos = token.getPos();
+                    String morph = token.getMorph().toLowerCase(Locale.ROOT);
+                    boolean noun = pos.startsWith("NN") && !pos.equals("NNB");
+                    boolean stem = pos.equals("VV") || pos.equals("VA") || pos.equals("XR");
+                    boolean foreign = pos.equals("SL") || pos.equals("SN") || pos.equals("SH");
+                    if ((noun || stem || foreign) && morph.length() >= 2) result.add(morph);
+                }
+                analyzed = true;
+            } catch (Exception e) {
+                log.warn("[RAG BM25] 형태소 분석 실패: {}", e.getMessage());
+                result.clear();
+            }
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (!analyzed) {
+            for (String part : NON_WORD.split(lower)) {
+                if (part.length() >= 2) result.add(part);
+            }
+        }
+
+        // 코드/버전 원형 (형태소 분석은 ERR-504 를 ERR / - / 504 로 나눈다)
+        Set<String> seen = new LinkedHashSet<>(result);
+        Matcher m = CODE.matcher(lower);
+        while (m.find()) {
+            String code = m.group();
+            boolean compound = code.chars().anyMatch(Character::isDigit) || code.chars().anyMatch(c -> "-_./".indexOf(c) >= 0);
+            if (compound && code.length() >= 2 && seen.add(code)) result.add(code);
+        }
+        return result;
+    }
+
+    private static String normalizeDept(String dept) {
+        return dept == null ? "" : dept.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,338 @@
+package com.desk.service.ai;
+
+import com.desk.util.AiQuotaExceededException;
+import com.desk.util.AiUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * [AI 호출 공통 보호막]
+ * 모든 Ollama 호출(채팅 정제 / 티켓 / 파일검색 / 회의록 / 임베딩)이 이 컴포넌트를 거친다.
+ *
+ * 1. 서킷 브레이커  : (기능, Ollama 노드)별 서킷은 AiEndpointRouter 가 관리. 기능을 받을 노드의 서킷이 모두 열려 있으면 즉시 fallback
+ * 2. 적응형 timeout : 최근 성공 호출의 p99 * 배수 (min ~ max 범위로 제한)
+ * 3. 실행 순서 제어 : AiRequestScheduler 의 우선순위 레인에서 슬롯을 받은 뒤에만 호출
+ *                    (대기열 초과 / 대기 허용 시간 초과 시 fallback)
+ * 4. 사용량 한도    : AiUsageAccountant 로 사용자/부서 한도 확인 + 호출 수/실행 시간 기록 (초과 시 fallback, ai.resilience.enabled=false 여도 적용)
+ * 5. fallback      : 호출 측이 기능별로 정의 (AiFeature 주석 참고)
+ *
+ * 모델 서버가 멈춰도 요청 스레드가 6분씩 쌓이지 않도록 하는 것이 목적이다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiCallGuard {
+
+    private static final String PREFIX = "ai.resilience.";
+
+    private final Environment env;
+    private final AiRequestScheduler scheduler;
+    private final AiUsageAccountant usageAccountant;
+    private final AiEndpointRouter endpointRouter;
+
+    @Value("${ai.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.resilience.timeout.p99-multiplier:2.0}")
+    private double p99Multiplier;
+
+    @Value("${ai.resilience.timeout.min-samples:10}")
+    private int minSamples;
+
+    private final Map<AiFeature, FeatureState> states = new EnumMap<>(AiFeature.class);
+
+    // 블로킹 호출(RestTemplate)을 timeout 과 함께 기다리기 위한 실행기
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        for (AiFeature feature : AiFeature.values()) {
+            String base = PREFIX + feature.getKey() + ".";
+            FeatureState state = new FeatureState(
+                    new AiLatencyTracker(200),
+                    env.getProperty(base + "initial-timeout-ms", Long.class, feature.getDefaultInitialTimeoutMs()),
+                    env.getProperty(base + "min-timeout-ms", Long.class, feature.getDefaultMinTimeoutMs()),
+                    env.getProperty(base + "max-timeout-ms", Long.class, feature.getDefaultMaxTimeoutMs())
+            );
+            states.put(feature, state);
+        }
+        log.info("[AI Guard] 초기화 완료 | enabled={} | features={}", enabled, states.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 블로킹 AI 호출 실행
+     *
+     * @param feature  호출 기능 (서킷/동시성/timeout 단위)
+     * @param call     실제 호출
+     * @param fallback 실패 시 결과 생성 (예외를 던져도 됨)
+     */
+    public <T> T execute(AiFeature feature, Supplier<T> call, Function<Throwable, T> fallback) {
+        // 호출 주체는 요청 스레드(SecurityContext)에서 잡는다. (실제 호출은 다른 스레드에서 실행)
+        AiUsageAccountant.Caller caller = usageAccountant.currentCaller();
+        try {
+            usageAccountant.checkQuota(caller, feature);
+        } catch (AiQuotaExceededException e) {
+            log.warn("[AI Guard] 사용량 한도 초과 | feature={} | {}", feature, e.getMessage());
+            return fallback.apply(e);
+        }
+
+        if (!enabled) {
+            return accounted(caller, feature, call);
+        }
+
+        FeatureState s = states.get(feature);
+        if (endpointRouter.isCircuitOpen(feature)) {
+            return fallback.apply(s.reject("AI circuit open: " + feature));
+        }
+
+        // 1) 스케줄러에서 실행 슬롯 대기 (레인 우선순위 + 대기 허용 시간)
+        AiRequestScheduler.Slot slot;
+        try {
+            slot = scheduler.acquire(feature).get();
+        } catch (ExecutionException e) {
+            s.rejected.incrementAndGet();
+            return fallback.apply(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback.apply(new AiUnavailableException("AI call interrupted: " + feature, e));
+        }
+
+        // 2) 노드 선택 / 서킷 확인은 call 안의 AiEndpointRouter 가 실행 직전에 한다. (HALF_OPEN 시험 호출 자리 포함)
+        long timeoutMs = currentTimeoutMs(feature);
+        long start = System.nanoTime();
+
+        // 슬롯은 "실제 호출이 끝날 때" 반납한다. (timeout 으로 포기해도 서버 쪽 작업이 남아있기 때문)
+        Future<T> future = executor.submit(() -> {
+            try {
+                return accounted(caller, feature, call);
+            } finally {
+                scheduler.release(slot);
+            }
+        });
+
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            s.onSuccess(elapsedMs(start));
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("[AI Guard] timeout | feature={} | timeout={}ms", feature, timeoutMs);
+            return fallback.apply(new AiUnavailableException("AI timeout: " + feature + " (" + timeoutMs + "ms)", e));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("[AI Guard] 호출 실패 | feature={} | error={}", feature, cause.getMessage());
+            return fallback.apply(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return fallback.apply(new AiUnavailableException("AI call interrupted: " + feature, e));
+        }
+    }
+
+    /**
+     * Reactive AI 호출 실행 (OllamaClient 용)
+     * - 슬롯 대기도 non-blocking (CompletableFuture → Mono)
+     * - 성공/실패/취소 중 먼저 오는 신호에서 슬롯을 반납 (scheduler.release 는 멱등)
+     * - ai.resilience.enabled=false 여도 사용량 한도/집계는 execute 와 같게 적용
+     */
+    public <T> Mono<T> executeMono(AiFeature feature, Supplier<Mono<T>> call, Function<Throwable, T> fallback) {
+        return Mono.defer(() -> {
+            AiUsageAccountant.Caller caller = usageAccountant.currentCaller();
+            try {
+                usageAccountant.checkQuota(caller, feature);
+            } catch (AiQuotaExceededException e) {
+                log.warn("[AI Guard] 사용량 한도 초과 | feature={} | {}", feature, e.getMessage());
+                return Mono.justOrEmpty(fallback.apply(e));
+            }
+
+            if (!enabled) {
+                return accountedMono(caller, feature, call);
+            }
+
+            FeatureState s = states.get(feature);
+            if (endpointRouter.isCircuitOpen(feature)) {
+                return Mono.justOrEmpty(fallback.apply(s.reject("AI circuit open: " + feature)));
+            }
+
+            return Mono.fromFuture(scheduler.acquire(feature))
+                    .onErrorResume(e -> {
+                        // 대기열 초과 / 대기 허용 시간 초과
+                        s.rejected.incrementAndGet();
+                        return Mono.error(new QueueRejected(e));
+                    })
+                    .flatMap(slot -> runWithSlot(feature, s, slot, caller, call))
+                    .onErrorResume(e -> Mono.justOrEmpty(fallback.apply(unwrap(feature, e))));
+        });
+    }
+
+    private <T> Mono<T> runWithSlot(AiFeature feature, FeatureState s, AiRequestScheduler.Slot slot,
+                                    AiUsageAccountant.Caller caller, Supplier<Mono<T>> call) {
+        long timeoutMs = currentTimeoutMs(feature);
+        long start = System.nanoTime();
+
+        Mono<T> source;
+        try {
+            source = usageAccountant.callAs(caller, call);
+        } catch (RuntimeException e) {
+            scheduler.release(slot);
+            usageAccountant.recordCall(caller, feature, elapsedMs(start), false);
+            return Mono.error(e);
+        }
+
+        // 슬롯은 결과가 하위로 전달되기 "전에" 반납한다.
+        // (doFinally 는 block() 이 값을 받은 뒤에 실행되어, 연속 호출 시 슬롯 부족으로 대기하는 문제가 있었다)
+        return source
+                .timeout(Duration.ofMillis(timeoutMs))
+                .doOnSuccess(v -> {
+                    scheduler.release(slot);
+                    s.onSuccess(elapsedMs(start));
+                    usageAccountant.recordCall(caller, feature, elapsedMs(start), true);
+                })
+                .doOnError(e -> {
+                    scheduler.release(slot);
+                    usageAccountant.recordCall(caller, feature, elapsedMs(start), false);
+                    log.warn("[AI Guard] 호출 실패 | feature={} | timeout={}ms | error={}",
+                            feature, timeoutMs, e.getClass().getSimpleName());
+                })
+                .doOnCancel(() -> scheduler.release(slot))
+                .onErrorMap(TimeoutException.class,
+                        e -> new AiUnavailableException("AI timeout: " + feature + " (" + timeoutMs + "ms)", e));
+    }
+
+    /**
+     * caller 를 실행 스레드에 바인딩하고 실제 호출 시간을 사용량으로 기록 (timeout 으로 포기한 호출도 끝난 시점에 기록)
+     */
+    private <T> T accounted(AiUsageAccountant.Caller caller, AiFeature feature, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = usageAccountant.callAs(caller, call);
+            success = true;
+            return result;
+        } finally {
+            usageAccountant.recordCall(caller, feature, elapsedMs(start), success);
+        }
+    }
+
+    /**
+     * accounted 의 Mono 판 (보호막 비활성화 시: 스케줄러/서킷/timeout 없이 사용량만 기록)
+     */
+    private <T> Mono<T> accountedMono(AiUsageAccountant.Caller caller, AiFeature feature, Supplier<Mono<T>> call) {
+        long start = System.nanoTime();
+        Mono<T> source;
+        try {
+            source = usageAccountant.callAs(caller, call);
+        } catch (RuntimeException e) {
+            usageAccountant.recordCall(caller, feature, elapsedMs(start), false);
+            return Mono.error(e);
+        }
+        return source
+                .doOnSuccess(v -> usageAccountant.recordCall(caller, feature, elapsedMs(start), true))
+                .doOnError(e -> usageAccountant.recordCall(caller, feature, elapsedMs(start), false));
+    }
+
+    private static Throwable unwrap(AiFeature feature, Throwable e) {
+        if (e instanceof QueueRejected q) {
+            Throwable cause = q.getCause();
+            return cause instanceof AiUnavailableException ? cause
+                    : new AiUnavailableException("AI queue rejected: " + feature, cause);
+        }
+        return e;
+    }
+
+    /**
+     * 스케줄러 대기 실패 표시용 (호출 실패와 구분해 AiUnavailableException 으로 바꾼다)
+     */
+    private static class QueueRejected extends RuntimeException {
+        QueueRejected(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 현재 적용될 timeout(ms)
+     * - 샘플이 부족하면 초기값, 충분하면 p99 * 배수를 [min, max] 로 제한
+     */
+    public long currentTimeoutMs(AiFeature feature) {
+        FeatureState s = states.get(feature);
+        if (s.latency.count() < minSamples) {
+            return s.initialTimeoutMs;
+        }
+        long adaptive = (long) (s.latency.percentile(0.99) * p99Multiplier);
+        return Math.min(s.maxTimeoutMs, Math.max(s.minTimeoutMs, adaptive));
+    }
+
+    /**
+     * 기능별 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<AiFeature, FeatureState> e : states.entrySet()) {
+            FeatureState s = e.getValue();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("circuitOpen", endpointRouter.isCircuitOpen(e.getKey()));
+            m.put("p99Ms", s.latency.percentile(0.99));
+            m.put("timeoutMs", currentTimeoutMs(e.getKey()));
+            m.put("lane", e.getKey().getLane().getKey());
+            m.put("rejected", s.rejected.get());
+            result.put(e.getKey().getKey(), m);
+        }
+        return result;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // ---------------------------------------------------------
+    // 기능별 상태
+    // ---------------------------------------------------------
+    private static class FeatureState {
+        final AiLatencyTracker latency;
+        final long initialTimeoutMs;
+        final long minTimeoutMs;
+        final long maxTimeoutMs;
+        final AtomicLong rejected = new AtomicLong();
+
+        FeatureState(AiLatencyTracker latency, long initialTimeoutMs, long minTimeoutMs, long maxTimeoutMs) {
+            this.latency = latency;
+            this.initialTimeoutMs = initialTimeoutMs;
+            this.minTimeoutMs = minTimeoutMs;
+            this.maxTimeoutMs = maxTimeoutMs;
+        }
+
+        AiUnavailableException reject(String msg) {
+            rejected.incrementAndGet();
+            return new AiUnavailableException(msg);
+        }
+
+        void onSuccess(long latencyMs) {
+            latency.record(latencyMs);
+        }
+    }
+}
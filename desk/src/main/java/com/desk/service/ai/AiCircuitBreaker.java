@@ -0,0 +1,144 @@
+package com.desk.service.ai;
+
+import java.util.Arrays;
+
+/**
+ * AI 호출 서킷 브레이커 (AiEndpointRouter 가 기능 x Ollama 노드마다 하나씩 둔다)
+ * - CLOSED    : 정상 호출. 최근 windowSize 건의 실패율이 임계치를 넘으면 OPEN
+ * - OPEN      : openDurationMs 동안 호출 차단 (호출 측은 즉시 fallback)
+ * - HALF_OPEN : 시험 호출 1건만 허용. 성공 시 CLOSED, 실패 시 다시 OPEN
+ *              결과 없이 끝나면(취소 / 인터럽트) releaseTrial 로 시험 자리만 비운다. (안 비우면 HALF_OPEN 에 갇힘)
+ *
+ * LLM 호출 빈도는 낮으므로 단순 synchronized 로 충분하다.
+ */
+public class AiCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMs;
+
+    // 최근 호출 결과 (true = 실패) 링 버퍼
+    private final boolean[] outcomes;
+    private int index;
+    private int count;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public AiCircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openDurationMs) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, minCalls);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * 호출 허용 여부. OPEN 상태에서 대기 시간이 지나면 HALF_OPEN 으로 전환해 시험 호출 1건을 허용한다.
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openDurationMs) return false;
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) return false;
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * 지금 호출하면 허용될지 (상태는 바꾸지 않는 조회. 노드 선택용이며 실제 허용은 tryAcquire 로 받는다)
+     */
+    public synchronized boolean isCallPermitted() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.currentTimeMillis() - openedAt >= openDurationMs;
+            case HALF_OPEN:
+            default:
+                return !trialInFlight;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (count >= minCalls && (double) failures / count >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 결과 없이 끝난 호출 (취소 / 인터럽트). 성공/실패로 집계하지 않고,
+     * HALF_OPEN 이면 시험 자리를 비워 다음 호출이 다시 시험하게 한다.
+     * (시험 호출이 아닌 호출이 불러도 시험 호출이 하나 더 나갈 뿐 상태 전환은 그대로다)
+     */
+    public synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        // 조회 시점 기준으로 OPEN 만료 여부를 반영 (상태 전환은 tryAcquire 에서만)
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return count == 0 ? 0.0 : (double) failures / count;
+    }
+
+    private void record(boolean failed) {
+        if (count == windowSize) {
+            if (outcomes[index]) failures--;
+        } else {
+            count++;
+        }
+        outcomes[index] = failed;
+        if (failed) failures++;
+        index = (index + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        index = 0;
+        count = 0;
+        failures = 0;
+        Arrays.fill(outcomes, false);
+    }
+}
@@ -0,0 +1,95 @@
+package com.desk.service.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * [겹치는 조건 조합 (비트마스크)]
+ * AI 파일조회에서 모든 조건 AND(strict)가 0건이면 "가장 많이 겹치는 조건 조합"을 고른다.
+ * 예전에는 조합마다(4조건이면 최대 14개) 티켓/채팅 DB 조회를 다시 돌렸다.
+ * 후보를 한 번만 모아 파일마다 만족하는 조건 비트마스크를 두고, 조합별 결과는 메모리에서 거른다.
+ *
+ * 1. 비트: 조건 i → 1 << i (호출 측이 정한다. 조건 외 보조 비트를 더 써도 된다)
+ * 2. 파일 하나가 비트마스크를 여러 개 가질 수 있다.
+ *    (티켓은 수신자 행마다 상대/부서 조건이 따로 묶인다. JPQL 의 JOIN 행 단위 조건과 같게)
+ * 3. 조합 순회: submasksOfSize(전체, k) 로 크기 k 인 조합만 (k 를 큰 것부터 내려가는 건 호출 측)
+ * 4. 후보는 조건 하나짜리 조회를 상한까지만 모은 것이라, 여러 조건 조합은 상한에 걸리지 않은 조건(markComplete)이 있어야 정확하다.
+ *    covers(조합) 가 false 인데 결과가 비었으면 호출 측이 DB 로 확인한다. (오래된 파일만 그 조합을 만족할 수 있음)
+ *
+ * 요청 스레드 하나에서 만들고 읽는다. (스레드 안전하지 않음)
+ */
+public final class AiConditionOverlap<T> {
+
+    private static final int[] NONE = new int[0];
+
+    private final List<T> items = new ArrayList<>();
+    private final List<int[]> masks = new ArrayList<>();
+    private int complete; // 만족하는 후보를 빠짐없이 가진 조건 비트
+
+    /**
+     * 후보 추가 (결과는 추가한 순서대로 나온다. 최신순 정렬은 호출 측)
+     *
+     * @param rowMasks 이 후보가 만족하는 조건 비트마스크들 (하나라도 조합을 다 덮으면 그 조합에 포함)
+     */
+    public void add(T item, int... rowMasks) {
+        items.add(item);
+        masks.add(rowMasks == null ? NONE : rowMasks);
+    }
+
+    /**
+     * 이 조건 비트를 만족하는 후보는 모두 들어 있다 (조건 하나짜리 조회가 상한보다 적게 나왔을 때)
+     */
+    public void markComplete(int bits) {
+        complete |= bits;
+    }
+
+    /**
+     * required 조합의 matching 결과가 정확한지
+     * (조건 하나짜리 조합은 그 조건 조회의 최신순 결과 그대로, 여러 조건이면 하나라도 빠짐없는 후보를 가졌을 때)
+     */
+    public boolean covers(int required) {
+        return Integer.bitCount(required) == 1 || (required & complete) != 0;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * required 비트를 모두 만족하는 후보 (추가 순서, 최대 limit 개)
+     */
+    public List<T> matching(int required, int limit) {
+        List<T> out = new ArrayList<>();
+        for (int i = 0; i < items.size() && out.size() < limit; i++) {
+            for (int m : masks.get(i)) {
+                if ((m & required) == required) {
+                    out.add(items.get(i));
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * base 의 부분집합 중 비트 수가 k 인 것 (작은 값부터)
+     */
+    public static int[] submasksOfSize(int base, int k) {
+        if (k <= 0 || Integer.bitCount(base) < k) return NONE;
+        int[] out = new int[binomial(Integer.bitCount(base), k)];
+        int n = 0;
+        // base 의 부분집합을 큰 값부터 순회: s = (s - 1) & base
+        for (int s = base; s != 0; s = (s - 1) & base) {
+            if (Integer.bitCount(s) == k) out[n++] = s;
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    private static int binomial(int n, int k) {
+        long r = 1;
+        for (int i = 1; i <= k; i++) r = r * (n - k + i) / i;
+        return (int) r;
+    }
+}
@@ -0,0 +1,358 @@
+package com.desk.service.ai;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [임베딩 디스크 캐시]
+ * 지식 문서는 기동할 때마다 같은 내용을 다시 임베딩했다. (CPU 전용 모델이면 그것만 수 분)
+ *
+ * 1. 키     : 모델 이름(모델별 파일) + 본문 SHA-256 앞 128bit. 정규화 여부와 차원은 파일 헤더에 기록한다.
+ * 2. 저장   : 모델별 파일 하나에 [헤더][키 16B + float x dim]... 를 이어 붙인다. (추가 전용)
+ * 3. 읽기   : 파일을 메모리 매핑하고 키만 훑어 색인을 만든다. 벡터는 요청된 것만 매핑 영역에서 읽는다.
+ * 4. 갱신   : 없는(새로 생겼거나 바뀐) 문서만 AiEmbeddingModel 로 임베딩해서 뒤에 붙인다.
+ *            레코드를 먼저 쓰고 헤더의 건수를 나중에 올리므로, 쓰다 죽어도 앞부분은 그대로 쓸 수 있다.
+ *
+ * 모델, 차원, 정규화(OLLAMA_EMBED_NORMALIZE) 중 하나라도 바뀌면 해당 파일을 비우고 다시 채운다.
+ * (차원을 설정하지 않았으면 새로 임베딩한 벡터의 차원이 헤더와 다를 때 비운다) 바뀐 문서의 옛 벡터는 남으므로
+ * 파일이 너무 커지면 삭제하면 된다. (다음 기동에 한 번만 전부 임베딩)
+ * 사용자 질의처럼 매번 다른 입력은 캐시하지 않는다. (AiEmbeddingModel 을 직접 사용)
+ * 캐시에 없는 문서는 EMBEDDING_INGEST(BATCH 레인, 질의 임베딩과 별도 서킷)로 임베딩한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiEmbeddingCache {
+
+    private static final int MAGIC = 0x454D4243; // "EMBC"
+    private static final int VERSION = 2;
+    private static final int KEY_BYTES = 16;
+    private static final int COUNT_OFFSET = 12;
+    private static final int FLAGS_OFFSET = 16;
+    private static final int NAME_OFFSET = 20;
+    private static final int FLAG_NORMALIZED = 1;
+
+    private final AiEmbeddingModel embeddingModel;
+
+    @Value("${ai.embedding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.embedding.cache.dir:data/rag/embeddings}")
+    private String dir;
+
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    /**
+     * 배치 임베딩 (캐시 우선). 결과는 입력과 같은 순서/크기이며, 실패한 항목은 빈 리스트다.
+     * 캐시 파일을 쓸 수 없으면 캐시 없이 AiEmbeddingModel 결과를 그대로 돌려준다.
+     */
+    public List<List<Double>> embedAll(List<String> texts) {
+        if (texts == null || texts.isEmpty()) return Collections.emptyList();
+        if (!enabled) return embeddingModel.embedAll(AiFeature.EMBEDDING_INGEST, texts);
+
+        Segment segment;
+        try {
+            segment = segment(embeddingModel.getModelName());
+        } catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.warn("[AI Embedding Cache] 캐시 파일 열기 실패 - 캐시 없이 진행 | error={}", e.getMessage());
+            return embeddingModel.embedAll(AiFeature.EMBEDDING_INGEST, texts);
+        }
+
+        List<List<Double>> result = new ArrayList<>(Collections.nCopies(texts.size(), Collections.emptyList()));
+        // 같은 본문이 여러 번 나와도 한 번만 임베딩
+        Map<Key, List<Integer>> missing = new LinkedHashMap<>();
+        List<String> missingTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) continue;
+            Key key = Key.of(text);
+            List<Double> cached = segment.get(key);
+            if (cached != null) {
+                result.set(i, cached);
+                hits.incrementAndGet();
+                continue;
+            }
+            List<Integer> positions = missing.get(key);
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                missing.put(key, positions);
+                missingTexts.add(text);
+            }
+            positions.add(i);
+        }
+        if (missing.isEmpty()) return result;
+
+        misses.addAndGet(missing.size());
+        List<List<Double>> fresh = embeddingModel.embedAll(AiFeature.EMBEDDING_INGEST, missingTexts);
+        int freshDimension = fresh.stream().filter(v -> !v.isEmpty()).mapToInt(List::size).findFirst().orElse(0);
+        if (freshDimension > 0 && segment.dimension() > 0 && freshDimension != segment.dimension()) {
+            // 모델 출력 차원이 바뀌었다 (차원 미설정). 캐시를 비우고 이번 입력 전체를 새 차원으로 다시 임베딩
+            log.info("[AI Embedding Cache] 차원 변경으로 캐시 초기화 | model={} | cached={} | actual={}",
+                    segment.model, segment.dimension(), freshDimension);
+            try {
+                segment.clear();
+            } catch (IOException e) {
+                writeFailures.incrementAndGet();
+                log.warn("[AI Embedding Cache] 캐시 초기화 실패 - 캐시 없이 진행 | path={} | error={}", segment.path, e.getMessage());
+                return embeddingModel.embedAll(AiFeature.EMBEDDING_INGEST, texts);
+            }
+            return embedAll(texts);
+        }
+        Map<Key, List<Double>> toStore = new LinkedHashMap<>();
+        int j = 0;
+        for (Map.Entry<Key, List<Integer>> entry : missing.entrySet()) {
+            List<Double> vector = j < fresh.size() ? fresh.get(j) : Collections.emptyList();
+            j++;
+            for (int position : entry.getValue()) result.set(position, vector);
+            if (!vector.isEmpty()) toStore.put(entry.getKey(), vector);
+        }
+
+        try {
+            segment.append(toStore);
+        } catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.warn("[AI Embedding Cache] 캐시 기록 실패 | path={} | error={}", segment.path, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("dir", dir);
+        result.put("normalize", embeddingModel.isNormalize());
+        result.put("hits", hits.get());
+        result.put("misses", misses.get());
+        result.put("writeFailures", writeFailures.get());
+        Map<String, Object> entries = new LinkedHashMap<>();
+        segments.forEach((model, segment) -> entries.put(model, segment.size()));
+        result.put("entries", entries);
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.values().forEach(Segment::close);
+        segments.clear();
+    }
+
+    private Segment segment(String model) throws IOException {
+        Segment segment = segments.get(model);
+        if (segment != null) return segment;
+        synchronized (segments) {
+            segment = segments.get(model);
+            if (segment == null) {
+                long start = System.currentTimeMillis();
+                String fileName = model.replaceAll("[^A-Za-z0-9._-]", "_") + ".emb";
+                segment = Segment.open(Path.of(dir, fileName), model, embeddingModel.getDimension(), embeddingModel.isNormalize());
+                segments.put(model, segment);
+                log.info("[AI Embedding Cache] 캐시 로드 | model={} | entries={} | dim={} | elapsed={}ms",
+                        model, segment.size(), segment.dimension, System.currentTimeMillis() - start);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * 본문 SHA-256 앞 128bit
+     */
+    private record Key(long hi, long lo) {
+
+        static Key of(String text) {
+            try {
+                ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                        .digest(text.getBytes(StandardCharsets.UTF_8)));
+                return new Key(digest.getLong(), digest.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 모델 하나의 캐시 파일
+     * 헤더: MAGIC(4) VERSION(4) dim(4) count(4) flags(4, 1=정규화) 모델명 길이(2) 모델명(UTF-8)
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final String model;
+        private final boolean normalized;
+        private final FileChannel channel;
+        private final Map<Key, Integer> index = new HashMap<>();
+
+        private MappedByteBuffer mapped;
+        private int headerBytes;
+        private int dimension;
+        private int count;
+
+        private Segment(Path path, String model, boolean normalized, FileChannel channel) {
+            this.path = path;
+            this.model = model;
+            this.normalized = normalized;
+            this.channel = channel;
+        }
+
+        static Segment open(Path path, String model, int expectedDimension, boolean normalized) throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(path, model, normalized, channel);
+            try {
+                if (!segment.readExisting(expectedDimension)) segment.clear();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e instanceof IOException io ? io : new IOException(e);
+            }
+            return segment;
+        }
+
+        // 기존 파일을 매핑하고 키 색인을 만든다. 모델/차원/정규화/형식이 다르면 false (비우고 새로 시작)
+        private boolean readExisting(int expectedDimension) throws IOException {
+            long size = channel.size();
+            if (size == 0) return true;
+            if (size < NAME_OFFSET + 2) return false;
+
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) return false;
+            int dim = mapped.getInt(8);
+            int nameLength = Short.toUnsignedInt(mapped.getShort(NAME_OFFSET));
+            if (dim <= 0 || size < NAME_OFFSET + 2 + nameLength) return false;
+            byte[] name = new byte[nameLength];
+            mapped.get(NAME_OFFSET + 2, name);
+            if (!model.equals(new String(name, StandardCharsets.UTF_8))) return false;
+            boolean cachedNormalized = (mapped.getInt(FLAGS_OFFSET) & FLAG_NORMALIZED) != 0;
+            if (cachedNormalized != normalized) {
+                log.info("[AI Embedding Cache] 정규화 설정 변경으로 캐시 초기화 | model={} | cached={} | expected={}",
+                        model, cachedNormalized, normalized);
+                return false;
+            }
+            if (expectedDimension > 0 && expectedDimension != dim) {
+                log.info("[AI Embedding Cache] 차원 변경으로 캐시 초기화 | model={} | cached={} | expected={}",
+                        model, dim, expectedDimension);
+                return false;
+            }
+
+            dimension = dim;
+            headerBytes = NAME_OFFSET + 2 + nameLength;
+            long recordBytes = recordBytes();
+            // 건수를 올리기 전에 죽었으면 헤더 건수까지만, 레코드가 덜 써졌으면 온전한 레코드까지만
+            count = (int) Math.min(mapped.getInt(COUNT_OFFSET), (size - headerBytes) / recordBytes);
+            for (int r = 0; r < count; r++) {
+                int offset = (int) (headerBytes + r * recordBytes);
+                index.put(new Key(mapped.getLong(offset), mapped.getLong(offset + 8)), r);
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized int dimension() {
+            return dimension;
+        }
+
+        // 파일을 비운다 (다음 append 가 새 헤더를 쓴다)
+        synchronized void clear() throws IOException {
+            channel.truncate(0);
+            mapped = null;
+            dimension = 0;
+            count = 0;
+            index.clear();
+        }
+
+        synchronized List<Double> get(Key key) {
+            Integer record = index.get(key);
+            if (record == null) return null;
+            int offset = (int) (headerBytes + record * recordBytes()) + KEY_BYTES;
+            List<Double> vector = new ArrayList<>(dimension);
+            for (int d = 0; d < dimension; d++) vector.add((double) mapped.getFloat(offset + d * Float.BYTES));
+            return vector;
+        }
+
+        synchronized void append(Map<Key, List<Double>> vectors) throws IOException {
+            if (vectors.isEmpty()) return;
+            if (dimension == 0) writeHeader(vectors.values().iterator().next().size());
+
+            List<Map.Entry<Key, List<Double>>> accepted = new ArrayList<>(vectors.size());
+            for (Map.Entry<Key, List<Double>> entry : vectors.entrySet()) {
+                if (entry.getValue().size() == dimension && !index.containsKey(entry.getKey())) accepted.add(entry);
+            }
+            if (accepted.isEmpty()) return;
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(accepted.size() * recordBytes()));
+            for (Map.Entry<Key, List<Double>> entry : accepted) {
+                buffer.putLong(entry.getKey().hi()).putLong(entry.getKey().lo());
+                for (Double value : entry.getValue()) buffer.putFloat(value.floatValue());
+            }
+            buffer.flip();
+            long position = headerBytes + count * recordBytes();
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+
+            // 레코드를 다 쓴 뒤 건수를 올린다
+            int newCount = count + accepted.size();
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, newCount), COUNT_OFFSET);
+            channel.force(false);
+
+            for (Map.Entry<Key, List<Double>> entry : accepted) index.put(entry.getKey(), count++);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        private void writeHeader(int dim) throws IOException {
+            byte[] name = model.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(NAME_OFFSET + 2 + name.length);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dim).putInt(0).putInt(normalized ? FLAG_NORMALIZED : 0)
+                    .putShort((short) name.length).put(name);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            dimension = dim;
+            headerBytes = header.capacity();
+            count = 0;
+        }
+
+        private long recordBytes() {
+            return KEY_BYTES + (long) dimension * Float.BYTES;
+        }
+
+        synchronized void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("[AI Embedding Cache] 캐시 파일 닫기 실패 | path={} | error={}", path, e.getMessage());
+            }
+        }
+    }
+}
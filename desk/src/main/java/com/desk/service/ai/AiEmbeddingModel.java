@@ -0,0 +1,144 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.AITicketClientService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [임베딩 모델]
+ * 모든 임베딩 사용처(RAG 지식 검색, 부서 중심점 라우터)는 이 클래스를 거친다.
+ *
+ * 1. 모델     : 채팅 모델(qwen3:8b) 대신 OLLAMA_EMBED_MODEL (작고 빠른 전용 모델)
+ * 2. 배치     : /api/embed 에 input 배열로 OLLAMA_EMBED_BATCH_SIZE 개씩 묶어 요청 (요청당 왕복 1회)
+ * 3. 차원     : OLLAMA_EMBED_DIMENSION 과 다른 벡터는 버린다. (0 이면 첫 응답 차원으로 고정)
+ *              모델을 바꾼 뒤 이전 차원 벡터와 섞여 유사도가 깨지는 것을 막는다.
+ * 4. 정규화   : OLLAMA_EMBED_NORMALIZE=true 면 L2 정규화 (코사인 유사도 = 내적)
+ *
+ * 실패한 입력은 빈 벡터로 돌려준다. (기존 EMBEDDING fallback 과 동일: RAG 컨텍스트 없이 진행)
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiEmbeddingModel {
+
+    private final AITicketClientService aiClient;
+    private final OllamaConfig ollamaConfig;
+
+    // 설정 차원이 0 이면 첫 정상 응답에서 결정
+    private final AtomicInteger observedDimension = new AtomicInteger();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong embeddedTexts = new AtomicLong();
+    private final AtomicLong droppedVectors = new AtomicLong();
+
+    public String getModelName() {
+        return ollamaConfig.getEmbedModelName();
+    }
+
+    /**
+     * 벡터 차원 (설정값, 없으면 관측값. 아직 모르면 0)
+     */
+    public int getDimension() {
+        int configured = ollamaConfig.getEmbedDimension();
+        return configured > 0 ? configured : observedDimension.get();
+    }
+
+    /**
+     * L2 정규화 여부 (OLLAMA_EMBED_NORMALIZE)
+     */
+    public boolean isNormalize() {
+        return ollamaConfig.isEmbedNormalize();
+    }
+
+    /**
+     * 단건 임베딩. 실패 시 빈 리스트
+     */
+    public List<Double> embed(String text) {
+        if (text == null || text.isBlank()) return Collections.emptyList();
+        return embedAll(List.of(text)).get(0);
+    }
+
+    /**
+     * 배치 임베딩 (질의용 EMBEDDING). 결과는 입력과 같은 순서/크기이며, 실패한 항목은 빈 리스트다.
+     */
+    public List<List<Double>> embedAll(List<String> texts) {
+        return embedAll(AiFeature.EMBEDDING, texts);
+    }
+
+    /**
+     * 호출 기능을 지정한 배치 임베딩 (지식 문서/과거 티켓 일괄 적재는 EMBEDDING_INGEST)
+     */
+    public List<List<Double>> embedAll(AiFeature feature, List<String> texts) {
+        if (texts == null || texts.isEmpty()) return Collections.emptyList();
+        int batchSize = Math.max(1, ollamaConfig.getEmbedBatchSize());
+
+        List<List<Double>> result = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + batchSize));
+            requests.incrementAndGet();
+            List<List<Double>> vectors = aiClient.getEmbeddings(feature, batch, getModelName());
+            for (int i = 0; i < batch.size(); i++) {
+                List<Double> v = i < vectors.size() ? accept(vectors.get(i)) : Collections.emptyList();
+                result.add(v);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("model", getModelName());
+        result.put("dimension", getDimension());
+        result.put("normalize", ollamaConfig.isEmbedNormalize());
+        result.put("batchSize", ollamaConfig.getEmbedBatchSize());
+        result.put("requests", requests.get());
+        result.put("embeddedTexts", embeddedTexts.get());
+        result.put("droppedVectors", droppedVectors.get());
+        return result;
+    }
+
+    private List<Double> accept(List<Double> vector) {
+        if (vector == null || vector.isEmpty()) return Collections.emptyList();
+
+        int expected = getDimension();
+        if (expected == 0) {
+            if (observedDimension.compareAndSet(0, vector.size())) {
+                log.info("[AI Embedding] 모델 차원 결정 | model={} | dim={}", getModelName(), vector.size());
+            }
+            expected = observedDimension.get();
+        }
+        if (vector.size() != expected) {
+            droppedVectors.incrementAndGet();
+            log.warn("[AI Embedding] 차원 불일치 벡터 제외 | model={} | expected={} | actual={}",
+                    getModelName(), expected, vector.size());
+            return Collections.emptyList();
+        }
+
+        embeddedTexts.incrementAndGet();
+        return ollamaConfig.isEmbedNormalize() ? normalize(vector) : vector;
+    }
+
+    private static List<Double> normalize(List<Double> vector) {
+        double sum = 0.0;
+        for (Double d : vector) sum += d * d;
+        double norm = Math.sqrt(sum);
+        if (norm == 0.0 || Double.isNaN(norm)) return vector;
+
+        List<Double> unit = new ArrayList<>(vector.size());
+        for (Double d : vector) unit.add(d / norm);
+        return unit;
+    }
+}
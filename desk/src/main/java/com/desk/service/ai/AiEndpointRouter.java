@@ -0,0 +1,509 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.util.AiUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * [Ollama 다중 노드 라우터]
+ * OLLAMA_ENDPOINTS 에 여러 노드를 등록하면 호출마다 노드를 고른다. (비어 있으면 OLLAMA_BASE_URL 1대)
+ *
+ * 1. 모델 친화(affinity) : 노드에 설정된 models (없으면 /api/tags 조회 결과) 에 요청 모델이 있는 노드만 후보
+ *                          (예: 임베딩 모델은 CPU 노드, 채팅 모델은 GPU 노드)
+ * 2. 최소 진행 요청 수   : 후보 중 처리 중인 요청이 가장 적은 노드 선택 (동률이면 순환)
+ * 3. 능동 헬스 체크      : 주기적으로 /api/tags 호출. 실패한 노드는 후보에서 제외
+ * 4. 수동 제외(ejection) : 연속 실패 또는 같은 기능 기준 다른 노드보다 확연히 느린 노드를 일정 시간 제외
+ * 5. 연결 실패 재시도    : 연결 자체가 안 된 경우(서버 작업 전)만 다른 노드로 1회 재시도
+ * 6. 서킷 브레이커      : (기능, 노드) 단위. 서킷이 열린 노드는 그 기능의 후보에서 빠지고, 다른 노드/기능은 영향 없음
+ *                          (ai.resilience.enabled=false 면 사용 안 함)
+ *
+ * 후보가 모두 제외 상태면 fail-open 으로 후보 중 하나를 그대로 사용한다.
+ * 단, 서킷이 열린 노드는 fail-open 대상도 아니다. (모두 열려 있으면 AiUnavailableException → 호출 측 fallback)
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiEndpointRouter {
+
+    private final OllamaConfig ollamaConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${ai.endpoints.probe-interval-ms:10000}")
+    private long probeIntervalMs;
+
+    @Value("${ai.endpoints.probe-timeout-ms:2000}")
+    private int probeTimeoutMs;
+
+    @Value("${ai.endpoints.eject.consecutive-failures:3}")
+    private int ejectConsecutiveFailures;
+
+    @Value("${ai.endpoints.eject.duration-ms:30000}")
+    private long ejectDurationMs;
+
+    @Value("${ai.endpoints.eject.slow-factor:3.0}")
+    private double slowFactor;
+
+    @Value("${ai.endpoints.eject.slow-min-gap-ms:500}")
+    private long slowMinGapMs;
+
+    @Value("${ai.endpoints.eject.min-samples:5}")
+    private int minSamples;
+
+    @Value("${ai.resilience.enabled:true}")
+    private boolean breakerEnabled;
+
+    @Value("${ai.resilience.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${ai.resilience.breaker.min-calls:5}")
+    private int breakerMinCalls;
+
+    @Value("${ai.resilience.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${ai.resilience.breaker.open-duration-ms:30000}")
+    private long breakerOpenDurationMs;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private ScheduledExecutorService prober;
+    private RestTemplate probeClient;
+
+    @PostConstruct
+    public void init() {
+        endpoints.addAll(parseEndpoints(ollamaConfig.getEndpoints(), ollamaConfig.getBaseUrl()));
+        for (Endpoint e : endpoints) {
+            e.initBreakers(() -> new AiCircuitBreaker(breakerWindowSize, breakerMinCalls, breakerFailureRate, breakerOpenDurationMs));
+        }
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(probeTimeoutMs);
+        factory.setReadTimeout(probeTimeoutMs);
+        probeClient = new RestTemplate(factory);
+
+        if (endpoints.size() > 1 && probeIntervalMs > 0) {
+            prober = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ollama-endpoint-probe");
+                t.setDaemon(true);
+                return t;
+            });
+            prober.scheduleWithFixedDelay(this::probeAll, 0, probeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("[AI Endpoint] 초기화 완료 | endpoints={}", endpoints);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (prober != null) prober.shutdownNow();
+    }
+
+    /**
+     * 블로킹 호출. call 에는 선택된 노드의 baseUrl 이 전달된다.
+     */
+    public <T> T call(AiFeature feature, String model, Function<String, T> call) {
+        Endpoint first = choose(feature, model, null);
+        if (first == null) throw circuitOpen(feature);
+        try {
+            return invoke(feature, first, call);
+        } catch (RuntimeException e) {
+            Endpoint retry = isConnectFailure(e) ? choose(feature, model, first) : null;
+            if (retry == null) throw e;
+            log.warn("[AI Endpoint] 연결 실패 → 다른 노드로 재시도 | from={} | to={} | error={}",
+                    first.url, retry.url, e.getMessage());
+            return invoke(feature, retry, call);
+        }
+    }
+
+    /**
+     * Reactive 호출 (OllamaClient 용). 취소(timeout)도 실패로 집계한다. (노드 제외 / 서킷 모두)
+     */
+    public <T> Mono<T> callMono(AiFeature feature, String model, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            Endpoint first = choose(feature, model, null);
+            if (first == null) return Mono.error(circuitOpen(feature));
+            return invokeMono(feature, first, call)
+                    .onErrorResume(e -> {
+                        Endpoint retry = isConnectFailure(e) ? choose(feature, model, first) : null;
+                        if (retry == null) return Mono.error(e);
+                        log.warn("[AI Endpoint] 연결 실패 → 다른 노드로 재시도 | from={} | to={} | error={}",
+                                first.url, retry.url, e.getMessage());
+                        return invokeMono(feature, retry, call);
+                    });
+        });
+    }
+
+    /**
+     * 기능/모델을 처리할 노드 선택
+     *
+     * @param exclude 재시도 시 제외할 노드 (없으면 null)
+     * @return 선택된 노드. 후보가 모두 이 기능의 서킷이 열린 상태(또는 exclude)면 null
+     */
+    public Endpoint choose(AiFeature feature, String model, Endpoint exclude) {
+        List<Endpoint> candidates = new ArrayList<>();
+        for (Endpoint e : endpoints) {
+            if (e.serves(model)) candidates.add(e);
+        }
+        if (candidates.isEmpty()) candidates.addAll(endpoints); // 설정 누락 시 전체
+
+        // 서킷이 열린 노드는 fail-open 대상에서도 뺀다.
+        candidates.removeIf(e -> e == exclude || !permits(feature, e));
+        if (candidates.size() <= 1) return candidates.isEmpty() ? null : candidates.get(0);
+
+        long now = System.currentTimeMillis();
+        List<Endpoint> available = new ArrayList<>();
+        for (Endpoint e : candidates) {
+            if (e.isAvailable(now)) available.add(e);
+        }
+        if (available.isEmpty()) {
+            // fail-open: 제외 상태라도 후보 중 하나를 사용
+            available = candidates;
+        }
+
+        int start = Math.floorMod(roundRobin.getAndIncrement(), available.size());
+        Endpoint best = null;
+        for (int i = 0; i < available.size(); i++) {
+            Endpoint e = available.get((start + i) % available.size());
+            if (best == null || e.outstanding.get() < best.outstanding.get()) best = e;
+        }
+        return best;
+    }
+
+    /**
+     * 전체 노드 헬스 체크 (/api/tags). 응답한 모델 목록을 affinity 에 반영한다.
+     */
+    public void probeAll() {
+        for (Endpoint e : endpoints) {
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                if (ollamaConfig.getApiKey() != null && !ollamaConfig.getApiKey().isBlank()) {
+                    headers.add("X-API-Key", ollamaConfig.getApiKey());
+                }
+                ResponseEntity<String> resp = probeClient.exchange(e.url + "/api/tags", HttpMethod.GET,
+                        new HttpEntity<>(headers), String.class);
+                Set<String> models = new HashSet<>();
+                JsonNode root = objectMapper.readTree(resp.getBody());
+                for (JsonNode m : root.path("models")) {
+                    models.add(normalizeModel(m.path("name").asText()));
+                }
+                if (!e.healthy) log.info("[AI Endpoint] 노드 복구 | url={}", e.url);
+                e.discoveredModels = Collections.unmodifiableSet(models);
+                e.healthy = true;
+            } catch (Exception ex) {
+                if (e.healthy) log.warn("[AI Endpoint] 헬스 체크 실패 → 후보 제외 | url={} | error={}", e.url, ex.getMessage());
+                e.healthy = false;
+            }
+        }
+    }
+
+    /**
+     * 이 기능을 받을 수 있는 노드가 하나도 없는지 (모든 노드의 서킷이 열림)
+     * AiCallGuard 가 스케줄러 슬롯을 기다리기 전에 확인한다.
+     */
+    public boolean isCircuitOpen(AiFeature feature) {
+        for (Endpoint e : endpoints) {
+            if (permits(feature, e)) return false;
+        }
+        return true;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * 노드별 상태 스냅샷 (관리/모니터링용)
+     */
+    public List<Map<String, Object>> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Endpoint e : endpoints) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("url", e.url);
+            m.put("models", e.configuredModels.isEmpty() ? e.discoveredModels : e.configuredModels);
+            m.put("healthy", e.healthy);
+            m.put("ejected", now < e.ejectedUntil);
+            m.put("outstanding", e.outstanding.get());
+            m.put("requests", e.requests.get());
+            m.put("failures", e.failures.get());
+            m.put("circuits", e.circuitSnapshot());
+            result.add(m);
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------
+    // 내부 구현
+    // ---------------------------------------------------------
+
+    private boolean permits(AiFeature feature, Endpoint e) {
+        return !breakerEnabled || e.breaker(feature).isCallPermitted();
+    }
+
+    /**
+     * 서킷 허용을 실제로 받는다. (HALF_OPEN 이면 시험 호출 자리를 차지)
+     */
+    private void acquire(AiFeature feature, Endpoint e) {
+        if (breakerEnabled && !e.breaker(feature).tryAcquire()) {
+            throw circuitOpen(feature);
+        }
+    }
+
+    private static AiUnavailableException circuitOpen(AiFeature feature) {
+        return new AiUnavailableException("AI circuit open: " + feature);
+    }
+
+    private <T> T invoke(AiFeature feature, Endpoint e, Function<String, T> call) {
+        acquire(feature, e);
+        e.begin();
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            T result = call.apply(e.url);
+            ok = true;
+            return result;
+        } finally {
+            complete(feature, e, start, ok);
+        }
+    }
+
+    private <T> Mono<T> invokeMono(AiFeature feature, Endpoint e, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            acquire(feature, e);
+            e.begin();
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return call.apply(e.url)
+                    .doOnSuccess(v -> {
+                        if (done.compareAndSet(false, true)) complete(feature, e, start, true);
+                    })
+                    .doOnError(ex -> {
+                        if (done.compareAndSet(false, true)) complete(feature, e, start, false);
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) complete(feature, e, start, false);
+                    });
+        });
+    }
+
+    private void complete(AiFeature feature, Endpoint e, long startNanos, boolean success) {
+        e.outstanding.decrementAndGet();
+        if (breakerEnabled) {
+            if (success) e.breaker(feature).onSuccess();
+            else e.breaker(feature).onFailure();
+        }
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (endpoints.size() == 1) return;
+
+        if (!success) {
+            e.failures.incrementAndGet();
+            if (e.consecutiveFailures.incrementAndGet() >= ejectConsecutiveFailures) {
+                eject(e, "연속 실패 " + e.consecutiveFailures.get() + "회");
+            }
+            return;
+        }
+        e.consecutiveFailures.set(0);
+        double ewma = e.recordLatency(feature, latencyMs);
+
+        // 같은 기능 기준으로 가장 빠른 다른 노드보다 확연히 느리면 제외
+        if (e.samples(feature) < minSamples) return;
+        double bestPeer = Double.MAX_VALUE;
+        for (Endpoint other : endpoints) {
+            if (other == e || other.samples(feature) < minSamples) continue;
+            bestPeer = Math.min(bestPeer, other.latency(feature));
+        }
+        if (bestPeer != Double.MAX_VALUE && ewma > bestPeer * slowFactor && ewma - bestPeer > slowMinGapMs) {
+            eject(e, String.format("지연 %.0fms (최선 노드 %.0fms)", ewma, bestPeer));
+        }
+    }
+
+    private void eject(Endpoint e, String reason) {
+        long now = System.currentTimeMillis();
+        // 마지막 남은 가용 노드는 제외하지 않는다.
+        long othersAvailable = endpoints.stream().filter(o -> o != e && o.isAvailable(now)).count();
+        if (othersAvailable == 0 || now < e.ejectedUntil) return;
+
+        e.ejectedUntil = now + ejectDurationMs;
+        e.consecutiveFailures.set(0);
+        e.resetLatency(); // 복귀 후 새 표본으로 다시 평가
+        log.warn("[AI Endpoint] 노드 일시 제외 | url={} | reason={} | duration={}ms", e.url, reason, ejectDurationMs);
+    }
+
+    static List<Endpoint> parseEndpoints(String spec, String defaultUrl) {
+        List<Endpoint> list = new ArrayList<>();
+        if (spec != null && !spec.isBlank()) {
+            for (String item : spec.split(",")) {
+                String[] parts = item.trim().split(";");
+                if (parts[0].isBlank()) continue;
+                Set<String> models = new HashSet<>();
+                for (int i = 1; i < parts.length; i++) {
+                    String p = parts[i].trim();
+                    if (p.startsWith("models=")) {
+                        for (String m : p.substring("models=".length()).split("\\|")) {
+                            if (!m.isBlank()) models.add(normalizeModel(m.trim()));
+                        }
+                    }
+                }
+                list.add(new Endpoint(stripSlash(parts[0].trim()), models));
+            }
+        }
+        if (list.isEmpty()) {
+            list.add(new Endpoint(stripSlash(defaultUrl), Set.of()));
+        }
+        return list;
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * "nomic-embed-text" 와 "nomic-embed-text:latest" 를 같은 모델로 취급
+     */
+    static String normalizeModel(String model) {
+        if (model == null) return "";
+        return model.contains(":") ? model : model + ":latest";
+    }
+
+    static boolean isConnectFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof NoRouteToHostException || t instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------
+    // 노드 상태
+    // ---------------------------------------------------------
+    public static class Endpoint {
+        private final String url;
+        private final Set<String> configuredModels;
+        private volatile Set<String> discoveredModels = Set.of();
+        private volatile boolean healthy = true;
+        private volatile long ejectedUntil;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        // 기능별 지연 EWMA (기능마다 정상 지연 규모가 다르므로 분리)
+        private final Map<AiFeature, double[]> latency = new EnumMap<>(AiFeature.class); // [ewma, samples]
+
+        // 기능별 서킷 (init 에서 한 번 채운 뒤 읽기만 한다)
+        private final Map<AiFeature, AiCircuitBreaker> breakers = new EnumMap<>(AiFeature.class);
+
+        Endpoint(String url, Set<String> configuredModels) {
+            this.url = url;
+            this.configuredModels = Set.copyOf(configuredModels);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        boolean serves(String model) {
+            if (model == null || model.isBlank()) return true;
+            String m = normalizeModel(model);
+            if (!configuredModels.isEmpty()) return configuredModels.contains(m);
+            Set<String> discovered = discoveredModels;
+            return discovered.isEmpty() || discovered.contains(m);
+        }
+
+        void initBreakers(Supplier<AiCircuitBreaker> factory) {
+            for (AiFeature feature : AiFeature.values()) {
+                breakers.put(feature, factory.get());
+            }
+        }
+
+        AiCircuitBreaker breaker(AiFeature feature) {
+            return breakers.get(feature);
+        }
+
+        /**
+         * CLOSED 가 아닌 서킷만 (기능 key → 상태)
+         */
+        Map<String, String> circuitSnapshot() {
+            Map<String, String> result = new LinkedHashMap<>();
+            for (Map.Entry<AiFeature, AiCircuitBreaker> b : breakers.entrySet()) {
+                AiCircuitBreaker.State state = b.getValue().getState();
+                if (state != AiCircuitBreaker.State.CLOSED) result.put(b.getKey().getKey(), state.name());
+            }
+            return result;
+        }
+
+        boolean isAvailable(long now) {
+            return healthy && now >= ejectedUntil;
+        }
+
+        void begin() {
+            outstanding.incrementAndGet();
+            requests.incrementAndGet();
+        }
+
+        synchronized double recordLatency(AiFeature feature, long ms) {
+            double[] s = latency.computeIfAbsent(feature, k -> new double[]{ms, 0});
+            s[0] = s[1] == 0 ? ms : 0.3 * ms + 0.7 * s[0];
+            s[1]++;
+            return s[0];
+        }
+
+        synchronized double latency(AiFeature feature) {
+            double[] s = latency.get(feature);
+            return s == null ? Double.MAX_VALUE : s[0];
+        }
+
+        synchronized int samples(AiFeature feature) {
+            double[] s = latency.get(feature);
+            return s == null ? 0 : (int) s[1];
+        }
+
+        synchronized void resetLatency() {
+            latency.clear();
+        }
+
+        @Override
+        public String toString() {
+            return url + (configuredModels.isEmpty() ? "" : configuredModels.toString());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.desk.service.ai;
+
+/**
+ * AI 호출 지점(엔드포인트) 구분
+ * - 서킷 브레이커 / 적응형 timeout 이 이 단위로 분리된다.
+ * - 실행 순서/동시성은 소속 레인(AiLane)과 대기 허용 시간(maxQueueWaitMs)으로 AiRequestScheduler 가 정한다.
+ * - 기본값은 application.properties 의 ai.resilience.{key}.* 로 덮어쓸 수 있다.
+ *
+ * [기능별 fallback]
+ * - CHAT_FILTER      : 원문을 그대로 전송하고 "검토 필요" 표시
+ * - TICKET_ROUTING   : "라우팅 불가" 응답 (사용자가 부서를 직접 선택)
+ * - TICKET_INTERVIEW : "인터뷰 일시 중단" 응답 (현재 티켓 상태 유지)
+ * - FILE_SEARCH      : 자바 정규식 파싱 결과만 사용
+ * - MEETING_SUMMARY  : 즉시 실패 응답 (입력 내용 보존)
+ * - EMBEDDING        : 빈 벡터 (RAG 컨텍스트 없이 진행)
+ * - EMBEDDING_INGEST : 빈 벡터 (해당 청크는 키워드 검색만, 다음 적재 재시도에서 다시 임베딩)
+ *
+ * 지식 문서 일괄 임베딩(EMBEDDING_INGEST)은 질의 임베딩(EMBEDDING)과 레인/서킷/timeout 을 나눈다.
+ * (큰 배치가 느리거나 실패해도 인터뷰 중인 질의 임베딩의 슬롯을 뺏거나 서킷을 열지 않도록)
+ */
+public enum AiFeature {
+
+    CHAT_FILTER("chat-filter", AiLane.REALTIME, 5_000, 30_000, 3_000, 120_000),
+    TICKET_ROUTING("ticket-routing", AiLane.INTERACTIVE, 10_000, 30_000, 3_000, 90_000),
+    TICKET_INTERVIEW("ticket-interview", AiLane.INTERACTIVE, 15_000, 60_000, 5_000, 180_000),
+    FILE_SEARCH("file-search", AiLane.INTERACTIVE, 5_000, 20_000, 3_000, 60_000),
+    MEETING_SUMMARY("meeting-summary", AiLane.BATCH, 60_000, 300_000, 30_000, 360_000),
+    EMBEDDING("embedding", AiLane.INTERACTIVE, 10_000, 10_000, 1_000, 30_000),
+    EMBEDDING_INGEST("embedding-ingest", AiLane.BATCH, 300_000, 60_000, 5_000, 300_000);
+
+    private final String key;
+    private final AiLane lane;
+    private final long defaultMaxQueueWaitMs;
+    private final long defaultInitialTimeoutMs;
+    private final long defaultMinTimeoutMs;
+    private final long defaultMaxTimeoutMs;
+
+    AiFeature(String key, AiLane lane, long defaultMaxQueueWaitMs, long defaultInitialTimeoutMs,
+              long defaultMinTimeoutMs, long defaultMaxTimeoutMs) {
+        this.key = key;
+        this.lane = lane;
+        this.defaultMaxQueueWaitMs = defaultMaxQueueWaitMs;
+        this.defaultInitialTimeoutMs = defaultInitialTimeoutMs;
+        this.defaultMinTimeoutMs = defaultMinTimeoutMs;
+        this.defaultMaxTimeoutMs = defaultMaxTimeoutMs;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public AiLane getLane() {
+        return lane;
+    }
+
+    public long getDefaultMaxQueueWaitMs() {
+        return defaultMaxQueueWaitMs;
+    }
+
+    public long getDefaultInitialTimeoutMs() {
+        return defaultInitialTimeoutMs;
+    }
+
+    public long getDefaultMinTimeoutMs() {
+        return defaultMinTimeoutMs;
+    }
+
+    public long getDefaultMaxTimeoutMs() {
+        return defaultMaxTimeoutMs;
+    }
+}
@@ -0,0 +1,542 @@
+package com.desk.service.ai;
+
+import com.desk.domain.ChatFile;
+import com.desk.domain.ChatParticipant;
+import com.desk.domain.Member;
+import com.desk.domain.Ticket;
+import com.desk.domain.TicketFile;
+import com.desk.repository.MemberRepository;
+import com.desk.repository.TicketFileRepository;
+import com.desk.repository.chat.ChatFileRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * [AI 파일조회 역색인]
+ * AI 파일조회는 키워드마다 티켓/채팅 파일 쿼리를 한 번씩 돌리고, 쿼리마다 LOWER(..) LIKE '%kw%' 가 열 개 가까이 붙는다.
+ * (인덱스를 못 타서 파일이 늘수록 전체 스캔) 검색 대상 텍스트를 메모리에 역색인해 후보 uuid 를 바로 찾는다.
+ *
+ * 1. 색인 텍스트 : 티켓 파일 - 파일명, 업로더/수신자, 티켓 제목/본문/목적/요구사항, 작성자·수신자 이메일/닉네임
+ *                 채팅 파일 - 파일명, 업로더/수신자, 채팅방 이름, 업로더 닉네임 (matchesAllTokens 와 같은 범위)
+ * 2. term       : 글자 bigram (LIKE '%kw%' 의 부분 문자열 일치를 빠짐없이 덮는다) + Komoran 형태소 원형
+ * 3. 접근 비트맵 : 사용자(이메일)별 BitSet. 티켓은 작성자/수신자, 채팅은 업로드 시점에 입장 구간 안에 있던 참여자
+ * 4. 보낸/받은   : 업로더/수신자(티켓)별 BitSet. 보낸/받은 필터를 후보 단계에서 건다. (AIFileServiceImpl 필터와 같은 조건)
+ * 5. 검색       : 키워드마다 가장 짧은 bigram posting 을 따라가며 (접근 비트맵 ∧ 나머지 posting) 을 확인하고 키워드끼리 AND
+ *
+ * 결과는 "후보"다. bigram 이 모두 있어도 붙어 있지 않을 수 있고, 재입장으로 접근 구간이 바뀔 수 있으므로
+ * 호출 측이 uuid IN 쿼리(접근 조건 포함)와 matchesAllTokens 로 최종 확인한다.
+ * 후보 전체는 실제 결과를 모두 포함하지만, 한 번에 돌려주는 것은 종류별 offset 부터 limit 개(최신순)뿐이다.
+ * 확인에서 걸러진 만큼 페이지가 덜 찼으면 호출 측이 다음 offset 을 이어서 요청해야 한다.
+ * 업로드/삭제는 커밋 후 바로 반영하고, 닉네임 변경·삭제 흔적 정리는 rebuild-interval-ms 마다 전체 재구성으로 맞춘다.
+ * 재구성 전(기동 직후)이나 2글자 미만 키워드는 null 을 돌려주고 호출 측은 기존 DB 검색을 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiFileSearchIndex {
+
+    public enum Kind { TICKET, CHAT }
+
+    /**
+     * 색인 단위 (엔티티에서 트랜잭션 안에서 뽑아 둔 값만 가진다)
+     */
+    public record Document(String uuid, Kind kind, long createdAt, List<String> texts, Set<String> readers,
+                           String writer, String receiver) {
+
+        public Document(String uuid, Kind kind, long createdAt, List<String> texts, Set<String> readers) {
+            this(uuid, kind, createdAt, texts, readers, null, null);
+        }
+    }
+
+    /**
+     * 검색 후보 (종류별 최신순, offset 부터 각 limit 개까지) 와 전체 일치 수
+     * 종류별 목록이 limit 보다 짧으면 그 종류의 후보는 끝이다.
+     */
+    public record Candidates(List<String> ticketUuids, List<String> chatUuids, int matched) {
+    }
+
+    private final TicketFileRepository ticketFileRepository;
+    private final ChatFileRepository chatFileRepository;
+    private final MemberRepository memberRepository;
+
+    @Value("${ai.file-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.file-index.rebuild-interval-ms:3600000}")
+    private long rebuildIntervalMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    private volatile boolean ready;
+
+    // 재구성 중에 들어온 업로드/삭제 (새 세그먼트에 다시 적용)
+    private List<Document> pendingPuts;
+    private List<String> pendingRemoves;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AiLatencyTracker searchLatency = new AiLatencyTracker(500); // µs
+    private volatile long lastRebuildMs;
+
+    private final ScheduledExecutorService builder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ai-file-index");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 기동을 막지 않는다. 전체 색인은 백그라운드에서 만들고, 끝나기 전까지 검색은 DB 로 간다.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        builder.submit(this::rebuild);
+        if (rebuildIntervalMs > 0) {
+            builder.scheduleWithFixedDelay(this::rebuild, rebuildIntervalMs, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // ========================= 업로드 / 삭제 반영 =========================
+
+    /**
+     * 티켓 파일 저장 직후 호출 (트랜잭션 안에서 텍스트/수신자를 뽑고, 커밋되면 색인)
+     */
+    public void onSaved(TicketFile file) {
+        if (!enabled || file == null || file.getUuid() == null) return;
+        Document doc = ticketDocument(file);
+        afterCommit(() -> put(doc));
+    }
+
+    /**
+     * 채팅 파일 저장 직후 호출 (참여자 입장 구간은 업로드 시점 기준)
+     */
+    public void onSaved(ChatFile file) {
+        if (!enabled || file == null || file.getUuid() == null) return;
+        String nickname = null;
+        if (file.getWriter() != null) {
+            nickname = memberRepository.findById(file.getWriter()).map(Member::getNickname).orElse(null);
+        }
+        Document doc = chatDocument(file, nickname);
+        afterCommit(() -> put(doc));
+    }
+
+    /**
+     * 파일 삭제 직후 호출
+     */
+    public void onDeleted(String uuid) {
+        if (!enabled || uuid == null) return;
+        afterCommit(() -> remove(uuid));
+    }
+
+    void put(Document doc) {
+        lock.writeLock().lock();
+        try {
+            segment.put(doc);
+            if (pendingPuts != null) pendingPuts.add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updates.incrementAndGet();
+    }
+
+    void remove(String uuid) {
+        lock.writeLock().lock();
+        try {
+            segment.remove(uuid);
+            if (pendingRemoves != null) pendingRemoves.add(uuid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updates.incrementAndGet();
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    // ========================= 전체 재구성 =========================
+
+    /**
+     * DB 전체를 읽어 새 세그먼트를 만들고 교체한다. (삭제 흔적 정리, 닉네임/방 이름 변경 반영)
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingPuts = new ArrayList<>();
+            pendingRemoves = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<Document> docs = new ArrayList<>();
+            for (TicketFile f : ticketFileRepository.findAllForSearchIndex()) docs.add(ticketDocument(f));
+
+            Map<String, String> nicknames = new HashMap<>();
+            for (Member m : memberRepository.findAll()) {
+                if (m.getEmail() != null && m.getNickname() != null) nicknames.put(m.getEmail(), m.getNickname());
+            }
+            for (ChatFile f : chatFileRepository.findAllForSearchIndex()) {
+                docs.add(chatDocument(f, nicknames.get(f.getWriter())));
+            }
+            load(docs);
+            lastRebuildMs = System.currentTimeMillis() - start;
+            log.info("[AI File Index] 재구성 완료 | documents={} | elapsed={}ms", docs.size(), lastRebuildMs);
+        } catch (Exception e) {
+            log.warn("[AI File Index] 재구성 실패 - DB 검색 사용 | error={}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingPuts = null;
+                pendingRemoves = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 주어진 문서로 새 세그먼트를 만들어 교체 (재구성 중 들어온 업로드/삭제는 새 세그먼트에 다시 적용)
+     */
+    void load(List<Document> docs) {
+        Segment next = new Segment();
+        docs.stream().sorted(Comparator.comparingLong(Document::createdAt)).forEach(next::put);
+
+        lock.writeLock().lock();
+        try {
+            if (pendingPuts != null) pendingPuts.forEach(next::put);
+            if (pendingRemoves != null) pendingRemoves.forEach(next::remove);
+            segment = next;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuilds.incrementAndGet();
+    }
+
+    // ========================= 검색 =========================
+
+    /**
+     * 사용자가 볼 수 있는 파일 중 모든 키워드를 포함하는 후보 (종류별 최신순 limit 개)
+     *
+     * @return 색인이 준비되지 않았거나 색인으로 답할 수 없는 키워드(2글자 미만, 공백 포함)가 있으면 null
+     */
+    public Candidates search(String email, List<String> keywords, int limit) {
+        return search(email, keywords, false, false, 0, limit);
+    }
+
+    /**
+     * 보낸/받은 필터를 건 후보의 offset 번째부터 종류별 limit 개
+     *
+     * @param senderOnly   내가 올린 파일만
+     * @param receiverOnly 티켓은 수신자가 나인 파일, 채팅은 내가 올리지 않은 파일 (채팅 수신자는 그룹에서 비어 있을 수 있음)
+     * @return 색인이 준비되지 않았거나 색인으로 답할 수 없는 키워드(2글자 미만, 공백 포함)가 있으면 null
+     */
+    public Candidates search(String email, List<String> keywords, boolean senderOnly, boolean receiverOnly,
+                             int offset, int limit) {
+        if (!isReady() || email == null || keywords == null || keywords.isEmpty()) return null;
+        List<String> terms = new ArrayList<>();
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.isBlank()) continue;
+            String term = keyword.strip().toLowerCase(Locale.ROOT);
+            if (term.length() < 2 || term.chars().anyMatch(Character::isWhitespace)) return null;
+            terms.add(term);
+        }
+        if (terms.isEmpty()) return null;
+
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            String me = email.toLowerCase(Locale.ROOT);
+            BitSet access = segment.access.get(me);
+            if (access == null) return new Candidates(List.of(), List.of(), 0);
+
+            BitSet matched = (BitSet) access.clone();
+            matched.and(segment.live);
+            BitSet written = segment.writtenBy.getOrDefault(me, new BitSet());
+            if (senderOnly) matched.and(written);
+            if (receiverOnly) {
+                BitSet received = (BitSet) segment.chat.clone();
+                received.andNot(written);
+                received.or(segment.receivedBy.getOrDefault(me, new BitSet())); // 티켓 문서에만 있다
+                matched.and(received);
+            }
+            for (String term : terms) {
+                matched = segment.match(term, matched);
+                if (matched.isEmpty()) break;
+            }
+
+            // 최신순: 같은 시각이면 나중에 색인된 문서 먼저
+            List<Integer> ids = matched.stream().boxed()
+                    .sorted(Comparator.<Integer>comparingLong(id -> segment.createdAt[id]).thenComparing(id -> id).reversed())
+                    .toList();
+            List<String> tickets = new ArrayList<>();
+            List<String> chats = new ArrayList<>();
+            int skippedTickets = 0;
+            int skippedChats = 0;
+            for (int id : ids) {
+                boolean isChat = segment.chat.get(id);
+                if (isChat ? skippedChats++ < offset : skippedTickets++ < offset) continue;
+                List<String> target = isChat ? chats : tickets;
+                if (target.size() < limit) target.add(segment.uuids.get(id));
+            }
+            return new Candidates(tickets, chats, ids.size());
+        } finally {
+            lock.readLock().unlock();
+            searches.incrementAndGet();
+            searchLatency.record((System.nanoTime() - start) / 1_000);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("enabled", enabled);
+        s.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            int live = segment.live.cardinality();
+            int chats = 0;
+            for (int id = segment.live.nextSetBit(0); id >= 0; id = segment.live.nextSetBit(id + 1)) {
+                if (segment.chat.get(id)) chats++;
+            }
+            s.put("documents", live);
+            s.put("ticketFiles", live - chats);
+            s.put("chatFiles", chats);
+            s.put("tombstones", segment.uuids.size() - live);
+            s.put("terms", segment.postings.size());
+            s.put("users", segment.access.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        s.put("searches", searches.get());
+        s.put("updates", updates.get());
+        s.put("rebuilds", rebuilds.get());
+        s.put("lastRebuildMs", lastRebuildMs);
+        s.put("searchLatencyUs", Map.of("p50", searchLatency.percentile(0.50), "p95", searchLatency.percentile(0.95)));
+        return s;
+    }
+
+    // ========================= 엔티티 → 색인 문서 =========================
+
+    static Document ticketDocument(TicketFile f) {
+        List<String> texts = new ArrayList<>();
+        Set<String> readers = new LinkedHashSet<>();
+        add(texts, f.getFileName());
+        add(texts, f.getWriter());
+        add(texts, f.getReceiver());
+        add(readers, f.getWriter());
+
+        Ticket t = f.getTicket();
+        LocalDateTime created = f.getCreatedAt();
+        if (t != null) {
+            if (created == null) created = t.getBirth();
+            add(texts, t.getTitle());
+            add(texts, t.getContent());
+            add(texts, t.getPurpose());
+            add(texts, t.getRequirement());
+            if (t.getWriter() != null) {
+                add(texts, t.getWriter().getEmail());
+                add(texts, t.getWriter().getNickname());
+                add(readers, t.getWriter().getEmail());
+            }
+            if (t.getPersonalList() != null) {
+                t.getPersonalList().forEach(tp -> {
+                    if (tp == null || tp.getReceiver() == null) return;
+                    add(texts, tp.getReceiver().getEmail());
+                    add(texts, tp.getReceiver().getNickname());
+                    add(readers, tp.getReceiver().getEmail());
+                });
+            }
+        }
+        return new Document(f.getUuid(), Kind.TICKET, epochMillis(created), texts, readers, f.getWriter(), f.getReceiver());
+    }
+
+    static Document chatDocument(ChatFile f, String writerNickname) {
+        List<String> texts = new ArrayList<>();
+        Set<String> readers = new LinkedHashSet<>();
+        add(texts, f.getFileName());
+        add(texts, f.getWriter());
+        add(texts, f.getReceiver());
+        add(texts, writerNickname);
+
+        LocalDateTime created = f.getCreatedAt() != null ? f.getCreatedAt() : LocalDateTime.now();
+        if (f.getChatRoom() != null) {
+            add(texts, f.getChatRoom().getName());
+            if (f.getChatRoom().getParticipants() != null) {
+                for (ChatParticipant p : f.getChatRoom().getParticipants()) {
+                    if (p == null) continue;
+                    boolean joined = p.getJoinedAt() == null || !created.isBefore(p.getJoinedAt());
+                    boolean notLeft = p.getLeftAt() == null || !created.isAfter(p.getLeftAt());
+                    if (joined && notLeft) add(readers, p.getUserId());
+                }
+            }
+        }
+        return new Document(f.getUuid(), Kind.CHAT, epochMillis(created), texts, readers, f.getWriter(), null);
+    }
+
+    private static void add(Collection<String> target, String value) {
+        if (value != null && !value.isBlank()) target.add(value);
+    }
+
+    private static long epochMillis(LocalDateTime t) {
+        return t == null ? 0L : t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // ========================= 세그먼트 =========================
+
+    /**
+     * 문서 번호는 추가 순서대로 늘어난다. (posting 은 항상 오름차순 → 이진 탐색으로 포함 여부 확인)
+     * 같은 uuid 를 다시 넣거나 지우면 옛 번호는 live 에서 빠지고, 재구성 때 사라진다.
+     */
+    private static final class Segment {
+
+        private final List<String> uuids = new ArrayList<>();
+        private final Map<String, Integer> idByUuid = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final BitSet chat = new BitSet();
+        private long[] createdAt = new long[64];
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, BitSet> access = new HashMap<>();
+        private final Map<String, BitSet> writtenBy = new HashMap<>();
+        private final Map<String, BitSet> receivedBy = new HashMap<>(); // 티켓 파일 수신자
+
+        void put(Document doc) {
+            remove(doc.uuid());
+            int id = uuids.size();
+            uuids.add(doc.uuid());
+            idByUuid.put(doc.uuid(), id);
+            live.set(id);
+            if (doc.kind() == Kind.CHAT) chat.set(id);
+            if (id >= createdAt.length) createdAt = Arrays.copyOf(createdAt, createdAt.length * 2);
+            createdAt[id] = doc.createdAt();
+
+            Set<String> terms = new LinkedHashSet<>();
+            for (String text : doc.texts()) {
+                String lower = text.toLowerCase(Locale.ROOT);
+                for (int i = 0; i + 1 < lower.length(); i++) {
+                    char a = lower.charAt(i);
+                    char b = lower.charAt(i + 1);
+                    if (Character.isWhitespace(a) || Character.isWhitespace(b)) continue;
+                    terms.add(gram(a, b));
+                }
+                for (String morph : AiBm25Index.tokenize(text)) terms.add(word(morph));
+            }
+            for (String term : terms) postings.computeIfAbsent(term, k -> new Postings()).add(id);
+            for (String reader : doc.readers()) {
+                access.computeIfAbsent(reader.toLowerCase(Locale.ROOT), k -> new BitSet()).set(id);
+            }
+            if (doc.writer() != null) writtenBy.computeIfAbsent(doc.writer().toLowerCase(Locale.ROOT), k -> new BitSet()).set(id);
+            if (doc.receiver() != null && doc.kind() == Kind.TICKET) {
+                receivedBy.computeIfAbsent(doc.receiver().toLowerCase(Locale.ROOT), k -> new BitSet()).set(id);
+            }
+        }
+
+        void remove(String uuid) {
+            Integer id = idByUuid.remove(uuid);
+            if (id != null) live.clear(id);
+        }
+
+        /**
+         * within 중 term 을 포함하는 문서. (bigram 전부 포함 ∪ 같은 형태소)
+         * 가장 짧은 bigram posting 을 따라가며 within 비트와 나머지 posting 을 확인한다.
+         */
+        BitSet match(String term, BitSet within) {
+            BitSet result = new BitSet();
+            Postings morph = postings.get(word(term));
+            if (morph != null) morph.collect(within, result);
+
+            List<Postings> grams = new ArrayList<>();
+            for (int i = 0; i + 1 < term.length(); i++) {
+                Postings p = postings.get(gram(term.charAt(i), term.charAt(i + 1)));
+                if (p == null) return result;
+                grams.add(p);
+            }
+            grams.sort(Comparator.comparingInt(p -> p.size));
+            Postings driver = grams.get(0);
+            for (int i = 0; i < driver.size; i++) {
+                int id = driver.ids[i];
+                if (!within.get(id) || result.get(id)) continue;
+                boolean all = true;
+                for (int g = 1; g < grams.size() && all; g++) all = grams.get(g).contains(id);
+                if (all) result.set(id);
+            }
+            return result;
+        }
+
+        private static String gram(char a, char b) {
+            return new String(new char[]{'g', a, b});
+        }
+
+        private static String word(String morph) {
+            return "w" + morph;
+        }
+    }
+
+    // 오름차순 문서 번호 목록
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void collect(BitSet within, BitSet out) {
+            for (int i = 0; i < size; i++) {
+                if (within.get(ids[i])) out.set(ids[i]);
+            }
+        }
+    }
+}
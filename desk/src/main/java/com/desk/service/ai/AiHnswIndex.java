@@ -0,0 +1,537 @@
+package com.desk.service.ai;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * [HNSW 근사 최근접 이웃 인덱스]
+ * AiVectorStore 의 전수 검색은 질의마다 O(N·d) 라서 지식 청크가 수천~수만 개가 되면 느려진다.
+ * 벡터는 AiVectorStore 에 그대로 두고, 이 클래스는 문서 번호 사이의 그래프만 가진다.
+ *
+ * 1. 구조   : 계층 그래프 (층 l 에 노드가 있을 확률 = M^-l). 0층 이웃 최대 2M, 나머지 M
+ * 2. 삽입   : 위층부터 탐욕 하강 → 각 층에서 efConstruction 후보 중 휴리스틱으로 이웃 선택 (증분 삽입 가능)
+ * 3. 검색   : 위층 탐욕 하강 → 0층에서 efSearch 폭 탐색. 부서 필터는 탐색은 전체로 하되 결과에만 적용한다.
+ *            필터가 있으면 결과 ef 개를 채우려고 그래프를 (전체/부서 문서 수) 배만큼 더 넓게 훑는다.
+ *            그 비용(efSearch·2M·전체/부서)이 부서 전수 검색(부서 문서 수)보다 크면 AiVectorStore 부서 전수 검색으로 대신한다. (작은 부서)
+ * 4. 저장   : 로컬 파일에 그래프를 저장하고, 기동 시 같은 문서 목록(내용 해시)이면 다시 읽는다.
+ *            문서가 뒤에 더 붙었으면 읽은 뒤 나머지만 증분 삽입한다.
+ *
+ * 삽입은 쓰기 락, 검색은 읽기 락 (삽입은 기동/재적재 때만 일어난다)
+ */
+@Log4j2
+public class AiHnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int VERSION = 1;
+
+    private final AiVectorStore store;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42); // 같은 입력이면 같은 그래프 (재현 가능)
+
+    // links[node][level] = [count, id1, id2, ...]
+    private int[][][] links = new int[0][][];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong flatScans = new AtomicLong(); // 작은 부서라 전수 검색으로 대신한 수
+
+    public AiHnswIndex(AiVectorStore store, int m, int efConstruction, int efSearch) {
+        this.store = store;
+        this.m = Math.max(2, m);
+        this.m0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    /**
+     * 저장된 인덱스를 읽거나(문서 목록이 같을 때) 새로 만들고, 아직 색인되지 않은 문서를 추가한 뒤 저장한다.
+     * 파일 입출력 실패는 인덱스 사용을 막지 않는다. (메모리 인덱스로 계속 사용)
+     */
+    public static AiHnswIndex openOrBuild(AiVectorStore store, Path path, int m, int efConstruction, int efSearch) {
+        long start = System.currentTimeMillis();
+        AiHnswIndex index = null;
+        if (path != null && Files.exists(path)) {
+            try {
+                index = load(store, path, m, efConstruction, efSearch);
+            } catch (IOException e) {
+                log.warn("[RAG HNSW] 인덱스 파일 읽기 실패 - 재구축 | path={} | error={}", path, e.getMessage());
+            }
+        }
+        boolean loaded = index != null;
+        if (index == null) index = new AiHnswIndex(store, m, efConstruction, efSearch);
+
+        int before = index.size();
+        int added = index.catchUp();
+        log.info("[RAG HNSW] 준비 완료 | loaded={} | reused={} | inserted={} | levels={} | elapsed={}ms",
+                loaded, before, added, index.maxLevel + 1, System.currentTimeMillis() - start);
+
+        if (path != null && added > 0) {
+            try {
+                index.save(path);
+            } catch (IOException e) {
+                log.warn("[RAG HNSW] 인덱스 저장 실패 | path={} | error={}", path, e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    /**
+     * 저장소에 있지만 아직 색인되지 않은 문서를 모두 삽입한다.
+     *
+     * @return 삽입한 문서 수
+     */
+    public int catchUp() {
+        lock.writeLock().lock();
+        try {
+            int added = 0;
+            int target = store.size();
+            while (size < target) {
+                insert(size);
+                added++;
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 근사 상위 k 개 (점수 내림차순). 결과 형식은 AiVectorStore.search 와 같다.
+     */
+    public List<AiVectorStore.Hit> search(List<Double> query, String dept, int k) {
+        float[] q = store.prepareQuery(query);
+        int deptFilter = store.deptId(dept);
+        if (q == null || k <= 0 || deptFilter == -1) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) return List.of();
+            if (deptFilter != AiVectorStore.ALL_DEPTS && preferFlatScan(store.deptSize(deptFilter), Math.max(efSearch, k))) {
+                flatScans.incrementAndGet();
+                return store.search(query, dept, k);
+            }
+            int ep = greedyDescend(q, entryPoint, maxLevel, 0);
+            Heap results = searchLayer(q, ep, Math.max(efSearch, k), 0, deptFilter);
+
+            int n = results.size;
+            int[] ids = new int[n];
+            float[] scores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                ids[i] = results.peekId();
+                scores[i] = results.peekScore();
+                results.pop();
+            }
+            List<AiVectorStore.Hit> hits = new ArrayList<>(Math.min(k, n));
+            for (int i = 0; i < Math.min(k, n); i++) hits.add(store.hit(ids[i], scores[i]));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========================================================
+    // 삽입
+    // ========================================================
+
+    private void insert(int node) {
+        float[] v = store.vector(node);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+
+        if (links.length <= node) links = Arrays.copyOf(links, Math.max(64, links.length * 2));
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) links[node][l] = new int[(l == 0 ? m0 : m) + 1];
+        size = node + 1;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = greedyDescend(v, entryPoint, maxLevel, level + 1);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            Heap candidates = searchLayer(v, ep, efConstruction, l, AiVectorStore.ALL_DEPTS);
+            int[] sorted = candidates.drainDescending();
+            int[] selected = selectNeighbors(sorted, scoresTo(v, sorted), m);
+
+            int[] own = links[node][l];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            for (int neighbor : selected) connect(neighbor, node, l);
+            ep = sorted[0];
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    // neighbor 의 l 층 이웃에 node 추가. 가득 찼으면 휴리스틱으로 다시 고른다.
+    private void connect(int neighbor, int node, int l) {
+        int[] list = links[neighbor][l];
+        int cap = list.length - 1;
+        int count = list[0];
+        if (count < cap) {
+            list[count + 1] = node;
+            list[0] = count + 1;
+            return;
+        }
+        float[] base = store.vector(neighbor);
+        int[] candidates = new int[count + 1];
+        System.arraycopy(list, 1, candidates, 0, count);
+        candidates[count] = node;
+        float[] scores = scoresTo(base, candidates);
+        sortDescending(candidates, scores);
+
+        int[] selected = selectNeighbors(candidates, scores, cap);
+        list[0] = selected.length;
+        System.arraycopy(selected, 0, list, 1, selected.length);
+    }
+
+    /**
+     * HNSW 이웃 선택 휴리스틱: 후보(기준점과 가까운 순)를 보며, 이미 고른 이웃보다 기준점에 더 가까운 후보만 고른다.
+     * (한쪽으로 몰린 이웃 대신 여러 방향의 이웃을 남겨 그래프 연결성을 유지)
+     * 자리가 남으면 버린 후보로 채운다.
+     */
+    private int[] selectNeighbors(int[] sortedIds, float[] sortedScores, int max) {
+        if (sortedIds.length <= max) return sortedIds.clone();
+
+        int[] selected = new int[max];
+        float[][] selectedVectors = new float[max][];
+        int count = 0;
+        boolean[] taken = new boolean[sortedIds.length];
+        for (int i = 0; i < sortedIds.length && count < max; i++) {
+            float[] cv = store.vector(sortedIds[i]);
+            boolean keep = true;
+            for (int s = 0; s < count; s++) {
+                if (dot(cv, selectedVectors[s]) > sortedScores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count] = sortedIds[i];
+                selectedVectors[count++] = cv;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < sortedIds.length && count < max; i++) {
+            if (!taken[i]) selected[count++] = sortedIds[i];
+        }
+        return count == max ? selected : Arrays.copyOf(selected, count);
+    }
+
+    // ========================================================
+    // 탐색
+    // ========================================================
+
+    // 위층에서 한 칸씩 더 가까운 이웃으로 이동 (폭 1)
+    private int greedyDescend(float[] q, int ep, int fromLevel, int toLevel) {
+        float best = store.score(q, ep);
+        for (int l = fromLevel; l >= toLevel; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[][] nodeLinks = links[ep];
+                if (l >= nodeLinks.length) break;
+                int[] list = nodeLinks[l];
+                for (int j = 1; j <= list[0]; j++) {
+                    int c = list[j];
+                    float s = store.score(q, c);
+                    if (s > best) {
+                        best = s;
+                        ep = c;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * 한 층에서 폭 ef 탐색. 결과는 최소 힙 (루트 = ef 개 중 최저 점수)
+     * deptFilter 가 ALL_DEPTS 가 아니면 해당 부서 노드만 결과에 넣는다. (탐색 경로는 전체)
+     */
+    private Heap searchLayer(float[] q, int ep, int ef, int level, int deptFilter) {
+        BitSet visited = new BitSet(size);
+        Heap candidates = new Heap(ef * 2); // 점수 부호를 뒤집어 최대 힙으로 사용
+        Heap results = new Heap(ef + 1);
+
+        float epScore = store.score(q, ep);
+        visited.set(ep);
+        candidates.push(ep, -epScore);
+        if (accepts(ep, deptFilter)) results.push(ep, epScore);
+
+        while (candidates.size > 0) {
+            int current = candidates.peekId();
+            float currentScore = -candidates.peekScore();
+            if (results.size >= ef && currentScore < results.peekScore()) break;
+            candidates.pop();
+
+            int[][] nodeLinks = links[current];
+            if (level >= nodeLinks.length) continue;
+            int[] list = nodeLinks[level];
+            for (int j = 1; j <= list[0]; j++) {
+                int c = list[j];
+                if (visited.get(c)) continue;
+                visited.set(c);
+
+                float s = store.score(q, c);
+                if (results.size < ef || s > results.peekScore()) {
+                    candidates.push(c, -s);
+                    if (accepts(c, deptFilter)) {
+                        results.push(c, s);
+                        if (results.size > ef) results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 부서 필터 검색을 전수 검색으로 대신할지
+     * 필터 탐색은 부서 노드 ef 개를 모을 때까지 약 ef·2M·(전체/부서) 번 점수를 계산하고, 부서 전수 검색은 부서 문서 수만큼 한다.
+     */
+    private boolean preferFlatScan(int deptSize, int ef) {
+        if (deptSize <= 0) return true;
+        return (double) deptSize * deptSize < (double) ef * m0 * size;
+    }
+
+    private boolean accepts(int node, int deptFilter) {
+        return deptFilter == AiVectorStore.ALL_DEPTS || store.deptIdOf(node) == deptFilter;
+    }
+
+    private float[] scoresTo(float[] base, int[] ids) {
+        float[] scores = new float[ids.length];
+        for (int i = 0; i < ids.length; i++) scores[i] = store.score(base, ids[i]);
+        return scores;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        return AiVectorMath.dot(a, b, 0, a.length);
+    }
+
+    private static void sortDescending(int[] ids, float[] scores) {
+        // 이웃 목록 크기(2M+1) 정도라 삽입 정렬로 충분
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            float s = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < s) {
+                ids[j + 1] = ids[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            scores[j + 1] = s;
+        }
+    }
+
+    // ========================================================
+    // 저장 / 로드
+    // ========================================================
+
+    /**
+     * 그래프를 파일로 저장한다. (임시 파일에 쓴 뒤 교체)
+     */
+    public void save(Path path) throws IOException {
+        lock.readLock().lock();
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeInt(store.getDimension());
+                out.writeInt(size);
+                out.writeLong(contentHash(store, size));
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (int node = 0; node < size; node++) {
+                    int[][] nodeLinks = links[node];
+                    out.writeByte(nodeLinks.length);
+                    for (int[] list : nodeLinks) {
+                        out.writeShort(list[0]);
+                        for (int j = 1; j <= list[0]; j++) out.writeInt(list[j]);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[RAG HNSW] 인덱스 저장 | path={} | nodes={} | bytes={}", path, size, Files.size(path));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 저장된 그래프를 읽는다. 파라미터/차원이 다르거나, 저장 당시 문서 목록이 현재 저장소의 앞부분과 다르면 null
+     */
+    public static AiHnswIndex load(AiVectorStore store, Path path, int m, int efConstruction, int efSearch) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            int savedM = in.readInt();
+            int savedEfConstruction = in.readInt();
+            int savedDimension = in.readInt();
+            int savedSize = in.readInt();
+            long savedHash = in.readLong();
+
+            if (savedM != Math.max(2, m) || savedEfConstruction != Math.max(savedM, efConstruction)
+                    || savedDimension != store.getDimension() || savedSize > store.size()
+                    || savedHash != contentHash(store, savedSize)) {
+                log.info("[RAG HNSW] 저장된 인덱스가 현재 문서와 달라 재구축 | path={}", path);
+                return null;
+            }
+
+            AiHnswIndex index = new AiHnswIndex(store, m, efConstruction, efSearch);
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            index.links = new int[Math.max(64, savedSize)][][];
+            for (int node = 0; node < savedSize; node++) {
+                int levels = in.readUnsignedByte();
+                int[][] nodeLinks = new int[levels][];
+                for (int l = 0; l < levels; l++) {
+                    int[] list = new int[(l == 0 ? index.m0 : index.m) + 1];
+                    int count = in.readUnsignedShort();
+                    list[0] = count;
+                    for (int j = 1; j <= count; j++) list[j] = in.readInt();
+                    nodeLinks[l] = list;
+                }
+                index.links[node] = nodeLinks;
+            }
+            index.size = savedSize;
+            return index;
+        }
+    }
+
+    // 문서 내용/부서/벡터 순서 해시 (저장소를 같은 문서, 같은 임베딩으로 다시 채웠는지 확인)
+    private static long contentHash(AiVectorStore store, int n) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < n; i++) {
+            hash = (hash ^ store.contentOf(i).hashCode()) * 0x100000001b3L;
+            hash = (hash ^ store.deptIdOf(i)) * 0x100000001b3L;
+            hash = (hash ^ Arrays.hashCode(store.vector(i))) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodes", size);
+        result.put("levels", maxLevel + 1);
+        result.put("m", m);
+        result.put("efConstruction", efConstruction);
+        result.put("efSearch", efSearch);
+        result.put("flatScans", flatScans.get());
+        return result;
+    }
+
+    /**
+     * 점수 기준 최소 힙 (int id / float score 배열, 자동 확장)
+     */
+    private static final class Heap {
+        private int[] ids;
+        private float[] scores;
+        private int size;
+
+        Heap(int capacity) {
+            ids = new int[Math.max(4, capacity)];
+            scores = new float[ids.length];
+        }
+
+        void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (scores[parent] <= score) break;
+                ids[pos] = ids[parent];
+                scores[pos] = scores[parent];
+                pos = parent;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+        }
+
+        int peekId() {
+            return ids[0];
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) return;
+            int id = ids[size];
+            float score = scores[size];
+            int pos = 0;
+            while (true) {
+                int left = 2 * pos + 1;
+                if (left >= size) break;
+                int child = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (score <= scores[child]) break;
+                ids[pos] = ids[child];
+                scores[pos] = scores[child];
+                pos = child;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+        }
+
+        /**
+         * 점수 내림차순 id 배열 (힙을 비운다)
+         */
+        int[] drainDescending() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = peekId();
+                pop();
+            }
+            return result;
+        }
+    }
+}
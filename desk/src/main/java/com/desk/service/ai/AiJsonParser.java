@@ -0,0 +1,172 @@
+package com.desk.service.ai;
+
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+/**
+ * LLM 응답 관대한(tolerant) JSON 파서
+ * 스키마(AiJsonSchema)를 줘도 모델/서버에 따라 아래 같은 응답이 섞여 나온다.
+ *   <think>...</think> 다음은 결과입니다: ```json { ... }, ```
+ * 예전에는 readTree 한 번 실패하면 원문 fallback / 인터뷰 중단으로 처리되어 사용자가 같은 말을 다시 보내야 했다.
+ *
+ * 1. 추론 블록 제거 : <think>...</think>
+ * 2. 점진 스캔      : 문자열/이스케이프를 추적하며 첫 '{' 부터 괄호 짝이 맞는 지점까지 잘라낸다. (코드펜스/잡담 무시)
+ *                    파싱이 안 되면 다음 '{' 부터 다시 시도 (최대 MAX_ATTEMPTS 회)
+ * 3. 사소한 복구    : trailing comma, 작은따옴표, 주석, 문자열 내 줄바꿈 (Jackson lenient 옵션)
+ *                    스마트 따옴표(“ ”), 응답이 중간에 끊긴 경우(열린 문자열/괄호 닫기)
+ *
+ * 정상 응답(순수 JSON)은 스캔 없이 한 번에 파싱된다.
+ */
+@Log4j2
+public final class AiJsonParser {
+
+    private static final int MAX_ATTEMPTS = 8;
+
+    private static final Pattern THINK_BLOCK = Pattern.compile("(?is)<think>.*?</think>");
+
+    private static final ObjectMapper LENIENT = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build();
+
+    private AiJsonParser() {
+    }
+
+    /**
+     * 응답 텍스트에서 첫 번째 유효한 JSON 객체를 찾아 반환한다.
+     * DTO 가 필요하면 호출 측 ObjectMapper 의 treeToValue 로 변환한다. (JavaTimeModule 등 설정 유지)
+     *
+     * @throws IllegalArgumentException 유효한 객체를 찾지 못한 경우
+     */
+    public static JsonNode parseObject(String raw) {
+        if (raw == null || raw.isBlank()) {
+            throw new IllegalArgumentException("AI 응답이 비어 있습니다.");
+        }
+        String text = THINK_BLOCK.matcher(raw).replaceAll("").trim();
+
+        // 빠른 경로: 스키마 제약으로 순수 JSON 이 온 경우
+        if (text.startsWith("{")) {
+            JsonNode node = tryRead(text);
+            if (node != null) return node;
+        }
+
+        int start = text.indexOf('{');
+        for (int attempt = 0; start >= 0 && attempt < MAX_ATTEMPTS; attempt++) {
+            JsonNode node = extractFrom(text, start);
+            if (node != null) {
+                log.debug("[AI Json] 복구 파싱 성공 | attempt={} | offset={}", attempt + 1, start);
+                return node;
+            }
+            start = text.indexOf('{', start + 1);
+        }
+        throw new IllegalArgumentException("AI 응답에서 JSON 객체를 찾지 못했습니다: " + abbreviate(text));
+    }
+
+    /**
+     * start('{') 부터 문자열 상태를 추적하며 짝이 맞는 '}' 까지 스캔한다.
+     * 끝까지 닫히지 않으면(응답 잘림) 열린 문자열/괄호를 닫아서 복구한다.
+     */
+    private static JsonNode extractFrom(String text, int start) {
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+
+        // 마지막으로 안전하게 자를 수 있는 지점 (값 뒤의 ',') 과 그때의 닫는 괄호들
+        int lastCut = -1;
+        String cutClosers = null;
+
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> closers.push('}');
+                case '[' -> closers.push(']');
+                case '}', ']' -> {
+                    if (closers.isEmpty() || closers.peek() != c) return null; // 괄호 짝 불일치 → 다음 '{' 로
+                    closers.pop();
+                    if (closers.isEmpty()) {
+                        return readCandidate(text.substring(start, i + 1));
+                    }
+                }
+                case ',' -> {
+                    lastCut = i;
+                    cutClosers = join(closers);
+                }
+                default -> {
+                }
+            }
+        }
+
+        // 응답이 중간에 끊김: 열린 문자열/괄호를 닫는다.
+        StringBuilder repaired = new StringBuilder(text.substring(start));
+        if (inString) {
+            if (escaped) repaired.setLength(repaired.length() - 1);
+            repaired.append('"');
+        }
+        trimDangling(repaired);
+        repaired.append(join(closers));
+        JsonNode node = readCandidate(repaired.toString());
+        if (node != null) return node;
+
+        // 마지막 키/값이 반쯤 잘린 경우: 마지막 ',' 이전까지만 살린다.
+        if (lastCut > start) {
+            return readCandidate(text.substring(start, lastCut) + cutClosers);
+        }
+        return null;
+    }
+
+    private static JsonNode readCandidate(String candidate) {
+        JsonNode node = tryRead(candidate);
+        if (node == null && candidate.indexOf('"') < 0 && (candidate.indexOf('“') >= 0 || candidate.indexOf('”') >= 0)) {
+            // 스마트 따옴표만 쓴 응답 (구조용 따옴표가 전혀 없을 때만 치환: 값 안의 인용부호 보존)
+            node = tryRead(candidate.replace('“', '"').replace('”', '"'));
+        }
+        return node;
+    }
+
+    private static JsonNode tryRead(String json) {
+        try {
+            JsonNode node = LENIENT.readTree(json);
+            return node != null && node.isObject() ? node : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // 끝에 남은 ',' / ':' 처리 ("a": → "a": null)
+    private static void trimDangling(StringBuilder sb) {
+        int end = sb.length();
+        while (end > 0 && Character.isWhitespace(sb.charAt(end - 1))) end--;
+        sb.setLength(end);
+        if (end == 0) return;
+        char last = sb.charAt(end - 1);
+        if (last == ',') sb.setLength(end - 1);
+        else if (last == ':') sb.append(" null");
+    }
+
+    private static String join(Deque<Character> closers) {
+        StringBuilder sb = new StringBuilder(closers.size());
+        for (char c : closers) sb.append(c); // push 순서의 역순(안쪽부터)으로 순회
+        return sb.toString();
+    }
+
+    private static String abbreviate(String s) {
+        return s.length() <= 200 ? s : s.substring(0, 200) + "...";
+    }
+}
@@ -0,0 +1,159 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import com.desk.domain.TicketGrade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 프롬프트 종류별 JSON 스키마 (Ollama 요청의 format 필드에 그대로 싣는다)
+ * - format:"json" 은 "JSON 이기만 하면" 되므로 키 누락/타입 오류/잡담 섞인 응답이 나올 수 있다.
+ * - 스키마를 주면 Ollama 가 문법 제약(constrained decoding)으로 키/타입을 강제한다.
+ * - 스키마를 지원하지 않는 서버(구버전)는 ai.json.schema-enabled=false 로 "json" 모드로 되돌린다.
+ *
+ * 응답 파싱은 스키마 여부와 상관없이 AiJsonParser 로 한다. (Cloud/구버전 모델은 제약이 약할 수 있음)
+ */
+public final class AiJsonSchema {
+
+    private AiJsonSchema() {
+    }
+
+    // 채팅 필터: { filteredMessage, shouldCreateTicket }
+    private static final Map<String, Object> CHAT_FILTER = object(
+            props(
+                    "filteredMessage", string(),
+                    "shouldCreateTicket", bool()
+            ),
+            "filteredMessage", "shouldCreateTicket");
+
+    // 티켓 인터뷰: updatedTicket 은 변경 필드(delta)만 담으므로 내부 필드는 모두 선택
+    private static final Map<String, Object> TICKET_INTERVIEW = object(
+            props(
+                    "analysis", string(),
+                    "updatedTicket", object(
+                            props(
+                                    "title", string(),
+                                    "content", string(),
+                                    "purpose", string(),
+                                    "requirement", string(),
+                                    "deadline", string(),
+                                    "grade", enumOf(names(TicketGrade.values())),
+                                    "receivers", array(string()),
+                                    "completionRate", integer()
+                            )),
+                    "responseToUser", string()
+            ),
+            "analysis", "updatedTicket", "responseToUser");
+
+    // 파일 검색 조건 파싱 (값이 없으면 null 허용)
+    private static final Map<String, Object> FILE_SEARCH = object(
+            props(
+                    "dateRange", nullable(object(
+                            props(
+                                    "from", nullable(string()),
+                                    "to", nullable(string())
+                            ),
+                            "from", "to")),
+                    "counterEmail", nullable(string()),
+                    "department", nullable(enumOf(names(Department.values()))),
+                    "keyword", string(),
+                    "senderOnly", bool(),
+                    "receiverOnly", bool()
+            ),
+            "dateRange", "counterEmail", "department", "keyword", "senderOnly", "receiverOnly");
+
+    // 회의록 요약 (MeetingMinutesDTO)
+    private static final Map<String, Object> MEETING_SUMMARY = object(
+            props(
+                    "title", string(),
+                    "overview", string(),
+                    "details", string(),
+                    "shortSummary", string(),
+                    "attendees", array(string()),
+                    "deadline", string(),
+                    "conclusion", string()
+            ),
+            "title", "overview", "details", "shortSummary", "attendees", "deadline", "conclusion");
+
+    /**
+     * 기능별 스키마. 구조화 응답을 쓰지 않는 기능(라우팅/임베딩)은 null.
+     */
+    public static Map<String, Object> forFeature(AiFeature feature) {
+        if (feature == null) return null;
+        return switch (feature) {
+            case CHAT_FILTER -> CHAT_FILTER;
+            case TICKET_INTERVIEW -> TICKET_INTERVIEW;
+            case FILE_SEARCH -> FILE_SEARCH;
+            case MEETING_SUMMARY -> MEETING_SUMMARY;
+            default -> null;
+        };
+    }
+
+    /**
+     * Ollama format 필드 값: 스키마 사용 시 스키마 객체, 아니면 "json"
+     */
+    public static Object format(AiFeature feature, boolean schemaEnabled) {
+        Map<String, Object> schema = schemaEnabled ? forFeature(feature) : null;
+        return schema != null ? schema : "json";
+    }
+
+    // -----------------------
+    // 스키마 빌더 (JSON Schema 부분집합: Ollama 가 지원하는 범위만)
+    // -----------------------
+
+    private static Map<String, Object> object(Map<String, Object> properties, String... required) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "object");
+        m.put("properties", properties);
+        if (required.length > 0) m.put("required", List.of(required));
+        return m;
+    }
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            m.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return m;
+    }
+
+    private static Map<String, Object> string() {
+        return Map.of("type", "string");
+    }
+
+    private static Map<String, Object> bool() {
+        return Map.of("type", "boolean");
+    }
+
+    private static Map<String, Object> integer() {
+        return Map.of("type", "integer");
+    }
+
+    private static Map<String, Object> array(Map<String, Object> items) {
+        return Map.of("type", "array", "items", items);
+    }
+
+    private static Map<String, Object> enumOf(List<String> values) {
+        return Map.of("type", "string", "enum", values);
+    }
+
+    private static Map<String, Object> nullable(Map<String, Object> schema) {
+        Map<String, Object> m = new LinkedHashMap<>(schema);
+        Object type = schema.get("type");
+        m.put("type", List.of(type, "null"));
+        if (m.containsKey("enum")) {
+            List<Object> values = new ArrayList<>((List<?>) m.get("enum"));
+            values.add(null);
+            m.put("enum", values);
+        }
+        return m;
+    }
+
+    private static List<String> names(Enum<?>[] values) {
+        return Arrays.stream(values).map(Enum::name).toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.desk.service.ai;
+
+import kr.co.shineware.nlp.komoran.constant.DEFAULT_MODEL;
+import kr.co.shineware.nlp.komoran.core.Komoran;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * [Komoran 형태소 분석기 공유]
+ * 모델 로딩에 수 초가 걸리고 사전을 통째로 메모리에 올리므로 프로세스에 하나만 만든다. (analyze 는 여러 스레드가 같이 쓴다)
+ *
+ * 1. 스프링 빈 : AIConfig.komoran() 이 이 인스턴스를 빈으로 노출 (사전 분류기 / 파일조회가 주입받는다)
+ * 2. 정적 사용 : AiBm25Index.tokenize (AiFileSearchIndex 색인 포함) 는 정적 헬퍼라 get() 을 직접 쓴다.
+ *
+ * 초기화에 실패하면 null 이고, 쓰는 쪽은 공백/기호 기준 토큰화로 동작한다.
+ */
+@Log4j2
+public final class AiKomoran {
+
+    private AiKomoran() {
+    }
+
+    public static Komoran get() {
+        return Holder.KOMORAN;
+    }
+
+    // 첫 사용 시 한 번만 모델을 읽는다.
+    private static final class Holder {
+
+        private static final Komoran KOMORAN = create();
+
+        private static Komoran create() {
+            try {
+                Komoran komoran = new Komoran(DEFAULT_MODEL.LIGHT); // LIGHT 모델 사용 (빠름)
+                log.info("[Komoran] 형태소 분석기 초기화 완료");
+                return komoran;
+            } catch (Exception e) {
+                log.warn("[Komoran] 초기화 실패, 공백 토큰화 사용: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+}
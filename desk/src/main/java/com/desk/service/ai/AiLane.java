@@ -0,0 +1,47 @@
+package com.desk.service.ai;
+
+/**
+ * LLM 요청 우선순위 레인 (AiRequestScheduler)
+ * - weight        : 가중 공정 분배 비율 (레인끼리 경쟁할 때 weight 비율로 슬롯을 받는다)
+ * - maxConcurrent : 레인 내 동시 실행 상한 (긴 작업이 백엔드 슬롯을 독점하지 못하게)
+ * - queueCapacity : 대기열 상한 (초과 시 즉시 거절 → 호출 측 fallback)
+ * 기본값은 ai.scheduler.lane.{key}.* 로 덮어쓸 수 있다.
+ *
+ * REALTIME    : 사용자가 전송 버튼을 누르고 기다리는 채팅 정제
+ * INTERACTIVE : 티켓 라우팅/인터뷰, 파일 검색 파싱, 질의 임베딩
+ * BATCH       : 회의록 요약, 지식 문서 일괄 임베딩처럼 오래 걸리는 작업
+ */
+public enum AiLane {
+
+    REALTIME("realtime", 8, 4, 100),
+    INTERACTIVE("interactive", 4, 3, 50),
+    BATCH("batch", 1, 1, 10);
+
+    private final String key;
+    private final int defaultWeight;
+    private final int defaultMaxConcurrent;
+    private final int defaultQueueCapacity;
+
+    AiLane(String key, int defaultWeight, int defaultMaxConcurrent, int defaultQueueCapacity) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public int getDefaultMaxConcurrent() {
+        return defaultMaxConcurrent;
+    }
+
+    public int getDefaultQueueCapacity() {
+        return defaultQueueCapacity;
+    }
+}
@@ -0,0 +1,40 @@
+package com.desk.service.ai;
+
+import java.util.Arrays;
+
+/**
+ * 최근 N건의 AI 호출 지연(ms)을 보관하고 백분위수를 계산한다.
+ * - 적응형 timeout 계산(p99 * 배수)에 사용
+ */
+public class AiLatencyTracker {
+
+    private final long[] samples;
+    private int index;
+    private int count;
+
+    public AiLatencyTracker(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long latencyMs) {
+        samples[index] = latencyMs;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param p 0.0 ~ 1.0 (예: 0.99)
+     * @return 백분위 지연(ms). 샘플이 없으면 -1
+     */
+    public synchronized long percentile(double p) {
+        if (count == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.min(Math.max(rank, 0), count - 1)];
+    }
+}
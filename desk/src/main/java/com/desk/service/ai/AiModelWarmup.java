@@ -0,0 +1,253 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * [모델 warm-up / keep-alive 관리]
+ * 재시작 직후 첫 채팅 정제 / 첫 티켓 인터뷰가 Ollama 모델 로딩 비용을 그대로 내지 않도록 한다.
+ *
+ * 1. 기동 warm-up : 채팅 모델(/api/generate, 빈 프롬프트)과 임베딩 모델(/api/embed, 짧은 입력)을
+ *                   해당 모델을 서비스하는 모든 노드에 미리 올린다. (백그라운드, 전체 timeout 적용)
+ * 2. keep_alive   : 모든 AI 요청에 OLLAMA_KEEP_ALIVE 를 실어 보낸다. (각 호출 지점에서 설정)
+ * 3. idle ping    : 주기적으로 /api/ps 를 보고, 내려갔거나 곧 만료될 모델만 다시 warm-up 한다.
+ * 4. readiness    : warm-up 이 끝나거나(timeout 포함) 전까지 readiness 그룹에서 OUT_OF_SERVICE
+ *
+ * warm-up 호출은 AiCallGuard 를 거치지 않는다. (로딩 지연이 서킷/적응형 timeout 통계를 오염시키지 않게)
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiModelWarmup implements HealthIndicator {
+
+    private final OllamaConfig ollamaConfig;
+    private final AiEndpointRouter endpointRouter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${ai.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.warmup.timeout-ms:180000}")
+    private long timeoutMs;
+
+    @Value("${ai.warmup.ping-interval-ms:60000}")
+    private long pingIntervalMs;
+
+    /**
+     * 워밍업 상태
+     */
+    public enum State {
+        DISABLED, WARMING, READY, TIMED_OUT
+    }
+
+    private volatile State state = State.WARMING;
+    private volatile long warmupMs = -1;
+    private final Map<String, String> results = new ConcurrentHashMap<>(); // "url model" → "123ms" / "failed: ..."
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService pinger;
+    private RestTemplate client;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(5_000);
+        // 전체 timeout 이 지나도 로딩 중인 요청은 끊지 않는다. (서버는 어차피 로딩을 계속한다)
+        factory.setReadTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMs * 2));
+        client = new RestTemplate(factory);
+
+        // 기동을 막지 않는다. readiness 는 health() 가 warm-up 완료 전까지 OUT_OF_SERVICE 로 보고한다.
+        executor.submit(this::warmUpAll);
+
+        if (pingIntervalMs > 0) {
+            pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ollama-keepalive-ping");
+                t.setDaemon(true);
+                return t;
+            });
+            pinger.scheduleWithFixedDelay(this::pingIdleModels, pingIntervalMs, pingIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pinger != null) pinger.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (state) {
+            case WARMING -> Health.outOfService();
+            case READY, DISABLED -> Health.up();
+            case TIMED_OUT -> Health.up().withDetail("warning", "warm-up timed out");
+        };
+        return builder
+                .withDetail("state", state.name())
+                .withDetail("warmupMs", warmupMs)
+                .withDetail("models", new LinkedHashMap<>(results))
+                .build();
+    }
+
+    /**
+     * 모든 (노드, 모델) 조합을 병렬로 warm-up 하고 전체 timeout 까지 기다린다.
+     */
+    void warmUpAll() {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Map.Entry<String, Kind> target : targets().entrySet()) {
+            for (AiEndpointRouter.Endpoint e : endpointRouter.getEndpoints()) {
+                if (!e.serves(target.getKey())) continue;
+                futures.add(CompletableFuture.runAsync(() -> warmUp(e.getUrl(), target.getKey(), target.getValue()), executor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+            state = State.READY;
+        } catch (TimeoutException e) {
+            state = State.TIMED_OUT;
+            log.warn("[AI Warmup] {}ms 안에 끝나지 않아 warm-up 없이 진행 | results={}", timeoutMs, results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.TIMED_OUT;
+        } catch (Exception e) {
+            // 개별 실패는 warmUp 안에서 기록된다.
+            state = State.READY;
+        }
+        warmupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("[AI Warmup] 완료 | state={} | {}ms | results={}", state, warmupMs, results);
+    }
+
+    /**
+     * /api/ps 로 로드 상태를 보고, 내려갔거나 다음 ping 전에 만료될 모델만 다시 올린다.
+     */
+    void pingIdleModels() {
+        Map<String, Kind> targets = targets();
+        for (AiEndpointRouter.Endpoint e : endpointRouter.getEndpoints()) {
+            Map<String, OffsetDateTime> loaded;
+            try {
+                loaded = loadedModels(e.getUrl());
+            } catch (Exception ex) {
+                log.debug("[AI Warmup] /api/ps 실패 | url={} | error={}", e.getUrl(), ex.getMessage());
+                continue; // 노드 장애 판단은 AiEndpointRouter 헬스 체크가 담당
+            }
+            OffsetDateTime soon = OffsetDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(pingIntervalMs * 2));
+            for (Map.Entry<String, Kind> target : targets.entrySet()) {
+                if (!e.serves(target.getKey())) continue;
+                OffsetDateTime expiresAt = loaded.get(AiEndpointRouter.normalizeModel(target.getKey()));
+                if (expiresAt == null || expiresAt.isBefore(soon)) {
+                    executor.submit(() -> warmUp(e.getUrl(), target.getKey(), target.getValue()));
+                }
+            }
+        }
+    }
+
+    private void warmUp(String url, String model, Kind kind) {
+        long start = System.nanoTime();
+        String key = url + " " + model;
+        try {
+            Map<String, Object> body = new HashMap<>();
+            body.put("model", model);
+            body.put("keep_alive", ollamaConfig.getKeepAlive());
+            String path;
+            if (kind == Kind.EMBEDDING) {
+                body.put("input", List.of("warmup"));
+                path = "/api/embed";
+            } else {
+                // 빈 프롬프트 generate = 모델 로드만 수행
+                body.put("stream", false);
+                path = "/api/generate";
+            }
+            client.postForEntity(url + path, new HttpEntity<>(body, headers()), String.class);
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            results.put(key, ms + "ms");
+            log.info("[AI Warmup] 모델 로드 | url={} | model={} | {}ms", url, model, ms);
+        } catch (Exception e) {
+            results.put(key, "failed: " + e.getMessage());
+            log.warn("[AI Warmup] 모델 로드 실패 | url={} | model={} | error={}", url, model, e.getMessage());
+        }
+    }
+
+    private Map<String, OffsetDateTime> loadedModels(String url) throws Exception {
+        ResponseEntity<String> resp = client.exchange(url + "/api/ps", HttpMethod.GET, new HttpEntity<>(headers()), String.class);
+        Map<String, OffsetDateTime> loaded = new HashMap<>();
+        JsonNode root = objectMapper.readTree(resp.getBody());
+        for (JsonNode m : root.path("models")) {
+            String name = m.path("name").asText(m.path("model").asText(""));
+            String expires = m.path("expires_at").asText(null);
+            OffsetDateTime expiresAt = expires == null ? OffsetDateTime.MAX : OffsetDateTime.parse(expires);
+            loaded.put(AiEndpointRouter.normalizeModel(name), expiresAt);
+        }
+        return loaded;
+    }
+
+    /**
+     * warm-up 대상 모델 (Cloud 모델은 로딩 개념이 없으므로 제외)
+     */
+    private Map<String, Kind> targets() {
+        Map<String, Kind> targets = new LinkedHashMap<>();
+        String chatModel = ollamaConfig.getModelName();
+        if (chatModel != null && !chatModel.isBlank() && !chatModel.toLowerCase().contains("cloud")) {
+            targets.put(chatModel, Kind.CHAT);
+        }
+        // 임베딩 전용 모델 (채팅 모델과 같은 이름이면 CHAT 로드로 충분하다)
+        String embeddingModel = ollamaConfig.getEmbedModelName();
+        if (embeddingModel != null && !embeddingModel.isBlank() && !embeddingModel.toLowerCase().contains("cloud")) {
+            targets.putIfAbsent(embeddingModel, Kind.EMBEDDING);
+        }
+        return targets;
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (ollamaConfig.getApiKey() != null && !ollamaConfig.getApiKey().isBlank()) {
+            headers.add("X-API-Key", ollamaConfig.getApiKey());
+        }
+        return headers;
+    }
+
+    private enum Kind {
+        CHAT, EMBEDDING
+    }
+}
@@ -0,0 +1,237 @@
+package com.desk.service.ai;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * [질의 임베딩 캐시]
+ * searchContext 는 매 턴 사용자 질문을 /api/embed 로 임베딩했다. (블로킹 왕복 1회)
+ * 인터뷰는 같은 주제로 여러 턴 이어지고, 같은 질문이 반복되는 경우도 많다.
+ *
+ * 1. LRU     : (모델, 정규화 텍스트) → 벡터. 최대 max-entries 개, ttl-ms 가 지나면 다시 임베딩
+ *              정규화 = 소문자 + 공백 압축 + 앞뒤 공백 제거
+ * 2. 세션    : 인터뷰 세션(conversationId)마다 첫 질문 임베딩을 "주제 벡터"로 잡고 계속 재사용한다.
+ *              - 짧은 답변(단어 min-topic-terms 개 미만)이나 이미 나온 단어뿐인 입력은 임베딩 없이 재사용
+ *              - 새 단어가 많은 입력만 임베딩해서, 주제 벡터와 코사인이 topic-threshold 미만이면 주제가 바뀐 것으로 보고 교체
+ * 3. 통계    : hit / miss / 세션 재사용 / 주제 변경 / 만료 / 축출
+ *
+ * 임베딩 실패(빈 벡터)는 캐시하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiQueryEmbeddingCache {
+
+    private final AiEmbeddingModel embeddingModel;
+
+    @Value("${ai.rag.query-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.rag.query-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${ai.rag.query-cache.ttl-ms:1800000}")
+    private long ttlMs;
+
+    @Value("${ai.rag.query-cache.topic-threshold:0.75}")
+    private double topicThreshold;
+
+    @Value("${ai.rag.query-cache.min-topic-terms:4}")
+    private int minTopicTerms;
+
+    // 테스트에서 시간을 바꿀 수 있게
+    LongSupplier clock = System::currentTimeMillis;
+
+    private record Entry(List<Double> vector, long createdAt) {
+    }
+
+    // 세션 주제: 주제 벡터 + 지금까지 나온 단어
+    private static final class Topic {
+        private List<Double> vector;
+        private final Set<String> seenTerms = new HashSet<>();
+        private long touchedAt;
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Topic> topics = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong sessionReuses = new AtomicLong();
+    private final AtomicLong topicChanges = new AtomicLong();
+
+    /**
+     * 질의 임베딩 (캐시 우선). 실패 시 빈 리스트
+     */
+    public List<Double> embed(String text) {
+        if (text == null || text.isBlank()) return Collections.emptyList();
+        if (!enabled) return embeddingModel.embed(text);
+
+        String key = embeddingModel.getModelName() + '\u0000' + normalize(text);
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt() < ttlMs) {
+                    hits.incrementAndGet();
+                    return entry.vector();
+                }
+                entries.remove(key);
+                expired.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        List<Double> vector = embeddingModel.embed(text); // 락 밖에서 (AI 서버 왕복)
+        if (vector.isEmpty()) return vector;
+
+        synchronized (entries) {
+            entries.put(key, new Entry(vector, now));
+            evictOverflow(entries);
+        }
+        return vector;
+    }
+
+    /**
+     * 인터뷰 세션용 질의 임베딩. 주제가 크게 바뀌지 않으면 세션의 첫 질문 임베딩을 재사용한다.
+     * sessionId 가 없으면 embed(text) 와 같다.
+     */
+    public List<Double> embedForSession(String sessionId, String text) {
+        if (!enabled || sessionId == null) return embed(text);
+        if (text == null || text.isBlank()) return Collections.emptyList();
+
+        Set<String> terms = terms(text);
+        long now = clock.getAsLong();
+        Topic topic;
+        synchronized (topics) {
+            topic = topics.get(sessionId);
+            if (topic != null && now - topic.touchedAt >= ttlMs) {
+                topics.remove(sessionId);
+                topic = null;
+            }
+            if (topic == null) {
+                topic = new Topic();
+                topics.put(sessionId, topic);
+                evictOverflow(topics);
+            }
+            topic.touchedAt = now;
+        }
+
+        synchronized (topic) {
+            if (topic.vector != null && !isNewTopicCandidate(topic, terms)) {
+                topic.seenTerms.addAll(terms);
+                sessionReuses.incrementAndGet();
+                return topic.vector;
+            }
+
+            List<Double> vector = embed(text);
+            if (vector.isEmpty()) return topic.vector != null ? topic.vector : vector;
+
+            if (topic.vector == null) {
+                topic.vector = vector;
+            } else if (cosine(topic.vector, vector) < topicThreshold) {
+                topicChanges.incrementAndGet();
+                log.debug("[AI Query Cache] 주제 변경 | session={}", sessionId);
+                topic.vector = vector;
+                topic.seenTerms.clear();
+            } else {
+                sessionReuses.incrementAndGet();
+            }
+            topic.seenTerms.addAll(terms);
+            return topic.vector;
+        }
+    }
+
+    /**
+     * 세션 종료 (티켓 전송/취소 시)
+     */
+    public void endSession(String sessionId) {
+        if (sessionId == null) return;
+        synchronized (topics) {
+            topics.remove(sessionId);
+        }
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        result.put("enabled", enabled);
+        synchronized (entries) {
+            result.put("entries", entries.size());
+        }
+        synchronized (topics) {
+            result.put("sessions", topics.size());
+        }
+        result.put("maxEntries", maxEntries);
+        result.put("ttlMs", ttlMs);
+        result.put("hits", h);
+        result.put("misses", m);
+        result.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        result.put("expired", expired.get());
+        result.put("evictions", evictions.get());
+        result.put("sessionReuses", sessionReuses.get());
+        result.put("topicChanges", topicChanges.get());
+        return result;
+    }
+
+    // 짧은 답변이거나 새 단어가 절반 미만이면 같은 주제로 본다. (임베딩 생략)
+    private boolean isNewTopicCandidate(Topic topic, Set<String> terms) {
+        if (terms.size() < minTopicTerms) return false;
+        int unseen = 0;
+        for (String term : terms) {
+            if (!topic.seenTerms.contains(term)) unseen++;
+        }
+        return unseen * 2 >= terms.size();
+    }
+
+    private <V> void evictOverflow(LinkedHashMap<String, V> map) {
+        int limit = Math.max(1, maxEntries);
+        var it = map.entrySet().iterator();
+        while (map.size() > limit && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= 2) terms.add(token);
+        }
+        return terms;
+    }
+
+    private static double cosine(List<Double> a, List<Double> b) {
+        if (a.size() != b.size()) return 0.0;
+        double dot = 0.0, na = 0.0, nb = 0.0;
+        for (int i = 0; i < a.size(); i++) {
+            dot += a.get(i) * b.get(i);
+            na += a.get(i) * a.get(i);
+            nb += b.get(i) * b.get(i);
+        }
+        return na == 0.0 || nb == 0.0 ? 0.0 : dot / (Math.sqrt(na) * Math.sqrt(nb));
+    }
+}
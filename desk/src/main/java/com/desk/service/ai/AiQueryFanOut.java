@@ -0,0 +1,256 @@
+package com.desk.service.ai;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * [AI 파일조회 쿼리 병렬 실행]
+ * 파일조회 한 번에 티켓/채팅 쿼리가 키워드 seed 마다 하나씩 순서대로 돌았다. (서로 독립인 블로킹 DB 왕복의 합)
+ * 요청 하나 안의 독립 쿼리들을 가상 스레드로 동시에 돌리고, 요청 단위로 동시 실행 수와 시간을 묶는다.
+ *
+ * 1. Budget : 요청 하나. DB 조회에 쓸 총 시간(budget-ms)과 동시 실행 한도(parallelism, 커넥션 풀을 한 요청이 다 쓰지 않게)
+ *             시간은 Scope 가 열려 있는 동안만 줄어든다. (단계 사이의 AI 파싱 호출은 AiCallGuard 가 따로 제한)
+ * 2. Scope  : 한 단계(runSearch 등)의 작업 묶음. fork 한 작업은 join/close 를 벗어나 살아남지 않는다.
+ *    - 작업 하나가 실패하면 나머지를 취소하고 join 이 그 예외를 던진다.
+ *    - 예산을 넘기면 남은 작업을 취소하고 join 이 false. 호출 측은 끝난 작업 결과만 쓴다.
+ * 3. 취소   : 슬롯을 기다리던(아직 시작 안 한) 작업만 인터럽트한다. 그런 작업은 DB 에 가지 않는다.
+ *             이미 시작한 작업은 인터럽트하지 않고 결과만 버린다. (가상 스레드를 소켓 I/O 중에 인터럽트하면
+ *             소켓이 닫혀 풀의 커넥션이 죽는다) 대신 작업 안의 쿼리는 queryTimeoutSeconds()(남은 예산)를
+ *             트랜잭션 timeout 으로 걸어 DB 가 끊게 한다. 그동안 슬롯은 그 작업이 잡고 있다.
+ *
+ * (StructuredTaskScope 는 Java 21 에서 preview 라 같은 규칙을 ExecutorService + Future 로 맞췄다)
+ */
+@Component
+public class AiQueryFanOut {
+
+    @Value("${ai.file-search.parallelism:4}")
+    private int parallelism;
+
+    @Value("${ai.file-search.budget-ms:5000}")
+    private long budgetMs;
+
+    private static final int WAITING = 0, RUNNING = 1, CANCELLED = 2;
+
+    // fork 한 작업 스레드에서 Scope 마감 시각 (queryTimeoutSeconds 용)
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong forks = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong(); // 예산이 이미 끝나 시작하지 않은 작업
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong(); // 이미 시작해서 인터럽트하지 않고 결과만 버린 작업
+    private final AtomicLong failures = new AtomicLong();
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 요청 하나의 예산을 시작한다. (이 요청의 모든 Scope 가 시간과 동시 실행 한도를 나눠 쓴다)
+     */
+    public Budget begin() {
+        requests.incrementAndGet();
+        long budgetNanos = budgetMs > 0 ? TimeUnit.MILLISECONDS.toNanos(budgetMs) : Long.MAX_VALUE / 4;
+        return new Budget(budgetNanos, new Semaphore(Math.max(1, parallelism)));
+    }
+
+    /**
+     * fork 한 작업 안에서 남은 Scope 예산 (초, 올림, 최소 1). 작업 밖이면 -1 (제한 없음, TransactionDefinition.TIMEOUT_DEFAULT)
+     * 작업 안의 읽기 트랜잭션 timeout 으로 쓴다. (예산을 넘긴 쿼리를 인터럽트 대신 DB 가 끊도록)
+     */
+    public static int queryTimeoutSeconds() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) return -1;
+        long remaining = deadline - System.nanoTime();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (remaining + 999_999_999L) / 1_000_000_000L));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("parallelism", parallelism);
+        s.put("budgetMs", budgetMs);
+        s.put("requests", requests.get());
+        s.put("forks", forks.get());
+        s.put("skipped", skipped.get());
+        s.put("timeouts", timeouts.get());
+        s.put("cancelled", cancelled.get());
+        s.put("abandoned", abandoned.get());
+        s.put("failures", failures.get());
+        return s;
+    }
+
+    /**
+     * 요청 스레드 하나에서만 쓴다. (Scope 를 동시에 여러 개 열지 않는다)
+     */
+    public final class Budget {
+
+        private long remaining; // ns
+        private final Semaphore permits;
+
+        private Budget(long remaining, Semaphore permits) {
+            this.remaining = remaining;
+            this.permits = permits;
+        }
+
+        public boolean expired() {
+            return remaining <= 0;
+        }
+
+        public Scope open() {
+            return new Scope(this, System.nanoTime());
+        }
+    }
+
+    /**
+     * fork 한 작업의 결과 (끝나지 못했거나 취소됐으면 null)
+     */
+    public static final class Subtask<T> {
+
+        private final Future<T> future;
+
+        private Subtask(Future<T> future) {
+            this.future = future;
+        }
+
+        public T result() {
+            if (future == null || !future.isDone() || future.isCancelled()) return null;
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    private record Forked(Future<?> future, AtomicInteger state) {
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final Budget budget;
+        private final long start;
+        private final long deadline;
+        private boolean closed;
+        private final List<Forked> forked = new CopyOnWriteArrayList<>(); // 실패한 작업 스레드도 취소를 위해 읽는다
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Scope(Budget budget, long start) {
+            this.budget = budget;
+            this.start = start;
+            this.deadline = start + budget.remaining;
+        }
+
+        /**
+         * 작업 시작 (요청의 동시 실행 한도 안에서). fork/join/close 는 Scope 를 연 스레드에서만 호출한다.
+         */
+        public <T> Subtask<T> fork(Callable<T> task) {
+            if (System.nanoTime() - deadline >= 0 || failure.get() != null) {
+                skipped.incrementAndGet();
+                return new Subtask<>(null);
+            }
+            forks.incrementAndGet();
+            AtomicInteger state = new AtomicInteger(WAITING);
+            Future<T> future = executor.submit(() -> {
+                budget.permits.acquire();
+                try {
+                    // 슬롯을 기다리는 사이 취소됐으면 DB 에 가지 않는다
+                    if (!state.compareAndSet(WAITING, RUNNING)) throw new CancellationException();
+                    DEADLINE.set(deadline);
+                    return task.call();
+                } catch (Throwable e) {
+                    // 취소로 끝난 작업은 실패로 치지 않는다
+                    if (!(e instanceof InterruptedException) && !(e instanceof CancellationException)
+                            && failure.compareAndSet(null, e)) {
+                        failures.incrementAndGet();
+                        cancelAll();
+                    }
+                    throw e;
+                } finally {
+                    DEADLINE.remove();
+                    budget.permits.release();
+                }
+            });
+            forked.add(new Forked(future, state));
+            return new Subtask<>(future);
+        }
+
+        /**
+         * 모든 작업이 끝날 때까지 예산 안에서 기다린다.
+         *
+         * @return 모두 끝났으면 true, 예산을 넘겨 남은 작업을 취소했으면 false
+         * @throws RuntimeException 작업 하나가 실패하면 (나머지는 취소된다)
+         */
+        public boolean join() {
+            for (Forked f : forked) {
+                Future<?> future = f.future();
+                try {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 && !future.isDone()) throw new TimeoutException();
+                    future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    timeouts.incrementAndGet();
+                    cancelAll();
+                    return false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelAll();
+                    return false;
+                } catch (ExecutionException | CancellationException e) {
+                    // 실패는 failure 에 남아 있다 (형제 작업 실패로 취소된 경우 포함)
+                }
+            }
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException r) throw r;
+            if (t instanceof Error err) throw err;
+            if (t != null) throw new IllegalStateException(t.getMessage(), t);
+            return true;
+        }
+
+        private void cancelAll() {
+            for (Forked f : forked) {
+                // 시작 전: 인터럽트해서 슬롯 대기를 끝낸다. 시작 후: 인터럽트 없이 결과만 버린다 (쿼리는 timeout 까지)
+                boolean waiting = f.state().compareAndSet(WAITING, CANCELLED);
+                if (f.future().cancel(waiting)) {
+                    cancelled.incrementAndGet();
+                    if (!waiting) abandoned.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * 끝나지 않은 작업을 취소하고, 이 Scope 가 쓴 시간을 요청 예산에서 뺀다.
+         */
+        @Override
+        public void close() {
+            cancelAll();
+            if (closed) return;
+            closed = true;
+            budget.remaining -= System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.desk.service.ai;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * [Reciprocal Rank Fusion]
+ * 점수 척도가 다른 검색 결과(코사인 유사도 / BM25)를 순위만으로 합친다.
+ * 문서 점수 = Σ 1 / (rrfK + 순위), 순위는 1부터. 여러 목록에 함께 나온 문서가 위로 올라온다.
+ *
+ * 같은 문서 판단은 (부서, 본문). 결과 Hit 의 score 는 RRF 점수다.
+ */
+public final class AiRankFusion {
+
+    private AiRankFusion() {
+    }
+
+    /**
+     * @param rankings 각 검색기의 결과 (점수 내림차순)
+     * @param rrfK     순위 완화 상수 (보통 60, 클수록 하위 순위 영향이 커진다)
+     * @return 상위 k 개 (RRF 점수 내림차순, 같으면 먼저 나온 문서 우선)
+     */
+    public static List<KnowledgeStore.Hit> reciprocalRank(List<List<KnowledgeStore.Hit>> rankings, int rrfK, int k) {
+        Map<String, KnowledgeStore.Hit> first = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<KnowledgeStore.Hit> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                KnowledgeStore.Hit hit = ranking.get(rank);
+                String key = (hit.dept() == null ? "" : hit.dept().toUpperCase(Locale.ROOT)) + '\u0000' + hit.content();
+                first.putIfAbsent(key, hit);
+                scores.merge(key, 1.0 / (Math.max(0, rrfK) + rank + 1), Double::sum);
+            }
+        }
+
+        List<Map.Entry<String, Double>> ordered = new ArrayList<>(scores.entrySet());
+        ordered.sort(Map.Entry.<String, Double>comparingByValue().reversed()); // 안정 정렬: 같은 점수는 먼저 나온 순서
+        List<KnowledgeStore.Hit> fused = new ArrayList<>(Math.min(k, ordered.size()));
+        for (Map.Entry<String, Double> e : ordered) {
+            if (fused.size() >= k) break;
+            KnowledgeStore.Hit hit = first.get(e.getKey());
+            fused.add(new KnowledgeStore.Hit(hit.content(), hit.dept(), e.getValue().floatValue()));
+        }
+        return fused;
+    }
+}
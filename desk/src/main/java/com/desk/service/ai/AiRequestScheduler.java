@@ -0,0 +1,298 @@
+package com.desk.service.ai;
+
+import com.desk.util.AiUnavailableException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [LLM 요청 스케줄러]
+ * 단일 Ollama 백엔드를 채팅/티켓/파일검색/회의록이 나눠 쓰므로, 모든 AI 호출은
+ * AiCallGuard 를 통해 이 스케줄러에서 실행 슬롯을 받은 뒤에만 나간다.
+ *
+ * 1. 전체 동시 실행 상한 (ai.scheduler.max-concurrent) = 백엔드 병렬 처리 수
+ * 2. 레인(AiLane)별 가중 공정 분배 : stride scheduling. 서비스 받을 때마다 pass += STRIDE / weight,
+ *    pass 가 가장 작은 레인이 다음 슬롯을 받는다. (5분짜리 회의록이 채팅 메시지를 막지 않는다)
+ * 3. 레인별 동시 실행 / 대기열 상한
+ * 4. 마감(deadline) 인지 : 레인 내부는 마감이 이른 순(EDF)으로 꺼내고,
+ *    대기 허용 시간이 지난 요청은 실행하지 않고 AiUnavailableException 으로 끝낸다.
+ *
+ * 슬롯 부여(future 완료)는 락 밖에서 수행한다. (후속 작업이 락을 잡은 채 실행되지 않도록)
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiRequestScheduler {
+
+    private static final String PREFIX = "ai.scheduler.";
+    private static final long STRIDE = 1_000_000L;
+
+    private final Environment env;
+
+    @Value("${ai.scheduler.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private final Map<AiLane, LaneState> lanes = new EnumMap<>(AiLane.class);
+    private final Map<AiFeature, Long> maxQueueWaitMs = new EnumMap<>(AiFeature.class);
+
+    private int inFlight;
+    private long sequence;
+
+    @PostConstruct
+    public void init() {
+        for (AiLane lane : AiLane.values()) {
+            String base = PREFIX + "lane." + lane.getKey() + ".";
+            lanes.put(lane, new LaneState(lane,
+                    Math.max(1, env.getProperty(base + "weight", Integer.class, lane.getDefaultWeight())),
+                    Math.max(1, env.getProperty(base + "max-concurrent", Integer.class, lane.getDefaultMaxConcurrent())),
+                    Math.max(1, env.getProperty(base + "queue-capacity", Integer.class, lane.getDefaultQueueCapacity()))));
+        }
+        for (AiFeature feature : AiFeature.values()) {
+            maxQueueWaitMs.put(feature, env.getProperty("ai.resilience." + feature.getKey() + ".max-queue-wait-ms",
+                    Long.class, feature.getDefaultMaxQueueWaitMs()));
+        }
+        log.info("[AI Scheduler] 초기화 완료 | maxConcurrent={} | lanes={}", maxConcurrent, lanes.values());
+    }
+
+    /**
+     * 실행 슬롯 요청 (기능별 기본 대기 허용 시간 적용)
+     */
+    public CompletableFuture<Slot> acquire(AiFeature feature) {
+        return acquire(feature, maxQueueWaitMs.get(feature));
+    }
+
+    /**
+     * 실행 슬롯 요청
+     * - 즉시 슬롯이 있으면 완료된 future, 없으면 대기열에 넣고 슬롯이 나면 완료
+     * - 대기열이 가득 찼거나 maxWaitMs 안에 슬롯을 못 받으면 AiUnavailableException 으로 완료
+     * - 받은 Slot 은 호출이 끝나면 반드시 release 해야 한다.
+     */
+    public CompletableFuture<Slot> acquire(AiFeature feature, long maxWaitMs) {
+        CompletableFuture<Slot> future = new CompletableFuture<>();
+        LaneState lane = lanes.get(feature.getLane());
+        long now = System.currentTimeMillis();
+
+        List<Runnable> actions = new ArrayList<>();
+        synchronized (this) {
+            purgeHead(lane, now, actions);
+            if (lane.queue.size() >= lane.queueCapacity) {
+                runAllLater(actions);
+                lane.rejected++;
+                future.completeExceptionally(new AiUnavailableException("AI queue full: " + lane.lane + " (" + feature + ")"));
+                return future;
+            }
+            if (lane.queue.isEmpty() && lane.inFlight == 0) {
+                // 쉬고 있던 레인이 밀린 pass 로 몰아서 받지 않도록 현재 최소 pass 로 맞춘다.
+                lane.pass = Math.max(lane.pass, minActivePass());
+            }
+            lane.queue.add(new Waiting(feature, now + maxWaitMs, sequence++, System.nanoTime(), future));
+            actions.addAll(dispatchLocked());
+        }
+        runAll(actions);
+
+        if (!future.isDone()) {
+            CompletableFuture.delayedExecutor(maxWaitMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (future.completeExceptionally(new AiUnavailableException(
+                        "AI queue wait exceeded: " + feature + " (" + maxWaitMs + "ms)"))) {
+                    synchronized (this) {
+                        lane.expired++;
+                    }
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * 슬롯 반납 (여러 번 호출해도 한 번만 반영)
+     */
+    public void release(Slot slot) {
+        if (slot == null) return;
+        List<Runnable> actions;
+        synchronized (this) {
+            if (slot.released) return;
+            slot.released = true;
+            inFlight--;
+            lanes.get(slot.lane).inFlight--;
+            actions = dispatchLocked();
+        }
+        runAll(actions);
+    }
+
+    public long getMaxQueueWaitMs(AiFeature feature) {
+        return maxQueueWaitMs.get(feature);
+    }
+
+    /**
+     * 레인별 상태 스냅샷 (관리/모니터링용)
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxConcurrent", maxConcurrent);
+        result.put("inFlight", inFlight);
+        for (LaneState l : lanes.values()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("weight", l.weight);
+            m.put("maxConcurrent", l.maxConcurrent);
+            m.put("inFlight", l.inFlight);
+            m.put("queued", l.queue.size());
+            m.put("served", l.served);
+            m.put("expired", l.expired);
+            m.put("rejected", l.rejected);
+            m.put("p99WaitMs", l.waitMs.percentile(0.99));
+            result.put(l.lane.getKey(), m);
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------
+    // 내부 구현
+    // ---------------------------------------------------------
+
+    /**
+     * 남은 슬롯을 레인 pass 순서대로 배분. 락 안에서 호출하고, 반환된 작업은 락 밖에서 실행한다.
+     */
+    private List<Runnable> dispatchLocked() {
+        List<Runnable> actions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        while (inFlight < maxConcurrent) {
+            LaneState pick = null;
+            for (LaneState l : lanes.values()) {
+                purgeHead(l, now, actions);
+                if (l.queue.isEmpty() || l.inFlight >= l.maxConcurrent) continue;
+                if (pick == null || l.pass < pick.pass) pick = l;
+            }
+            if (pick == null) break;
+
+            Waiting w = pick.queue.poll();
+            pick.pass += STRIDE / pick.weight;
+            pick.inFlight++;
+            pick.served++;
+            inFlight++;
+
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - w.enqueuedNanos);
+            pick.waitMs.record(waitedMs);
+            Slot slot = new Slot(w.feature, pick.lane, waitedMs);
+            actions.add(() -> {
+                // 그 사이 timeout/취소된 요청이면 슬롯을 바로 돌려준다.
+                if (!w.future.complete(slot)) release(slot);
+            });
+        }
+        return actions;
+    }
+
+    /**
+     * 대기열 머리에서 이미 끝난(timeout/취소) 요청과 마감이 지난 요청을 제거
+     */
+    private void purgeHead(LaneState l, long now, List<Runnable> actions) {
+        Waiting head;
+        while ((head = l.queue.peek()) != null) {
+            if (head.future.isDone()) {
+                l.queue.poll();
+            } else if (head.deadlineAt <= now) {
+                l.queue.poll();
+                l.expired++;
+                Waiting expired = head;
+                actions.add(() -> expired.future.completeExceptionally(new AiUnavailableException(
+                        "AI queue deadline passed: " + expired.feature)));
+            } else {
+                return;
+            }
+        }
+    }
+
+    private long minActivePass() {
+        long min = Long.MAX_VALUE;
+        for (LaneState l : lanes.values()) {
+            if (!l.queue.isEmpty() || l.inFlight > 0) min = Math.min(min, l.pass);
+        }
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    private static void runAll(List<Runnable> actions) {
+        for (Runnable r : actions) r.run();
+    }
+
+    // 락 안에서 바로 반환해야 하는 경로용 (만료 알림을 락 밖 스레드에서 실행)
+    private static void runAllLater(List<Runnable> actions) {
+        if (!actions.isEmpty()) CompletableFuture.runAsync(() -> runAll(actions));
+    }
+
+    // ---------------------------------------------------------
+    // 내부 타입
+    // ---------------------------------------------------------
+
+    /**
+     * 부여된 실행 슬롯
+     */
+    public static class Slot {
+        private final AiFeature feature;
+        private final AiLane lane;
+        private final long queuedMs;
+        private boolean released; // AiRequestScheduler 락으로 보호
+
+        Slot(AiFeature feature, AiLane lane, long queuedMs) {
+            this.feature = feature;
+            this.lane = lane;
+            this.queuedMs = queuedMs;
+        }
+
+        public AiFeature getFeature() {
+            return feature;
+        }
+
+        public AiLane getLane() {
+            return lane;
+        }
+
+        public long getQueuedMs() {
+            return queuedMs;
+        }
+    }
+
+    private record Waiting(AiFeature feature, long deadlineAt, long seq, long enqueuedNanos,
+                           CompletableFuture<Slot> future) {
+    }
+
+    private static class LaneState {
+        final AiLane lane;
+        final int weight;
+        final int maxConcurrent;
+        final int queueCapacity;
+        // 마감이 이른 순 → 같은 마감이면 먼저 온 순
+        final PriorityQueue<Waiting> queue = new PriorityQueue<>(
+                Comparator.comparingLong(Waiting::deadlineAt).thenComparingLong(Waiting::seq));
+        final AiLatencyTracker waitMs = new AiLatencyTracker(200);
+        long pass;
+        int inFlight;
+        long served;
+        long expired;
+        long rejected;
+
+        LaneState(AiLane lane, int weight, int maxConcurrent, int queueCapacity) {
+            this.lane = lane;
+            this.weight = weight;
+            this.maxConcurrent = maxConcurrent;
+            this.queueCapacity = queueCapacity;
+        }
+
+        @Override
+        public String toString() {
+            return lane.getKey() + "(w=" + weight + ", c=" + maxConcurrent + ", q=" + queueCapacity + ")";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.desk.service.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * [지식 청크 분할기]
+ * 긴 지식 항목을 통째로 임베딩하면 벡터가 흐려지고, 검색 결과가 프롬프트를 크게 부풀린다.
+ * 항목을 문장 단위로 나눠 토큰 예산(AiTokenEstimator) 안에서 다시 묶는다.
+ *
+ * 1. 문장 : 문장부호(. ! ? 。) 뒤 공백 또는 줄바꿈에서 자른다. (v2.3 처럼 공백 없는 점은 자르지 않음)
+ *           한 문장이 예산보다 길면 예산 크기로 자른다. (가능하면 공백에서)
+ * 2. 묶기 : 문장을 max-tokens 까지 채운다. 다음 청크는 앞 청크의 마지막 문장들(overlap-tokens 이내)로 시작한다.
+ * 3. 짧은 항목(max-tokens 이하)은 원문 그대로 청크 하나 (청크 키가 바뀌지 않아 다시 임베딩하지 않는다)
+ *
+ * maxTokens 가 0 이하면 나누지 않는다.
+ */
+public final class AiTextChunker {
+
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?。！？])\\s+|\\s*\\n+\\s*");
+
+    /**
+     * 청크 본문과, 앞 청크와 겹치는 앞부분 글자 수 (이어 붙일 때 잘라낸다)
+     */
+    public record Chunk(String text, int overlapChars) {
+    }
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public AiTextChunker(int maxTokens, int overlapTokens) {
+        this.maxTokens = maxTokens;
+        this.overlapTokens = Math.max(0, overlapTokens);
+    }
+
+    public List<Chunk> split(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String trimmed = text.strip();
+        if (maxTokens <= 0 || AiTokenEstimator.estimate(trimmed) <= maxTokens) return List.of(new Chunk(trimmed, 0));
+
+        List<String> sentences = new ArrayList<>();
+        for (String sentence : SENTENCE_BREAK.split(trimmed)) {
+            if (sentence.isBlank()) continue;
+            if (AiTokenEstimator.estimate(sentence) <= maxTokens) sentences.add(sentence);
+            else sentences.addAll(hardSplit(sentence));
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int tokens = 0;
+        int carried = 0; // current 앞쪽에 있는 앞 청크의 문장 수
+        for (String sentence : sentences) {
+            int cost = AiTokenEstimator.estimate(sentence) + 1;
+            if (tokens + cost > maxTokens && current.size() > carried) {
+                chunks.add(emit(current, carried));
+
+                // 앞 청크의 끝 문장들을 overlap 예산 안에서 이어받는다. (새 문장과 합쳐 예산을 넘지 않을 만큼만)
+                List<String> carry = new ArrayList<>();
+                int carryTokens = 0;
+                for (int i = current.size() - 1; i >= 0; i--) {
+                    int c = AiTokenEstimator.estimate(current.get(i)) + 1;
+                    if (carryTokens + c > overlapTokens || carryTokens + c + cost > maxTokens) break;
+                    carry.add(0, current.get(i));
+                    carryTokens += c;
+                }
+                current = carry;
+                tokens = carryTokens;
+                carried = carry.size();
+            }
+            current.add(sentence);
+            tokens += cost;
+        }
+        if (current.size() > carried) chunks.add(emit(current, carried));
+        return chunks;
+    }
+
+    private static Chunk emit(List<String> sentences, int carried) {
+        String text = String.join(" ", sentences);
+        int overlap = carried == 0 ? 0 : String.join(" ", sentences.subList(0, carried)).length() + 1;
+        return new Chunk(text, overlap);
+    }
+
+    // 예산보다 긴 한 문장: 예산 크기로 자른다. (뒤쪽 절반 안에 공백이 있으면 거기서)
+    private List<String> hardSplit(String sentence) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (start < sentence.length()) {
+            int end = AiTokenEstimator.fitWithin(sentence, start, maxTokens);
+            if (end == start) end = start + 1;
+            int lastSpace = -1;
+            for (int i = end - 1; i > start; i--) {
+                if (Character.isWhitespace(sentence.charAt(i))) {
+                    lastSpace = i;
+                    break;
+                }
+            }
+            if (end < sentence.length() && lastSpace > start + (end - start) / 2) end = lastSpace;
+
+            String part = sentence.substring(start, end).strip();
+            if (!part.isEmpty()) parts.add(part);
+            start = end;
+            while (start < sentence.length() && Character.isWhitespace(sentence.charAt(start))) start++;
+        }
+        return parts;
+    }
+}
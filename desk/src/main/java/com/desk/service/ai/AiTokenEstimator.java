@@ -0,0 +1,44 @@
+package com.desk.service.ai;
+
+/**
+ * 프롬프트 토큰 수 추정기
+ * - 실제 토크나이저 없이 예산 관리용으로 쓰는 보수적 근사값
+ * - 한글 음절 1자 ≈ 1 토큰, 그 외(영문/숫자/기호/공백) 4자 ≈ 1 토큰
+ */
+public final class AiTokenEstimator {
+
+    private AiTokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        int hangul = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isHangul(text.charAt(i))) hangul++;
+            else other++;
+        }
+        return hangul + (other + 3) / 4;
+    }
+
+    /**
+     * text 의 from 부터 추정 토큰 수가 maxTokens 를 넘지 않는 가장 긴 구간의 끝 index (from 이면 한 글자도 안 들어감)
+     * 긴 문장을 예산 크기로 자를 때 estimate 와 같은 기준으로 자르기 위해 쓴다.
+     */
+    public static int fitWithin(String text, int from, int maxTokens) {
+        int hangul = 0;
+        int other = 0;
+        int end = from;
+        while (end < text.length()) {
+            if (isHangul(text.charAt(end))) hangul++;
+            else other++;
+            if (hangul + (other + 3) / 4 > maxTokens) break;
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isHangul(char c) {
+        return c >= '가' && c <= '힣';
+    }
+}
@@ -0,0 +1,419 @@
+package com.desk.service.ai;
+
+import com.desk.domain.AiUsage;
+import com.desk.dto.MemberDTO;
+import com.desk.repository.AiUsageRepository;
+import com.desk.util.AiQuotaExceededException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * [AI 사용량 집계 / 한도]
+ * 한 부서가 파일 검색 / 티켓 인터뷰로 모델 서버를 독점하지 못하도록 사용자/부서 단위로 집계하고 제한한다.
+ *
+ * 1. 귀속     : AiCallGuard 진입 시점의 JWT 인증 정보(MemberDTO: email, department)
+ *              인증 정보가 없는 호출(기동 시 임베딩, 웹소켓 채팅 정제 등)은 SYSTEM 으로 집계만 하고 제한하지 않는다.
+ *              exempt-features(기본: embedding, embedding-ingest) 도 집계만 한다. (인터뷰 1턴에 붙는 RAG 임베딩을 따로 세지 않도록)
+ * 2. 기록     : 호출 수 / 실패 수 / 벽시계 시간(AiCallGuard) + prompt/completion 토큰(각 호출 지점에서 Ollama 응답의
+ *              prompt_eval_count / eval_count 를 보고)
+ * 3. 한도     : 최근 window-minutes 동안의 호출 수 / 토큰 수 (1분 버킷 링, 메모리 카운터)
+ *              부서별 한도는 ai.quota.department.{DEPT}.max-tokens 등으로 덮어쓸 수 있다. (0 = 무제한)
+ * 4. 저장     : 변경분을 persist-interval-ms 마다 ai_usage(1시간 x 사용자 x 기능)에 원자적 upsert 로 누적 저장
+ *              재시작 시 최근 윈도우 분량을 읽어 카운터를 복원한다.
+ *
+ * 한도 판단은 "이미 쓴 양" 기준이라 동시에 들어온 호출만큼은 약간 넘을 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class AiUsageAccountant {
+
+    private static final String PREFIX = "ai.quota.";
+
+    private final AiUsageRepository usageRepository;
+    private final Environment env;
+
+    @Value("${ai.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.quota.window-minutes:60}")
+    private int windowMinutes;
+
+    @Value("${ai.quota.member.max-calls:300}")
+    private long memberMaxCalls;
+
+    @Value("${ai.quota.member.max-tokens:300000}")
+    private long memberMaxTokens;
+
+    @Value("${ai.quota.department.max-calls:1500}")
+    private long departmentMaxCalls;
+
+    @Value("${ai.quota.department.max-tokens:1500000}")
+    private long departmentMaxTokens;
+
+    // 한도를 적용하지 않는 기능 (집계는 함)
+    @Value("${ai.quota.exempt-features:embedding,embedding-ingest}")
+    private String exemptFeatures;
+
+    @Value("${ai.quota.persist-interval-ms:60000}")
+    private long persistIntervalMs;
+
+    /**
+     * 호출 주체 (JWT claims 기준)
+     */
+    public record Caller(String email, String department) {
+        public static final Caller SYSTEM = new Caller("system", null);
+
+        public boolean isSystem() {
+            return this == SYSTEM || "system".equals(email);
+        }
+    }
+
+    // AiCallGuard 가 실제 호출 스레드에 바인딩 (호출 지점의 recordTokens 가 사용)
+    private final ThreadLocal<Caller> bound = new ThreadLocal<>();
+
+    private final Set<AiFeature> exempt = EnumSet.noneOf(AiFeature.class);
+    private final Map<String, SlidingCounter> memberWindows = new ConcurrentHashMap<>();
+    private final Map<String, SlidingCounter> departmentWindows = new ConcurrentHashMap<>();
+    private final Map<PendingKey, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        for (String key : exemptFeatures.split(",")) {
+            Arrays.stream(AiFeature.values())
+                    .filter(f -> f.getKey().equalsIgnoreCase(key.trim()) || f.name().equalsIgnoreCase(key.trim()))
+                    .forEach(exempt::add);
+        }
+        restoreWindows();
+
+        if (persistIntervalMs > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ai-usage-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, persistIntervalMs, persistIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) flusher.shutdownNow();
+        flushQuietly(); // 남은 변경분 저장
+    }
+
+    /**
+     * 현재 스레드의 호출 주체 (바인딩 > SecurityContext > SYSTEM)
+     */
+    public Caller currentCaller() {
+        Caller c = bound.get();
+        if (c != null) return c;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof MemberDTO m && m.getEmail() != null) {
+            return new Caller(m.getEmail(), m.getDepartment());
+        }
+        return Caller.SYSTEM;
+    }
+
+    /**
+     * caller 를 현재 스레드에 바인딩한 채 call 실행 (AiCallGuard 의 실행 스레드용)
+     */
+    public <T> T callAs(Caller caller, Supplier<T> call) {
+        Caller previous = bound.get();
+        bound.set(caller);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) bound.remove();
+            else bound.set(previous);
+        }
+    }
+
+    /**
+     * 한도 확인. 초과 시 AiQuotaExceededException (AiUnavailableException 하위 → 기능별 fallback)
+     */
+    public void checkQuota(Caller caller, AiFeature feature) {
+        if (!enabled || caller == null || caller.isSystem() || exempt.contains(feature)) return;
+        long nowMinute = nowMinute();
+
+        SlidingCounter member = memberWindows.get(caller.email());
+        if (member != null) {
+            long[] used = member.sum(nowMinute, windowMinutes);
+            if (exceeds(used, memberMaxCalls, memberMaxTokens)) {
+                rejected.increment();
+                throw new AiQuotaExceededException("AI usage quota exceeded (member " + caller.email() + ", "
+                        + windowMinutes + "m: calls=" + used[0] + ", tokens=" + used[1] + ")");
+            }
+        }
+
+        String dept = caller.department();
+        SlidingCounter department = dept == null ? null : departmentWindows.get(dept);
+        if (department != null) {
+            long[] used = department.sum(nowMinute, windowMinutes);
+            if (exceeds(used, departmentLimit(dept, "max-calls", departmentMaxCalls),
+                    departmentLimit(dept, "max-tokens", departmentMaxTokens))) {
+                rejected.increment();
+                throw new AiQuotaExceededException("AI usage quota exceeded (department " + dept + ", "
+                        + windowMinutes + "m: calls=" + used[0] + ", tokens=" + used[1] + ")");
+            }
+        }
+    }
+
+    /**
+     * 호출 1건 기록 (AiCallGuard: 실제 호출이 끝난 뒤)
+     */
+    public void recordCall(Caller caller, AiFeature feature, long wallMs, boolean success) {
+        add(caller, feature, 1, success ? 0 : 1, 0, 0, wallMs);
+    }
+
+    /**
+     * 토큰 기록 (호출 지점: Ollama 응답의 prompt_eval_count / eval_count)
+     */
+    public void recordTokens(AiFeature feature, long promptTokens, long completionTokens) {
+        recordTokens(currentCaller(), feature, promptTokens, completionTokens);
+    }
+
+    public void recordTokens(Caller caller, AiFeature feature, long promptTokens, long completionTokens) {
+        if (promptTokens <= 0 && completionTokens <= 0) return;
+        add(caller, feature, 0, 0, Math.max(0, promptTokens), Math.max(0, completionTokens), 0);
+    }
+
+    /**
+     * 현재 윈도우 사용량 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        long nowMinute = nowMinute();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("windowMinutes", windowMinutes);
+        result.put("rejected", rejected.sum());
+        result.put("pendingRows", pending.size());
+
+        Map<String, Object> departments = new LinkedHashMap<>();
+        departmentWindows.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> departments.put(e.getKey(), usage(e.getValue().sum(nowMinute, windowMinutes),
+                        departmentLimit(e.getKey(), "max-calls", departmentMaxCalls),
+                        departmentLimit(e.getKey(), "max-tokens", departmentMaxTokens))));
+        result.put("departments", departments);
+
+        // 상위 사용자 10명 (토큰 기준)
+        Map<String, Object> members = new LinkedHashMap<>();
+        memberWindows.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum(nowMinute, windowMinutes)))
+                .filter(e -> e.getValue()[0] > 0 || e.getValue()[1] > 0)
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed())
+                .limit(10)
+                .forEach(e -> members.put(e.getKey(), usage(e.getValue(), memberMaxCalls, memberMaxTokens)));
+        result.put("topMembers", members);
+        return result;
+    }
+
+    /**
+     * 메모리 변경분을 ai_usage 에 누적 저장 (보고서 조회 전에도 호출)
+     * 행마다 DB 에서 더하는 upsert 라 여러 노드가 동시에 flush 해도 합계가 맞다. (읽고-더하고-저장하지 않는다)
+     */
+    public synchronized void flush() {
+        int rows = 0;
+        for (PendingKey key : List.copyOf(pending.keySet())) {
+            Pending p = pending.remove(key);
+            if (p == null || p.isEmpty()) continue;
+            try {
+                usageRepository.addUsage(key.bucketStart(), key.email(), key.department(), key.feature(),
+                        p.calls.sum(), p.failures.sum(), p.promptTokens.sum(), p.completionTokens.sum(), p.wallMs.sum());
+                rows++;
+            } catch (Exception e) {
+                // 저장 실패분은 다음 주기에 다시 시도
+                pending.merge(key, p, Pending::mergeInto);
+                log.warn("[AI Usage] 저장 실패 (다음 주기 재시도) | key={} | error={}", key, e.getMessage());
+            }
+        }
+        if (rows > 0) log.debug("[AI Usage] {}건 저장", rows);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("[AI Usage] flush 실패: {}", e.getMessage());
+        }
+    }
+
+    private void add(Caller caller, AiFeature feature, long calls, long failures,
+                     long promptTokens, long completionTokens, long wallMs) {
+        if (caller == null) caller = Caller.SYSTEM;
+        long tokens = promptTokens + completionTokens;
+        long nowMinute = nowMinute();
+
+        // 한도 예외 기능은 윈도우(한도 판단)에 넣지 않고 저장만 한다.
+        if (!caller.isSystem() && !exempt.contains(feature)) {
+            memberWindows.computeIfAbsent(caller.email(), k -> new SlidingCounter(windowMinutes))
+                    .add(nowMinute, calls, tokens);
+            if (caller.department() != null) {
+                departmentWindows.computeIfAbsent(caller.department(), k -> new SlidingCounter(windowMinutes))
+                        .add(nowMinute, calls, tokens);
+            }
+        }
+
+        PendingKey key = new PendingKey(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS),
+                caller.email(), caller.department(), feature.getKey());
+        // compute 안에서 더해야 flush 의 remove 와 겹쳐도 변경분이 유실되지 않는다.
+        pending.compute(key, (k, p) -> {
+            if (p == null) p = new Pending();
+            p.calls.add(calls);
+            p.failures.add(failures);
+            p.promptTokens.add(promptTokens);
+            p.completionTokens.add(completionTokens);
+            p.wallMs.add(wallMs);
+            return p;
+        });
+    }
+
+    /**
+     * 재시작 직후 한도가 초기화되지 않도록 최근 윈도우 분량을 카운터에 복원
+     * (시간 버킷 단위로 저장되므로 버킷 시작 분(윈도우 밖이면 윈도우 첫 분)에 몰아서 넣는다)
+     */
+    private void restoreWindows() {
+        if (!enabled) return;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime from = now.minusMinutes(windowMinutes).truncatedTo(ChronoUnit.HOURS);
+            long nowMinute = nowMinute();
+            long firstMinute = nowMinute - windowMinutes + 1;
+            int restored = 0;
+            for (AiUsage u : usageRepository.findByBucketStartGreaterThanEqual(from)) {
+                if ("system".equals(u.getMemberEmail())) continue;
+                long minute = Math.max(firstMinute, nowMinute - ChronoUnit.MINUTES.between(u.getBucketStart(), now));
+                long tokens = u.getPromptTokens() + u.getCompletionTokens();
+                memberWindows.computeIfAbsent(u.getMemberEmail(), k -> new SlidingCounter(windowMinutes))
+                        .add(minute, u.getCalls(), tokens);
+                if (u.getDepartment() != null) {
+                    departmentWindows.computeIfAbsent(u.getDepartment(), k -> new SlidingCounter(windowMinutes))
+                            .add(minute, u.getCalls(), tokens);
+                }
+                restored++;
+            }
+            if (restored > 0) log.info("[AI Usage] 최근 {}분 사용량 {}건 복원", windowMinutes, restored);
+        } catch (Exception e) {
+            log.warn("[AI Usage] 사용량 복원 실패 (빈 카운터로 시작): {}", e.getMessage());
+        }
+    }
+
+    private long departmentLimit(String dept, String name, long defaultValue) {
+        return env.getProperty(PREFIX + "department." + dept.toUpperCase(Locale.ROOT) + "." + name, Long.class, defaultValue);
+    }
+
+    private static boolean exceeds(long[] used, long maxCalls, long maxTokens) {
+        return (maxCalls > 0 && used[0] >= maxCalls) || (maxTokens > 0 && used[1] >= maxTokens);
+    }
+
+    private static Map<String, Object> usage(long[] used, long maxCalls, long maxTokens) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("calls", used[0]);
+        m.put("maxCalls", maxCalls);
+        m.put("tokens", used[1]);
+        m.put("maxTokens", maxTokens);
+        return m;
+    }
+
+    private static long nowMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    // ---------------------------------------------------------
+    // 1분 버킷 링 (윈도우 크기만큼). 오래된 버킷은 쓰기 시점에 재사용
+    // ---------------------------------------------------------
+    static class SlidingCounter {
+        private final long[] minutes;
+        private final long[] calls;
+        private final long[] tokens;
+
+        SlidingCounter(int windowMinutes) {
+            int size = Math.max(1, windowMinutes);
+            minutes = new long[size];
+            calls = new long[size];
+            tokens = new long[size];
+            Arrays.fill(minutes, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long minute, long callDelta, long tokenDelta) {
+            int i = (int) Math.floorMod(minute, (long) minutes.length);
+            if (minutes[i] != minute) {
+                if (minutes[i] > minute) return; // 링을 한 바퀴 넘은 과거 값은 버림
+                minutes[i] = minute;
+                calls[i] = 0;
+                tokens[i] = 0;
+            }
+            calls[i] += callDelta;
+            tokens[i] += tokenDelta;
+        }
+
+        /**
+         * [nowMinute - windowMinutes + 1, nowMinute] 구간 합계 {calls, tokens}
+         */
+        synchronized long[] sum(long nowMinute, int windowMinutes) {
+            long from = nowMinute - Math.min(windowMinutes, minutes.length) + 1;
+            long c = 0, t = 0;
+            for (int i = 0; i < minutes.length; i++) {
+                if (minutes[i] >= from && minutes[i] <= nowMinute) {
+                    c += calls[i];
+                    t += tokens[i];
+                }
+            }
+            return new long[]{c, t};
+        }
+    }
+
+    private record PendingKey(LocalDateTime bucketStart, String email, String department, String feature) {
+    }
+
+    private static class Pending {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder wallMs = new LongAdder();
+
+        boolean isEmpty() {
+            return calls.sum() == 0 && failures.sum() == 0 && promptTokens.sum() == 0
+                    && completionTokens.sum() == 0 && wallMs.sum() == 0;
+        }
+
+        // 저장 실패 시 되돌리기 (그 사이 새로 생긴 변경분과 합침)
+        static Pending mergeInto(Pending existing, Pending failed) {
+            existing.calls.add(failed.calls.sum());
+            existing.failures.add(failed.failures.sum());
+            existing.promptTokens.add(failed.promptTokens.sum());
+            existing.completionTokens.add(failed.completionTokens.sum());
+            existing.wallMs.add(failed.wallMs.sum());
+            return existing;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.desk.service.ai;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+
+/**
+ * 임베딩 벡터 연산 (float[] / int8)
+ *
+ * JVM 에 jdk.incubator.vector 모듈이 있으면(--add-modules jdk.incubator.vector) Vector API(SIMD) 로,
+ * 없으면 스칼라 루프로 계산한다. 판단은 클래스 로딩 시 한 번만 하며,
+ * SIMD 구현 클래스(AiVectorMathSimd)는 모듈이 있을 때만 로딩된다.
+ * 벡터 모양은 하드웨어 선호 크기(SPECIES_PREFERRED)에서 정하고, int8 은 선호 크기가 256비트 이상일 때만 SIMD 로 돈다.
+ * -Dai.vector.simd=false 로 강제로 끌 수 있다. (비교 측정용)
+ */
+@Log4j2
+public final class AiVectorMath {
+
+    private static final boolean SIMD = detectSimd();
+    private static final boolean SIMD_INT8 = SIMD && AiVectorMathSimd.int8Lanes() > 0;
+
+    private AiVectorMath() {
+    }
+
+    public static boolean isSimdEnabled() {
+        return SIMD;
+    }
+
+    /**
+     * q · data[offset .. offset+dim)
+     */
+    public static float dot(float[] q, float[] data, int offset, int dim) {
+        return SIMD ? AiVectorMathSimd.dot(q, data, offset, dim) : scalarDot(q, data, offset, dim);
+    }
+
+    /**
+     * int8 내적 (정수 누적, 스케일은 호출 측에서 곱한다)
+     */
+    public static int dot(byte[] q, byte[] data, int offset, int dim) {
+        return SIMD_INT8 ? AiVectorMathSimd.dot(q, data, offset, dim) : scalarDot(q, data, offset, dim);
+    }
+
+    static float scalarDot(float[] q, float[] data, int offset, int dim) {
+        float sum = 0f;
+        for (int i = 0; i < dim; i++) {
+            sum += q[i] * data[offset + i];
+        }
+        return sum;
+    }
+
+    static int scalarDot(byte[] q, byte[] data, int offset, int dim) {
+        int sum = 0;
+        for (int i = 0; i < dim; i++) {
+            sum += q[i] * data[offset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * List&lt;Double&gt; → L2 정규화된 float[] (정규화 후에는 코사인 유사도 = 내적)
+     * 크기가 0 인 벡터는 null
+     */
+    public static float[] normalize(List<Double> vector) {
+        if (vector == null || vector.isEmpty()) return null;
+        float[] result = new float[vector.size()];
+        double sum = 0.0;
+        for (int i = 0; i < result.length; i++) {
+            double d = vector.get(i);
+            result[i] = (float) d;
+            sum += d * d;
+        }
+        if (sum == 0.0 || Double.isNaN(sum)) return null;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < result.length; i++) result[i] *= inv;
+        return result;
+    }
+
+    /**
+     * 대칭 int8 양자화: q[i] = round(v[i] / scale), scale = max|v| / 127
+     *
+     * @return scale (v 가 전부 0 이면 0)
+     */
+    public static float quantize(float[] v, byte[] out, int offset) {
+        float max = 0f;
+        for (float f : v) max = Math.max(max, Math.abs(f));
+        if (max == 0f) return 0f;
+        float scale = max / 127f;
+        float inv = 1f / scale;
+        for (int i = 0; i < v.length; i++) {
+            out[offset + i] = (byte) Math.max(-127, Math.min(127, Math.round(v[i] * inv)));
+        }
+        return scale;
+    }
+
+    private static boolean detectSimd() {
+        if (!Boolean.parseBoolean(System.getProperty("ai.vector.simd", "true"))) return false;
+        boolean available = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        if (available) {
+            log.info("[AI Vector] Vector API(SIMD) 사용 | lanes(float)={} | lanes(int8)={}",
+                    AiVectorMathSimd.floatLanes(), AiVectorMathSimd.int8Lanes());
+        } else {
+            log.info("[AI Vector] jdk.incubator.vector 모듈 없음 - 스칼라 연산 사용");
+        }
+        return available;
+    }
+}
@@ -0,0 +1,310 @@
+package com.desk.service.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * [RAG 벡터 저장소]
+ * 예전에는 문서마다 List&lt;Double&gt; 을 들고, PriorityQueue 비교자가 비교할 때마다
+ * 박싱된 코사인 유사도(Math.pow 로 노름 포함)를 다시 계산했다. (문서 N 개 → 약 2·N·logN 회)
+ *
+ * 1. 저장   : 모든 벡터를 L2 정규화해서 하나의 연속 float[] 에 [doc0][doc1]... 로 붙여 둔다.
+ *            정규화했으므로 코사인 유사도 = 내적. 문서당 한 번만 계산한다.
+ * 2. 연산   : AiVectorMath (Vector API SIMD, 모듈이 없으면 스칼라)
+ * 3. top-k  : 크기 k 의 최소 힙(int[]/float[]) 하나로 전체를 한 번 훑는다. (O(N log k), 객체 할당 없음)
+ * 4. int8   : quantized=true 면 float 대신 int8 + 문서별 scale 만 저장한다. (메모리 1/4, 근사 점수)
+ *
+ * 추가는 동기화하고, 검색은 락 없이 한다. (count 를 마지막에 volatile 로 올리므로
+ * 검색은 항상 완성된 문서까지만 본다)
+ */
+public class AiVectorStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+    static final int ALL_DEPTS = -2;
+
+    /**
+     * 검색 결과
+     */
+    public record Hit(int index, String content, String dept, float score) {
+    }
+
+    private final boolean quantized;
+
+    private int dimension;
+    private float[] vectors = new float[0];   // quantized=false
+    private byte[] codes = new byte[0];       // quantized=true
+    private float[] scales = new float[0];    // quantized=true (문서별)
+    private String[] contents = new String[0];
+    private int[] deptIds = new int[0];
+
+    private final Map<String, Integer> deptIndex = new HashMap<>();
+    private final List<String> deptNames = new ArrayList<>();
+    private int[] deptSizes = new int[0]; // 부서 ID → 문서 수
+
+    private volatile int count;
+
+    public AiVectorStore(boolean quantized) {
+        this.quantized = quantized;
+    }
+
+    /**
+     * 문서 추가. 빈 벡터 / 차원이 다른 벡터는 추가하지 않는다.
+     *
+     * @return 추가 여부
+     */
+    public synchronized boolean add(String content, String dept, List<Double> vector) {
+        float[] unit = AiVectorMath.normalize(vector);
+        if (unit == null) return false;
+        if (dimension == 0) dimension = unit.length;
+        if (unit.length != dimension) return false;
+
+        int n = count;
+        ensureCapacity(n + 1);
+        if (quantized) {
+            scales[n] = AiVectorMath.quantize(unit, codes, n * dimension);
+        } else {
+            System.arraycopy(unit, 0, vectors, n * dimension, dimension);
+        }
+        contents[n] = content;
+        deptIds[n] = deptIndex.computeIfAbsent(normalizeDept(dept), key -> {
+            deptNames.add(key);
+            return deptNames.size() - 1;
+        });
+        if (deptSizes.length <= deptIds[n]) deptSizes = Arrays.copyOf(deptSizes, deptNames.size());
+        deptSizes[deptIds[n]]++;
+        count = n + 1; // 발행 (검색 스레드는 이 값까지만 읽는다)
+        return true;
+    }
+
+    /**
+     * 상위 k 개 문서 (점수 내림차순)
+     *
+     * @param dept null 이면 전체, 아니면 해당 부서 문서만 (대소문자 무시)
+     */
+    public List<Hit> search(List<Double> query, String dept, int k) {
+        int n = count; // volatile 읽기를 배열 읽기보다 먼저
+        float[] q = AiVectorMath.normalize(query);
+        if (n == 0 || k <= 0 || q == null || q.length != dimension) return List.of();
+
+        int deptFilter = deptId(dept);
+        if (deptFilter == -1) return List.of();
+
+        TopK top = new TopK(k);
+        int dim = dimension;
+        int[] deptOf = deptIds;
+        if (quantized) {
+            byte[] qc = new byte[dim];
+            float qScale = AiVectorMath.quantize(q, qc, 0);
+            byte[] data = codes;
+            float[] sc = scales;
+            for (int i = 0; i < n; i++) {
+                if (deptFilter >= 0 && deptOf[i] != deptFilter) continue;
+                top.offer(i, AiVectorMath.dot(qc, data, i * dim, dim) * qScale * sc[i]);
+            }
+        } else {
+            float[] data = vectors;
+            for (int i = 0; i < n; i++) {
+                if (deptFilter >= 0 && deptOf[i] != deptFilter) continue;
+                top.offer(i, AiVectorMath.dot(q, data, i * dim, dim));
+            }
+        }
+
+        int[] topIdx = new int[k];
+        float[] topScore = new float[k];
+        int found = top.drainDescending(topIdx, topScore);
+
+        String[] texts = contents;
+        List<Hit> hits = new ArrayList<>(found);
+        for (int r = 0; r < found; r++) {
+            int i = topIdx[r];
+            hits.add(new Hit(i, texts[i], deptNames.get(deptOf[i]), topScore[r]));
+        }
+        return hits;
+    }
+
+    // ========================================================
+    // 인덱스(AiHnswIndex)용 접근자
+    // ========================================================
+
+    /**
+     * 정규화된 질의 벡터 (차원이 다르거나 크기가 0 이면 null)
+     */
+    float[] prepareQuery(List<Double> query) {
+        float[] q = AiVectorMath.normalize(query);
+        return q != null && q.length == dimension ? q : null;
+    }
+
+    /**
+     * 단위 질의 벡터와 i 번째 문서의 코사인 유사도
+     */
+    float score(float[] unitQuery, int i) {
+        int dim = dimension;
+        if (!quantized) return AiVectorMath.dot(unitQuery, vectors, i * dim, dim);
+        byte[] data = codes;
+        int offset = i * dim;
+        float sum = 0f;
+        for (int d = 0; d < dim; d++) sum += unitQuery[d] * data[offset + d];
+        return sum * scales[i];
+    }
+
+    /**
+     * i 번째 문서의 정규화 벡터 (int8 이면 복원값)
+     */
+    float[] vector(int i) {
+        int dim = dimension;
+        float[] v = new float[dim];
+        if (quantized) {
+            float scale = scales[i];
+            for (int d = 0; d < dim; d++) v[d] = codes[i * dim + d] * scale;
+        } else {
+            System.arraycopy(vectors, i * dim, v, 0, dim);
+        }
+        return v;
+    }
+
+    /**
+     * 부서 ID (없는 부서면 -1, null 이면 전체를 뜻하는 -2)
+     */
+    synchronized int deptId(String dept) {
+        if (dept == null) return ALL_DEPTS;
+        Integer id = deptIndex.get(normalizeDept(dept));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 부서 문서 수 (ALL_DEPTS 면 전체)
+     */
+    synchronized int deptSize(int deptId) {
+        if (deptId == ALL_DEPTS) return count;
+        return deptId >= 0 && deptId < deptSizes.length ? deptSizes[deptId] : 0;
+    }
+
+    int deptIdOf(int i) {
+        return deptIds[i];
+    }
+
+    String contentOf(int i) {
+        return contents[i];
+    }
+
+    Hit hit(int i, float score) {
+        return new Hit(i, contents[i], deptNames.get(deptIds[i]), score);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isQuantized() {
+        return quantized;
+    }
+
+    /**
+     * 벡터 데이터가 차지하는 바이트 수 (모니터링용)
+     */
+    public long vectorBytes() {
+        long n = count;
+        return quantized ? n * dimension + n * Float.BYTES : n * dimension * Float.BYTES;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (contents.length >= needed) return;
+        int capacity = Math.max(INITIAL_CAPACITY, contents.length * 2);
+        while (capacity < needed) capacity *= 2;
+        if (quantized) {
+            codes = Arrays.copyOf(codes, capacity * dimension);
+            scales = Arrays.copyOf(scales, capacity);
+        } else {
+            vectors = Arrays.copyOf(vectors, capacity * dimension);
+        }
+        contents = Arrays.copyOf(contents, capacity);
+        deptIds = Arrays.copyOf(deptIds, capacity);
+    }
+
+    private static String normalizeDept(String dept) {
+        return dept == null ? "" : dept.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 크기 k 의 최소 힙 (루트 = 현재 k 개 중 최저 점수)
+     */
+    static final class TopK {
+        private final int[] idx;
+        private final float[] score;
+        private int size;
+
+        TopK(int k) {
+            this.idx = new int[k];
+            this.score = new float[k];
+        }
+
+        void offer(int i, float s) {
+            if (size < idx.length) {
+                idx[size] = i;
+                score[size] = s;
+                siftUp(size++);
+            } else if (s > score[0]) {
+                idx[0] = i;
+                score[0] = s;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * 점수 내림차순으로 꺼낸다. (힙을 비운다)
+         *
+         * @return 꺼낸 개수
+         */
+        int drainDescending(int[] outIdx, float[] outScore) {
+            int n = size;
+            for (int pos = n - 1; pos >= 0; pos--) {
+                outIdx[pos] = idx[0];
+                outScore[pos] = score[0];
+                size--;
+                idx[0] = idx[size];
+                score[0] = score[size];
+                siftDown(0);
+            }
+            return n;
+        }
+
+        private void siftUp(int pos) {
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (score[parent] <= score[pos]) break;
+                swap(pos, parent);
+                pos = parent;
+            }
+        }
+
+        private void siftDown(int pos) {
+            while (true) {
+                int left = 2 * pos + 1;
+                if (left >= size) break;
+                int smallest = left;
+                int right = left + 1;
+                if (right < size && score[right] < score[left]) smallest = right;
+                if (score[pos] <= score[smallest]) break;
+                swap(pos, smallest);
+                pos = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ti = idx[a];
+            idx[a] = idx[b];
+            idx[b] = ti;
+            float ts = score[a];
+            score[a] = score[b];
+            score[b] = ts;
+        }
+    }
+}
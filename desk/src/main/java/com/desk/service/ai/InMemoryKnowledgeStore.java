@@ -0,0 +1,86 @@
+package com.desk.service.ai;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * [JVM 힙 지식 저장소]
+ * AiVectorStore(전수 검색) 위에, 문서가 충분히 많으면 AiHnswIndex(근사 검색)를 얹는다.
+ * 노드마다 자기 사본을 가진다.
+ * 재적재 때는 forEachStored 로 직전 사본의 벡터를 key 로 꺼내 다시 쓴다. (벡터는 연속 float[] 한 벌만 둔다)
+ */
+public class InMemoryKnowledgeStore implements KnowledgeStore {
+
+    private final AiVectorStore vectors;
+    private volatile AiHnswIndex hnsw; // null 이면 전수 검색
+    private final List<String> keys = new ArrayList<>(); // AiVectorStore 문서 순서와 같은 청크 key
+
+    public InMemoryKnowledgeStore(boolean quantized) {
+        this.vectors = new AiVectorStore(quantized);
+    }
+
+    @Override
+    public synchronized int addAll(List<Chunk> chunks) {
+        int added = 0;
+        for (Chunk chunk : chunks) {
+            if (vectors.add(chunk.content(), chunk.dept(), chunk.vector())) {
+                keys.add(chunk.key());
+                added++;
+            }
+        }
+        AiHnswIndex index = hnsw;
+        if (index != null && added > 0) index.catchUp();
+        return added;
+    }
+
+    /**
+     * 문서가 minDocuments 이상이면 HNSW 인덱스를 읽거나 만든다. (이후 addAll 은 증분 삽입)
+     */
+    public void enableHnsw(Path path, int m, int efConstruction, int efSearch, int minDocuments) {
+        if (hnsw == null && vectors.size() >= minDocuments) {
+            hnsw = AiHnswIndex.openOrBuild(vectors, path, m, efConstruction, efSearch);
+        }
+    }
+
+    @Override
+    public List<Hit> search(List<Double> query, String dept, int k) {
+        AiHnswIndex index = hnsw;
+        List<AiVectorStore.Hit> hits = index != null ? index.search(query, dept, k) : vectors.search(query, dept, k);
+        return hits.stream().map(h -> new Hit(h.content(), h.dept(), h.score())).toList();
+    }
+
+    /**
+     * 저장된 청크의 (key, 정규화 벡터). int8 저장이면 복원값이다.
+     */
+    @Override
+    public synchronized void forEachStored(BiConsumer<String, double[]> consumer) {
+        for (int i = 0; i < keys.size(); i++) {
+            float[] vector = vectors.vector(i);
+            double[] copy = new double[vector.length];
+            for (int d = 0; d < vector.length; d++) copy[d] = vector[d];
+            consumer.accept(keys.get(i), copy);
+        }
+    }
+
+    @Override
+    public int size() {
+        return vectors.size();
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        AiHnswIndex index = hnsw;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("type", "memory");
+        result.put("documents", vectors.size());
+        result.put("dimension", vectors.getDimension());
+        result.put("quantized", vectors.isQuantized());
+        result.put("vectorBytes", vectors.vectorBytes());
+        result.put("hnsw", index == null ? null : index.snapshot());
+        return result;
+    }
+}
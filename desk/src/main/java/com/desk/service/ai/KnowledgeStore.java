@@ -0,0 +1,84 @@
+package com.desk.service.ai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * [RAG 지식 저장소]
+ * 지식 청크(본문, 부서, 임베딩)를 저장하고 부서 필터 top-k 검색을 제공한다.
+ *
+ * - InMemoryKnowledgeStore : 노드별 JVM 힙 (AiVectorStore + 선택적 HNSW)
+ * - PgVectorKnowledgeStore : PostgreSQL pgvector 테이블 하나를 모든 노드가 공유
+ */
+public interface KnowledgeStore {
+
+    /**
+     * 저장할 청크. key 는 chunkKey(dept, content)
+     */
+    record Chunk(String key, String content, String dept, List<Double> vector) {
+    }
+
+    /**
+     * 검색 결과 (score = 코사인 유사도)
+     */
+    record Hit(String content, String dept, float score) {
+    }
+
+    /**
+     * 청크 추가 (배치). 이미 있는 key 는 건너뛴다.
+     *
+     * @return 새로 저장한 수
+     */
+    int addAll(List<Chunk> chunks);
+
+    /**
+     * 상위 k 개 (점수 내림차순)
+     *
+     * @param dept null 이면 전체, 아니면 해당 부서 청크만 (대소문자 무시)
+     */
+    List<Hit> search(List<Double> query, String dept, int k);
+
+    int size();
+
+    /**
+     * 이미 저장된 청크를 한 건씩 (key, 임베딩) 으로 넘긴다. (공유 저장소면 다른 노드가 임베딩한 것도 포함)
+     * 여기 나온 청크는 다시 임베딩하지 않는다. 저장소 전체를 힙에 모으지 않도록 호출 측은 필요한 것만 남긴다.
+     */
+    default void forEachStored(BiConsumer<String, double[]> consumer) {
+    }
+
+    /**
+     * keys 에 없는 청크 삭제 (지식 파일에서 사라진 청크 정리). 새 사본으로 교체하는 저장소는 할 일이 없다.
+     *
+     * @return 삭제한 수
+     */
+    default int retainOnly(Set<String> keys) {
+        return 0;
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    Map<String, Object> snapshot();
+
+    /**
+     * 청크 식별 키: SHA-256(부서 + 본문) hex
+     */
+    static String chunkKey(String dept, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((dept == null ? "" : dept).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.desk.service.ai;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * [pgvector 지식 저장소]
+ * DataSourceConfig 의 postgresJdbcTemplate(face_vector_store 와 같은 DB)에 지식 청크를 저장한다.
+ * 모든 노드가 같은 테이블을 보므로, 한 노드가 임베딩한 청크는 다른 노드가 다시 임베딩하지 않는다.
+ *
+ * 1. 테이블 : {table}_{차원} (model, chunk_key) 유일. 차원별로 테이블을 나눠 모델을 바꿔도 섞이지 않는다.
+ * 2. 인덱스 : hnsw (m, ef_construction) 또는 ivfflat (lists), vector_cosine_ops + (model, dept) btree
+ * 3. 쓰기   : batch-size 단위 batchUpdate, ON CONFLICT DO NOTHING (여러 노드가 동시에 적재해도 안전)
+ *            지식 파일에서 사라진 청크는 retainOnly 로 삭제한다. (노드들이 같은 지식 파일을 본다는 전제)
+ *            저장된 청크는 forEachStored 로 fetch-size 단위 커서로 훑는다. (테이블 전체를 힙에 올리지 않음)
+ * 4. 검색   : WHERE model [AND dept] ORDER BY embedding <=> q LIMIT k (점수 = 1 - 코사인 거리)
+ *            hnsw.ef_search / ivfflat.probes 는 검색 트랜잭션 안에서만 SET LOCAL 한다.
+ *            (그냥 SET 하면 풀로 돌아간 커넥션에 남아 face_vector_store 조회까지 바뀐다)
+ *            부서 필터는 인덱스 탐색 뒤에 적용되므로, 부서가 작으면 k 개보다 적게 나올 수 있다.
+ *            pgvector 0.8 이상이면 iterative-scan=true 로 부족분을 이어서 찾는다.
+ *
+ * ai.rag.store.type=pgvector 일 때만 빈으로 등록한다. (memory 저장소는 PostgreSQL 데이터소스가 없어도 뜬다)
+ */
+@Component
+@ConditionalOnProperty(name = "ai.rag.store.type", havingValue = "pgvector")
+@Log4j2
+public class PgVectorKnowledgeStore implements KnowledgeStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AiEmbeddingModel embeddingModel;
+
+    @Value("${ai.rag.store.pg.table:ai_knowledge_chunk}")
+    private String table;
+
+    // hnsw | ivfflat
+    @Value("${ai.rag.store.pg.index:hnsw}")
+    private String indexType;
+
+    @Value("${ai.rag.store.pg.hnsw-m:16}")
+    private int hnswM;
+
+    @Value("${ai.rag.store.pg.hnsw-ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${ai.rag.store.pg.hnsw-ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${ai.rag.store.pg.ivfflat-lists:100}")
+    private int ivfflatLists;
+
+    @Value("${ai.rag.store.pg.ivfflat-probes:10}")
+    private int ivfflatProbes;
+
+    @Value("${ai.rag.store.pg.iterative-scan:false}")
+    private boolean iterativeScan;
+
+    @Value("${ai.rag.store.pg.batch-size:500}")
+    private int batchSize;
+
+    private volatile int dimension;  // 스키마 준비 후 결정
+    private volatile int count;
+
+    public PgVectorKnowledgeStore(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                  AiEmbeddingModel embeddingModel) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embeddingModel = embeddingModel;
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<String, double[]> consumer) {
+        if (!ensureSchema(resolveDimension())) return;
+        String sql = "SELECT chunk_key, embedding::text FROM " + tableName() + " WHERE model = ?";
+        // PostgreSQL 드라이버는 트랜잭션 안에서 fetch size 를 줘야 커서로 나눠 읽는다. (아니면 결과 전체를 한 번에 받음)
+        Integer rows = inTransaction(con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setFetchSize(Math.max(1, batchSize));
+                ps.setString(1, model());
+                int n = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getString(1).trim(), parseVector(rs.getString(2)));
+                        n++;
+                    }
+                }
+                return n;
+            }
+        });
+        count = rows == null ? 0 : rows;
+    }
+
+    @Override
+    public int addAll(List<Chunk> chunks) {
+        if (chunks.isEmpty()) return 0;
+        if (!ensureSchema(chunks.get(0).vector().size())) return 0;
+
+        String sql = "INSERT INTO " + tableName() + " (model, chunk_key, dept, content, embedding) "
+                + "VALUES (?, ?, ?, ?, ?::vector) ON CONFLICT (model, chunk_key) DO NOTHING";
+        String model = model();
+        int added = 0;
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < chunks.size(); from += size) {
+            List<Chunk> batch = chunks.subList(from, Math.min(chunks.size(), from + size)).stream()
+                    .filter(c -> c.vector().size() == dimension)
+                    .toList();
+            if (batch.isEmpty()) continue;
+            int[][] updated = jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, chunk) -> {
+                ps.setString(1, model);
+                ps.setString(2, chunk.key());
+                ps.setString(3, normalizeDept(chunk.dept()));
+                ps.setString(4, chunk.content());
+                ps.setString(5, toLiteral(chunk.vector()));
+            });
+            for (int[] counts : updated) {
+                for (int u : counts) {
+                    if (u > 0) added += u; // 중복(ON CONFLICT)은 0
+                }
+            }
+        }
+        ensureVectorIndex(tableName()); // ivfflat 은 데이터가 있어야 목록(lists) 중심을 제대로 잡는다.
+        count += added;
+        log.info("[RAG pgvector] 청크 저장 | table={} | added={} | total={}", tableName(), added, count);
+        return added;
+    }
+
+    @Override
+    public List<Hit> search(List<Double> query, String dept, int k) {
+        if (dimension == 0 || query == null || query.size() != dimension || k <= 0) return List.of();
+
+        String sql = "SELECT content, dept, 1 - (embedding <=> ?::vector) AS score FROM " + tableName()
+                + " WHERE model = ?" + (dept != null ? " AND dept = ?" : "")
+                + " ORDER BY embedding <=> ?::vector LIMIT ?";
+        String literal = toLiteral(query);
+        // SET LOCAL 은 트랜잭션 끝에 풀린다.
+        return inTransaction(con -> {
+            try (Statement st = con.createStatement()) {
+                if (isIvfflat()) {
+                    st.execute("SET LOCAL ivfflat.probes = " + Math.max(1, ivfflatProbes));
+                } else {
+                    st.execute("SET LOCAL hnsw.ef_search = " + Math.max(k, hnswEfSearch));
+                    if (iterativeScan) st.execute("SET LOCAL hnsw.iterative_scan = relaxed_order");
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                int p = 1;
+                ps.setString(p++, literal);
+                ps.setString(p++, model());
+                if (dept != null) ps.setString(p++, normalizeDept(dept));
+                ps.setString(p++, literal);
+                ps.setInt(p, k);
+                List<Hit> hits = new ArrayList<>(k);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) hits.add(new Hit(rs.getString(1), rs.getString(2), rs.getFloat(3)));
+                }
+                return hits;
+            }
+        });
+    }
+
+    /**
+     * 바깥 트랜잭션이 있으면 그 안에서, 없으면 이 작업만 트랜잭션으로 묶어 실행 (끝나면 autocommit 복구)
+     */
+    private <T> T inTransaction(ConnectionCallback<T> action) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) con -> {
+            boolean ownTx = con.getAutoCommit();
+            if (ownTx) con.setAutoCommit(false);
+            boolean committed = false;
+            try {
+                T result = action.doInConnection(con);
+                if (ownTx) con.commit();
+                committed = true;
+                return result;
+            } finally {
+                if (ownTx) {
+                    if (!committed) rollbackQuietly(con);
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    private static void rollbackQuietly(Connection con) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            log.debug("[RAG pgvector] rollback 실패 | {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int retainOnly(Set<String> keys) {
+        if (dimension == 0) return 0;
+        String sql = "DELETE FROM " + tableName() + " WHERE model = ? AND NOT (chunk_key::text = ANY (?))";
+        Integer removed = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, model());
+                ps.setArray(2, con.createArrayOf("text", keys.toArray()));
+                return ps.executeUpdate();
+            }
+        });
+        int n = removed == null ? 0 : removed;
+        if (n > 0) {
+            count = Math.max(0, count - n);
+            log.info("[RAG pgvector] 지식 파일에서 사라진 청크 삭제 | table={} | removed={}", tableName(), n);
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("type", "pgvector");
+        result.put("table", dimension == 0 ? null : tableName());
+        result.put("model", model());
+        result.put("documents", count);
+        result.put("dimension", dimension);
+        result.put("index", indexType);
+        return result;
+    }
+
+    // ========================================================
+    // 스키마
+    // ========================================================
+
+    private synchronized boolean ensureSchema(int dim) {
+        if (dimension != 0) return true;
+        if (dim <= 0) {
+            log.warn("[RAG pgvector] 임베딩 차원을 알 수 없어 스키마를 만들지 못함");
+            return false;
+        }
+        if (!table.matches("[a-z_][a-z0-9_]*")) throw new IllegalStateException("잘못된 테이블 이름: " + table);
+
+        String t = table + "_" + dim;
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + t + " ("
+                + "id BIGSERIAL PRIMARY KEY, "
+                + "model VARCHAR(100) NOT NULL, "
+                + "chunk_key CHAR(64) NOT NULL, "
+                + "dept VARCHAR(50) NOT NULL, "
+                + "content TEXT NOT NULL, "
+                + "embedding vector(" + dim + ") NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL DEFAULT now(), "
+                + "UNIQUE (model, chunk_key))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + t + "_model_dept_idx ON " + t + " (model, dept)");
+        if (!isIvfflat()) ensureVectorIndex(t); // hnsw 는 빈 테이블에 만들어도 된다.
+        dimension = dim; // DDL 이 모두 성공한 뒤 확정
+        log.info("[RAG pgvector] 스키마 준비 | table={} | index={}", t, indexType);
+        return true;
+    }
+
+    private void ensureVectorIndex(String t) {
+        if (isIvfflat()) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + t + "_embedding_ivfflat_idx ON " + t
+                    + " USING ivfflat (embedding vector_cosine_ops) WITH (lists = " + Math.max(1, ivfflatLists) + ")");
+        } else {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + t + "_embedding_hnsw_idx ON " + t
+                    + " USING hnsw (embedding vector_cosine_ops) WITH (m = " + Math.max(2, hnswM)
+                    + ", ef_construction = " + Math.max(4, hnswEfConstruction) + ")");
+        }
+    }
+
+    // 설정/관측 차원, 아직 모르면 짧은 입력을 한 번 임베딩해서 확인
+    private int resolveDimension() {
+        if (dimension != 0) return dimension;
+        int dim = embeddingModel.getDimension();
+        return dim > 0 ? dim : embeddingModel.embed("dimension probe").size();
+    }
+
+    private boolean isIvfflat() {
+        return "ivfflat".equalsIgnoreCase(indexType);
+    }
+
+    private String tableName() {
+        return table + "_" + dimension;
+    }
+
+    private String model() {
+        return embeddingModel.getModelName();
+    }
+
+    private static String normalizeDept(String dept) {
+        return dept == null ? "" : dept.toUpperCase(Locale.ROOT);
+    }
+
+    // pgvector 텍스트 형식 "[1.0,2.0,...]" (FaceServiceImpl 과 같은 방식)
+    static String toLiteral(List<Double> vector) {
+        StringBuilder sb = new StringBuilder(vector.size() * 10).append('[');
+        for (int i = 0; i < vector.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(vector.get(i).floatValue());
+        }
+        return sb.append(']').toString();
+    }
+
+    static double[] parseVector(String literal) {
+        String body = literal.trim();
+        body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) return new double[0];
+        String[] parts = body.split(",");
+        double[] vector = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) vector[i] = Double.parseDouble(parts[i].trim());
+        return vector;
+    }
+}
@@ -2,6 +2,7 @@ package com.desk.service.chat;
 
 import com.desk.dto.PageRequestDTO;
 import com.desk.dto.PageResponseDTO;
+import com.desk.dto.chat.AiChatJobDTO;
 import com.desk.dto.chat.ChatMessageCreateDTO;
 import com.desk.dto.chat.ChatMessageDTO;
 import com.desk.dto.chat.ChatReadUpdateDTO;
@@ -38,6 +39,22 @@ public interface ChatMessageService {
      * 시스템 메시지 생성 (입장/퇴장/초대 등)
      */
     ChatMessageDTO createSystemMessage(Long roomId, String content, String actorId);
+
+    /**
+     * AI 정제 작업 결과 저장 및 브로드캐스트 (작업 큐 워커용)
+     * 같은 jobId 로 이미 저장된 메시지가 있으면 아무것도 하지 않는다.
+     */
+    void applyAiResult(AiChatJobDTO job);
+
+    /**
+     * 같은 jobId 로 저장된 메시지가 있는지 (작업 큐 워커가 유니크 위반을 중복으로 볼지 판정할 때 사용)
+     */
+    boolean isAiJobApplied(String jobId);
+
+    /**
+     * AI 정제 작업 최종 실패 시 발신자 채팅방에 오류 알림 (작업 큐 워커용)
+     */
+    void notifyAiFailure(AiChatJobDTO job);
 }
 
 
@@ -4,6 +4,7 @@ import com.desk.domain.*;
 import com.desk.dto.PageRequestDTO;
 import com.desk.dto.PageResponseDTO;
 import com.desk.dto.TicketFileDTO;
+import com.desk.dto.chat.AiChatJobDTO;
 import com.desk.dto.chat.ChatMessageCreateDTO;
 import com.desk.dto.chat.ChatMessageDTO;
 import com.desk.dto.chat.ChatReadUpdateDTO;
@@ -12,8 +13,9 @@ import com.desk.repository.chat.ChatMessageRepository;
 import com.desk.repository.chat.ChatFileRepository;
 import com.desk.repository.chat.ChatParticipantRepository;
 import com.desk.repository.chat.ChatRoomRepository;
+import com.desk.service.chat.ai.AiChatJobQueue;
 import com.desk.service.chat.ai.AiChatWordGuard;
-import com.desk.service.chat.ai.AiMessageProcessor;
+import com.desk.service.ai.AiFileSearchIndex;
 import com.desk.util.CustomFileUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -43,9 +45,10 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     private final ChatParticipantRepository chatParticipantRepository;
     private final ChatFileRepository chatFileRepository;
     private final MemberRepository memberRepository;
-    private final AiMessageProcessor aiMessageProcessor;
+    private final AiChatJobQueue aiChatJobQueue;
     private final AiChatWordGuard aiChatWordGuard;
     private final CustomFileUtil fileUtil;
+    private final AiFileSearchIndex fileSearchIndex;
     private final SimpMessagingTemplate messagingTemplate;
 
     /**
@@ -228,18 +231,18 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                     .aiProcessing(true) // AI 처리 중 플래그
                     .build();
 
-            // 비동기로 AI 처리 시작 (트랜잭션 커밋 후)
+            // 트랜잭션 커밋 후 AI 정제 작업 적재 (Redis Stream → 워커가 처리/저장/브로드캐스트)
             TransactionSynchronizationManager.registerSynchronization(
                 new TransactionSynchronizationAdapter() {
                     @Override
                     public void afterCommit() {
                         long afterCommitTime = System.currentTimeMillis();
                         String commitThreadId = Thread.currentThread().getName();
-                        log.info("[Chat] 트랜잭션 커밋 완료 - AI 처리 시작 | roomId={} | commitThread={} | requestThread={} | afterCommitTime={} | elapsed={}ms", 
+                        log.info("[Chat] 트랜잭션 커밋 완료 - AI 작업 적재 | roomId={} | commitThread={} | requestThread={} | afterCommitTime={} | elapsed={}ms", 
                                 roomId, commitThreadId, requestThreadId, afterCommitTime, (afterCommitTime - requestStartTime));
                         
-                        processAiAndSaveMessage(roomId, createDTO, senderId, originalContent, 
-                                              ticketTrigger, profanityDetected, isTicketPreview);
+                        aiChatJobQueue.submit(newAiJob(roomId, createDTO, null, senderId, originalContent,
+                                                       ticketTrigger, profanityDetected, isTicketPreview));
                     }
                 }
             );
@@ -297,182 +300,235 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     }
     
     /**
-     * AI 처리 후 메시지 저장 및 브로드캐스트
+     * AI 정제 작업 생성 (커밋 후 호출: 첨부 파일은 요청이 끝나기 전에 물리 저장만 해 둔다)
      */
-    private void processAiAndSaveMessage(Long roomId, ChatMessageCreateDTO createDTO, 
-                                         String senderId, String originalContent,
-                                         boolean ticketTrigger, boolean profanityDetected,
-                                         boolean isTicketPreview) {
-        
-        String processThreadId = Thread.currentThread().getName();
-        long processStartTime = System.currentTimeMillis();
-        
-        log.info("[Chat] 비동기 AI 처리 시작 | roomId={} | senderId={} | processThread={} | processStartTime={}", 
-                roomId, senderId, processThreadId, processStartTime);
-        
-        aiMessageProcessor.processMessageAsync(
-            originalContent,
-            true,
-            // AI 처리 완료 콜백
-            result -> {
-                String callbackThreadId = Thread.currentThread().getName();
-                long callbackTime = System.currentTimeMillis();
-                
-                log.info("[Chat] AI 처리 완료 콜백 | roomId={} | callbackThread={} | processThread={} | callbackTime={} | elapsed={}ms", 
-                        roomId, callbackThreadId, processThreadId, callbackTime, (callbackTime - processStartTime));
-                
+    private AiChatJobDTO newAiJob(Long roomId, ChatMessageCreateDTO createDTO, List<MultipartFile> files,
+                                  String senderId, String originalContent, boolean ticketTrigger,
+                                  boolean profanityDetected, boolean isTicketPreview) {
+        List<AiChatJobDTO.FileRef> fileRefs = new ArrayList<>();
+        if (files != null) {
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                if (file.isEmpty()) continue;
                 try {
-                    String filteredContent = result.getProcessedContent();
-                    boolean finalTicketTrigger = ticketTrigger || result.isTicketTrigger();
-                    
-                    // 티켓 트리거가 감지되면 메시지 저장 안 함
-                    if (finalTicketTrigger && !isTicketPreview) {
-                        log.info("[Chat] AI 처리 후 티켓 트리거 감지 - 메시지 저장 안 함 | roomId={}", roomId);
-                        
-                        // 티켓 트리거 메시지로만 브로드캐스트 (DB 저장 없음)
-                        String nickname = memberRepository.findById(senderId)
-                                .map(m -> m.getNickname())
-                                .orElse(senderId);
-                        
-                        ChatMessageDTO triggerDto = ChatMessageDTO.builder()
-                                .id(null)
-                                .chatRoomId(roomId)
-                                .messageSeq(null)
-                                .senderId(senderId)
-                                .senderNickname(nickname)
-                                .messageType(createDTO.getMessageType() != null ? createDTO.getMessageType() : ChatMessageType.TEXT)
-                                .content(filteredContent)
-                                .ticketId(null)
-                                .createdAt(null)
-                                .ticketTrigger(true)
-                                .unreadCount(null)
-                                .isRead(null)
-                                .profanityDetected(profanityDetected)
-                                .build();
-                        
-                        messagingTemplate.convertAndSend("/topic/chat/" + roomId, triggerDto);
-                        return;
-                    }
-                    
-                    // AI 처리 완료: 메시지 저장 및 브로드캐스트
-                    ChatRoom room = chatRoomRepository.findById(roomId)
-                            .orElse(null);
-                    
-                    if (room == null) {
-                        log.warn("[Chat] 채팅방을 찾을 수 없음 | roomId={}", roomId);
-                        return;
-                    }
-                    
-                    Long maxSeq = chatMessageRepository.findMaxMessageSeqByChatRoomId(roomId);
-                    Long newSeq = (maxSeq != null ? maxSeq : 0L) + 1;
-                    
-                    ChatMessage message = ChatMessage.builder()
-                            .chatRoom(room)
-                            .messageSeq(newSeq)
-                            .senderId(senderId)
-                            .messageType(createDTO.getMessageType() != null ? createDTO.getMessageType() : ChatMessageType.TEXT)
-                            .content(filteredContent) // ✅ AI 정제된 내용만 저장
-                            .ticketId(createDTO.getTicketId())
-                            .build();
-                    
-                    message = chatMessageRepository.save(message);
-                    room.updateLastMessage(newSeq, filteredContent);
-                    
-                    ChatParticipant senderParticipant = chatParticipantRepository
-                            .findByChatRoomIdAndUserId(roomId, senderId)
-                            .orElse(null);
-                    
-                    if (senderParticipant != null) {
-                        senderParticipant.markRead(newSeq);
-                        log.info("[Chat] 발신자 자동 읽음 처리 | roomId={} | senderId={} | messageSeq={}",
-                                roomId, senderId, newSeq);
-                    }
-                    
-                    // unreadCount/isRead 계산용 참여자 맵
-                    List<ChatParticipant> participants = chatParticipantRepository
-                            .findByChatRoomIdAndStatus(roomId, ChatStatus.ACTIVE);
-                    Map<String, Long> lastReadSeqMap = participants.stream()
-                            .collect(Collectors.toMap(
-                                    ChatParticipant::getUserId,
-                                    ChatParticipant::getLastReadSeq,
-                                    (a, b) -> a
-                            ));
-                    
-                    ChatMessageDTO dto = toChatMessageDTOOptimized(message, senderId, room, lastReadSeqMap);
-                    dto.setTicketTrigger(false);
-                    dto.setProfanityDetected(profanityDetected);
-                    
-                    long saveTime = System.currentTimeMillis();
-                    log.info("[Chat] AI 처리 완료 - 메시지 저장 및 브로드캐스트 | roomId={} | messageSeq={} | totalElapsed={}ms | content={}", 
-                            roomId, newSeq, (saveTime - processStartTime),
-                            filteredContent.length() > 50 ? filteredContent.substring(0, 50) + "..." : filteredContent);
-                    
-                    // ✅ AI 처리 완료 후에만 브로드캐스트 (정제된 메시지만 전송)
-                    messagingTemplate.convertAndSend("/topic/chat/" + roomId, dto);
-                    
+                    String savedFileName = fileUtil.saveFile(file);
+                    log.info("[Chat] 파일 물리 저장 완료: {}", savedFileName);
+                    fileRefs.add(AiChatJobDTO.FileRef.builder()
+                            .uuid(savedFileName)
+                            .fileName(file.getOriginalFilename())
+                            .fileSize(file.getSize())
+                            .ord(i)
+                            .build());
                 } catch (Exception e) {
-                    long errorTime = System.currentTimeMillis();
-                    log.error("[Chat] AI 처리 후 메시지 저장 실패 | roomId={} | error={} | elapsed={}ms", 
-                            roomId, e.getMessage(), (errorTime - processStartTime), e);
-                    
-                    // 에러 발생 시 발신자에게만 에러 알림
-                    String nickname = memberRepository.findById(senderId)
-                            .map(m -> m.getNickname())
-                            .orElse(senderId);
-                    
-                    ChatMessageDTO errorDto = ChatMessageDTO.builder()
-                            .id(null)
-                            .chatRoomId(roomId)
-                            .messageSeq(null)
-                            .senderId(senderId)
-                            .senderNickname(nickname)
-                            .messageType(ChatMessageType.SYSTEM)
-                            .content("메시지 처리 중 오류가 발생했습니다.")
-                            .ticketId(null)
-                            .createdAt(null)
-                            .ticketTrigger(false)
-                            .unreadCount(null)
-                            .isRead(null)
-                            .profanityDetected(false)
-                            .build();
-                    
-                    messagingTemplate.convertAndSend("/topic/chat/" + roomId, errorDto);
+                    log.error("[Chat] 파일 저장 실패: {}", file.getOriginalFilename(), e);
+                    // 파일 저장 실패해도 메시지는 저장되도록 계속 진행
                 }
-            },
-            // 에러 콜백
-            error -> {
-                String errorThreadId = Thread.currentThread().getName();
-                long errorTime = System.currentTimeMillis();
-                
-                log.error("[Chat] AI 처리 에러 콜백 | roomId={} | errorThread={} | processThread={} | errorTime={} | elapsed={}ms | error={}", 
-                        roomId, errorThreadId, processThreadId, errorTime, (errorTime - processStartTime), error.getMessage());
-                
-                // 에러 발생 시 원문을 저장하지 않고 에러 메시지만 전송
-                String nickname = memberRepository.findById(senderId)
-                        .map(m -> m.getNickname())
-                        .orElse(senderId);
-                
-                ChatMessageDTO errorDto = ChatMessageDTO.builder()
-                        .id(null)
-                        .chatRoomId(roomId)
-                        .messageSeq(null)
-                        .senderId(senderId)
-                        .senderNickname(nickname)
-                        .messageType(ChatMessageType.SYSTEM)
-                        .content("메시지 처리 중 오류가 발생했습니다.")
-                        .ticketId(null)
-                        .createdAt(null)
-                        .ticketTrigger(false)
-                        .unreadCount(null)
-                        .isRead(null)
-                        .profanityDetected(false)
+            }
+        }
+
+        return AiChatJobDTO.builder()
+                .roomId(roomId)
+                .senderId(senderId)
+                .messageType(createDTO.getMessageType() != null ? createDTO.getMessageType() : ChatMessageType.TEXT)
+                .content(originalContent)
+                .ticketId(createDTO.getTicketId())
+                .ticketTrigger(ticketTrigger)
+                .profanityDetected(profanityDetected)
+                .ticketPreview(isTicketPreview)
+                .files(fileRefs)
+                .build();
+    }
+
+    @Override
+    public void applyAiResult(AiChatJobDTO job) {
+        Long roomId = job.getRoomId();
+        String senderId = job.getSenderId();
+        String filteredContent = job.getProcessedContent();
+        boolean finalTicketTrigger = job.isTicketTrigger() || job.isAiTicketTrigger();
+
+        if (chatMessageRepository.existsByAiJobId(job.getJobId())) {
+            log.info("[Chat] 이미 저장된 AI 작업 - 건너뜀 | roomId={} | jobId={}", roomId, job.getJobId());
+            return;
+        }
+
+        if (job.isReviewRequired()) {
+            log.warn("[Chat] AI 정제 불가 - 원문 전송 후 검토 대상으로 표시 | roomId={} | senderId={}", roomId, senderId);
+        }
+
+        // 티켓 트리거가 감지되면 메시지 저장 안 함
+        if (finalTicketTrigger && !job.isTicketPreview()) {
+            log.info("[Chat] AI 처리 후 티켓 트리거 감지 - 메시지 저장 안 함 | roomId={}", roomId);
+
+            // 메시지가 저장되지 않으므로 미리 저장해 둔 첨부 파일도 정리
+            for (AiChatJobDTO.FileRef ref : job.getFiles()) {
+                try {
+                    fileUtil.deleteFile(ref.getUuid());
+                } catch (Exception e) {
+                    log.warn("[Chat] 첨부 파일 정리 실패: {}", ref.getUuid());
+                }
+            }
+
+            // 티켓 트리거 메시지로만 브로드캐스트 (DB 저장 없음)
+            String nickname = memberRepository.findById(senderId)
+                    .map(m -> m.getNickname())
+                    .orElse(senderId);
+
+            ChatMessageDTO triggerDto = ChatMessageDTO.builder()
+                    .id(null)
+                    .chatRoomId(roomId)
+                    .messageSeq(null)
+                    .senderId(senderId)
+                    .senderNickname(nickname)
+                    .messageType(job.getMessageType())
+                    .content(filteredContent)
+                    .ticketId(null)
+                    .createdAt(null)
+                    .ticketTrigger(true)
+                    .unreadCount(null)
+                    .isRead(null)
+                    .profanityDetected(job.isProfanityDetected())
+                    .files(new ArrayList<>())
+                    .build();
+
+            messagingTemplate.convertAndSend("/topic/chat/" + roomId, triggerDto);
+            return;
+        }
+
+        // AI 처리 완료: 메시지 저장 및 브로드캐스트
+        ChatRoom room = chatRoomRepository.findById(roomId)
+                .orElse(null);
+
+        if (room == null) {
+            log.warn("[Chat] 채팅방을 찾을 수 없음 | roomId={}", roomId);
+            return;
+        }
+
+        Long maxSeq = chatMessageRepository.findMaxMessageSeqByChatRoomId(roomId);
+        Long newSeq = (maxSeq != null ? maxSeq : 0L) + 1;
+
+        ChatMessage message = ChatMessage.builder()
+                .chatRoom(room)
+                .messageSeq(newSeq)
+                .senderId(senderId)
+                .messageType(job.getMessageType())
+                .content(filteredContent) // ✅ AI 정제된 내용만 저장
+                .ticketId(job.getTicketId())
+                .aiReviewRequired(job.isReviewRequired() ? Boolean.TRUE : null)
+                .aiJobId(job.getJobId())
+                .build();
+
+        message = chatMessageRepository.save(message);
+        room.updateLastMessage(newSeq, filteredContent);
+
+        // 파일 처리 (물리 파일은 적재 전에 저장됨)
+        List<TicketFileDTO> fileDTOs = new ArrayList<>();
+        if (!job.getFiles().isEmpty()) {
+            // DIRECT 방인 경우 상대방 찾기 (receiver 설정용)
+            String receiver = null;
+            if (room.getRoomType() == ChatRoomType.DIRECT) {
+                List<ChatParticipant> participants = chatParticipantRepository.findByChatRoomIdAndStatus(roomId, ChatStatus.ACTIVE);
+                receiver = participants.stream()
+                        .map(ChatParticipant::getUserId)
+                        .filter(id -> !id.equals(senderId))
+                        .findFirst()
+                        .orElse(null);
+            }
+
+            for (AiChatJobDTO.FileRef ref : job.getFiles()) {
+                ChatFile chatFile = ChatFile.builder()
+                        .uuid(ref.getUuid())
+                        .fileName(ref.getFileName())
+                        .fileSize(ref.getFileSize())
+                        .ord(ref.getOrd())
+                        .writer(senderId)
+                        .receiver(receiver)
+                        .chatRoom(room)
+                        .messageSeq(newSeq)
                         .build();
-                
-                messagingTemplate.convertAndSend("/topic/chat/" + roomId, errorDto);
+
+                chatFileRepository.save(chatFile);
+                fileSearchIndex.onSaved(chatFile); // AI 파일조회 역색인 (커밋 후)
+                fileDTOs.add(chatFileToTicketFileDTO(chatFile));
+            }
+        }
+
+        ChatParticipant senderParticipant = chatParticipantRepository
+                .findByChatRoomIdAndUserId(roomId, senderId)
+                .orElse(null);
+
+        if (senderParticipant != null) {
+            senderParticipant.markRead(newSeq);
+            log.info("[Chat] 발신자 자동 읽음 처리 | roomId={} | senderId={} | messageSeq={}",
+                    roomId, senderId, newSeq);
+        }
+
+        // unreadCount/isRead 계산용 참여자 맵
+        List<ChatParticipant> participants = chatParticipantRepository
+                .findByChatRoomIdAndStatus(roomId, ChatStatus.ACTIVE);
+        Map<String, Long> lastReadSeqMap = participants.stream()
+                .collect(Collectors.toMap(
+                        ChatParticipant::getUserId,
+                        ChatParticipant::getLastReadSeq,
+                        (a, b) -> a
+                ));
+
+        ChatMessageDTO dto = toChatMessageDTOOptimized(message, senderId, room, lastReadSeqMap);
+        dto.setTicketTrigger(false);
+        dto.setProfanityDetected(job.isProfanityDetected());
+        dto.setAiReviewRequired(job.isReviewRequired());
+        dto.setFiles(fileDTOs);
+
+        log.info("[Chat] AI 처리 완료 - 메시지 저장 및 브로드캐스트 | roomId={} | messageSeq={} | jobId={} | totalElapsed={}ms | content={}",
+                roomId, newSeq, job.getJobId(), (System.currentTimeMillis() - job.getEnqueuedAt()),
+                filteredContent.length() > 50 ? filteredContent.substring(0, 50) + "..." : filteredContent);
+
+        // ✅ 커밋된 뒤에만 브로드캐스트 (저장 실패로 재시도될 메시지가 먼저 보이지 않게)
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    messagingTemplate.convertAndSend("/topic/chat/" + roomId, dto);
+                }
             }
         );
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isAiJobApplied(String jobId) {
+        return chatMessageRepository.existsByAiJobId(jobId);
+    }
+
+    @Override
+    public void notifyAiFailure(AiChatJobDTO job) {
+        log.error("[Chat] AI 처리 최종 실패 | roomId={} | jobId={} | attempts={} | error={}",
+                job.getRoomId(), job.getJobId(), job.getAttempt(), job.getLastError());
+
+        // 에러 발생 시 원문을 저장하지 않고 에러 메시지만 전송
+        String nickname = memberRepository.findById(job.getSenderId())
+                .map(m -> m.getNickname())
+                .orElse(job.getSenderId());
+
+        ChatMessageDTO errorDto = ChatMessageDTO.builder()
+                .id(null)
+                .chatRoomId(job.getRoomId())
+                .messageSeq(null)
+                .senderId(job.getSenderId())
+                .senderNickname(nickname)
+                .messageType(ChatMessageType.SYSTEM)
+                .content("메시지 처리 중 오류가 발생했습니다.")
+                .ticketId(null)
+                .createdAt(null)
+                .ticketTrigger(false)
+                .unreadCount(null)
+                .isRead(null)
+                .profanityDetected(false)
+                .files(new ArrayList<>())
+                .build();
+
+        messagingTemplate.convertAndSend("/topic/chat/" + job.getRoomId(), errorDto);
+    }
+
     @Override
     public ChatMessageDTO sendMessageWithFiles(Long roomId, ChatMessageCreateDTO createDTO, List<MultipartFile> files, String senderId) {
         ChatRoom room = chatRoomRepository.findById(roomId)
@@ -621,18 +677,18 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                     .files(new ArrayList<>())
                     .build();
 
-            // 비동기로 AI 처리 시작 (트랜잭션 커밋 후)
+            // 트랜잭션 커밋 후 AI 정제 작업 적재 (Redis Stream → 워커가 처리/저장/브로드캐스트)
             TransactionSynchronizationManager.registerSynchronization(
                 new TransactionSynchronizationAdapter() {
                     @Override
                     public void afterCommit() {
                         long afterCommitTime = System.currentTimeMillis();
                         String commitThreadId = Thread.currentThread().getName();
-                        log.info("[Chat] 트랜잭션 커밋 완료 - AI 처리 시작 (파일 포함) | roomId={} | commitThread={} | requestThread={} | afterCommitTime={} | elapsed={}ms", 
+                        log.info("[Chat] 트랜잭션 커밋 완료 - AI 작업 적재 (파일 포함) | roomId={} | commitThread={} | requestThread={} | afterCommitTime={} | elapsed={}ms", 
                                 roomId, commitThreadId, requestThreadId, afterCommitTime, (afterCommitTime - requestStartTime));
                         
-                        processAiAndSaveMessageWithFiles(roomId, createDTO, files, senderId, originalContent, 
-                                                        ticketTrigger, profanityDetected, isTicketPreview);
+                        aiChatJobQueue.submit(newAiJob(roomId, createDTO, files, senderId, originalContent,
+                                                       ticketTrigger, profanityDetected, isTicketPreview));
                     }
                 }
             );
@@ -702,6 +758,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                             .build();
 
                     chatFileRepository.save(chatFile);
+                    fileSearchIndex.onSaved(chatFile); // AI 파일조회 역색인 (커밋 후)
                     log.info("[Chat] 파일 DB 기록 완료: {}", i);
 
                     // DTO 변환
@@ -740,231 +797,6 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         return dto;
     }
     
-    /**
-     * AI 처리 후 메시지 저장 및 브로드캐스트 (파일 포함)
-     */
-    private void processAiAndSaveMessageWithFiles(Long roomId, ChatMessageCreateDTO createDTO, 
-                                                  List<MultipartFile> files, String senderId, 
-                                                  String originalContent, boolean ticketTrigger, 
-                                                  boolean profanityDetected, boolean isTicketPreview) {
-        
-        String processThreadId = Thread.currentThread().getName();
-        long processStartTime = System.currentTimeMillis();
-        
-        log.info("[Chat] 비동기 AI 처리 시작 (파일 포함) | roomId={} | senderId={} | processThread={} | processStartTime={}", 
-                roomId, senderId, processThreadId, processStartTime);
-        
-        aiMessageProcessor.processMessageAsync(
-            originalContent,
-            true,
-            // AI 처리 완료 콜백
-            result -> {
-                String callbackThreadId = Thread.currentThread().getName();
-                long callbackTime = System.currentTimeMillis();
-                
-                log.info("[Chat] AI 처리 완료 콜백 (파일 포함) | roomId={} | callbackThread={} | processThread={} | callbackTime={} | elapsed={}ms", 
-                        roomId, callbackThreadId, processThreadId, callbackTime, (callbackTime - processStartTime));
-                
-                try {
-                    String filteredContent = result.getProcessedContent();
-                    boolean finalTicketTrigger = ticketTrigger || result.isTicketTrigger();
-                    
-                    // 티켓 트리거가 감지되면 메시지 저장 안 함
-                    if (finalTicketTrigger && !isTicketPreview) {
-                        log.info("[Chat] AI 처리 후 티켓 트리거 감지 - 메시지 저장 안 함 | roomId={}", roomId);
-                        
-                        // 티켓 트리거 메시지로만 브로드캐스트 (DB 저장 없음)
-                        String nickname = memberRepository.findById(senderId)
-                                .map(m -> m.getNickname())
-                                .orElse(senderId);
-                        
-                        ChatMessageDTO triggerDto = ChatMessageDTO.builder()
-                                .id(null)
-                                .chatRoomId(roomId)
-                                .messageSeq(null)
-                                .senderId(senderId)
-                                .senderNickname(nickname)
-                                .messageType(createDTO.getMessageType() != null ? createDTO.getMessageType() : ChatMessageType.TEXT)
-                                .content(filteredContent)
-                                .ticketId(null)
-                                .createdAt(null)
-                                .ticketTrigger(true)
-                                .unreadCount(null)
-                                .isRead(null)
-                                .profanityDetected(profanityDetected)
-                                .files(new ArrayList<>())
-                                .build();
-                        
-                        messagingTemplate.convertAndSend("/topic/chat/" + roomId, triggerDto);
-                        return;
-                    }
-                    
-                    // AI 처리 완료: 메시지 저장 및 브로드캐스트
-                    ChatRoom room = chatRoomRepository.findById(roomId)
-                            .orElse(null);
-                    
-                    if (room == null) {
-                        log.warn("[Chat] 채팅방을 찾을 수 없음 | roomId={}", roomId);
-                        return;
-                    }
-                    
-                    Long maxSeq = chatMessageRepository.findMaxMessageSeqByChatRoomId(roomId);
-                    Long newSeq = (maxSeq != null ? maxSeq : 0L) + 1;
-                    
-                    ChatMessage message = ChatMessage.builder()
-                            .chatRoom(room)
-                            .messageSeq(newSeq)
-                            .senderId(senderId)
-                            .messageType(createDTO.getMessageType() != null ? createDTO.getMessageType() : ChatMessageType.TEXT)
-                            .content(filteredContent) // ✅ AI 정제된 내용만 저장
-                            .ticketId(createDTO.getTicketId())
-                            .build();
-                    
-                    message = chatMessageRepository.save(message);
-                    room.updateLastMessage(newSeq, filteredContent);
-                    
-                    // 파일 처리
-                    List<TicketFileDTO> fileDTOs = new ArrayList<>();
-                    if (files != null && !files.isEmpty()) {
-                        // DIRECT 방인 경우 상대방 찾기 (receiver 설정용)
-                        String receiver = null;
-                        if (room.getRoomType() == ChatRoomType.DIRECT) {
-                            List<ChatParticipant> participants = chatParticipantRepository.findByChatRoomIdAndStatus(roomId, ChatStatus.ACTIVE);
-                            receiver = participants.stream()
-                                    .map(ChatParticipant::getUserId)
-                                    .filter(id -> !id.equals(senderId))
-                                    .findFirst()
-                                    .orElse(null);
-                        }
-                        
-                        for (int i = 0; i < files.size(); i++) {
-                            MultipartFile file = files.get(i);
-                            if (file.isEmpty()) continue;
-                            
-                            try {
-                                // 물리 파일 저장
-                                String savedFileName = fileUtil.saveFile(file);
-                                log.info("[Chat] 파일 물리 저장 완료: {}", savedFileName);
-                                
-                                // ChatFile 엔티티 생성 및 저장
-                                ChatFile chatFile = ChatFile.builder()
-                                        .uuid(savedFileName)
-                                        .fileName(file.getOriginalFilename())
-                                        .fileSize(file.getSize())
-                                        .ord(i)
-                                        .writer(senderId)
-                                        .receiver(receiver)
-                                        .chatRoom(room)
-                                        .messageSeq(newSeq)
-                                        .build();
-                                
-                                chatFileRepository.save(chatFile);
-                                log.info("[Chat] 파일 DB 기록 완료: {}", i);
-                                
-                                // DTO 변환
-                                fileDTOs.add(chatFileToTicketFileDTO(chatFile));
-                            } catch (Exception e) {
-                                log.error("[Chat] 파일 저장 실패: {}", file.getOriginalFilename(), e);
-                            }
-                        }
-                    }
-                    
-                    ChatParticipant senderParticipant = chatParticipantRepository
-                            .findByChatRoomIdAndUserId(roomId, senderId)
-                            .orElse(null);
-                    
-                    if (senderParticipant != null) {
-                        senderParticipant.markRead(newSeq);
-                        log.info("[Chat] 발신자 자동 읽음 처리 | roomId={} | senderId={} | messageSeq={}",
-                                roomId, senderId, newSeq);
-                    }
-                    
-                    // unreadCount/isRead 계산용 참여자 맵
-                    List<ChatParticipant> participants = chatParticipantRepository
-                            .findByChatRoomIdAndStatus(roomId, ChatStatus.ACTIVE);
-                    Map<String, Long> lastReadSeqMap = participants.stream()
-                            .collect(Collectors.toMap(
-                                    ChatParticipant::getUserId,
-                                    ChatParticipant::getLastReadSeq,
-                                    (a, b) -> a
-                            ));
-                    
-                    ChatMessageDTO dto = toChatMessageDTOOptimized(message, senderId, room, lastReadSeqMap);
-                    dto.setTicketTrigger(false);
-                    dto.setProfanityDetected(profanityDetected);
-                    dto.setFiles(fileDTOs);
-                    
-                    long saveTime = System.currentTimeMillis();
-                    log.info("[Chat] AI 처리 완료 - 메시지 저장 및 브로드캐스트 (파일 포함) | roomId={} | messageSeq={} | totalElapsed={}ms", 
-                            roomId, newSeq, (saveTime - processStartTime));
-                    
-                    // ✅ AI 처리 완료 후에만 브로드캐스트 (정제된 메시지만 전송)
-                    messagingTemplate.convertAndSend("/topic/chat/" + roomId, dto);
-                    
-                } catch (Exception e) {
-                    long errorTime = System.currentTimeMillis();
-                    log.error("[Chat] AI 처리 후 메시지 저장 실패 (파일 포함) | roomId={} | error={} | elapsed={}ms", 
-                            roomId, e.getMessage(), (errorTime - processStartTime), e);
-                    
-                    // 에러 발생 시 발신자에게만 에러 알림
-                    String nickname = memberRepository.findById(senderId)
-                            .map(m -> m.getNickname())
-                            .orElse(senderId);
-                    
-                    ChatMessageDTO errorDto = ChatMessageDTO.builder()
-                            .id(null)
-                            .chatRoomId(roomId)
-                            .messageSeq(null)
-                            .senderId(senderId)
-                            .senderNickname(nickname)
-                            .messageType(ChatMessageType.SYSTEM)
-                            .content("메시지 처리 중 오류가 발생했습니다.")
-                            .ticketId(null)
-                            .createdAt(null)
-                            .ticketTrigger(false)
-                            .unreadCount(null)
-                            .isRead(null)
-                            .profanityDetected(false)
-                            .files(new ArrayList<>())
-                            .build();
-                    
-                    messagingTemplate.convertAndSend("/topic/chat/" + roomId, errorDto);
-                }
-            },
-            // 에러 콜백
-            error -> {
-                String errorThreadId = Thread.currentThread().getName();
-                long errorTime = System.currentTimeMillis();
-                
-                log.error("[Chat] AI 처리 에러 콜백 (파일 포함) | roomId={} | errorThread={} | processThread={} | errorTime={} | elapsed={}ms | error={}", 
-                        roomId, errorThreadId, processThreadId, errorTime, (errorTime - processStartTime), error.getMessage());
-                
-                // 에러 발생 시 원문을 저장하지 않고 에러 메시지만 전송
-                String nickname = memberRepository.findById(senderId)
-                        .map(m -> m.getNickname())
-                        .orElse(senderId);
-                
-                ChatMessageDTO errorDto = ChatMessageDTO.builder()
-                        .id(null)
-                        .chatRoomId(roomId)
-                        .messageSeq(null)
-                        .senderId(senderId)
-                        .senderNickname(nickname)
-                        .messageType(ChatMessageType.SYSTEM)
-                        .content("메시지 처리 중 오류가 발생했습니다.")
-                        .ticketId(null)
-                        .createdAt(null)
-                        .ticketTrigger(false)
-                        .unreadCount(null)
-                        .isRead(null)
-                        .profanityDetected(false)
-                        .files(new ArrayList<>())
-                        .build();
-                
-                messagingTemplate.convertAndSend("/topic/chat/" + roomId, errorDto);
-            }
-        );
-    }
     
     @Override
     public void markAsRead(Long roomId, ChatReadUpdateDTO readDTO, String userId) {
@@ -1071,6 +903,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 .messageType(message.getMessageType())
                 .content(message.getContent())
                 .ticketId(message.getTicketId())
+                .aiReviewRequired(message.getAiReviewRequired())
                 .createdAt(message.getCreatedAt())
                 .ticketTrigger(false)
                 .unreadCount(unreadCount)
@@ -1110,6 +943,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 .messageType(message.getMessageType())
                 .content(message.getContent())
                 .ticketId(message.getTicketId())
+                .aiReviewRequired(message.getAiReviewRequired())
                 .createdAt(message.getCreatedAt())
                 .ticketTrigger(false)
                 .profanityDetected(false)
@@ -0,0 +1,562 @@
+package com.desk.service.chat.ai;
+
+import com.desk.dto.chat.AiChatJobDTO;
+import com.desk.service.chat.ChatMessageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo.XInfoGroup;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * [채팅 AI 정제 작업 큐]
+ * 예전에는 afterCommit 콜백에서 바로 AI 정제를 걸었기 때문에, 배포/장애로 프로세스가 내려가면
+ * 처리 중이던 메시지가 아무 흔적 없이 사라졌다. (발신자 화면에는 "[AI 처리 중...]" 만 남음)
+ *
+ * 1. 적재     : 커밋 후 작업을 Redis Stream(ai.chat.queue.stream) 에 XADD 한다.
+ *              Redis 가 안 되거나 큐를 끄면 예전처럼 이 프로세스 안에서 바로 처리한다. (메시지 유실 < 지연)
+ * 2. 소비     : consumer group 으로 여러 인스턴스가 나눠 처리하고, 결과 저장 후 XACK 한다.
+ * 3. 재시도   : 저장 실패 시 지수 backoff 로 retry ZSET 에 넣었다가 다시 스트림으로 올린다.
+ *              AI 결과는 작업에 담아 두므로 재시도 때 AI 를 다시 호출하지 않는다.
+ * 4. dead-letter : max-attempts 를 넘긴 작업은 {stream}:dead 로 옮기고 발신자에게 오류를 알린다.
+ * 5. 멱등     : chat_message.ai_job_id 유니크 → 재전달된 작업이 메시지를 두 번 만들지 않는다.
+ *              유니크 위반은 같은 jobId 로 저장된 메시지가 있을 때만 중복으로 본다. (다른 제약 위반은 일반 실패처럼 재시도 / dead-letter)
+ * 6. 회수     : 다른(죽은) 인스턴스가 claim-idle-ms 이상 잡고 있는 작업은 XCLAIM 으로 가져온다.
+ *              처리 중인 작업은 주기적으로 자기 자신에게 XCLAIM JUSTID 해서 idle 시간을 초기화한다. (긴 AI 호출 보호)
+ *              JUSTID 는 전달 횟수를 올리지 않으므로, 전달 횟수는 "잡고 있던 인스턴스가 죽은 횟수" 가 된다.
+ *              회수할 때 그 횟수가 max-attempts 를 넘으면(처리할 때마다 프로세스를 죽이는 작업) dead-letter 하고 발신자에게 알린다.
+ * 7. 정리     : 스트림이 max-length 를 넘으면 ack 까지 끝난 항목만 XTRIM MINID 로 지운다.
+ *              (MAXLEN 으로 자르면 아직 전달되지 않았거나 처리 중인 작업이 사라진다)
+ * 8. drain    : 종료 시 새 작업을 읽지 않고 처리 중인 작업이 끝날 때까지(drain-timeout-ms) 기다린다.
+ *              끝내지 못한 작업은 스트림에 pending 으로 남아 다른 인스턴스가 회수한다.
+ */
+@Component
+@Log4j2
+public class AiChatJobQueue implements SmartLifecycle {
+
+    private static final String FIELD_JOB = "job";
+    private static final String FIELD_ERROR = "error";
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    /**
+     * 작업 1건 처리 결과
+     */
+    enum Outcome {
+        DONE, DUPLICATE, RETRY, DEAD
+    }
+
+    private final StringRedisTemplate redis;
+    private final AiMessageProcessor aiMessageProcessor;
+    // ChatMessageServiceImpl 이 이 큐를 주입받으므로 지연 조회 (순환 참조 방지)
+    private final ObjectProvider<ChatMessageService> chatMessageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${ai.chat.queue.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.chat.queue.stream:ai:chat:jobs}")
+    private String stream;
+
+    @Value("${ai.chat.queue.group:ai-chat-workers}")
+    private String group;
+
+    @Value("${ai.chat.queue.concurrency:2}")
+    private int concurrency;
+
+    // Lettuce commandTimeout(2000ms) 보다 짧아야 한다.
+    @Value("${ai.chat.queue.block-ms:1000}")
+    private long blockMs;
+
+    @Value("${ai.chat.queue.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${ai.chat.queue.backoff-ms:2000}")
+    private long backoffMs;
+
+    @Value("${ai.chat.queue.claim-idle-ms:60000}")
+    private long claimIdleMs;
+
+    @Value("${ai.chat.queue.drain-timeout-ms:20000}")
+    private long drainTimeoutMs;
+
+    @Value("${ai.chat.queue.max-length:10000}")
+    private long maxLength;
+
+    private final String consumerName = ManagementFactory.getRuntimeMXBean().getName(); // pid@host
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>(); // recordId → 시작 시각
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor(); // 회수한 작업 / 로컬 fallback 처리
+    private ScheduledExecutorService maintenance;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong localFallback = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+
+    public AiChatJobQueue(StringRedisTemplate redis,
+                          AiMessageProcessor aiMessageProcessor,
+                          ObjectProvider<ChatMessageService> chatMessageService) {
+        this.redis = redis;
+        this.aiMessageProcessor = aiMessageProcessor;
+        this.chatMessageService = chatMessageService;
+    }
+
+    /**
+     * 작업 적재 (트랜잭션 커밋 후 호출)
+     * 큐를 쓸 수 없으면 이 프로세스에서 바로 처리한다.
+     */
+    public void submit(AiChatJobDTO job) {
+        if (job.getJobId() == null) job.setJobId(UUID.randomUUID().toString());
+        if (job.getEnqueuedAt() == 0) job.setEnqueuedAt(System.currentTimeMillis());
+
+        if (enabled) {
+            try {
+                RecordId id = redis.opsForStream().add(stream, Map.of(FIELD_JOB, objectMapper.writeValueAsString(job)));
+                enqueued.incrementAndGet();
+                log.info("[AI Queue] 작업 적재 | jobId={} | roomId={} | recordId={}", job.getJobId(), job.getRoomId(), id);
+                return;
+            } catch (Exception e) {
+                log.warn("[AI Queue] 적재 실패 - 로컬 처리로 전환 | jobId={} | error={}", job.getJobId(), e.getMessage());
+            }
+        }
+        localFallback.incrementAndGet();
+        executor.submit(() -> runLocally(job));
+    }
+
+    // ========================================================
+    // Lifecycle
+    // ========================================================
+
+    @Override
+    public void start() {
+        if (running) return;
+        running = true; // 큐를 꺼도 stop() 에서 로컬 처리분을 drain 한다.
+        if (!enabled) return;
+        ensureGroup();
+
+        for (int i = 0; i < Math.max(1, concurrency); i++) {
+            workers.add(Thread.ofVirtual().name("ai-chat-worker-" + i).start(this::pollLoop));
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ai-chat-queue-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::promoteDueRetries, 1, 1, TimeUnit.SECONDS);
+        long claimTick = Math.max(1_000, claimIdleMs / 3);
+        maintenance.scheduleWithFixedDelay(this::heartbeatInFlight, claimTick, claimTick, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::reclaimIdle, claimTick, claimTick, TimeUnit.MILLISECONDS);
+
+        log.info("[AI Queue] 워커 시작 | stream={} | group={} | consumer={} | concurrency={}",
+                stream, group, consumerName, workers.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (maintenance != null) maintenance.shutdownNow();
+
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.clear();
+
+        if (inFlight.isEmpty()) {
+            log.info("[AI Queue] drain 완료");
+        } else {
+            log.warn("[AI Queue] drain timeout - 미완료 작업은 다른 인스턴스가 회수 | inFlight={}", inFlight.keySet());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 웹 서버 graceful shutdown 이후(요청이 적재를 마친 뒤), Redis 연결 팩토리(phase 0) 보다 먼저 멈춘다.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    // ========================================================
+    // 소비
+    // ========================================================
+
+    private void pollLoop() {
+        StreamReadOptions options = StreamReadOptions.empty().count(1).block(Duration.ofMillis(blockMs));
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> records = redis.opsForStream().read(
+                        Consumer.from(group, consumerName), options, StreamOffset.create(stream, ReadOffset.lastConsumed()));
+                if (records == null) continue;
+                for (MapRecord<String, Object, Object> record : records) {
+                    handleRecord(record);
+                }
+            } catch (Exception e) {
+                if (!running) break;
+                log.warn("[AI Queue] 스트림 읽기 실패 | error={}", e.getMessage());
+                sleepQuietly(Math.max(blockMs, 1_000));
+                ensureGroup(); // 스트림이 지워졌거나 Redis 가 재시작된 경우
+            }
+        }
+    }
+
+    private void handleRecord(MapRecord<String, Object, Object> record) {
+        String recordId = record.getId().getValue();
+        inFlight.put(recordId, System.currentTimeMillis());
+        try {
+            Object raw = record.getValue().get(FIELD_JOB);
+            AiChatJobDTO job;
+            try {
+                job = objectMapper.readValue(String.valueOf(raw), AiChatJobDTO.class);
+            } catch (Exception e) {
+                log.error("[AI Queue] 작업 역직렬화 실패 - dead-letter | recordId={}", recordId);
+                deadLetter(String.valueOf(raw), "unreadable: " + e.getMessage());
+                ack(record.getId());
+                return;
+            }
+
+            Outcome outcome = process(job);
+            switch (outcome) {
+                case RETRY -> scheduleRetry(job);
+                case DEAD -> deadLetter(objectMapper.writeValueAsString(job), job.getLastError());
+                default -> {
+                }
+            }
+            ack(record.getId());
+        } catch (Exception e) {
+            // ack 전에 실패: pending 으로 남아 claim-idle-ms 후 회수된다.
+            log.error("[AI Queue] 작업 처리 중 큐 오류 | recordId={} | error={}", recordId, e.getMessage(), e);
+        } finally {
+            inFlight.remove(recordId);
+        }
+    }
+
+    /**
+     * 작업 1건 처리: AI 정제(아직 안 했으면) → 결과 저장/브로드캐스트
+     * Redis 와 무관하므로 로컬 fallback 과 공유한다.
+     */
+    Outcome process(AiChatJobDTO job) {
+        try {
+            if (!job.isProcessed()) {
+                AiMessageProcessor.ProcessResult result = aiMessageProcessor.processMessage(job.getContent(), true);
+                job.setProcessedContent(result.getProcessedContent() != null ? result.getProcessedContent() : "");
+                job.setAiTicketTrigger(result.isTicketTrigger());
+                job.setReviewRequired(result.isReviewRequired());
+            }
+            chatMessageService.getObject().applyAiResult(job);
+            processed.incrementAndGet();
+            return Outcome.DONE;
+        } catch (DataIntegrityViolationException e) {
+            // 같은 작업이 동시에 두 번 전달되어 다른 쪽이 먼저 저장함 (저장된 메시지로 확인)
+            if (isApplied(job)) {
+                duplicates.incrementAndGet();
+                log.info("[AI Queue] 이미 저장된 작업 | jobId={}", job.getJobId());
+                return Outcome.DUPLICATE;
+            }
+            return fail(job, e);
+        } catch (Exception e) {
+            return fail(job, e);
+        }
+    }
+
+    // 확인 자체가 실패하면 중복으로 단정하지 않는다. (재시도 때 applyAiResult 가 다시 확인)
+    private boolean isApplied(AiChatJobDTO job) {
+        try {
+            return chatMessageService.getObject().isAiJobApplied(job.getJobId());
+        } catch (Exception e) {
+            log.warn("[AI Queue] 저장 여부 확인 실패 | jobId={} | error={}", job.getJobId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // 실패 집계: 한도 전이면 재시도, 넘으면 dead-letter 후 발신자에게 알린다.
+    private Outcome fail(AiChatJobDTO job, Exception e) {
+        job.setAttempt(job.getAttempt() + 1);
+        job.setLastError(e.getClass().getSimpleName() + ": " + e.getMessage());
+        if (job.getAttempt() < maxAttempts) {
+            retried.incrementAndGet();
+            log.warn("[AI Queue] 처리 실패 - 재시도 예정 | jobId={} | attempt={} | error={}",
+                    job.getJobId(), job.getAttempt(), job.getLastError());
+            return Outcome.RETRY;
+        }
+        deadLettered.incrementAndGet();
+        log.error("[AI Queue] 재시도 한도 초과 - dead-letter | jobId={} | attempts={} | error={}",
+                job.getJobId(), job.getAttempt(), job.getLastError());
+        notifyFailure(job);
+        return Outcome.DEAD;
+    }
+
+    // 로컬 처리: 재시도 backoff 도 이 스레드에서 기다린다.
+    private void runLocally(AiChatJobDTO job) {
+        Outcome outcome;
+        while ((outcome = process(job)) == Outcome.RETRY) {
+            sleepQuietly(backoffFor(job.getAttempt()));
+            if (Thread.currentThread().isInterrupted()) {
+                log.warn("[AI Queue] 종료로 로컬 재시도 중단 | jobId={}", job.getJobId());
+                notifyFailure(job);
+                return;
+            }
+        }
+        log.debug("[AI Queue] 로컬 처리 완료 | jobId={} | outcome={}", job.getJobId(), outcome);
+    }
+
+    private void notifyFailure(AiChatJobDTO job) {
+        try {
+            chatMessageService.getObject().notifyAiFailure(job);
+        } catch (Exception e) {
+            log.warn("[AI Queue] 실패 알림 전송 실패 | jobId={} | error={}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 재시도 대기 시간: backoff-ms * 2^(attempt-1), 최대 60초
+     */
+    long backoffFor(int attempt) {
+        int shift = Math.min(Math.max(0, attempt - 1), 16);
+        return Math.min(MAX_BACKOFF_MS, backoffMs << shift);
+    }
+
+    // ========================================================
+    // 재시도 / dead-letter / 회수
+    // ========================================================
+
+    private void scheduleRetry(AiChatJobDTO job) throws Exception {
+        long dueAt = System.currentTimeMillis() + backoffFor(job.getAttempt());
+        redis.opsForZSet().add(retryKey(), objectMapper.writeValueAsString(job), dueAt);
+    }
+
+    // 기한이 된 재시도 작업을 스트림으로 되돌린다. (ZREM 에 성공한 인스턴스만 올림)
+    private void promoteDueRetries() {
+        try {
+            Set<String> due = redis.opsForZSet().rangeByScore(retryKey(), 0, System.currentTimeMillis(), 0, 50);
+            if (due == null) return;
+            for (String json : due) {
+                Long removed = redis.opsForZSet().remove(retryKey(), json);
+                if (removed == null || removed == 0) continue;
+                redis.opsForStream().add(stream, Map.of(FIELD_JOB, json));
+            }
+        } catch (Exception e) {
+            log.warn("[AI Queue] 재시도 작업 이동 실패 | error={}", e.getMessage());
+        }
+    }
+
+    private void deadLetter(String json, String error) {
+        redis.opsForStream().add(deadKey(), Map.of(FIELD_JOB, json, FIELD_ERROR, String.valueOf(error)));
+    }
+
+    // 처리 중인 작업의 idle 시간을 초기화해서 다른 인스턴스가 회수하지 않게 한다.
+    // 일반 XCLAIM 은 호출마다 전달 횟수를 올리므로 JUSTID 로 한다. (긴 AI 호출이 회수 때 dead-letter 되지 않게)
+    private void heartbeatInFlight() {
+        if (inFlight.isEmpty()) return;
+        try {
+            RecordId[] ids = inFlight.keySet().stream().map(RecordId::of).toArray(RecordId[]::new);
+            XClaimOptions options = XClaimOptions.minIdle(Duration.ZERO).ids(ids);
+            redis.execute((RedisCallback<List<RecordId>>) (RedisConnection c) -> c.streamCommands()
+                    .xClaimJustId(stream.getBytes(StandardCharsets.UTF_8), group, consumerName, options));
+        } catch (Exception e) {
+            log.warn("[AI Queue] heartbeat 실패 | error={}", e.getMessage());
+        }
+    }
+
+    // 죽은 consumer 가 잡고 있던 작업을 가져와 처리한다. 죽은 횟수(전달 횟수)가 한도를 넘으면 dead-letter.
+    private void reclaimIdle() {
+        try {
+            PendingMessages pending = redis.opsForStream().pending(stream, group, Range.unbounded(), 50);
+            for (PendingMessage pm : pending) {
+                if (inFlight.containsKey(pm.getIdAsString())) continue;
+                if (pm.getElapsedTimeSinceLastDelivery().toMillis() < claimIdleMs) continue;
+
+                List<MapRecord<String, Object, Object>> claimed = redis.opsForStream()
+                        .claim(stream, group, consumerName, Duration.ofMillis(claimIdleMs), pm.getId());
+                if (claimed == null || claimed.isEmpty()) {
+                    // 이미 trim 되어 본문이 없는 항목
+                    ack(pm.getId());
+                    continue;
+                }
+                reclaimed.incrementAndGet();
+                MapRecord<String, Object, Object> record = claimed.get(0);
+                if (pm.getTotalDeliveryCount() > maxAttempts) {
+                    deadLetterReclaimed(record, pm.getTotalDeliveryCount());
+                    continue;
+                }
+                log.info("[AI Queue] 유휴 작업 회수 | recordId={} | from={}", pm.getIdAsString(), pm.getConsumerName());
+                inFlight.put(pm.getIdAsString(), System.currentTimeMillis()); // 제출 전에 표시 (중복 회수 방지)
+                executor.submit(() -> handleRecord(record));
+            }
+            trimAcked();
+        } catch (Exception e) {
+            log.warn("[AI Queue] 유휴 작업 회수 실패 | error={}", e.getMessage());
+        }
+    }
+
+    // max-length 를 넘은 스트림에서 ack 된 항목만 지운다. (근사 MINID: 경계 아래 항목을 덜 지울 수는 있어도 더 지우지는 않음)
+    private void trimAcked() {
+        Long size = redis.opsForStream().size(stream);
+        if (size == null || size <= maxLength) return;
+        String minId = trimBoundary();
+        if (minId == null) return;
+        redis.execute((RedisCallback<Object>) (RedisConnection c) -> c.execute("XTRIM",
+                stream.getBytes(StandardCharsets.UTF_8), "MINID".getBytes(StandardCharsets.UTF_8),
+                "~".getBytes(StandardCharsets.UTF_8), minId.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 이 id 보다 작은 항목은 모두 전달되고 ack 된 것이다.
+     * - pending 이 있으면 가장 오래된 pending 항목
+     * - 없으면 그룹이 마지막으로 전달한 항목 바로 다음 (그 뒤는 아직 읽지 않은 작업)
+     */
+    private String trimBoundary() {
+        PendingMessagesSummary summary = redis.opsForStream().pending(stream, group);
+        if (summary != null && summary.getTotalPendingMessages() > 0) {
+            return summary.minMessageId();
+        }
+        return redis.opsForStream().groups(stream).stream()
+                .filter(g -> group.equals(g.groupName()))
+                .map(XInfoGroup::lastDeliveredId)
+                .map(AiChatJobQueue::nextId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 스트림 id 바로 다음 id ("1700000000000-5" → "1700000000000-6")
+     */
+    static String nextId(String id) {
+        int dash = id.indexOf('-');
+        if (dash < 0) return id + "-1";
+        return id.substring(0, dash + 1) + (Long.parseLong(id.substring(dash + 1)) + 1);
+    }
+
+    // 처리하던 인스턴스가 매번 죽은 작업: process() 의 DEAD 와 같이 dead-letter 후 발신자에게 알린다.
+    private void deadLetterReclaimed(MapRecord<String, Object, Object> record, long deliveries) throws Exception {
+        deadLettered.incrementAndGet();
+        String json = String.valueOf(record.getValue().get(FIELD_JOB));
+        String error = "consumer died " + (deliveries - 1) + " times";
+        log.error("[AI Queue] 처리 중 인스턴스 종료 반복 - dead-letter | recordId={} | deliveries={}",
+                record.getId().getValue(), deliveries);
+        AiChatJobDTO job = null;
+        try {
+            job = objectMapper.readValue(json, AiChatJobDTO.class);
+            job.setLastError(error);
+            json = objectMapper.writeValueAsString(job);
+        } catch (Exception e) {
+            error = "unreadable: " + e.getMessage();
+        }
+        deadLetter(json, error);
+        ack(record.getId());
+        if (job != null) notifyFailure(job);
+    }
+
+    private void ack(RecordId id) {
+        redis.opsForStream().acknowledge(stream, group, id);
+    }
+
+    private void ensureGroup() {
+        try {
+            redis.execute((RedisCallback<String>) (RedisConnection c) -> c.streamCommands()
+                    .xGroupCreate(stream.getBytes(StandardCharsets.UTF_8), group, ReadOffset.from("0"), true));
+            log.info("[AI Queue] consumer group 생성 | stream={} | group={}", stream, group);
+        } catch (Exception e) {
+            // BUSYGROUP: 이미 있음 (정상)
+            log.debug("[AI Queue] consumer group 확인 | {}", e.getMessage());
+        }
+    }
+
+    private String retryKey() {
+        return stream + ":retry";
+    }
+
+    private String deadKey() {
+        return stream + ":dead";
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 상태 스냅샷 (관리/모니터링용)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("running", running);
+        result.put("stream", stream);
+        result.put("consumer", consumerName);
+        result.put("inFlight", inFlight.size());
+        result.put("enqueued", enqueued.get());
+        result.put("localFallback", localFallback.get());
+        result.put("processed", processed.get());
+        result.put("duplicates", duplicates.get());
+        result.put("retried", retried.get());
+        result.put("deadLettered", deadLettered.get());
+        result.put("reclaimed", reclaimed.get());
+        if (enabled) {
+            try {
+                result.put("streamLength", redis.opsForStream().size(stream));
+                result.put("retryScheduled", redis.opsForZSet().zCard(retryKey()));
+                result.put("deadLength", redis.opsForStream().size(deadKey()));
+            } catch (Exception e) {
+                result.put("redisError", e.getMessage());
+            }
+        }
+        return result;
+    }
+}
@@ -1,8 +1,14 @@
 package com.desk.service.chat.ai;
 
 import com.desk.config.OllamaConfig;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.desk.service.ai.AiCallGuard;
+import com.desk.service.ai.AiEndpointRouter;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiJsonParser;
+import com.desk.service.ai.AiJsonSchema;
+import com.desk.service.ai.AiUsageAccountant;
+import com.desk.util.AiUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
@@ -10,6 +16,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
@@ -18,13 +25,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
-import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeoutException;
 
 /**
  * Ollama API 클라이언트
@@ -37,9 +42,13 @@ import java.util.concurrent.TimeoutException;
 public class OllamaClient {
 
     private final OllamaConfig ollamaConfig;
+    private final AiCallGuard aiCallGuard;
+    private final AiEndpointRouter endpointRouter;
+    private final AiUsageAccountant usageAccountant;
 
-    // ObjectMapper는 직접 생성해도 되지만, 성능/일관성 위해 하나만 둠
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // false 면 스키마 대신 format:"json" (스키마 미지원 Ollama 버전용)
+    @Value("${ai.json.schema-enabled:true}")
+    private boolean schemaEnabled;
 
     private WebClient webClient;
 
@@ -59,8 +68,8 @@ public class OllamaClient {
                             .addHandlerLast(new WriteTimeoutHandler(10)) // 쓰기 timeout: 10초
                     );
             
+            // baseUrl 은 호출마다 AiEndpointRouter 가 고른다.
             webClient = WebClient.builder()
-                    .baseUrl(ollamaConfig.getBaseUrl())
                     .clientConnector(new ReactorClientHttpConnector(httpClient))
                     .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                     .defaultHeader("X-API-Key", ollamaConfig.getApiKey())
@@ -103,10 +112,10 @@ public class OllamaClient {
 
     /**
      * Timeout 처리 전략:
-     * 1. WebClient 레벨: HttpClient에 responseTimeout(35초) 설정
-     * 2. Reactor 레벨: .timeout(Duration.ofSeconds(30)) - WebClient timeout보다 짧게
-     * 3. Cloud 모델: 별도 timeout 정책 및 옵션 적용
-     * 4. 모든 에러는 onErrorResume으로 fallback 처리
+     * 1. WebClient 레벨: HttpClient에 responseTimeout(360초) 설정 (최종 상한)
+     * 2. AiCallGuard: 최근 p99 기반 적응형 timeout + 서킷 브레이커 + 동시 실행 제한
+     * 3. Cloud 모델: 별도 옵션 적용
+     * 4. 모든 에러는 원문 fallback (reviewRequired=true) 처리
      * 
      * @param originalMessage 원문 메시지
      * @return Mono<FilterResult>
@@ -207,37 +216,43 @@ public class OllamaClient {
         requestBody.put("model", modelName);
         requestBody.put("messages", List.of(systemMessage, userMessage));
         requestBody.put("stream", false);
-        requestBody.put("format", "json");
+        // 응답 스키마 강제 (filteredMessage / shouldCreateTicket 키와 타입 고정)
+        requestBody.put("format", AiJsonSchema.format(AiFeature.CHAT_FILTER, schemaEnabled));
         requestBody.put("think", false);
+        requestBody.put("keep_alive", ollamaConfig.getKeepAlive());
         
         // Cloud 모델 여부에 따라 옵션 분기
         requestBody.put("options", getModelOptions(modelName, isCloud));
 
-        // timeout: 6분 (360초) - 임시 설정
-        Duration timeoutDuration = Duration.ofSeconds(360);
-        
-        log.info("[Ollama] 필터링 요청 | baseUrl={} | model={} | isCloud={} | timeout={}s", 
-                ollamaConfig.getBaseUrl(), modelName, isCloud, timeoutDuration.getSeconds());
+        // timeout: 고정 6분 대신 AiCallGuard 의 적응형 timeout (최근 p99 기반)
+        log.info("[Ollama] 필터링 요청 | model={} | isCloud={} | timeout={}ms", 
+                modelName, isCloud, aiCallGuard.currentTimeoutMs(AiFeature.CHAT_FILTER));
+
+        // 응답은 다른 스레드(netty)에서 오므로 호출 주체를 미리 잡아 둔다. (토큰 집계용)
+        AiUsageAccountant.Caller caller = usageAccountant.currentCaller();
 
-        // Fallback 결과 (에러 발생 시 사용)
+        // Fallback 결과 (에러/서킷 OPEN/timeout 시 사용): 원문 그대로 전송 + 검토 필요 표시
         FilterResult fallbackResult = FilterResult.builder()
                 .filteredMessage(originalMessage.trim())
                 .shouldCreateTicket(false)
+                .reviewRequired(true)
                 .build();
 
-        return getWebClient()
-                .post()
-                .uri("/api/chat")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Map.class)
-                // Reactor 레벨 timeout: WebClient timeout보다 짧게 설정하여 명시적으로 에러 발생
-                .timeout(timeoutDuration)
+        return aiCallGuard.executeMono(AiFeature.CHAT_FILTER, () -> endpointRouter.callMono(AiFeature.CHAT_FILTER, modelName,
+                        baseUrl -> getWebClient()
+                                .post()
+                                .uri(baseUrl + "/api/chat")
+                                .bodyValue(requestBody)
+                                .retrieve()
+                                .bodyToMono(Map.class))
                 // map 연산자 사용 (flatMap 대신) - timeout이 제대로 전파되도록
                 .map(rawResponse -> {
                     // content 변수를 try 블록 밖에서 선언하여 catch 블록에서도 접근 가능하도록 함
                     String content = null;
                     try {
+                        usageAccountant.recordTokens(caller, AiFeature.CHAT_FILTER,
+                                toLong(rawResponse.get("prompt_eval_count")), toLong(rawResponse.get("eval_count")));
+
                         // 1) 응답에서 message.content(문자열) 뽑기
                         content = extractContent(rawResponse);
 
@@ -247,14 +262,12 @@ public class OllamaClient {
                             return fallbackResult;
                         }
 
-                        // 3) content는 JSON 문자열이어야 함. 파싱
-                        Map<String, Object> parsed = objectMapper.readValue(
-                                content,
-                                new TypeReference<Map<String, Object>>() {}
-                        );
+                        // 3) content 에서 첫 유효 JSON 객체 추출 (<think>/코드펜스/잡담/trailing comma 허용)
+                        JsonNode parsed = AiJsonParser.parseObject(content);
 
-                        String filteredMessage = parsed.get("filteredMessage") != null
-                                ? parsed.get("filteredMessage").toString()
+                        JsonNode filteredNode = parsed.get("filteredMessage");
+                        String filteredMessage = filteredNode != null && !filteredNode.isNull()
+                                ? filteredNode.asText()
                                 : null;
 
                         boolean shouldCreateTicket = parseBoolean(parsed.get("shouldCreateTicket"));
@@ -281,24 +294,23 @@ public class OllamaClient {
                                 .shouldCreateTicket(shouldCreateTicket)
                                 .build();
                     }
-                })
-                // WebClientResponseException: HTTP 에러 (4xx, 5xx)
-                .onErrorResume(WebClientResponseException.class, ex -> {
-                    log.error("[Ollama] HTTP 에러 | status={} | error={} | model={}",
-                            ex.getStatusCode(), ex.getMessage(), modelName);
-                    return Mono.just(fallbackResult);
-                })
-                // TimeoutException: Reactor timeout 발생
-                .onErrorResume(TimeoutException.class, ex -> {
-                    log.error("[Ollama] Timeout 발생 | timeout={}s | model={} | isCloud={}",
-                            timeoutDuration.getSeconds(), modelName, isCloud);
-                    return Mono.just(fallbackResult);
-                })
-                // 기타 모든 예외 (네트워크 에러, 파싱 에러 등)
-                .onErrorResume(Exception.class, ex -> {
-                    log.error("[Ollama] 예외 발생 | type={} | error={} | model={}",
-                            ex.getClass().getSimpleName(), ex.getMessage(), modelName, ex);
-                    return Mono.just(fallbackResult);
+                }),
+                // 에러는 AiCallGuard 가 서킷/지연 통계에 반영한 뒤 여기로 전달된다.
+                ex -> {
+                    if (ex instanceof WebClientResponseException wex) {
+                        // HTTP 에러 (4xx, 5xx)
+                        log.error("[Ollama] HTTP 에러 | status={} | error={} | model={}",
+                                wex.getStatusCode(), wex.getMessage(), modelName);
+                    } else if (ex instanceof AiUnavailableException) {
+                        // 서킷 OPEN / 동시 실행 초과 / timeout
+                        log.error("[Ollama] AI 사용 불가 -> 원문 전송(검토 필요) | reason={} | model={} | isCloud={}",
+                                ex.getMessage(), modelName, isCloud);
+                    } else {
+                        // 기타 모든 예외 (네트워크 에러 등)
+                        log.error("[Ollama] 예외 발생 | type={} | error={} | model={}",
+                                ex.getClass().getSimpleName(), ex.getMessage(), modelName, ex);
+                    }
+                    return fallbackResult;
                 })
                 // 최종 안전장치: 모든 에러를 잡아서 fallback 반환
                 .onErrorReturn(fallbackResult);
@@ -328,10 +340,14 @@ public class OllamaClient {
         return contentObj != null ? contentObj.toString() : null;
     }
 
-    private boolean parseBoolean(Object obj) {
-        if (obj == null) return false;
-        if (obj instanceof Boolean) return (Boolean) obj;
-        return Boolean.parseBoolean(obj.toString());
+    private static long toLong(Object obj) {
+        return obj instanceof Number n ? n.longValue() : 0L;
+    }
+
+    private boolean parseBoolean(JsonNode node) {
+        if (node == null || node.isNull()) return false;
+        if (node.isBoolean()) return node.booleanValue();
+        return Boolean.parseBoolean(node.asText());
     }
 
     // -----------------------
@@ -343,5 +359,7 @@ public class OllamaClient {
     public static class FilterResult {
         private String filteredMessage;
         private boolean shouldCreateTicket;
+        // AI 정제 없이 원문이 반환된 경우 true (검토 필요)
+        private boolean reviewRequired;
     }
 }
@@ -84,39 +84,50 @@ public class AITicketPromptUtil {
             ### 참고 가이드라인 (RAG) ###
             %s
             
-            ### 현재 티켓 상태 (JSON) ###
+            ### 이전 대화 요약 ###
             %s
             
+            ### 최근 대화 ###
+            %s
+            
+            ### 현재 티켓 상태 ###
+            - 기존 필드(요약): %s
+            - 변경/추가된 필드(JSON): %s
+            
             ### 사용자 입력 ###
             %s
             
             ### 출력 형식 (JSON 필수) ###
             반드시 아래 JSON 포맷을 준수하여 응답해야 합니다. 마크다운(```)이나 잡담을 섞지 마십시오. 순수 JSON 문자열만 출력하십시오.
+            **updatedTicket 에는 이번 턴에 새로 채우거나 수정할 필드만 넣으십시오.** (변경 없는 필드는 생략, 서버가 기존 값과 병합합니다)
             {
-                "analysis": "사용자 의도 분석 내용",
+                "analysis": "사용자 의도 분석 내용 (한 문장)",
                 "updatedTicket": {
                     "title": "...",
-                    "content": "...",
-                    "purpose": "...",
-                    "requirement": "...",
                     "deadline": "YYYY-MM-DD",
-                    "grade": "MIDDLE",
-                    "receivers": [],
                     "completionRate": 0
                 },
                 "responseToUser": "사용자에게 보낼 응답 메시지"
             }
+            사용 가능한 필드: title, content, purpose, requirement, deadline, grade, receivers, completionRate
             """;
 
-    public static String getInterviewPrompt(String targetDept, String missingInfoInstruction, 
-                                          String ragContext, String currentTicketJson, String userInput) {
+    /**
+     * 압축 인터뷰 프롬프트 (AITicketConversationManager 가 만든 요약/delta/최근 대화 사용)
+     */
+    public static String getInterviewPrompt(String targetDept, String missingInfoInstruction, String ragContext,
+                                          String memory, String recentTurns,
+                                          String ticketSummary, String ticketDelta, String userInput) {
         String today = LocalDate.now().toString();
         return String.format(INTERVIEW_INSTRUCTION, 
                 targetDept, 
                 missingInfoInstruction, 
                 today, today, 
                 ragContext, 
-                currentTicketJson, 
+                memory == null || memory.isBlank() ? "(없음)" : memory,
+                recentTurns == null || recentTurns.isBlank() ? "(없음)" : recentTurns,
+                ticketSummary,
+                ticketDelta,
                 userInput);
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.desk.util;
+
+/**
+ * 사용자/부서 AI 사용량 한도(슬라이딩 윈도우)를 초과했을 때 발생
+ * - AiUnavailableException 하위 타입이므로 기존 기능별 fallback 이 그대로 적용된다.
+ * - 안내 문구를 바꾸고 싶은 호출 측만 이 타입을 따로 잡는다.
+ */
+public class AiQuotaExceededException extends AiUnavailableException {
+
+    public AiQuotaExceededException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,12 @@
+package com.desk.util;
+
+/**
+ * 대화(세션) 단위 프롬프트 토큰 예산을 모두 사용했을 때 발생
+ * - 호출 측은 AI 호출 없이 "새 대화 시작 / 현재 내용으로 전송" 안내를 반환한다.
+ */
+public class AiTokenBudgetExceededException extends RuntimeException {
+
+    public AiTokenBudgetExceededException(String msg) {
+        super(msg);
+    }
+}
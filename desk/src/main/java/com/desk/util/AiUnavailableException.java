@@ -0,0 +1,16 @@
+package com.desk.util;
+
+/**
+ * AI 서버를 사용할 수 없을 때 (서킷 OPEN / 동시 실행 초과 / timeout) 발생
+ * - 호출 측은 이 예외를 잡아 기능별 fallback 응답을 만든다.
+ */
+public class AiUnavailableException extends RuntimeException {
+
+    public AiUnavailableException(String msg) {
+        super(msg);
+    }
+
+    public AiUnavailableException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
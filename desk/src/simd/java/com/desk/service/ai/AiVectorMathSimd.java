@@ -0,0 +1,80 @@
+package com.desk.service.ai;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API(SIMD) 구현. jdk.incubator.vector 모듈이 있을 때만 AiVectorMath 가 호출한다.
+ * (모듈이 없는 JVM 에서 이 클래스를 직접 참조하면 NoClassDefFoundError)
+ * 인큐베이터 모듈 경고를 main 컴파일에서 빼려고 simd source set(src/simd/java)에 따로 둔다. (build.gradle)
+ */
+final class AiVectorMathSimd {
+
+    private static final VectorSpecies<Float> FLOAT = FloatVector.SPECIES_PREFERRED;
+    // int8 → short 로 넓혀 곱한 뒤 int 로 누적 (byte 곱은 overflow)
+    // 셋 다 lane 수가 같아야 한다: int 가 선호 크기를 채우고 short 는 1/2, byte 는 1/4 비트.
+    // 선호 크기가 128비트 이하면 byte 모양(32비트)이 없어 null → int8 은 스칼라 (하드웨어보다 큰 모양은 에뮬레이션이라 더 느림)
+    private static final VectorSpecies<Integer> INT = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORT = speciesOrNull(short.class, INT.vectorBitSize() / 2);
+    private static final VectorSpecies<Byte> BYTE = speciesOrNull(byte.class, INT.vectorBitSize() / 4);
+
+    private AiVectorMathSimd() {
+    }
+
+    static int floatLanes() {
+        return FLOAT.length();
+    }
+
+    /**
+     * int8 내적 lane 수 (0 이면 SIMD 로 못 돌려 AiVectorMath 가 스칼라를 쓴다)
+     */
+    static int int8Lanes() {
+        return BYTE == null || SHORT == null ? 0 : BYTE.length();
+    }
+
+    static float dot(float[] q, float[] data, int offset, int dim) {
+        FloatVector acc = FloatVector.zero(FLOAT);
+        int upper = FLOAT.loopBound(dim);
+        int i = 0;
+        for (; i < upper; i += FLOAT.length()) {
+            FloatVector a = FloatVector.fromArray(FLOAT, q, i);
+            FloatVector b = FloatVector.fromArray(FLOAT, data, offset + i);
+            acc = a.fma(b, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < dim; i++) {
+            sum += q[i] * data[offset + i];
+        }
+        return sum;
+    }
+
+    static int dot(byte[] q, byte[] data, int offset, int dim) {
+        IntVector acc = IntVector.zero(INT);
+        int upper = BYTE.loopBound(dim);
+        int i = 0;
+        for (; i < upper; i += BYTE.length()) {
+            ShortVector a = (ShortVector) ByteVector.fromArray(BYTE, q, i).convertShape(VectorOperators.B2S, SHORT, 0);
+            ShortVector b = (ShortVector) ByteVector.fromArray(BYTE, data, offset + i).convertShape(VectorOperators.B2S, SHORT, 0);
+            IntVector prod = (IntVector) a.mul(b).convertShape(VectorOperators.S2I, INT, 0);
+            acc = acc.add(prod);
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < dim; i++) {
+            sum += q[i] * data[offset + i];
+        }
+        return sum;
+    }
+
+    private static <E> VectorSpecies<E> speciesOrNull(Class<E> type, int bits) {
+        try {
+            return VectorSpecies.of(type, VectorShape.forBitSize(bits));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.desk.service;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.ai.AITicketCentroidRouter;
+import com.desk.service.ai.AiEmbeddingCache;
+import com.desk.service.ai.AiEmbeddingModel;
+import com.desk.service.ai.AiFeature;
+import com.desk.service.ai.AiQueryEmbeddingCache;
+import com.desk.service.ai.AiTokenEstimator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RAG 지식 적재 (백그라운드 적재 / 키워드 대체 검색 / 로컬 디렉터리 재적재 / 하이브리드 검색) 단위 테스트 (AI 서버 / DB 불필요)
+ */
+class AITicketRAGServiceImplTests {
+
+    @TempDir
+    Path dir;
+
+    private final List<String> embedded = new ArrayList<>();
+    private volatile boolean down; // true 면 임베딩 서버 장애
+    private AITicketRAGServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        OllamaConfig config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "embedModelName", "nomic-embed-text");
+        ReflectionTestUtils.setField(config, "embedDimension", 0);
+        ReflectionTestUtils.setField(config, "embedNormalize", false);
+        ReflectionTestUtils.setField(config, "embedBatchSize", 8);
+        AiEmbeddingModel model = new AiEmbeddingModel(new RecordingClient(), config);
+
+        AiEmbeddingCache embeddingCache = new AiEmbeddingCache(model);
+        ReflectionTestUtils.setField(embeddingCache, "enabled", false);
+        AiQueryEmbeddingCache queryCache = new AiQueryEmbeddingCache(model);
+        ReflectionTestUtils.setField(queryCache, "enabled", false);
+
+        service = new AITicketRAGServiceImpl(new ObjectMapper(), queryCache, embeddingCache,
+                new AITicketCentroidRouter(null, null), null);
+        ReflectionTestUtils.setField(service, "storeType", "memory");
+        ReflectionTestUtils.setField(service, "hnswEnabled", false);
+        ReflectionTestUtils.setField(service, "ingestBatchSize", 2);
+        ReflectionTestUtils.setField(service, "ingestConcurrency", 2);
+        ReflectionTestUtils.setField(service, "knowledgeDir", dir.toString());
+        ReflectionTestUtils.setField(service, "hybridEnabled", true);
+        ReflectionTestUtils.setField(service, "hybridCandidates", 20);
+        ReflectionTestUtils.setField(service, "rrfK", 60);
+        ReflectionTestUtils.setField(service, "chunkMaxTokens", 200);
+        ReflectionTestUtils.setField(service, "chunkOverlapTokens", 40);
+        ReflectionTestUtils.setField(service, "contextMaxChunks", 3);
+        ReflectionTestUtils.setField(service, "contextMaxTokens", 600);
+    }
+
+    @Test
+    @DisplayName("적재 전에는 키워드 검색, 적재 후에는 벡터 검색으로 답한다")
+    void fallsBackToKeywordsUntilLoaded() throws Exception {
+        write("{\"HR\": [\"연차 신청은 그룹웨어에서 합니다\", \"급여 명세서는 매월 25일\"]}");
+
+        assertEquals("관련 가이드라인 없음", service.searchContext("HR", "연차 신청"));
+        assertEquals(AITicketRAGService.State.LOADING, service.getState());
+
+        service.load();
+        assertEquals(AITicketRAGService.State.READY, service.getState());
+        assertTrue(service.searchContext("HR", "연차 신청 방법").contains("연차 신청은 그룹웨어에서 합니다"));
+    }
+
+    @Test
+    @DisplayName("파일이 바뀌면 바뀐 청크만 다시 임베딩하고 새 인덱스로 교체한다")
+    void reloadsOnlyChangedChunks() throws Exception {
+        write("{\"HR\": [\"연차 신청은 그룹웨어에서 합니다\", \"급여 명세서는 매월 25일\"]}");
+        service.load();
+        assertEquals(2, embedded.size());
+
+        embedded.clear();
+        service.reloadIfChanged(); // 변경 없음
+        assertTrue(embedded.isEmpty());
+
+        write("{\"HR\": [\"연차 신청은 그룹웨어에서 합니다\", \"복지 포인트는 분기마다 지급\"]}");
+        service.reloadIfChanged();
+
+        assertEquals(List.of("복지 포인트는 분기마다 지급"), embedded);
+        Map<String, Object> snapshot = service.snapshot();
+        assertEquals(1L, snapshot.get("reloads"));
+        assertEquals(1, snapshot.get("lastAdded"));
+        assertEquals(1, snapshot.get("lastRemoved"));
+        assertEquals(2, snapshot.get("documents"));
+        assertTrue(service.searchContext("HR", "복지 포인트").contains("복지 포인트는 분기마다 지급"));
+        assertFalse(service.searchContext(null, "급여 명세서").contains("급여 명세서"));
+    }
+
+    @Test
+    @DisplayName("벡터 상위 3개에 없는 오류 코드 문서를 BM25 가 RRF 로 끌어올린다")
+    void hybridPromotesExactCodeMatch() throws Exception {
+        write("{\"HR\": [\"급여 명세서는 매월 25일\", \"급여 이체 계좌 변경은 인사팀\", \"급여 공제 항목 안내\","
+                + " \"사번 조회 오류 ERR-504 는 인사 시스템 캐시 초기화\"]}");
+        service.load();
+        String query = "급여 조회 중 ERR-504 오류";
+
+        ReflectionTestUtils.setField(service, "hybridEnabled", false);
+        assertFalse(service.searchContext("HR", query).contains("ERR-504"));
+
+        ReflectionTestUtils.setField(service, "hybridEnabled", true);
+        assertTrue(service.searchContext("HR", query).contains("ERR-504"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> retrieval = (Map<String, Object>) service.snapshot().get("retrieval");
+        assertEquals(1L, retrieval.get("hybridQueries"));
+        assertEquals(1L, retrieval.get("lexicalPromoted"));
+    }
+
+    @Test
+    @DisplayName("긴 항목은 청크로 나눠 임베딩하고, 검색 결과에 항목 정보를 붙여 토큰 상한 안에서만 담는다")
+    void chunksLongEntriesAndCapsContext() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkMaxTokens", 40);
+        ReflectionTestUtils.setField(service, "chunkOverlapTokens", 20);
+        ReflectionTestUtils.setField(service, "contextMaxTokens", 60);
+        write("{\"HR\": [\"입사 첫날에는 사원증을 받습니다. 노트북은 총무팀에서 수령합니다."
+                + " 급여 계좌는 인사 시스템에 등록합니다. 연차 신청은 그룹웨어 전자결재로 올립니다."
+                + " 복지 포인트는 분기마다 지급됩니다. 보안 교육은 첫 주 안에 이수해야 합니다.\", \"짧은 항목\"]}");
+        service.load();
+
+        Map<String, Object> snapshot = service.snapshot();
+        assertEquals(2L, snapshot.get("entries"));
+        assertTrue((int) snapshot.get("documents") > 2);
+        assertTrue(embedded.stream().allMatch(t -> t.length() < 60)); // 항목 전체를 임베딩하지 않는다
+
+        String context = service.searchContext("HR", "연차 신청");
+        assertTrue(context.contains("연차 신청은 그룹웨어 전자결재로 올립니다"));
+        assertTrue(context.contains("[knowledge_hr.json#1 "));
+        assertTrue(AiTokenEstimator.estimate(context) <= 60);
+    }
+
+    @Test
+    @DisplayName("기동 때 임베딩이 실패하면 backoff 로 다시 적재해서 벡터 검색으로 돌아온다")
+    void retriesLoadAfterEmbeddingFailure() throws Exception {
+        ReflectionTestUtils.setField(service, "retryInitialMs", 20L);
+        ReflectionTestUtils.setField(service, "retryMaxMs", 40L);
+        write("{\"HR\": [\"연차 신청은 그룹웨어에서 합니다\", \"급여 명세서는 매월 25일\"]}");
+        down = true;
+        try {
+            service.load();
+            assertEquals(AITicketRAGService.State.FAILED, service.getState());
+            assertEquals(2, service.snapshot().get("unembedded"));
+            assertTrue(service.searchContext("HR", "연차 신청").contains("연차 신청은 그룹웨어에서 합니다")); // 키워드 검색
+
+            down = false;
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (service.getState() != AITicketRAGService.State.READY && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(AITicketRAGService.State.READY, service.getState());
+            assertEquals(0, service.snapshot().get("unembedded"));
+            assertEquals(0, service.snapshot().get("retryAttempt"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private void write(String json) throws Exception {
+        Path file = dir.resolve("knowledge_hr.json");
+        long previous = Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+        Files.writeString(file, json);
+        // 같은 초 안에 다시 써도 변경으로 보이게
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Math.max(previous + 2000, System.currentTimeMillis())));
+    }
+
+    // 본문에 들어 있는 키워드로 방향을 정하는 임베딩 (급여/복지/연차 축)
+    private class RecordingClient implements AITicketClientService {
+
+        @Override
+        public List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+            if (down) throw new IllegalStateException("embedding server down");
+            List<List<Double>> result = new ArrayList<>();
+            for (String t : texts) {
+                synchronized (embedded) {
+                    embedded.add(t);
+                }
+                result.add(List.of(t.contains("급여") ? 1.0 : 0.0, t.contains("복지") ? 1.0 : 0.0,
+                        t.contains("연차") ? 1.0 : 0.0, 0.01));
+            }
+            return result;
+        }
+
+        @Override
+        public String generateText(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateText(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
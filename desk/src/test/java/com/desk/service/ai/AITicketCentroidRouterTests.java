@@ -0,0 +1,96 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 임베딩 중심점 부서 라우터 단위 테스트 (임베딩 서버 / DB 불필요)
+ */
+class AITicketCentroidRouterTests {
+
+    private AITicketCentroidRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new AITicketCentroidRouter(null, null);
+        ReflectionTestUtils.setField(router, "enabled", true);
+        ReflectionTestUtils.setField(router, "minMargin", 0.05);
+        ReflectionTestUtils.setField(router, "minSimilarity", 0.3);
+
+        router.addExample("DEVELOPMENT", List.of(1.0, 0.1, 0.0));
+        router.addExample("DEVELOPMENT", List.of(0.9, 0.0, 0.1));
+        router.addExample("DESIGN", List.of(0.0, 1.0, 0.1));
+        router.addExample("FINANCE", List.of(0.1, 0.0, 1.0));
+    }
+
+    @Test
+    @DisplayName("1위/2위 중심점 차이가 충분하면 확정한다")
+    void routesByMargin() {
+        AITicketCentroidRouter.Route r = router.route(new double[]{0.95, 0.05, 0.05});
+
+        assertEquals(Department.DEVELOPMENT, r.department());
+        assertTrue(r.confident(), "margin=" + r.margin());
+    }
+
+    @Test
+    @DisplayName("두 부서 중간에 있는 질의는 LLM 으로 넘긴다")
+    void fallsBackWhenCentroidsAreClose() {
+        AITicketCentroidRouter.Route r = router.route(new double[]{0.7, 0.7, 0.05});
+
+        assertFalse(r.confident(), "margin=" + r.margin());
+    }
+
+    @Test
+    @DisplayName("확정된 예시가 쌓이면 중심점이 이동한다")
+    void centroidMovesWithNewExamples() {
+        double[] query = {0.5, 0.0, 0.6};
+        assertEquals(Department.FINANCE, router.route(query).department());
+
+        for (int i = 0; i < 5; i++) {
+            router.addExample(Department.DEVELOPMENT, new double[]{0.5, 0.0, 0.6});
+        }
+
+        assertEquals(Department.DEVELOPMENT, router.route(query).department());
+    }
+
+    @Test
+    @DisplayName("지식 문서 몫은 재적재마다 교체되고 티켓 예시는 남는다")
+    @SuppressWarnings("unchecked")
+    void replacesKnowledgeKeepingTickets() {
+        double[] query = {0.0, 0.2, 1.0};
+        assertEquals(Department.FINANCE, router.route(query).department());
+
+        AITicketCentroidRouter.KnowledgeExamples first = new AITicketCentroidRouter.KnowledgeExamples();
+        for (int i = 0; i < 10; i++) first.add("DESIGN", List.of(0.0, 0.2, 1.0));
+        first.add("HR", List.of(0.0, 0.0, 1.0));
+        router.replaceKnowledge(first);
+        assertEquals(Department.DESIGN, router.route(query).department());
+
+        // 지식 파일에서 빠진 문서는 중심점에서도 빠진다
+        router.replaceKnowledge(new AITicketCentroidRouter.KnowledgeExamples());
+        assertEquals(Department.FINANCE, router.route(query).department());
+        Map<String, Object> examples = (Map<String, Object>) router.snapshot().get("examples");
+        assertEquals(1, examples.get("DESIGN"));
+        assertFalse(examples.containsKey("HR"));
+    }
+
+    @Test
+    @DisplayName("알 수 없는 부서/차원이 다른 벡터는 무시한다")
+    @SuppressWarnings("unchecked")
+    void ignoresInvalidExamples() {
+        router.addExample("COMMON", List.of(1.0, 0.0, 0.0));
+        router.addExample("DESIGN", List.of(1.0, 0.0));
+
+        Map<String, Object> examples = (Map<String, Object>) router.snapshot().get("examples");
+        assertEquals(3, examples.size());
+        assertEquals(1, examples.get("DESIGN"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.desk.service.ai;
+
+import com.desk.dto.AITicketRequestDTO;
+import com.desk.dto.AITicketRequestDTO.AITicketInfo;
+import com.desk.dto.AITicketRequestDTO.AITicketMessage;
+import com.desk.util.AiTokenBudgetExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 인터뷰 대화 상태 압축 단위 테스트 (스프링 컨텍스트 불필요)
+ */
+class AITicketConversationManagerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AITicketConversationManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new AITicketConversationManager(objectMapper);
+        ReflectionTestUtils.setField(manager, "recentTurns", 2);
+        ReflectionTestUtils.setField(manager, "turnMaxChars", 100);
+        ReflectionTestUtils.setField(manager, "memoryMaxChars", 600);
+        ReflectionTestUtils.setField(manager, "ragMaxChars", 1200);
+        ReflectionTestUtils.setField(manager, "promptTokenCap", 2500);
+        ReflectionTestUtils.setField(manager, "sessionTokenBudget", 1000L);
+        ReflectionTestUtils.setField(manager, "sessionTtlMinutes", 60L);
+    }
+
+    @Test
+    @DisplayName("직전 턴 이후 바뀐 필드만 delta 로, 나머지는 요약으로 보낸다")
+    void sendsOnlyChangedFields() {
+        AITicketInfo ticket = AITicketInfo.builder().title("서버 점검").deadline("2026-01-20").build();
+        AITicketRequestDTO req = request("c1", "내용 추가", ticket, List.of());
+
+        AITicketConversationManager.InterviewContext first = manager.prepare(req, "", 100);
+        assertTrue(first.getTicketDelta().contains("서버 점검"));
+        manager.recordTurn("c1", 500, ticket);
+
+        ticket.setDeadline("2026-01-25");
+        AITicketConversationManager.InterviewContext second = manager.prepare(req, "", 100);
+        assertTrue(second.getTicketDelta().contains("2026-01-25"));
+        assertFalse(second.getTicketDelta().contains("서버 점검"));
+        assertTrue(second.getTicketSummary().contains("title: 서버 점검"));
+    }
+
+    @Test
+    @DisplayName("윈도우 밖 사용자 발화는 메모리로 접히고 최근 대화만 원문으로 남는다")
+    void foldsOlderTurnsIntoMemory() {
+        List<AITicketMessage> history = new ArrayList<>();
+        history.add(msg("user", "ERP 로그인 오류가 납니다. 어제부터요."));
+        history.add(msg("assistant", "어떤 화면인가요?"));
+        history.add(msg("user", "결재 화면입니다"));
+        history.add(msg("assistant", "마감일은 언제인가요?"));
+        history.add(msg("user", "다음 주 금요일"));
+
+        AITicketConversationManager.InterviewContext ctx =
+                manager.prepare(request("c2", "다음 주 금요일", new AITicketInfo(), history), "", 100);
+
+        assertTrue(ctx.getMemory().contains("ERP 로그인 오류가 납니다."));
+        assertFalse(ctx.getMemory().contains("어제부터요"));
+        assertTrue(ctx.getRecentTurns().contains("결재 화면입니다"));
+        assertFalse(ctx.getRecentTurns().contains("ERP"));
+    }
+
+    @Test
+    @DisplayName("세션 누적 토큰이 예산을 넘으면 더 이상 프롬프트를 만들지 않는다")
+    void enforcesSessionBudget() {
+        AITicketRequestDTO req = request("c3", "안녕하세요", new AITicketInfo(), List.of());
+        manager.prepare(req, "", 100);
+        manager.recordTurn("c3", 1000, new AITicketInfo());
+
+        assertThrows(AiTokenBudgetExceededException.class, () -> manager.prepare(req, "", 100));
+    }
+
+    @Test
+    @DisplayName("대화/메모리를 비워도 상한을 넘으면 delta 값을 줄이고, 지시문만으로 넘으면 프롬프트를 만들지 않는다")
+    void enforcesPromptCap() {
+        ReflectionTestUtils.setField(manager, "promptTokenCap", 300);
+        AITicketInfo ticket = AITicketInfo.builder().title("서버 점검").content("가".repeat(1000)).build();
+        AITicketRequestDTO req = request("c4", "내용 추가", ticket, List.of());
+
+        AITicketConversationManager.InterviewContext ctx = manager.prepare(req, "참고 ".repeat(200), 100);
+        assertTrue(ctx.getEstimatedTokens() <= 300);
+        assertTrue(ctx.getTicketDelta().contains("서버 점검"));
+        assertTrue(ctx.getRagContext().isEmpty());
+
+        assertThrows(AiTokenBudgetExceededException.class, () -> manager.prepare(req, "", 400));
+    }
+
+    @Test
+    @DisplayName("대화 id 가 없는 요청은 공유 버킷에 넣지 않고 거부한다")
+    void rejectsMissingConversationId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.prepare(request(null, "로그인 오류", new AITicketInfo(), List.of()), "", 100));
+        assertThrows(IllegalArgumentException.class, () -> manager.recordTurn(" ", 100, new AITicketInfo()));
+    }
+
+    @Test
+    @DisplayName("모델이 보낸 변경 필드만 병합하고 빈 값은 기존 값을 유지한다")
+    void mergesDelta() throws Exception {
+        AITicketInfo current = AITicketInfo.builder().title("기존 제목").receivers(new ArrayList<>(List.of("a@desk.com"))).build();
+        AITicketInfo merged = manager.mergeDelta(current,
+                objectMapper.readTree("{\"title\":\"\",\"deadline\":\"2026-02-01\",\"completionRate\":70}"));
+
+        assertEquals("기존 제목", merged.getTitle());
+        assertEquals("2026-02-01", merged.getDeadline());
+        assertEquals(70, merged.getCompletionRate());
+        assertEquals(List.of("a@desk.com"), merged.getReceivers());
+    }
+
+    private static AITicketRequestDTO request(String convId, String input, AITicketInfo ticket, List<AITicketMessage> history) {
+        AITicketRequestDTO req = new AITicketRequestDTO();
+        req.setConversationId(convId);
+        req.setUserInput(input);
+        req.setCurrentTicket(ticket);
+        req.setChatHistory(new ArrayList<>(history));
+        return req;
+    }
+
+    private static AITicketMessage msg(String role, String content) {
+        return AITicketMessage.builder().role(role).content(content).build();
+    }
+}
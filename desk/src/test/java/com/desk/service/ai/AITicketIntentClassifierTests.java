@@ -0,0 +1,100 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 티켓 라우팅/담당자 로컬 사전 분류기 단위 테스트 (스프링 컨텍스트 / DB 불필요)
+ */
+class AITicketIntentClassifierTests {
+
+    private AITicketIntentClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new AITicketIntentClassifier(new ObjectMapper(), null, null, AiKomoran.get());
+        ReflectionTestUtils.setField(classifier, "enabled", true);
+        ReflectionTestUtils.setField(classifier, "routeThreshold", 0.85);
+        ReflectionTestUtils.setField(classifier, "minKnownTokens", 2);
+        ReflectionTestUtils.setField(classifier, "historyLimit", 0); // 과거 티켓(DB) 제외
+        ReflectionTestUtils.setField(classifier, "scenarioPath", "data/design_scenario.json");
+        classifier.init();
+    }
+
+    @Test
+    @DisplayName("부서 고유 단어가 충분하면 LLM 없이 확정한다")
+    void routesConfidentInputLocally() {
+        AITicketIntentClassifier.Prediction p = classifier.classifyDepartment("법인카드 정산 부탁드려요");
+
+        assertTrue(p.isConfident(), "confidence=" + p.getConfidence());
+        assertEquals(Department.FINANCE, p.getDepartment());
+    }
+
+    @Test
+    @DisplayName("학습된 단어가 없으면 LLM 으로 넘긴다")
+    void escalatesUnknownInput() {
+        AITicketIntentClassifier.Prediction p = classifier.classifyDepartment("음 그게 좀 애매한데요");
+
+        assertFalse(p.isConfident());
+    }
+
+    @Test
+    @DisplayName("아는 단어가 하나뿐이면 확신도가 높아도 LLM 으로 넘긴다")
+    void escalatesSingleKnownToken() {
+        AITicketIntentClassifier.Prediction p = classifier.classifyDepartment("정산 좀요");
+
+        assertEquals(1, p.getKnownTokens());
+        assertFalse(p.isConfident(), "confidence=" + p.getConfidence());
+    }
+
+    @Test
+    @DisplayName("여러 부서에 걸친 입력은 확신도가 낮아 LLM 으로 넘긴다")
+    void escalatesAmbiguousInput() {
+        classifier.train(List.of(
+                new AITicketIntentClassifier.Sample("예산 보고서", Department.FINANCE),
+                new AITicketIntentClassifier.Sample("예산 보고서", Department.PLANNING)
+        ));
+
+        AITicketIntentClassifier.Prediction p = classifier.classifyDepartment("예산 보고서 요청");
+
+        assertFalse(p.isConfident(), "confidence=" + p.getConfidence());
+    }
+
+    @Test
+    @DisplayName("'없음' 류 표현과 닉네임 1명 언급만 로컬에서 확정한다")
+    void matchesAssigneeOnlyWhenUnambiguous() {
+        List<String> nicknames = List.of("황시우", "김철수");
+
+        assertEquals(Optional.of(AITicketIntentClassifier.COMMON_ASSIGNEE), classifier.matchAssignee("없음", nicknames));
+        assertEquals(Optional.of("황시우"), classifier.matchAssignee("황시우님요", nicknames));
+        assertEquals(Optional.of("김철수"), classifier.matchAssignee("담당은 김철수 님으로 해주세요", nicknames));
+        assertTrue(classifier.matchAssignee("김철수랑 황시우", nicknames).isEmpty());
+        assertTrue(classifier.matchAssignee("디자인팀 막내분", nicknames).isEmpty());
+    }
+
+    @Test
+    @DisplayName("escalation 비율과 절약 시간을 집계한다")
+    @SuppressWarnings("unchecked")
+    void reportsEscalationRateAndSavedLatency() {
+        classifier.classifyDepartment("법인카드 정산 부탁드려요");
+        classifier.classifyDepartment("음 그게 좀 애매한데요");
+        classifier.recordLlmLatency(AITicketIntentClassifier.Task.ROUTING, 2_000);
+
+        Map<String, Object> routing = (Map<String, Object>) classifier.snapshot().get("routing");
+
+        assertEquals(1L, routing.get("local"));
+        assertEquals(1L, routing.get("escalated"));
+        assertEquals(0.5, (double) routing.get("escalationRate"), 1e-9);
+        assertTrue((long) routing.get("savedMs") > 1_000);
+    }
+}
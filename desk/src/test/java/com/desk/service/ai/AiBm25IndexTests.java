@@ -0,0 +1,65 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BM25 키워드 인덱스 / RRF 결합 단위 테스트
+ */
+class AiBm25IndexTests {
+
+    private static final List<AiBm25Index.Document> DOCS = List.of(
+            new AiBm25Index.Document("급여 명세서는 매월 25일 그룹웨어에서 확인합니다", "HR"),
+            new AiBm25Index.Document("사번 조회 중 ERR-504 오류가 나면 인사 시스템 캐시를 비웁니다", "HR"),
+            new AiBm25Index.Document("VPN 접속 오류는 인증서를 재발급합니다", "DEVELOPMENT"),
+            new AiBm25Index.Document("ERR-504 게이트웨이 시간 초과는 로드밸런서 설정을 확인합니다", "DEVELOPMENT"));
+
+    @Test
+    @DisplayName("오류 코드는 원형 그대로 맞는 문서가 먼저 나온다")
+    void exactCodeRanksFirst() {
+        AiBm25Index index = AiBm25Index.build(DOCS);
+
+        List<KnowledgeStore.Hit> hits = index.search("ERR-504 가 떠요", null, 4);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().allMatch(h -> h.content().contains("ERR-504")));
+        assertTrue(hits.get(0).score() >= hits.get(1).score());
+        assertTrue(AiBm25Index.tokenize("사번 조회 ERR-504").contains("err-504"));
+    }
+
+    @Test
+    @DisplayName("부서 필터는 대소문자를 무시하고, 없는 부서나 모르는 단어면 빈 결과")
+    void filtersByDept() {
+        AiBm25Index index = AiBm25Index.build(DOCS);
+
+        List<KnowledgeStore.Hit> hits = index.search("ERR-504 오류", "development", 3);
+
+        assertFalse(hits.isEmpty());
+        assertTrue(hits.stream().allMatch(h -> h.dept().equals("DEVELOPMENT")));
+        assertEquals("ERR-504 게이트웨이 시간 초과는 로드밸런서 설정을 확인합니다", hits.get(0).content());
+        assertTrue(index.search("ERR-504", "FINANCE", 3).isEmpty());
+        assertTrue(index.search("출장비 정산", null, 3).isEmpty());
+        assertEquals(4, index.snapshot().get("documents"));
+    }
+
+    @Test
+    @DisplayName("RRF 는 두 목록에 모두 나온 문서를 위로 올리고 같은 문서는 한 번만 낸다")
+    void reciprocalRankFusion() {
+        KnowledgeStore.Hit a = new KnowledgeStore.Hit("a", "HR", 0.9f);
+        KnowledgeStore.Hit b = new KnowledgeStore.Hit("b", "HR", 0.8f);
+        KnowledgeStore.Hit c = new KnowledgeStore.Hit("c", "HR", 0.7f);
+        KnowledgeStore.Hit d = new KnowledgeStore.Hit("d", "hr", 12.0f);
+
+        List<KnowledgeStore.Hit> fused = AiRankFusion.reciprocalRank(
+                List.of(List.of(a, b, c), List.of(d, c)), 60, 3);
+
+        assertEquals(List.of("c", "a", "d"), fused.stream().map(KnowledgeStore.Hit::content).toList());
+        assertEquals(1.0 / 63 + 1.0 / 62, fused.get(0).score(), 1e-6);
+        assertEquals(1, AiRankFusion.reciprocalRank(List.of(List.of(a), List.of(
+                new KnowledgeStore.Hit("a", "hr", 3.0f))), 60, 3).size());
+    }
+}
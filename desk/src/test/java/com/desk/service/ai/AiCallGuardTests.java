@@ -0,0 +1,209 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 호출 보호막: HALF_OPEN 시험 호출이 결과 없이 끝났을 때(취소 / 인터럽트) 서킷이 갇히지 않는지,
+ * 서킷이 (기능, 노드) 단위로 열리는지, 보호막을 꺼도 사용량 한도가 적용되는지
+ * (스프링 컨텍스트 불필요, 사용량 한도/저장 비활성화, 노드 URL 은 호출하지 않는 가짜 주소)
+ */
+class AiCallGuardTests {
+
+    private static final AiFeature FEATURE = AiFeature.CHAT_FILTER;
+    private static final long OPEN_MS = 50;
+    private static final String NODE_A = "http://node-a:11434";
+    private static final String NODE_B = "http://node-b:11434";
+
+    private MockEnvironment env;
+    private AiRequestScheduler scheduler;
+    private AiUsageAccountant accountant;
+    private AiEndpointRouter router;
+    private AiCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        env = new MockEnvironment();
+        scheduler = new AiRequestScheduler(env);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 4);
+        scheduler.init();
+
+        accountant = new AiUsageAccountant(null, env);
+        ReflectionTestUtils.setField(accountant, "enabled", false);
+        ReflectionTestUtils.setField(accountant, "windowMinutes", 60);
+        ReflectionTestUtils.setField(accountant, "exemptFeatures", "embedding");
+        ReflectionTestUtils.setField(accountant, "persistIntervalMs", 0L);
+        accountant.init();
+
+        router = router("");
+        guard = guard(router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+        router.shutdown();
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN 시험 호출을 구독 취소하면 실패로 보고 다시 열렸다가, 대기 후 다음 호출이 다시 시험해서 CLOSED 로 돌아온다")
+    void cancelledTrialDoesNotStickHalfOpen() throws InterruptedException {
+        openBreaker();
+
+        Disposable trial = mono(base -> Mono.never()).subscribe();
+        assertEquals("HALF_OPEN", state(0));
+        trial.dispose();
+        assertEquals("OPEN", state(0));
+
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals("ok", mono(base -> Mono.just("ok")).block());
+        assertEquals("CLOSED", state(0));
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN 시험 호출을 기다리던 스레드가 인터럽트되어도 다음 호출이 다시 시험한다")
+    void interruptedTrialDoesNotStickHalfOpen() throws InterruptedException {
+        openBreaker();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        Thread caller = new Thread(() -> guard.execute(FEATURE, () -> router.call(FEATURE, null, base -> {
+            started.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        }), e -> "fallback"));
+        caller.start();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(1_000);
+        // 보호막이 실제 호출 스레드를 인터럽트해 시험 호출이 끝나면 서킷이 결과를 받아 HALF_OPEN 을 벗어난다.
+        awaitClosed();
+
+        assertEquals("ok", guard.execute(FEATURE, () -> router.call(FEATURE, null, base -> "ok"), e -> "fallback"));
+        assertEquals("CLOSED", state(0));
+    }
+
+    @Test
+    @DisplayName("한 노드가 실패해도 그 노드의 해당 기능 서킷만 열리고, 다른 노드와 다른 기능은 계속 호출된다")
+    void breakerIsScopedToFeatureAndEndpoint() {
+        tearDown();
+        router = router(NODE_A + "," + NODE_B);
+        guard = guard(router);
+
+        int fallbacks = 0;
+        for (int i = 0; i < 10; i++) {
+            String result = mono(base -> NODE_A.equals(base)
+                    ? Mono.<String>error(new IllegalStateException("down"))
+                    : Mono.just("ok")).block();
+            if (!"ok".equals(result)) fallbacks++;
+        }
+
+        // 노드 A 에서 실패 1건으로 A 의 서킷만 열리고 이후 호출은 B 로 간다.
+        assertTrue(fallbacks <= 1, "fallbacks=" + fallbacks);
+        assertEquals("OPEN", state(0));
+        assertEquals("CLOSED", state(1));
+        assertFalse(router.isCircuitOpen(FEATURE));
+        assertEquals(Boolean.FALSE, featureSnapshot().get("circuitOpen"));
+        // 다른 기능은 노드 A 로도 보낼 수 있다.
+        AiEndpointRouter.Endpoint b = router.getEndpoints().get(1);
+        assertEquals(NODE_A, router.choose(AiFeature.TICKET_ROUTING, null, b).getUrl());
+        assertNull(router.choose(FEATURE, null, b));
+    }
+
+    @Test
+    @DisplayName("보호막을 꺼도 Mono 호출에 사용량 한도가 적용된다 (한도를 넘으면 fallback)")
+    void disabledGuardStillAppliesQuotaToMono() {
+        ReflectionTestUtils.setField(guard, "enabled", false);
+        ReflectionTestUtils.setField(accountant, "enabled", true);
+        ReflectionTestUtils.setField(accountant, "memberMaxCalls", 1L);
+        AiUsageAccountant.Caller kim = new AiUsageAccountant.Caller("kim@desk.com", "DESIGN");
+
+        assertEquals("ok", accountant.callAs(kim,
+                () -> guard.executeMono(FEATURE, () -> Mono.just("ok"), e -> "fallback").block()));
+        // 첫 호출이 집계되어 두 번째는 한도 초과
+        assertEquals("fallback", accountant.callAs(kim,
+                () -> guard.executeMono(FEATURE, () -> Mono.just("ok"), e -> "fallback").block()));
+    }
+
+    // 실패 1건으로 OPEN → 대기 시간이 지나 다음 호출이 HALF_OPEN 시험 호출이 되게 한다.
+    private void openBreaker() throws InterruptedException {
+        String result = mono(base -> Mono.error(new IllegalStateException("down"))).block();
+        assertEquals("fallback", result);
+        assertEquals("OPEN", state(0));
+        assertEquals(Boolean.TRUE, featureSnapshot().get("circuitOpen"));
+        Thread.sleep(OPEN_MS + 20);
+    }
+
+    private void awaitClosed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (!"CLOSED".equals(state(0)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("CLOSED", state(0));
+    }
+
+    private Mono<String> mono(Function<String, Mono<String>> call) {
+        return guard.executeMono(FEATURE, () -> router.callMono(FEATURE, null, call), e -> "fallback");
+    }
+
+    // 노드 index 의 FEATURE 서킷 상태 (스냅샷에는 CLOSED 가 아닌 서킷만 나온다)
+    @SuppressWarnings("unchecked")
+    private String state(int index) {
+        Map<String, String> circuits = (Map<String, String>) router.snapshot().get(index).get("circuits");
+        return circuits.getOrDefault(FEATURE.getKey(), "CLOSED");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> featureSnapshot() {
+        return (Map<String, Object>) guard.snapshot().get(FEATURE.getKey());
+    }
+
+    private AiCallGuard guard(AiEndpointRouter router) {
+        AiCallGuard guard = new AiCallGuard(env, scheduler, accountant, router);
+        ReflectionTestUtils.setField(guard, "enabled", true);
+        ReflectionTestUtils.setField(guard, "p99Multiplier", 2.0);
+        ReflectionTestUtils.setField(guard, "minSamples", 10);
+        guard.init();
+        return guard;
+    }
+
+    private static AiEndpointRouter router(String endpoints) {
+        OllamaConfig config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "baseUrl", NODE_A);
+        ReflectionTestUtils.setField(config, "endpoints", endpoints);
+        ReflectionTestUtils.setField(config, "apiKey", "");
+
+        AiEndpointRouter router = new AiEndpointRouter(config);
+        ReflectionTestUtils.setField(router, "probeIntervalMs", 0L);
+        ReflectionTestUtils.setField(router, "ejectConsecutiveFailures", 3);
+        ReflectionTestUtils.setField(router, "ejectDurationMs", 60_000L);
+        ReflectionTestUtils.setField(router, "slowFactor", 3.0);
+        ReflectionTestUtils.setField(router, "slowMinGapMs", 100L);
+        ReflectionTestUtils.setField(router, "minSamples", 3);
+        ReflectionTestUtils.setField(router, "breakerEnabled", true);
+        ReflectionTestUtils.setField(router, "breakerWindowSize", 5);
+        ReflectionTestUtils.setField(router, "breakerMinCalls", 1);
+        ReflectionTestUtils.setField(router, "breakerFailureRate", 0.5);
+        ReflectionTestUtils.setField(router, "breakerOpenDurationMs", OPEN_MS);
+        router.init();
+        return router;
+    }
+}
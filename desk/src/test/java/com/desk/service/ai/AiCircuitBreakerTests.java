@@ -0,0 +1,87 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 서킷 브레이커 / 지연 통계 단위 테스트 (스프링 컨텍스트 불필요)
+ */
+class AiCircuitBreakerTests {
+
+    @Test
+    @DisplayName("실패율이 임계치를 넘으면 OPEN → 대기 후 HALF_OPEN 시험 호출 1건만 허용")
+    void opensAndRecovers() throws InterruptedException {
+        AiCircuitBreaker breaker = new AiCircuitBreaker(10, 4, 0.5, 50);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(60);
+
+        // HALF_OPEN: 첫 호출만 허용
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN 시험 호출 실패 시 다시 OPEN")
+    void halfOpenFailureReopens() throws InterruptedException {
+        AiCircuitBreaker breaker = new AiCircuitBreaker(5, 1, 0.5, 30);
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(40);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN 시험 호출이 결과 없이 끝나면(releaseTrial) 다음 호출이 다시 시험한다")
+    void releasedTrialAllowsNextTrial() throws InterruptedException {
+        AiCircuitBreaker breaker = new AiCircuitBreaker(5, 1, 0.5, 30);
+        breaker.onFailure();
+        Thread.sleep(40);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.releaseTrial();
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+
+        // CLOSED 에서는 아무 영향 없음
+        breaker.releaseTrial();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("최소 호출 수 미만이면 실패해도 OPEN 되지 않음")
+    void minCallsRespected() {
+        AiCircuitBreaker breaker = new AiCircuitBreaker(10, 5, 0.5, 1000);
+        for (int i = 0; i < 4; i++) breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("p99 는 최근 샘플 기준으로 계산")
+    void latencyPercentile() {
+        AiLatencyTracker tracker = new AiLatencyTracker(100);
+        assertEquals(-1, tracker.percentile(0.99));
+        for (int i = 1; i <= 100; i++) tracker.record(i);
+        assertEquals(99, tracker.percentile(0.99));
+        assertEquals(50, tracker.percentile(0.5));
+    }
+}
@@ -0,0 +1,230 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * [겹치는 조건 조합: 조합별 조회 vs 비트마스크] AI 파일조회에서 strict(모든 조건 AND) 0건 이후 단계의 DB 조회 수 비교
+ *
+ * - 데이터   : 파일 ROWS 개. 조건마다 값 종류 CARDINALITY 개 중 하나 (seed 고정). 인덱스가 클수록 최신
+ * - 질의     : 조건 n(2~5)개 중 1~n-1 개는 어떤 파일에도 없는 값 (잘못 파싱된 조건 → strict 0건 → 겹치는 조건 단계)
+ * - 조합별   : 큰 조합부터 조합마다 조회(최신 PAGE 건), 결과가 있는 크기에서 멈춘다 (예전 AIFileServiceImpl)
+ * - 비트마스크 : 조건 하나짜리 조회(최신 CANDIDATES 건) 후 행별 조건 비트마스크로 조합을 메모리에서 (AiConditionOverlap)
+ *              상한에 잘려 비어 보일 수 있는 조합과, 그런 조합이 뽑혔을 때의 결과만 DB 로 다시 확인
+ * - 조합 점수 : 서비스와 같게 조건 가중치(조건마다 자리수가 다름) * 1000 + 결과 수
+ *
+ * 조회 1회 = 티켓/채팅 쿼리 한 쌍. 조건 개수별로 질의당 조회 수, 가져온 행 수,
+ * 고른 조합과 상위 TOP 건이 조합별 방식과 같은 비율을 출력한다.
+ * (DB 왕복 한 번이 수 ms 라 조회 수가 곧 지연이다. 여기서는 메모리 배열이라 시간은 재지 않는다)
+ *
+ * 실행: ./gradlew aiBenchmark  (기본 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+class AiConditionOverlapBenchmarkTests {
+
+    private static final int ROWS = 20_000;
+    private static final int QUERIES = 200; // 조건 개수마다
+    private static final int PAGE = 30;
+    private static final int CANDIDATES = 200;
+    private static final int TOP = 10;
+    // 기간(월) / 부서 / 상대 / 키워드 / 확장자
+    private static final int[] CARDINALITY = {12, 8, 40, 60, 6};
+
+    private record Outcome(int mask, List<Integer> top) {
+    }
+
+    /**
+     * 최신순으로 훑어 조건을 모두 만족하는 행을 limit 개까지 (조회 수 / 가져온 행 수를 센다)
+     */
+    private static final class FakeDb {
+        final int[][] values; // [행][조건]
+        long queries;
+        long rowsFetched;
+
+        FakeDb(int[][] values) {
+            this.values = values;
+        }
+
+        List<Integer> query(int[] target, int mask, int limit) {
+            queries++;
+            List<Integer> out = new ArrayList<>();
+            for (int row = values.length - 1; row >= 0 && out.size() < limit; row--) {
+                if ((rowMask(values[row], target) & mask) == mask) out.add(row);
+            }
+            rowsFetched += out.size();
+            return out;
+        }
+    }
+
+    @Test
+    void queryCountBySubsetEnumerationVsBitmask() {
+        Random random = new Random(42);
+        int[][] values = new int[ROWS][CARDINALITY.length];
+        for (int[] row : values) {
+            for (int c = 0; c < CARDINALITY.length; c++) row[c] = random.nextInt(CARDINALITY[c]);
+        }
+        FakeDb db = new FakeDb(values);
+
+        Map<Integer, double[]> summary = new LinkedHashMap<>();
+        for (int n = 2; n <= CARDINALITY.length; n++) {
+            long subsetQueries = 0, subsetRows = 0, maskQueries = 0, maskRows = 0;
+            int sameMask = 0, sameTop = 0, found = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                int strict = randomConditions(random, n);
+                int misses = randomConditions(random, strict, 1 + random.nextInt(n - 1));
+                int[] target = new int[CARDINALITY.length];
+                for (int c = 0; c < CARDINALITY.length; c++) {
+                    // 빗나간 조건은 어떤 행에도 없는 값
+                    target[c] = (misses & (1 << c)) != 0 ? CARDINALITY[c] : random.nextInt(CARDINALITY[c]);
+                }
+
+                db.queries = 0;
+                db.rowsFetched = 0;
+                Outcome expected = bySubsetQueries(db, target, strict);
+                subsetQueries += db.queries;
+                subsetRows += db.rowsFetched;
+
+                db.queries = 0;
+                db.rowsFetched = 0;
+                Outcome actual = byBitmask(db, target, strict);
+                maskQueries += db.queries;
+                maskRows += db.rowsFetched;
+                assertTrue(db.queries >= n);
+
+                if (expected.mask() != 0) found++;
+                if (expected.mask() == actual.mask()) sameMask++;
+                if (expected.top().equals(actual.top())) sameTop++;
+            }
+            summary.put(n, new double[]{
+                    subsetQueries / (double) QUERIES, subsetRows / (double) QUERIES,
+                    maskQueries / (double) QUERIES, maskRows / (double) QUERIES,
+                    found / (double) QUERIES, sameMask / (double) QUERIES, sameTop / (double) QUERIES});
+        }
+
+        System.out.printf("%n========== 겹치는 조건 조합 (파일 %d개, 조건 개수마다 질의 %d개, 조합별 %d건 / 후보 %d건) ==========%n",
+                ROWS, QUERIES, PAGE, CANDIDATES);
+        System.out.printf("%-6s %14s %14s %14s %14s %8s %10s %10s%n",
+                "conds", "subset 조회", "subset 행", "bitmask 조회", "bitmask 행", "found", "same 조합", "same top");
+        summary.forEach((n, s) -> System.out.printf("%-6d %14.1f %14.1f %14.1f %14.1f %8.3f %10.3f %10.3f%n",
+                n, s[0], s[1], s[2], s[3], s[4], s[5], s[6]));
+
+        for (int n = 3; n <= CARDINALITY.length; n++) {
+            double[] s = summary.get(n);
+            assertTrue(s[2] < s[0], n + "개 조건: 조회 수가 줄어야 한다");
+        }
+        for (double[] s : summary.values()) {
+            assertEquals(1.0, s[5], "고른 조합은 조합별 방식과 같아야 한다");
+            assertEquals(1.0, s[6], "상위 결과는 조합별 방식과 같아야 한다");
+        }
+    }
+
+    // 예전 방식: 크기 k 인 조합마다 조회, 결과가 있는 가장 큰 k 에서 점수가 가장 높은 조합
+    private static Outcome bySubsetQueries(FakeDb db, int[] target, int strict) {
+        Outcome best = new Outcome(0, List.of());
+        int bestScore = Integer.MIN_VALUE;
+        for (int k = Integer.bitCount(strict) - 1; k >= 1; k--) {
+            for (int mask : AiConditionOverlap.submasksOfSize(strict, k)) {
+                List<Integer> rows = db.query(target, mask, PAGE);
+                if (rows.isEmpty()) continue;
+                int score = score(mask, rows.size());
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = new Outcome(mask, top(rows));
+                }
+            }
+            if (best.mask() != 0) break;
+        }
+        return best;
+    }
+
+    // 지금 방식: 조건 하나짜리 조회 합집합 → 행별 비트마스크 → 조합은 메모리에서
+    private static Outcome byBitmask(FakeDb db, int[] target, int strict) {
+        List<Integer> union = new ArrayList<>();
+        boolean[] seen = new boolean[db.values.length];
+        int complete = 0;
+        for (int c = 0; c < CARDINALITY.length; c++) {
+            if ((strict & (1 << c)) == 0) continue;
+            List<Integer> rows = db.query(target, 1 << c, CANDIDATES);
+            if (rows.size() < CANDIDATES) complete |= 1 << c;
+            for (int row : rows) {
+                if (!seen[row]) {
+                    seen[row] = true;
+                    union.add(row);
+                }
+            }
+        }
+        union.sort((a, b) -> Integer.compare(b, a)); // 최신순
+
+        AiConditionOverlap<Integer> overlap = new AiConditionOverlap<>();
+        for (int row : union) overlap.add(row, rowMask(db.values[row], target));
+        overlap.markComplete(complete);
+
+        Outcome best = new Outcome(0, List.of());
+        int bestScore = Integer.MIN_VALUE;
+        boolean bestExact = true;
+        for (int k = Integer.bitCount(strict) - 1; k >= 1; k--) {
+            for (int mask : AiConditionOverlap.submasksOfSize(strict, k)) {
+                List<Integer> rows = overlap.matching(mask, PAGE);
+                boolean exact = overlap.covers(mask);
+                if (rows.isEmpty() && !exact) {
+                    rows = db.query(target, mask, PAGE); // 후보 상한에 잘려 비어 보일 수 있는 조합만 확인
+                    exact = true;
+                }
+                if (rows.isEmpty()) continue;
+                int score = score(mask, rows.size());
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = new Outcome(mask, top(rows));
+                    bestExact = exact;
+                }
+            }
+            if (best.mask() != 0) break;
+        }
+        if (!bestExact) best = new Outcome(best.mask(), top(db.query(target, best.mask(), PAGE)));
+        return best;
+    }
+
+    private static int rowMask(int[] row, int[] target) {
+        int mask = 0;
+        for (int c = 0; c < row.length; c++) {
+            if (row[c] == target[c]) mask |= 1 << c;
+        }
+        return mask;
+    }
+
+    private static int randomConditions(Random random, int n) {
+        return randomConditions(random, (1 << CARDINALITY.length) - 1, n);
+    }
+
+    // from 의 비트 중 n 개
+    private static int randomConditions(Random random, int from, int n) {
+        int mask = 0;
+        while (Integer.bitCount(mask) < n) {
+            int bit = 1 << random.nextInt(CARDINALITY.length);
+            if ((from & bit) != 0) mask |= bit;
+        }
+        return mask;
+    }
+
+    // AIFileServiceImpl.subsetScore 와 같은 모양 (조건마다 가중치 자리수가 달라 조합끼리 동점이 없다)
+    private static int score(int mask, int count) {
+        int w = 0;
+        for (int c = 0, weight = 1; c < CARDINALITY.length; c++, weight *= 10) {
+            if ((mask & (1 << c)) != 0) w += weight;
+        }
+        return w * 1000 + Math.min(count, 999);
+    }
+
+    private static List<Integer> top(List<Integer> rows) {
+        return rows.subList(0, Math.min(TOP, rows.size()));
+    }
+}
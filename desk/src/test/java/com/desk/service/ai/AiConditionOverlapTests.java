@@ -0,0 +1,63 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 겹치는 조건 조합 (크기별 부분집합 순회, 파일별 비트마스크 매칭) 단위 테스트
+ */
+class AiConditionOverlapTests {
+
+    private static final int DATE = 1, DEPT = 1 << 1, COUNTER = 1 << 2, KEYWORD = 1 << 3;
+
+    @Test
+    @DisplayName("크기 k 인 부분집합만, 작은 값부터 (4개 조건이면 4 / 6 / 4 개)")
+    void enumeratesSubmasksBySize() {
+        int all = DATE | DEPT | COUNTER | KEYWORD;
+        assertArrayEquals(new int[]{7, 11, 13, 14}, AiConditionOverlap.submasksOfSize(all, 3));
+        assertEquals(6, AiConditionOverlap.submasksOfSize(all, 2).length);
+        assertArrayEquals(new int[]{DATE, DEPT, COUNTER, KEYWORD}, AiConditionOverlap.submasksOfSize(all, 1));
+
+        // 빠진 조건은 조합에 나오지 않는다
+        assertArrayEquals(new int[]{DATE | COUNTER, DATE | KEYWORD, COUNTER | KEYWORD},
+                AiConditionOverlap.submasksOfSize(DATE | COUNTER | KEYWORD, 2));
+        assertEquals(0, AiConditionOverlap.submasksOfSize(DATE, 2).length);
+        assertEquals(0, AiConditionOverlap.submasksOfSize(DATE | DEPT, 0).length);
+    }
+
+    @Test
+    @DisplayName("마스크 하나라도 조합을 다 덮으면 포함, 추가 순서대로 limit 개까지")
+    void matchesAnyRowMask() {
+        AiConditionOverlap<String> overlap = new AiConditionOverlap<>();
+        overlap.add("a", DATE | KEYWORD);
+        overlap.add("b", DATE | COUNTER, DEPT | KEYWORD); // 수신자 행마다 다른 조건
+        overlap.add("c", DATE | DEPT | COUNTER);
+        overlap.add("d");
+
+        assertEquals(List.of("a", "b", "c"), overlap.matching(DATE, 10));
+        assertEquals(List.of("a"), overlap.matching(DATE | KEYWORD, 10));
+        // 서로 다른 행의 조건은 한 조합으로 합치지 않는다
+        assertEquals(List.of("c"), overlap.matching(COUNTER | DEPT, 10));
+        assertEquals(List.of("b"), overlap.matching(DEPT | KEYWORD, 10));
+        assertEquals(List.of("a", "b"), overlap.matching(DATE, 2));
+        assertTrue(overlap.matching(DATE | DEPT | COUNTER | KEYWORD, 10).isEmpty());
+        assertEquals(4, overlap.size());
+    }
+
+    @Test
+    @DisplayName("조건 하나짜리 조합은 늘 정확, 여러 조건 조합은 빠짐없는 조건이 하나라도 있어야 정확")
+    void coversOnlyWithCompleteCondition() {
+        AiConditionOverlap<String> overlap = new AiConditionOverlap<>();
+        overlap.markComplete(COUNTER);
+
+        assertTrue(overlap.covers(DATE));
+        assertTrue(overlap.covers(DATE | COUNTER));
+        assertTrue(overlap.covers(COUNTER | KEYWORD));
+        assertFalse(overlap.covers(DATE | DEPT));
+        assertFalse(overlap.covers(DATE | DEPT | KEYWORD));
+    }
+}
@@ -0,0 +1,199 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.AITicketClientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 임베딩 디스크 캐시 (재기동 재사용 / 바뀐 문서만 임베딩 / 모델 분리 / 손상 복구) 단위 테스트
+ */
+class AiEmbeddingCacheTests {
+
+    @TempDir
+    Path dir;
+
+    private final List<String> embedded = new ArrayList<>();
+    private final List<AiFeature> features = new ArrayList<>();
+    private int dimension = 2;
+    private OllamaConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "embedModelName", "nomic-embed-text");
+        ReflectionTestUtils.setField(config, "embedDimension", 0);
+        ReflectionTestUtils.setField(config, "embedNormalize", false);
+        ReflectionTestUtils.setField(config, "embedBatchSize", 8);
+    }
+
+    @Test
+    @DisplayName("재기동(새 캐시 인스턴스) 후에는 같은 문서를 다시 임베딩하지 않는다 (임베딩은 일괄 적재 기능으로)")
+    void reusesVectorsAcrossRestarts() {
+        List<List<Double>> first = newCache().embedAll(List.of("a", "bb", "ccc"));
+        assertEquals(List.of("a", "bb", "ccc"), embedded);
+        assertEquals(List.of(AiFeature.EMBEDDING_INGEST), features); // 질의 임베딩과 다른 레인/서킷
+
+        embedded.clear();
+        AiEmbeddingCache restarted = newCache();
+        List<List<Double>> second = restarted.embedAll(List.of("a", "bb", "ccc"));
+
+        assertTrue(embedded.isEmpty());
+        assertEquals(first, second);
+        assertEquals(3L, restarted.snapshot().get("hits"));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("새로 생겼거나 바뀐 문서만 임베딩하고, 중복 본문은 한 번만 요청한다")
+    void embedsOnlyNewOrChangedDocuments() {
+        AiEmbeddingCache cache = newCache();
+        cache.embedAll(List.of("a", "bb"));
+        embedded.clear();
+
+        List<List<Double>> result = cache.embedAll(List.of("a", "bb-changed", "dddd", "dddd"));
+
+        assertEquals(List.of("bb-changed", "dddd"), embedded);
+        assertEquals(List.of(1.0, 0.0), result.get(0));
+        assertEquals(List.of(10.0, 0.0), result.get(1));
+        assertEquals(result.get(2), result.get(3));
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("모델이 바뀌면 다른 파일을 쓰므로 이전 모델 벡터를 섞지 않는다")
+    void separatesModels() {
+        newCache().embedAll(List.of("a"));
+        embedded.clear();
+
+        ReflectionTestUtils.setField(config, "embedModelName", "bge-m3");
+        newCache().embedAll(List.of("a"));
+
+        assertEquals(List.of("a"), embedded);
+        assertTrue(Files.exists(dir.resolve("nomic-embed-text.emb")));
+        assertTrue(Files.exists(dir.resolve("bge-m3.emb")));
+    }
+
+    @Test
+    @DisplayName("정규화 설정이 바뀌면 이전 벡터를 버리고 다시 임베딩한다")
+    void invalidatesWhenNormalizeChanges() {
+        newCache().embedAll(List.of("bb"));
+        embedded.clear();
+
+        ReflectionTestUtils.setField(config, "embedNormalize", true);
+        AiEmbeddingCache restarted = newCache();
+
+        assertEquals(List.of(List.of(1.0, 0.0)), restarted.embedAll(List.of("bb")));
+        assertEquals(List.of("bb"), embedded);
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("차원 미설정에서 모델 출력 차원이 바뀌면 캐시를 비우고 입력 전체를 새 차원으로 임베딩한다")
+    void invalidatesWhenDimensionChanges() {
+        newCache().embedAll(List.of("a"));
+        embedded.clear();
+
+        dimension = 3;
+        AiEmbeddingCache restarted = newCache();
+        List<List<Double>> result = restarted.embedAll(List.of("a", "bb"));
+
+        assertEquals(List.of(List.of(1.0, 0.0, 0.0), List.of(2.0, 0.0, 0.0)), result);
+        assertEquals(List.of("bb", "a", "bb"), embedded);
+        embedded.clear();
+        assertEquals(result, restarted.embedAll(List.of("a", "bb")));
+        assertTrue(embedded.isEmpty());
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("마지막 레코드가 덜 써진 파일은 온전한 레코드까지만 쓰고 나머지는 다시 임베딩한다")
+    void recoversFromTruncatedFile() throws Exception {
+        AiEmbeddingCache cache = newCache();
+        cache.embedAll(List.of("a", "bb"));
+        cache.close();
+
+        Path file = dir.resolve("nomic-embed-text.emb");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        embedded.clear();
+
+        AiEmbeddingCache restarted = newCache();
+        assertEquals(List.of(List.of(1.0, 0.0), List.of(2.0, 0.0)), restarted.embedAll(List.of("a", "bb")));
+        assertEquals(List.of("bb"), embedded);
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("임베딩 실패한 문서는 캐시하지 않는다")
+    void doesNotCacheFailures() {
+        AiEmbeddingCache cache = newCache();
+        assertTrue(cache.embedAll(List.of("fail")).get(0).isEmpty());
+        embedded.clear();
+
+        cache.embedAll(List.of("fail"));
+        assertEquals(List.of("fail"), embedded);
+        cache.close();
+    }
+
+    private AiEmbeddingCache newCache() {
+        AiEmbeddingCache cache = new AiEmbeddingCache(new AiEmbeddingModel(new RecordingClient(), config));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        return cache;
+    }
+
+    // 본문 길이로 dimension 차원 벡터를 만드는 클라이언트 ("fail" 은 빈 벡터)
+    private class RecordingClient implements AITicketClientService {
+
+        @Override
+        public List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+            features.add(feature);
+            List<List<Double>> result = new ArrayList<>();
+            for (String t : texts) {
+                embedded.add(t);
+                if (t.equals("fail")) {
+                    result.add(List.of());
+                    continue;
+                }
+                List<Double> vector = new ArrayList<>(Collections.nCopies(dimension, 0.0));
+                vector.set(0, (double) t.length());
+                result.add(vector);
+            }
+            return result;
+        }
+
+        @Override
+        public String generateText(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateText(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.AITicketClientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 임베딩 모델(배치/차원/정규화) 단위 테스트 (AI 서버 불필요)
+ */
+class AiEmbeddingModelTests {
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final List<String> requestedModels = new ArrayList<>();
+    private Function<String, List<Double>> vectors;
+
+    private OllamaConfig config;
+    private AiEmbeddingModel model;
+
+    @BeforeEach
+    void setUp() {
+        config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "modelName", "qwen3:8b");
+        ReflectionTestUtils.setField(config, "embedModelName", "nomic-embed-text");
+        ReflectionTestUtils.setField(config, "embedDimension", 0);
+        ReflectionTestUtils.setField(config, "embedNormalize", true);
+        ReflectionTestUtils.setField(config, "embedBatchSize", 2);
+
+        vectors = text -> List.of(3.0, 4.0);
+        model = new AiEmbeddingModel(new RecordingClient(), config);
+    }
+
+    @Test
+    @DisplayName("배치 크기 단위로 전용 임베딩 모델에 요청하고 입력 순서를 유지한다")
+    void batchesWithDedicatedModel() {
+        vectors = text -> List.of((double) text.length(), 0.0);
+
+        List<List<Double>> result = model.embedAll(List.of("a", "bb", "ccc", "dddd", "eeeee"));
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertTrue(requestedModels.stream().allMatch("nomic-embed-text"::equals));
+        assertEquals(5, result.size());
+        assertEquals(List.of(1.0, 0.0), result.get(0)); // 정규화됨
+        assertEquals(List.of(1.0, 0.0), result.get(4));
+    }
+
+    @Test
+    @DisplayName("L2 정규화 옵션")
+    void normalizesWhenEnabled() {
+        assertEquals(List.of(0.6, 0.8), model.embed("x"));
+
+        ReflectionTestUtils.setField(config, "embedNormalize", false);
+        assertEquals(List.of(3.0, 4.0), model.embed("x"));
+    }
+
+    @Test
+    @DisplayName("첫 응답으로 차원을 고정하고, 다른 차원 벡터는 버린다")
+    void dropsMismatchedDimension() {
+        assertEquals(2, model.embed("first").size());
+        assertEquals(2, model.getDimension());
+
+        vectors = text -> List.of(1.0, 0.0, 0.0);
+        assertTrue(model.embed("other-model").isEmpty());
+        assertEquals(1L, model.snapshot().get("droppedVectors"));
+    }
+
+    @Test
+    @DisplayName("요청 실패 시 입력 수만큼 빈 벡터")
+    void returnsEmptyVectorsOnFailure() {
+        vectors = text -> null;
+
+        List<List<Double>> result = model.embedAll(List.of("a", "b", "c"));
+
+        assertEquals(3, result.size());
+        assertTrue(result.stream().allMatch(List::isEmpty));
+    }
+
+    // getEmbeddings 만 사용하는 기록용 클라이언트 (vectors 가 null 을 주면 요청 실패로 간주)
+    private class RecordingClient implements AITicketClientService {
+
+        @Override
+        public List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+            batchSizes.add(texts.size());
+            requestedModels.add(embeddingModel);
+            List<List<Double>> result = new ArrayList<>();
+            for (String t : texts) {
+                List<Double> v = vectors.apply(t);
+                if (v == null) return Collections.emptyList();
+                result.add(v);
+            }
+            return result;
+        }
+
+        @Override
+        public String generateText(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateText(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.ai.fake.FakeLatency;
+import com.desk.service.ai.fake.FakeOllamaServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 다중 Ollama 노드 라우팅 테스트 (가짜 Ollama 서버 여러 대 사용, 스프링 컨텍스트 불필요)
+ */
+class AiEndpointRouterTests {
+
+    private static final String CHAT_MODEL = "qwen3:8b";
+    private static final String EMBED_MODEL = "nomic-embed-text";
+
+    private final RestTemplate rest = new RestTemplate();
+    private final List<FakeOllamaServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(FakeOllamaServer::close);
+    }
+
+    @Test
+    @DisplayName("동시 요청은 진행 중 요청이 가장 적은 노드로 고르게 분산된다")
+    void leastOutstandingSpreadsLoad() throws Exception {
+        FakeOllamaServer a = start(FakeOllamaServer.builder().latency(FakeLatency.fixed(80)));
+        FakeOllamaServer b = start(FakeOllamaServer.builder().latency(FakeLatency.fixed(80)));
+        FakeOllamaServer c = start(FakeOllamaServer.builder().latency(FakeLatency.fixed(80)));
+        AiEndpointRouter router = router(spec(a, null) + "," + spec(b, null) + "," + spec(c, null));
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(6)) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                futures.add(pool.submit(() -> chat(router)));
+            }
+            for (Future<String> f : futures) assertNotNull(f.get());
+        }
+
+        for (FakeOllamaServer s : List.of(a, b, c)) {
+            long n = s.getRequestCount("/api/chat");
+            assertTrue(n >= 6 && n <= 14, "unbalanced: " + router.snapshot());
+            assertTrue(s.getMaxInFlight() <= 3, "too many in flight on one node: " + s.getMaxInFlight());
+        }
+    }
+
+    @Test
+    @DisplayName("모델 친화: 설정/조회된 모델을 가진 노드로만 보낸다")
+    void routesByModelAffinity() {
+        FakeOllamaServer embedNode = start(FakeOllamaServer.builder());
+        FakeOllamaServer chatNode = start(FakeOllamaServer.builder().models(CHAT_MODEL));
+        // embedNode 는 설정으로, chatNode 는 /api/tags 조회 결과로 모델을 알려준다.
+        AiEndpointRouter router = router(spec(embedNode, EMBED_MODEL) + "," + spec(chatNode, null));
+        router.probeAll();
+
+        for (int i = 0; i < 6; i++) {
+            chat(router);
+            router.call(AiFeature.EMBEDDING, EMBED_MODEL,
+                    base -> rest.postForObject(base + "/api/embeddings", Map.of("model", EMBED_MODEL, "prompt", "hi"), String.class));
+        }
+
+        assertEquals(6, chatNode.getRequestCount("/api/chat"));
+        assertEquals(0, chatNode.getRequestCount("/api/embeddings"));
+        assertEquals(6, embedNode.getRequestCount("/api/embeddings"));
+        assertEquals(0, embedNode.getRequestCount("/api/chat"));
+    }
+
+    @Test
+    @DisplayName("같은 기능 기준으로 확연히 느린 노드는 일시 제외된다")
+    void ejectsSlowNode() {
+        FakeOllamaServer fast = start(FakeOllamaServer.builder().latency(FakeLatency.fixed(10)));
+        FakeOllamaServer slow = start(FakeOllamaServer.builder().latency(FakeLatency.fixed(300)));
+        AiEndpointRouter router = router(spec(fast, null) + "," + spec(slow, null));
+
+        for (int i = 0; i < 20; i++) chat(router);
+
+        assertTrue(slow.getRequestCount("/api/chat") <= 5, "slow node not ejected: " + router.snapshot());
+        assertEquals(Boolean.TRUE, router.snapshot().get(1).get("ejected"));
+    }
+
+    @Test
+    @DisplayName("죽은 노드는 연결 실패 시 다른 노드로 재시도하고, 헬스 체크 후에는 후보에서 빠진다")
+    void retriesConnectFailureAndProbesHealth() {
+        FakeOllamaServer alive = start(FakeOllamaServer.builder());
+        FakeOllamaServer dead = start(FakeOllamaServer.builder());
+        String deadSpec = spec(dead, null);
+        dead.close();
+        AiEndpointRouter router = router(spec(alive, null) + "," + deadSpec);
+
+        for (int i = 0; i < 4; i++) assertNotNull(chat(router));
+        assertEquals(4, alive.getRequestCount("/api/chat"));
+
+        router.probeAll();
+        assertEquals(Boolean.FALSE, router.snapshot().get(1).get("healthy"));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(alive.getBaseUrl(), router.choose(AiFeature.TICKET_ROUTING, CHAT_MODEL, null).getUrl());
+        }
+    }
+
+    private String chat(AiEndpointRouter router) {
+        return router.call(AiFeature.TICKET_ROUTING, CHAT_MODEL, base -> rest.postForObject(base + "/api/chat",
+                Map.of("model", CHAT_MODEL, "messages", List.of(Map.of("role", "user", "content", "수신 부서")), "stream", false),
+                String.class));
+    }
+
+    private FakeOllamaServer start(FakeOllamaServer.Builder builder) {
+        FakeOllamaServer server = builder.build().start();
+        servers.add(server);
+        return server;
+    }
+
+    private static String spec(FakeOllamaServer server, String models) {
+        return server.getBaseUrl() + (models == null ? "" : ";models=" + models);
+    }
+
+    private static AiEndpointRouter router(String endpoints) {
+        OllamaConfig config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "baseUrl", "http://127.0.0.1:11434");
+        ReflectionTestUtils.setField(config, "endpoints", endpoints);
+        ReflectionTestUtils.setField(config, "apiKey", "");
+
+        AiEndpointRouter router = new AiEndpointRouter(config);
+        ReflectionTestUtils.setField(router, "probeIntervalMs", 0L); // 테스트에서는 probeAll 직접 호출
+        ReflectionTestUtils.setField(router, "probeTimeoutMs", 500);
+        ReflectionTestUtils.setField(router, "ejectConsecutiveFailures", 3);
+        ReflectionTestUtils.setField(router, "ejectDurationMs", 60_000L);
+        ReflectionTestUtils.setField(router, "slowFactor", 3.0);
+        ReflectionTestUtils.setField(router, "slowMinGapMs", 100L);
+        ReflectionTestUtils.setField(router, "minSamples", 3);
+        router.init();
+        return router;
+    }
+}
@@ -0,0 +1,144 @@
+package com.desk.service.ai;
+
+import com.desk.domain.ChatFile;
+import com.desk.domain.ChatParticipant;
+import com.desk.domain.ChatRoom;
+import com.desk.domain.Member;
+import com.desk.domain.Ticket;
+import com.desk.domain.TicketFile;
+import com.desk.domain.TicketPersonal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 파일조회 역색인 (bigram/형태소 posting 교집합, 사용자별 접근 비트맵, 업로드/삭제 반영) 단위 테스트 (DB 불필요)
+ */
+class AiFileSearchIndexTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    private AiFileSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AiFileSearchIndex(null, null, null);
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("재구성 전에는 null (DB 검색), 재구성 후에는 접근 가능한 파일 중 모든 키워드를 포함하는 것만")
+    void intersectsPostingsWithAccessBitmap() {
+        assertNull(index.search("kim@desk.com", List.of("배너"), 10));
+
+        index.load(List.of(
+                doc("t1", AiFileSearchIndex.Kind.TICKET, 1, "신제품 배너 시안.png 봄 시즌", "kim@desk.com", "lee@desk.com"),
+                doc("t2", AiFileSearchIndex.Kind.TICKET, 2, "배너 사이즈 가이드.pdf", "lee@desk.com", "park@desk.com"),
+                doc("c1", AiFileSearchIndex.Kind.CHAT, 3, "배너 수정본.psd 디자인팀 신제품 회의", "kim@desk.com"),
+                doc("c2", AiFileSearchIndex.Kind.CHAT, 4, "회의록.docx", "kim@desk.com")));
+
+        AiFileSearchIndex.Candidates kim = index.search("KIM@desk.com", List.of("신제품", "배너"), 10);
+        assertEquals(List.of("t1"), kim.ticketUuids());
+        assertEquals(List.of("c1"), kim.chatUuids());
+        assertEquals(2, kim.matched());
+
+        // 부분 문자열 (LIKE '%kw%' 와 같은 범위) + 다른 사용자의 파일은 보이지 않는다
+        assertEquals(List.of("t2", "t1"), index.search("lee@desk.com", List.of("배너"), 10).ticketUuids());
+        assertEquals(List.of("t2"), index.search("lee@desk.com", List.of("배너"), 1).ticketUuids());
+        assertEquals(0, index.search("nobody@desk.com", List.of("배너"), 10).matched());
+        assertEquals(0, index.search("kim@desk.com", List.of("출장비"), 10).matched());
+
+        // 색인으로 답할 수 없는 키워드 → DB 검색
+        assertNull(index.search("kim@desk.com", List.of("배"), 10));
+        assertNull(index.search("kim@desk.com", List.of("배너 시안"), 10));
+    }
+
+    @Test
+    @DisplayName("업로드/삭제는 바로 반영되고, 같은 uuid 를 다시 넣으면 새 내용으로 바뀐다")
+    void appliesUploadsAndDeletes() {
+        index.load(List.of(doc("t1", AiFileSearchIndex.Kind.TICKET, 1, "견적서 초안.xlsx", "kim@desk.com")));
+
+        index.put(doc("t2", AiFileSearchIndex.Kind.TICKET, 2, "견적서 최종.xlsx", "kim@desk.com"));
+        assertEquals(List.of("t2", "t1"), index.search("kim@desk.com", List.of("견적서"), 10).ticketUuids());
+
+        index.remove("t1");
+        index.put(doc("t2", AiFileSearchIndex.Kind.TICKET, 2, "계약서 최종.pdf", "kim@desk.com"));
+        assertEquals(0, index.search("kim@desk.com", List.of("견적서"), 10).matched());
+        assertEquals(List.of("t2"), index.search("kim@desk.com", List.of("계약서"), 10).ticketUuids());
+
+        assertEquals(1, index.snapshot().get("documents"));
+        assertEquals(2, index.snapshot().get("tombstones"));
+    }
+
+    @Test
+    @DisplayName("엔티티에서 색인 텍스트와 읽을 수 있는 사용자를 뽑는다 (채팅은 업로드 시점 입장 구간 기준)")
+    void extractsDocumentsFromEntities() {
+        Member writer = Member.builder().email("kim@desk.com").nickname("김디자").build();
+        Member receiver = Member.builder().email("lee@desk.com").nickname("이개발").build();
+        Ticket ticket = Ticket.builder().title("봄 시즌 배너").content("메인 배너 교체 요청").writer(writer).birth(NOW).build();
+        ticket.addPersonal(TicketPersonal.builder().receiver(receiver).build());
+        TicketFile ticketFile = TicketFile.builder().uuid("t1").fileName("banner.png").writer("kim@desk.com")
+                .receiver("lee@desk.com").ticket(ticket).build();
+
+        AiFileSearchIndex.Document t = AiFileSearchIndex.ticketDocument(ticketFile);
+        assertEquals(Set.of("kim@desk.com", "lee@desk.com"), t.readers());
+        assertTrue(t.texts().containsAll(List.of("banner.png", "봄 시즌 배너", "김디자", "이개발")));
+
+        ChatRoom room = ChatRoom.builder().name("디자인팀").build();
+        room.getParticipants().add(ChatParticipant.builder().userId("kim@desk.com").joinedAt(NOW.minusDays(1)).build());
+        room.getParticipants().add(ChatParticipant.builder().userId("lee@desk.com").joinedAt(NOW.plusHours(1)).build());
+        room.getParticipants().add(ChatParticipant.builder().userId("park@desk.com")
+                .joinedAt(NOW.minusDays(2)).leftAt(NOW.minusDays(1)).build());
+        ChatFile chatFile = ChatFile.builder().uuid("c1").fileName("시안.psd").writer("kim@desk.com")
+                .chatRoom(room).createdAt(NOW).build();
+
+        AiFileSearchIndex.Document c = AiFileSearchIndex.chatDocument(chatFile, "김디자");
+        assertEquals(Set.of("kim@desk.com"), c.readers());
+        assertTrue(c.texts().containsAll(List.of("시안.psd", "디자인팀", "김디자")));
+
+        index.load(List.of(t, c));
+        assertEquals(List.of("c1"), index.search("kim@desk.com", List.of("디자인"), 10).chatUuids());
+        assertEquals(List.of("t1"), index.search("lee@desk.com", List.of("김디자"), 10).ticketUuids());
+        assertTrue(index.search("lee@desk.com", List.of("디자인"), 10).chatUuids().isEmpty());
+    }
+
+    @Test
+    @DisplayName("보낸/받은 필터는 색인에서 걸고, offset 으로 다음 후보 페이지를 이어서 받는다")
+    void filtersDirectionAndPagesByOffset() {
+        Set<String> both = Set.of("kim@desk.com", "lee@desk.com");
+        index.load(List.of(
+                new AiFileSearchIndex.Document("t1", AiFileSearchIndex.Kind.TICKET, 1, List.of("견적서 1차"), both, "kim@desk.com", "lee@desk.com"),
+                new AiFileSearchIndex.Document("t2", AiFileSearchIndex.Kind.TICKET, 2, List.of("견적서 2차"), both, "lee@desk.com", "kim@desk.com"),
+                new AiFileSearchIndex.Document("t3", AiFileSearchIndex.Kind.TICKET, 3, List.of("견적서 3차"), both, "Kim@desk.com", "lee@desk.com"),
+                new AiFileSearchIndex.Document("c1", AiFileSearchIndex.Kind.CHAT, 4, List.of("견적서 공유"), both, "kim@desk.com", null),
+                new AiFileSearchIndex.Document("c2", AiFileSearchIndex.Kind.CHAT, 5, List.of("견적서 회신"), both, "lee@desk.com", null)));
+
+        AiFileSearchIndex.Candidates sent = index.search("kim@desk.com", List.of("견적서"), true, false, 0, 10);
+        assertEquals(List.of("t3", "t1"), sent.ticketUuids());
+        assertEquals(List.of("c1"), sent.chatUuids());
+
+        // 받은: 티켓은 수신자가 나, 채팅은 내가 올리지 않은 파일
+        AiFileSearchIndex.Candidates received = index.search("kim@desk.com", List.of("견적서"), false, true, 0, 10);
+        assertEquals(List.of("t2"), received.ticketUuids());
+        assertEquals(List.of("c2"), received.chatUuids());
+
+        // 종류별로 offset 만큼 건너뛴다. limit 보다 짧으면 그 종류는 끝
+        assertEquals(List.of("t3", "t2"), index.search("kim@desk.com", List.of("견적서"), false, false, 0, 2).ticketUuids());
+        AiFileSearchIndex.Candidates next = index.search("kim@desk.com", List.of("견적서"), false, false, 2, 2);
+        assertEquals(List.of("t1"), next.ticketUuids());
+        assertTrue(next.chatUuids().isEmpty());
+        assertEquals(5, next.matched());
+    }
+
+    private static AiFileSearchIndex.Document doc(String uuid, AiFileSearchIndex.Kind kind, long createdAt,
+                                                  String text, String... readers) {
+        return new AiFileSearchIndex.Document(uuid, kind, createdAt, List.of(text), Set.of(readers));
+    }
+}
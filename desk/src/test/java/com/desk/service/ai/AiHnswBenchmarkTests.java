@@ -0,0 +1,96 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * [HNSW recall / 지연 벤치마크] 같은 데이터에서 전수 검색(AiVectorStore) 과 HNSW(efSearch 별) 를 비교한다.
+ * 문서 20k x 384차원, 실제 임베딩처럼 주제 군집(200개) 주변에 분포시킨다. top-10
+ *
+ * recall 은 질의마다 달라서 JMH 대신 질의 세트를 돌려 평균 지연과 recall@10 을 함께 잰다.
+ * 실행: ./gradlew aiBenchmark  (기본 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+class AiHnswBenchmarkTests {
+
+    private static final int DOCUMENTS = 20_000;
+    private static final int DIMENSION = 384;
+    private static final int CLUSTERS = 200;
+    private static final int QUERIES = 500;
+    private static final int K = 10;
+    private static final int[] EF_SEARCH = {16, 32, 64, 128, 256};
+
+    @Test
+    void recallVsLatency() {
+        Random random = new Random(42);
+        List<List<Double>> centers = new ArrayList<>(CLUSTERS);
+        for (int c = 0; c < CLUSTERS; c++) centers.add(gaussian(random, 1.0));
+
+        AiVectorStore store = new AiVectorStore(false);
+        for (int i = 0; i < DOCUMENTS; i++) store.add("doc-" + i, "COMMON", near(random, centers));
+        List<List<Double>> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) queries.add(near(random, centers));
+
+        long buildStart = System.nanoTime();
+        AiHnswIndex index = new AiHnswIndex(store, 16, 200, EF_SEARCH[0]);
+        index.catchUp();
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        // 정답 (전수 검색) + 지연
+        List<Set<Integer>> truth = new ArrayList<>(QUERIES);
+        for (List<Double> q : queries) store.search(q, null, K); // warm-up
+        long exactStart = System.nanoTime();
+        for (List<Double> q : queries) {
+            Set<Integer> ids = new HashSet<>();
+            store.search(q, null, K).forEach(h -> ids.add(h.index()));
+            truth.add(ids);
+        }
+        double exactUs = (System.nanoTime() - exactStart) / 1e3 / QUERIES;
+
+        System.out.printf("%n========== RAG HNSW (%d docs x %d, top-%d, M=16, efConstruction=200, build %.0f ms) ==========%n",
+                DOCUMENTS, DIMENSION, K, buildMs);
+        System.out.printf("%-12s %10s %12s %10s%n", "mode", "recall@10", "avg (us)", "speedup");
+        System.out.printf("%-12s %10.3f %12.1f %10s%n", "exact", 1.0, exactUs, "1.0x");
+
+        double bestRecall = 0;
+        for (int ef : EF_SEARCH) {
+            index.setEfSearch(ef);
+            for (List<Double> q : queries) index.search(q, null, K); // warm-up
+
+            int found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                for (AiVectorStore.Hit h : index.search(queries.get(i), null, K)) {
+                    if (truth.get(i).contains(h.index())) found++;
+                }
+            }
+            double avgUs = (System.nanoTime() - start) / 1e3 / QUERIES;
+            double recall = found / (double) (QUERIES * K);
+            bestRecall = Math.max(bestRecall, recall);
+            System.out.printf("%-12s %10.3f %12.1f %9.1fx%n", "ef=" + ef, recall, avgUs, exactUs / avgUs);
+        }
+        assertTrue(bestRecall >= 0.95);
+    }
+
+    private static List<Double> near(Random random, List<List<Double>> centers) {
+        List<Double> center = centers.get(random.nextInt(centers.size()));
+        List<Double> noise = gaussian(random, 0.35);
+        List<Double> v = new ArrayList<>(DIMENSION);
+        for (int d = 0; d < DIMENSION; d++) v.add(center.get(d) + noise.get(d));
+        return v;
+    }
+
+    private static List<Double> gaussian(Random random, double sigma) {
+        List<Double> v = new ArrayList<>(DIMENSION);
+        for (int d = 0; d < DIMENSION; d++) v.add(random.nextGaussian() * sigma);
+        return v;
+    }
+}
@@ -0,0 +1,138 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HNSW 근사 최근접 이웃 인덱스 (recall / 부서 필터 / 증분 삽입 / 저장-로드) 단위 테스트
+ */
+class AiHnswIndexTests {
+
+    private static final String[] DEPTS = {"DEVELOPMENT", "DESIGN", "SALES", "HR"};
+
+    @Test
+    @DisplayName("recall@10 이 전수 검색 대비 0.9 이상이다")
+    void recallAgainstExactSearch() {
+        Random random = new Random(5);
+        AiVectorStore store = fill(new AiVectorStore(false), random, 2000, 32);
+        AiHnswIndex index = new AiHnswIndex(store, 16, 200, 64);
+        index.catchUp();
+
+        assertTrue(recall(store, index, random, 32, null) >= 0.9);
+    }
+
+    @Test
+    @DisplayName("부서 필터를 주면 해당 부서 문서만 나오고, 없는 부서면 결과가 없다")
+    void filtersByDepartment() {
+        Random random = new Random(9);
+        AiVectorStore store = fill(new AiVectorStore(false), random, 1000, 16);
+        AiHnswIndex index = new AiHnswIndex(store, 8, 100, 64);
+        index.catchUp();
+
+        List<AiVectorStore.Hit> hits = index.search(randomVector(random, 16), "design", 5);
+        assertEquals(5, hits.size());
+        assertTrue(hits.stream().allMatch(h -> h.dept().equals("DESIGN")));
+        assertTrue(index.search(randomVector(random, 16), "FINANCE", 5).isEmpty());
+        assertTrue(recall(store, index, random, 16, "HR") >= 0.9);
+    }
+
+    @Test
+    @DisplayName("작은 부서는 그래프를 다 훑지 않고 부서 전수 검색으로, 큰 부서는 그래프로 찾는다")
+    void smallDepartmentFallsBackToFlatScan() {
+        Random random = new Random(17);
+        AiVectorStore store = new AiVectorStore(false);
+        for (int i = 0; i < 3000; i++) store.add("doc-" + i, i % 30 == 0 ? "HR" : "DEVELOPMENT", randomVector(random, 16));
+        AiHnswIndex index = new AiHnswIndex(store, 8, 100, 64);
+        index.catchUp();
+
+        assertTrue(recall(store, index, random, 16, "DEVELOPMENT") >= 0.9);
+        assertEquals(0L, index.snapshot().get("flatScans"));
+
+        assertEquals(1.0, recall(store, index, random, 16, "HR")); // 전수 검색이라 정확
+        assertEquals(50L, index.snapshot().get("flatScans"));
+    }
+
+    @Test
+    @DisplayName("저장소에 문서를 더 넣고 catchUp 하면 새 문서만 증분 삽입된다")
+    void insertsIncrementally() {
+        Random random = new Random(13);
+        AiVectorStore store = fill(new AiVectorStore(false), random, 500, 16);
+        AiHnswIndex index = new AiHnswIndex(store, 8, 100, 64);
+        assertEquals(500, index.catchUp());
+
+        List<Double> target = randomVector(random, 16);
+        store.add("new-doc", "HR", target);
+        assertEquals(1, index.catchUp());
+        assertEquals(0, index.catchUp());
+
+        assertEquals("new-doc", index.search(target, null, 1).get(0).content());
+    }
+
+    @Test
+    @DisplayName("저장한 그래프를 다시 읽으면 같은 결과를 돌려주고, 문서가 다르면 재구축한다")
+    void persistsToDisk(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("knowledge.hnsw");
+        AiVectorStore store = fill(new AiVectorStore(true), new Random(17), 800, 24);
+        AiHnswIndex built = AiHnswIndex.openOrBuild(store, path, 8, 100, 32);
+        assertTrue(Files.exists(path));
+
+        AiHnswIndex loaded = AiHnswIndex.load(store, path, 8, 100, 32);
+        assertNotNull(loaded);
+        assertEquals(built.size(), loaded.size());
+        Random random = new Random(19);
+        for (int i = 0; i < 20; i++) {
+            List<Double> q = randomVector(random, 24);
+            assertEquals(built.search(q, null, 5), loaded.search(q, null, 5));
+        }
+
+        // 파라미터가 다르면 사용하지 않는다
+        assertNull(AiHnswIndex.load(store, path, 12, 100, 32));
+
+        // 같은 순서의 문서 뒤에 더 붙었으면 읽은 뒤 나머지만 삽입
+        store.add("appended", "HR", randomVector(random, 24));
+        AiHnswIndex resumed = AiHnswIndex.load(store, path, 8, 100, 32);
+        assertNotNull(resumed);
+        assertEquals(1, resumed.catchUp());
+
+        // 내용이 다른 저장소면 재구축
+        AiVectorStore other = fill(new AiVectorStore(true), new Random(23), 800, 24);
+        assertNull(AiHnswIndex.load(other, path, 8, 100, 32));
+    }
+
+    private static AiVectorStore fill(AiVectorStore store, Random random, int n, int dim) {
+        for (int i = 0; i < n; i++) store.add("doc-" + i, DEPTS[i % DEPTS.length], randomVector(random, dim));
+        return store;
+    }
+
+    private static double recall(AiVectorStore store, AiHnswIndex index, Random random, int dim, String dept) {
+        int queries = 50;
+        int k = 10;
+        int found = 0;
+        for (int i = 0; i < queries; i++) {
+            List<Double> q = randomVector(random, dim);
+            Set<Integer> exact = new HashSet<>();
+            store.search(q, dept, k).forEach(h -> exact.add(h.index()));
+            for (AiVectorStore.Hit h : index.search(q, dept, k)) {
+                if (exact.contains(h.index())) found++;
+            }
+        }
+        return found / (double) (queries * k);
+    }
+
+    private static List<Double> randomVector(Random random, int dim) {
+        List<Double> v = new ArrayList<>(dim);
+        for (int d = 0; d < dim; d++) v.add(random.nextGaussian());
+        return v;
+    }
+}
@@ -0,0 +1,88 @@
+package com.desk.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LLM 응답 관대한 JSON 파서 / 프롬프트별 스키마 단위 테스트
+ */
+class AiJsonParserTests {
+
+    @Test
+    @DisplayName("순수 JSON 은 그대로 파싱한다")
+    void parsesPlainJson() {
+        JsonNode node = AiJsonParser.parseObject("{\"filteredMessage\": \"확인 부탁드립니다.\", \"shouldCreateTicket\": true}");
+
+        assertEquals("확인 부탁드립니다.", node.path("filteredMessage").asText());
+        assertTrue(node.path("shouldCreateTicket").asBoolean());
+    }
+
+    @Test
+    @DisplayName("추론 블록 / 잡담 / 코드펜스 / trailing comma 가 섞여도 첫 객체를 추출한다")
+    void extractsFirstObjectFromChatter() {
+        // FakeOllamaServer(FakeFault.MALFORMED) 가 만드는 응답 형태
+        String raw = "<think>\n{\"draft\": 1} 사용자 요청을 분석합니다...\n</think>\n다음은 결과입니다:\n```json\n"
+                + "{\"responseToUser\": \"마감일을 알려주세요.\", \"updatedTicket\": {\"title\": \"로그인 오류\",},},\n```";
+
+        JsonNode node = AiJsonParser.parseObject(raw);
+
+        assertEquals("마감일을 알려주세요.", node.path("responseToUser").asText());
+        assertEquals("로그인 오류", node.path("updatedTicket").path("title").asText());
+        assertFalse(node.has("draft"), "추론 블록 안의 객체는 무시해야 한다");
+    }
+
+    @Test
+    @DisplayName("문자열 안의 괄호는 구조로 보지 않는다")
+    void ignoresBracesInsideStrings() {
+        JsonNode node = AiJsonParser.parseObject("결과: {\"keyword\": \"}{ 견적서 \\\"v2\\\"\", \"senderOnly\": false} 끝");
+
+        assertEquals("}{ 견적서 \"v2\"", node.path("keyword").asText());
+    }
+
+    @Test
+    @DisplayName("중간에 끊긴 응답은 열린 문자열/괄호를 닫아 복구한다")
+    void repairsTruncatedOutput() {
+        JsonNode cutInValue = AiJsonParser.parseObject("{\"title\": \"회의 결과\", \"attendees\": [\"황시우\", \"김철");
+        assertEquals("회의 결과", cutInValue.path("title").asText());
+        assertEquals(2, cutInValue.path("attendees").size());
+
+        JsonNode cutAfterKey = AiJsonParser.parseObject("{\"title\": \"회의 결과\", \"overview\"");
+        assertEquals("회의 결과", cutAfterKey.path("title").asText());
+        assertFalse(cutAfterKey.has("overview"));
+    }
+
+    @Test
+    @DisplayName("스마트 따옴표 / 작은따옴표 응답을 복구한다")
+    void repairsQuotes() {
+        assertEquals("안녕하세요", AiJsonParser.parseObject("{“filteredMessage”: “안녕하세요”}").path("filteredMessage").asText());
+        assertEquals("DESIGN", AiJsonParser.parseObject("{'department': 'DESIGN'}").path("department").asText());
+    }
+
+    @Test
+    @DisplayName("객체가 없으면 예외")
+    void failsWithoutObject() {
+        assertThrows(IllegalArgumentException.class, () -> AiJsonParser.parseObject("죄송하지만 이해하지 못했습니다."));
+        assertThrows(IllegalArgumentException.class, () -> AiJsonParser.parseObject("  "));
+    }
+
+    @Test
+    @DisplayName("구조화 응답 기능은 스키마, 나머지는 json 모드")
+    @SuppressWarnings("unchecked")
+    void providesSchemaPerFeature() {
+        Map<String, Object> schema = (Map<String, Object>) AiJsonSchema.format(AiFeature.CHAT_FILTER, true);
+        assertEquals("object", schema.get("type"));
+        assertEquals(List.of("filteredMessage", "shouldCreateTicket"), schema.get("required"));
+
+        assertEquals("json", AiJsonSchema.format(AiFeature.CHAT_FILTER, false));
+        assertEquals("json", AiJsonSchema.format(AiFeature.TICKET_ROUTING, true));
+        assertNotNull(AiJsonSchema.forFeature(AiFeature.TICKET_INTERVIEW));
+        assertNotNull(AiJsonSchema.forFeature(AiFeature.FILE_SEARCH));
+        assertNotNull(AiJsonSchema.forFeature(AiFeature.MEETING_SUMMARY));
+    }
+}
@@ -0,0 +1,224 @@
+package com.desk.service.ai;
+
+import com.desk.config.AIConfig;
+import com.desk.config.OllamaConfig;
+import com.desk.dto.AITicketRequestDTO;
+import com.desk.dto.AITicketResponseDTO;
+import com.desk.dto.MeetingMinutesDTO;
+import com.desk.repository.AiUsageRepository;
+import com.desk.repository.MemberRepository;
+import com.desk.repository.TicketPersonalRepository;
+import com.desk.service.AITicketClientServiceImpl;
+import com.desk.service.AITicketRAGServiceImpl;
+import com.desk.service.AITicketScenarioService;
+import com.desk.service.AITicketServiceImpl;
+import com.desk.service.OllamaServiceImpl;
+import com.desk.service.ai.fake.FakeOllamaInitializer;
+import com.desk.service.ai.fake.FakeOllamaServer;
+import com.desk.service.ai.fake.LoadRunner;
+import com.desk.service.chat.ai.AiMessageProcessor;
+import com.desk.service.chat.ai.OllamaClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * [AI 경로 지연/처리량 벤치마크]
+ * 가짜 Ollama 서버(fake-ollama 프로필)를 상대로 실제 서비스 빈을 호출해
+ * 처리량과 꼬리 지연(p50/p95/p99)을 측정한다. DB/Redis 없이 AI 관련 빈만 띄운다.
+ *
+ * 실행: ./gradlew aiBenchmark  (기본 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+@SpringBootTest(
+        classes = {
+                OllamaConfig.class, AIConfig.class, AiCallGuard.class, AiRequestScheduler.class, AiEndpointRouter.class,
+                OllamaClient.class, AiMessageProcessor.class,
+                AITicketClientServiceImpl.class, AITicketRAGServiceImpl.class, AITicketServiceImpl.class,
+                AITicketConversationManager.class, AITicketIntentClassifier.class, AITicketCentroidRouter.class,
+                AiEmbeddingModel.class, AiEmbeddingCache.class, AiQueryEmbeddingCache.class, AiUsageAccountant.class,
+                OllamaServiceImpl.class,
+                AiLatencyBenchmarkTests.BenchmarkConfig.class
+        },
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ContextConfiguration(initializers = FakeOllamaInitializer.class)
+@ActiveProfiles(FakeOllamaInitializer.PROFILE)
+@Log4j2
+public class AiLatencyBenchmarkTests {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 400;
+
+    // 임베딩 디스크 캐시는 작업 트리(data/rag/embeddings) 대신 임시 디렉터리에
+    @TempDir
+    static Path cacheDir;
+
+    @DynamicPropertySource
+    static void cacheProperties(DynamicPropertyRegistry registry) {
+        registry.add("ai.embedding.cache.dir", () -> cacheDir.resolve("embeddings").toString());
+    }
+
+    @TestConfiguration
+    static class BenchmarkConfig {
+        @Bean
+        public ObjectMapper objectMapper() {
+            // LocalDate(회의록 deadline) 역직렬화를 위해 JavaTime 모듈 포함
+            return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    @MockitoBean
+    private MemberRepository memberRepository;
+
+    @MockitoBean
+    private AITicketScenarioService scenarioService;
+
+    @MockitoBean
+    private TicketPersonalRepository ticketPersonalRepository;
+
+    @MockitoBean
+    private AiUsageRepository aiUsageRepository;
+
+    @Autowired
+    private FakeOllamaServer fakeOllamaServer;
+
+    @Autowired
+    private AiCallGuard aiCallGuard;
+
+    @Autowired
+    private AiRequestScheduler aiRequestScheduler;
+
+    @Autowired
+    private AiMessageProcessor aiMessageProcessor;
+
+    @Autowired
+    private AITicketServiceImpl aiTicketService;
+
+    @Autowired
+    private OllamaServiceImpl ollamaService;
+
+    @BeforeEach
+    public void reset() {
+        fakeOllamaServer.resetStats();
+    }
+
+    @Test
+    public void chatMessageFilter() throws Exception {
+        AtomicInteger seq = new AtomicInteger();
+        LoadRunner.Result r = LoadRunner.run("AiMessageProcessor", AiFeature.CHAT_FILTER.getLane().getDefaultMaxConcurrent(),
+                WARMUP, ITERATIONS, () -> {
+                    AiMessageProcessor.ProcessResult pr =
+                            aiMessageProcessor.processMessage("이거 빨리 좀 고쳐줘요 " + seq.incrementAndGet(), true);
+                    return !pr.isReviewRequired();
+                });
+        report(r);
+        Assertions.assertEquals(0, r.errors());
+    }
+
+    @Test
+    public void ticketRouting() throws Exception {
+        AtomicInteger seq = new AtomicInteger();
+        LoadRunner.Result r = LoadRunner.run("processRequest/routing", AiFeature.TICKET_ROUTING.getLane().getDefaultMaxConcurrent(),
+                WARMUP, ITERATIONS, () -> {
+                    AITicketRequestDTO req = new AITicketRequestDTO();
+                    req.setConversationId("bench-" + seq.incrementAndGet());
+                    req.setUserInput("ERP 로그인 오류 확인 요청 " + seq.get());
+                    req.setCurrentTicket(new AITicketRequestDTO.AITicketInfo());
+                    AITicketResponseDTO resp = aiTicketService.processRequest(req);
+                    return resp.getIdentifiedTargetDept() != null;
+                });
+        report(r);
+        Assertions.assertEquals(0, r.errors());
+    }
+
+    @Test
+    public void ticketInterview() throws Exception {
+        AtomicInteger seq = new AtomicInteger();
+        LoadRunner.Result r = LoadRunner.run("processRequest/interview", AiFeature.TICKET_INTERVIEW.getLane().getDefaultMaxConcurrent(),
+                WARMUP, ITERATIONS, () -> {
+                    AITicketRequestDTO.AITicketInfo ticket = new AITicketRequestDTO.AITicketInfo();
+                    ticket.setReceivers(new ArrayList<>(List.of("TEAM_DEVELOPMENT")));
+                    AITicketRequestDTO req = new AITicketRequestDTO();
+                    req.setConversationId("bench-" + seq.incrementAndGet());
+                    req.setTargetDept("DEVELOPMENT");
+                    req.setUserInput("다음 주까지 서버 점검 일정 잡아주세요 " + seq.get());
+                    req.setCurrentTicket(ticket);
+                    AITicketResponseDTO resp = aiTicketService.processRequest(req);
+                    return !"ai_unavailable".equals(resp.getNextAction());
+                });
+        report(r);
+        Assertions.assertEquals(0, r.errors());
+    }
+
+    @Test
+    public void meetingSummary() throws Exception {
+        AtomicInteger seq = new AtomicInteger();
+        // 회의록은 BATCH 레인(동시 1건)이므로 단일 클라이언트로 측정
+        LoadRunner.Result r = LoadRunner.run("OllamaService/meeting", AiFeature.MEETING_SUMMARY.getLane().getDefaultMaxConcurrent(),
+                WARMUP / 4, ITERATIONS / 4, () -> {
+                    MeetingMinutesDTO dto = ollamaService.getMeetingInfoFromAi(null, "주간 회의",
+                            "음 그러니까 다음 주 금요일까지 배포 준비를 끝내기로 했습니다 " + seq.incrementAndGet(),
+                            "배포 일정 확정", "QA 일정 포함");
+                    return dto.getTitle() != null;
+                });
+        report(r);
+        Assertions.assertEquals(0, r.errors());
+    }
+
+    @Test
+    public void chatUnderMeetingBacklog() throws Exception {
+        // 회의록 요약이 계속 쌓여 있어도 채팅 정제(REALTIME 레인)의 꼬리 지연이 유지되는지 측정
+        AtomicInteger seq = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] background = new Thread[3];
+        for (int i = 0; i < background.length; i++) {
+            background[i] = Thread.ofVirtual().start(() -> {
+                while (running.get()) {
+                    try {
+                        ollamaService.getMeetingInfoFromAi(null, "주간 회의", "배포 일정 논의 " + seq.incrementAndGet(), "", "");
+                    } catch (Exception ignored) {
+                        // 대기열 초과로 거절되는 것은 정상
+                    }
+                }
+            });
+        }
+        try {
+            LoadRunner.Result r = LoadRunner.run("AiMessageProcessor+meeting", AiFeature.CHAT_FILTER.getLane().getDefaultMaxConcurrent(),
+                    WARMUP, ITERATIONS, () -> !aiMessageProcessor.processMessage("확인 부탁해요 " + seq.incrementAndGet(), true).isReviewRequired());
+            report(r);
+            Assertions.assertEquals(0, r.fallbacks());
+        } finally {
+            running.set(false);
+            for (Thread t : background) t.join();
+        }
+    }
+
+    private void report(LoadRunner.Result r) {
+        log.info("[Benchmark] fake server | chat={} generate={} maxInFlight={}",
+                fakeOllamaServer.getRequestCount("/api/chat"),
+                fakeOllamaServer.getRequestCount("/api/generate"),
+                fakeOllamaServer.getMaxInFlight());
+        log.info("[Benchmark] guard | {}", aiCallGuard.snapshot());
+        log.info("[Benchmark] scheduler | {}", aiRequestScheduler.snapshot());
+    }
+}
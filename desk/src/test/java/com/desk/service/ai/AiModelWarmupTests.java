@@ -0,0 +1,104 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.ai.fake.FakeLatency;
+import com.desk.service.ai.fake.FakeOllamaServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 모델 warm-up / keep-alive 테스트 (가짜 Ollama 서버 사용, 스프링 컨텍스트 불필요)
+ */
+class AiModelWarmupTests {
+
+    private static final String MODEL = "qwen3:8b";
+
+    private FakeOllamaServer server;
+    private AiModelWarmup warmup;
+
+    @AfterEach
+    void tearDown() {
+        if (warmup != null) warmup.shutdown();
+        if (server != null) server.close();
+    }
+
+    @Test
+    @DisplayName("warm-up 이 끝나기 전에는 OUT_OF_SERVICE, 끝나면 UP 이고 모델이 로드되어 있다")
+    void reportsReadyAfterModelsLoaded() throws Exception {
+        server = FakeOllamaServer.builder().latency("/api/generate", FakeLatency.fixed(500)).build().start();
+        warmup = warmup(5_000);
+
+        assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+
+        waitUntil(() -> warmup.getState() != AiModelWarmup.State.WARMING, 5_000);
+        assertEquals(AiModelWarmup.State.READY, warmup.getState());
+        assertEquals(Status.UP, warmup.health().getStatus());
+        assertTrue(server.isLoaded(MODEL));
+        assertEquals(1, server.getRequestCount("/api/generate"));
+    }
+
+    @Test
+    @DisplayName("warm-up 이 timeout 을 넘기면 기다리지 않고 UP 으로 전환한다")
+    void becomesReadyAfterTimeout() throws Exception {
+        server = FakeOllamaServer.builder().latency("/api/generate", FakeLatency.fixed(3_000)).build().start();
+        warmup = warmup(300);
+
+        waitUntil(() -> warmup.getState() != AiModelWarmup.State.WARMING, 2_000);
+        assertEquals(AiModelWarmup.State.TIMED_OUT, warmup.getState());
+        assertEquals(Status.UP, warmup.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("idle ping 은 내려간 모델만 다시 올린다")
+    void pingReloadsOnlyUnloadedModels() throws Exception {
+        server = FakeOllamaServer.builder().build().start();
+        warmup = warmup(5_000);
+        waitUntil(() -> warmup.getState() == AiModelWarmup.State.READY, 5_000);
+
+        // keep_alive(30m) 가 충분히 남아 있으면 다시 부르지 않는다.
+        warmup.pingIdleModels();
+        Thread.sleep(200);
+        assertEquals(1, server.getRequestCount("/api/generate"));
+
+        server.unload(MODEL);
+        warmup.pingIdleModels();
+        waitUntil(() -> server.isLoaded(MODEL), 2_000);
+        assertEquals(2, server.getRequestCount("/api/generate"));
+    }
+
+    private AiModelWarmup warmup(long timeoutMs) {
+        OllamaConfig config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "baseUrl", server.getBaseUrl());
+        ReflectionTestUtils.setField(config, "endpoints", "");
+        ReflectionTestUtils.setField(config, "modelName", MODEL);
+        ReflectionTestUtils.setField(config, "keepAlive", "30m");
+        ReflectionTestUtils.setField(config, "apiKey", "");
+
+        AiEndpointRouter router = new AiEndpointRouter(config);
+        ReflectionTestUtils.setField(router, "probeIntervalMs", 0L);
+        ReflectionTestUtils.setField(router, "probeTimeoutMs", 500);
+        router.init();
+
+        AiModelWarmup w = new AiModelWarmup(config, router);
+        ReflectionTestUtils.setField(w, "enabled", true);
+        ReflectionTestUtils.setField(w, "timeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(w, "pingIntervalMs", 0L); // 테스트에서는 pingIdleModels 직접 호출
+        w.init();
+        return w;
+    }
+
+    private static void waitUntil(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met in " + timeoutMs + "ms");
+    }
+}
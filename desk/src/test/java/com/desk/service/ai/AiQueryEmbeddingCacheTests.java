@@ -0,0 +1,147 @@
+package com.desk.service.ai;
+
+import com.desk.config.OllamaConfig;
+import com.desk.service.AITicketClientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 질의 임베딩 캐시 (LRU / TTL / 세션 주제 벡터 재사용) 단위 테스트
+ */
+class AiQueryEmbeddingCacheTests {
+
+    private final List<String> embedded = new ArrayList<>();
+    private Function<String, List<Double>> vectors;
+    private long now;
+
+    private OllamaConfig config;
+    private AiQueryEmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new OllamaConfig();
+        ReflectionTestUtils.setField(config, "embedModelName", "nomic-embed-text");
+        ReflectionTestUtils.setField(config, "embedDimension", 0);
+        ReflectionTestUtils.setField(config, "embedNormalize", false);
+        ReflectionTestUtils.setField(config, "embedBatchSize", 8);
+
+        vectors = text -> List.of(1.0, 0.0);
+        cache = new AiQueryEmbeddingCache(new AiEmbeddingModel(new RecordingClient(), config));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlMs", 1000L);
+        ReflectionTestUtils.setField(cache, "topicThreshold", 0.75);
+        ReflectionTestUtils.setField(cache, "minTopicTerms", 4);
+        cache.clock = () -> now;
+    }
+
+    @Test
+    @DisplayName("대소문자/공백만 다른 질문은 다시 임베딩하지 않는다")
+    void hitsOnNormalizedText() {
+        cache.embed("VPN 접속이   안 됩니다");
+        cache.embed("  vpn 접속이 안 됩니다 ");
+
+        assertEquals(1, embedded.size());
+        assertEquals(1L, cache.snapshot().get("hits"));
+    }
+
+    @Test
+    @DisplayName("TTL 이 지나면 다시 임베딩하고, 용량을 넘으면 가장 오래 안 쓴 항목부터 버린다")
+    void expiresAndEvictsLeastRecentlyUsed() {
+        cache.embed("a1");
+        now = 1000;
+        cache.embed("a1");
+        assertEquals(2, embedded.size());
+        assertEquals(1L, cache.snapshot().get("expired"));
+
+        cache.embed("b1");
+        cache.embed("a1"); // a1 최근 사용
+        cache.embed("c1"); // b1 축출
+        embedded.clear();
+        cache.embed("a1");
+        cache.embed("b1");
+        assertEquals(List.of("b1"), embedded);
+    }
+
+    @Test
+    @DisplayName("모델이 바뀌면 이전 모델 벡터를 쓰지 않는다")
+    void keysByModel() {
+        cache.embed("같은 질문");
+        ReflectionTestUtils.setField(config, "embedModelName", "bge-m3");
+        cache.embed("같은 질문");
+
+        assertEquals(2, embedded.size());
+    }
+
+    @Test
+    @DisplayName("인터뷰 세션은 짧은 답변/같은 주제 입력에 첫 질문 임베딩을 재사용한다")
+    void reusesTopicVectorWithinSession() {
+        List<Double> first = cache.embedForSession("s1", "사내 VPN 접속 오류 해결 요청 드립니다");
+
+        assertEquals(first, cache.embedForSession("s1", "내일 오전까지요"));
+        assertEquals(first, cache.embedForSession("s1", "VPN 접속 오류 요청"));
+        assertEquals(1, embedded.size());
+        assertEquals(2L, cache.snapshot().get("sessionReuses"));
+    }
+
+    @Test
+    @DisplayName("새 단어가 많고 임베딩이 충분히 다르면 주제 벡터를 교체한다")
+    void replacesTopicWhenItChanges() {
+        vectors = text -> text.contains("VPN") ? List.of(1.0, 0.0) : List.of(0.0, 1.0);
+        cache.embedForSession("s1", "사내 VPN 접속 오류 해결 요청");
+
+        // 새 단어가 많지만 임베딩이 비슷하면 주제 유지
+        vectors = text -> List.of(0.95, 0.1);
+        assertEquals(List.of(1.0, 0.0), cache.embedForSession("s1", "원격 근무 네트워크 연결 문제 있습니다"));
+
+        vectors = text -> List.of(0.0, 1.0);
+        assertEquals(List.of(0.0, 1.0), cache.embedForSession("s1", "다음 분기 마케팅 예산 집행 계획 검토"));
+        assertEquals(1L, cache.snapshot().get("topicChanges"));
+
+        // 다른 세션은 독립적
+        cache.embedForSession("s2", "사내 VPN 접속 오류 재요청");
+        assertEquals(4, embedded.size());
+    }
+
+    // 임베딩 요청 기록용 클라이언트
+    private class RecordingClient implements AITicketClientService {
+
+        @Override
+        public List<List<Double>> getEmbeddings(AiFeature feature, List<String> texts, String embeddingModel) {
+            List<List<Double>> result = new ArrayList<>();
+            for (String t : texts) {
+                embedded.add(t);
+                result.add(vectors.apply(t));
+            }
+            return result;
+        }
+
+        @Override
+        public String generateText(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateText(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(String prompt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateJson(AiFeature feature, String prompt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
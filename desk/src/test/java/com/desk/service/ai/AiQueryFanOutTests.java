@@ -0,0 +1,171 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 파일조회 쿼리 병렬 실행 (요청당 동시 실행 한도 / 시간 예산 / 실패 시 형제 취소) 단위 테스트
+ */
+class AiQueryFanOutTests {
+
+    private final AiQueryFanOut fanOut = new AiQueryFanOut();
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    private void configure(int parallelism, long budgetMs) {
+        ReflectionTestUtils.setField(fanOut, "parallelism", parallelism);
+        ReflectionTestUtils.setField(fanOut, "budgetMs", budgetMs);
+    }
+
+    @Test
+    @DisplayName("독립 작업은 동시에 돌고, 동시 실행 수는 요청당 한도를 넘지 않는다")
+    void runsConcurrentlyWithinParallelismLimit() {
+        configure(2, 5000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<AiQueryFanOut.Subtask<Integer>> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        try (AiQueryFanOut.Scope scope = fanOut.begin().open()) {
+            for (int i = 0; i < 6; i++) {
+                int n = i;
+                tasks.add(scope.fork(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(100);
+                    running.decrementAndGet();
+                    return n;
+                }));
+            }
+            assertTrue(scope.join());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), tasks.stream().map(AiQueryFanOut.Subtask::result).toList());
+        assertEquals(2, peak.get());
+        assertTrue(elapsedMs < 550, "6개 x 100ms 를 2개씩 → 약 300ms, 순서대로면 600ms: " + elapsedMs);
+    }
+
+    @Test
+    @DisplayName("시간 예산을 넘기면 남은 작업을 취소하고 끝난 결과만 남긴다. 다 쓴 예산으로는 새 작업을 시작하지 않는다")
+    void cancelsStragglersWhenBudgetRunsOut() throws Exception {
+        configure(4, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        AiQueryFanOut.Budget budget = fanOut.begin();
+        AiQueryFanOut.Subtask<String> fast;
+        AiQueryFanOut.Subtask<String> slow;
+        try (AiQueryFanOut.Scope scope = budget.open()) {
+            fast = scope.fork(() -> "fast");
+            slow = scope.fork(() -> runningQuery(release, interrupted, finished));
+            assertFalse(scope.join());
+        }
+
+        assertEquals("fast", fast.result());
+        assertNull(slow.result());
+        assertTrue(budget.expired());
+
+        try (AiQueryFanOut.Scope scope = budget.open()) {
+            AiQueryFanOut.Subtask<String> late = scope.fork(() -> "late");
+            assertTrue(scope.join());
+            assertNull(late.result());
+        }
+
+        // 이미 시작한 작업은 인터럽트하지 않는다 (JDBC 소켓이 닫히지 않게). 끝까지 돌고 결과만 버려진다
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertNull(slow.result());
+        assertEquals(1L, fanOut.snapshot().get("timeouts"));
+        assertEquals(1L, fanOut.snapshot().get("skipped"));
+        assertEquals(1L, fanOut.snapshot().get("abandoned"));
+        assertEquals(0L, fanOut.snapshot().get("failures"));
+    }
+
+    @Test
+    @DisplayName("슬롯을 기다리던 작업은 취소되면 시작하지 않는다")
+    void waitingTaskNeverStartsAfterCancel() throws Exception {
+        configure(1, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean started = new AtomicBoolean();
+
+        try (AiQueryFanOut.Scope scope = fanOut.begin().open()) {
+            scope.fork(() -> runningQuery(release, new AtomicBoolean(), finished));
+            scope.fork(() -> started.getAndSet(true));
+            assertFalse(scope.join());
+        }
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(started.get());
+    }
+
+    @Test
+    @DisplayName("작업 안에서는 남은 예산이 쿼리 timeout(초, 올림)으로 보이고, 작업 밖에서는 제한 없음(-1)")
+    void exposesRemainingBudgetAsQueryTimeout() {
+        configure(2, 2500);
+        AiQueryFanOut.Subtask<Integer> timeout;
+        try (AiQueryFanOut.Scope scope = fanOut.begin().open()) {
+            timeout = scope.fork(AiQueryFanOut::queryTimeoutSeconds);
+            assertTrue(scope.join());
+        }
+        assertEquals(3, timeout.result());
+        assertEquals(-1, AiQueryFanOut.queryTimeoutSeconds());
+    }
+
+    @Test
+    @DisplayName("작업 하나가 실패하면 나머지를 취소하고 join 이 그 예외를 던진다")
+    void failureCancelsSiblings() throws Exception {
+        configure(4, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        AiQueryFanOut.Subtask<String> slow;
+        try (AiQueryFanOut.Scope scope = fanOut.begin().open()) {
+            slow = scope.fork(() -> runningQuery(release, interrupted, finished));
+            scope.fork(() -> {
+                Thread.sleep(50);
+                throw new IllegalStateException("db down");
+            });
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, scope::join);
+            assertEquals("db down", e.getMessage());
+        }
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertNull(slow.result());
+        assertEquals(1L, fanOut.snapshot().get("failures"));
+    }
+
+    // 이미 DB 에 나간 쿼리 흉내: release 될 때까지 돈다 (인터럽트되면 기록)
+    private static String runningQuery(CountDownLatch release, AtomicBoolean interrupted, CountDownLatch finished) {
+        try {
+            while (!release.await(10, TimeUnit.MILLISECONDS)) {
+                if (Thread.currentThread().isInterrupted()) interrupted.set(true);
+            }
+        } catch (InterruptedException e) {
+            interrupted.set(true);
+        } finally {
+            finished.countDown();
+        }
+        return "slow";
+    }
+}
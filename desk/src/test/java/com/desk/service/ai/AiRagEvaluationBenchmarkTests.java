@@ -0,0 +1,234 @@
+package com.desk.service.ai;
+
+import com.desk.domain.Department;
+import com.desk.service.ai.fake.DeterministicEmbedding;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * [RAG 검색 품질 / 지연 평가] design_scenario.json 으로 만든 정답 세트(질의 → 시나리오 문서)를 백엔드별로 돌려
+ * recall@k, MRR@10, p50/p99 지연, 힙 사용량을 비교한다. AITicketRAGServiceImpl 검색 경로를 바꿀 때 전후 비교용
+ *
+ * - 문서   : 시나리오 aiMessage + 티켓 제목/목적/요구사항, 서비스와 같은 AiTextChunker(200, 40) 로 청크 분할
+ * - 질의   : trigger / userMessageExample / setLastPrompt → 같은 시나리오 문서가 정답 (DEPT 단계는 부서 필터 없음)
+ * - 방해   : 시나리오 어휘로 만든 가짜 문서 DISTRACTORS 개 (seed 고정)
+ * - 임베딩 : DeterministicEmbedding (문자 bigram 해시, 256차원). AI 서버 없이 매번 같은 벡터
+ * - 백엔드 : exact(float32 전수) / int8(양자화 전수) / hnsw / bm25 / hybrid(exact + bm25 RRF)
+ *
+ * 순위는 청크가 아니라 원래 문서 기준이다. (같은 문서의 청크는 처음 나온 것만 센다)
+ * 지연은 질의 임베딩을 뺀 검색 시간, 힙은 백엔드를 만들기 전후 GC 후 사용량 차이다.
+ *
+ * 실행: ./gradlew aiBenchmark  (기본 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+class AiRagEvaluationBenchmarkTests {
+
+    private static final int DIMENSION = 256;
+    private static final int DISTRACTORS = 20_000;
+    private static final int CANDIDATES = 20; // 청크 후보 (문서 기준 top-10 을 채우기 위해 넉넉히)
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path dir;
+
+    private record Query(String text, String dept, String gold, List<Double> vector) {
+    }
+
+    private record Result(String backend, int[] ranks, long[] latencyNanos, long heapBytes) {
+    }
+
+    private interface Retriever {
+        List<KnowledgeStore.Hit> search(Query query, int k);
+    }
+
+    @Test
+    void retrievalQualityAndLatency() throws Exception {
+        JsonNode scenarios = loadScenarios();
+        List<KnowledgeStore.Chunk> chunks = new ArrayList<>();
+        List<AiBm25Index.Document> documents = new ArrayList<>();
+        Map<String, String> parentOf = new HashMap<>(); // (부서, 청크 본문) → 문서 id
+        List<Query> queries = new ArrayList<>();
+        Set<String> vocabulary = new LinkedHashSet<>();
+
+        AiTextChunker chunker = new AiTextChunker(200, 40);
+        for (int i = 0; i < scenarios.size(); i++) {
+            JsonNode s = scenarios.get(i);
+            String id = "scenario-" + i;
+            String dept = s.hasNonNull("dept") ? s.get("dept").asText() : s.path("identifiedTargetDept").asText();
+            String text = documentText(s);
+            for (String word : text.split("\\s+")) if (word.length() >= 2) vocabulary.add(word);
+            for (AiTextChunker.Chunk chunk : chunker.split(text)) add(chunks, documents, parentOf, id, dept, chunk.text());
+
+            String filter = "DEPT".equals(s.path("stage").asText()) ? null : dept;
+            Set<String> texts = new LinkedHashSet<>();
+            for (String field : List.of("trigger", "userMessageExample", "setLastPrompt")) {
+                if (s.hasNonNull(field) && !s.get(field).asText().isBlank()) texts.add(s.get(field).asText());
+            }
+            for (String q : texts) queries.add(new Query(q, filter, id, embed(q)));
+        }
+
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>(vocabulary);
+        Department[] depts = Department.values();
+        for (int i = 0; i < DISTRACTORS; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 15 + random.nextInt(25);
+            for (int w = 0; w < length; w++) sb.append(words.get(random.nextInt(words.size()))).append(' ');
+            add(chunks, documents, parentOf, "noise-" + i, depts[random.nextInt(depts.length)].name(), sb.toString().trim());
+        }
+
+        List<Result> results = new ArrayList<>();
+
+        long before = usedHeap();
+        InMemoryKnowledgeStore exact = new InMemoryKnowledgeStore(false);
+        exact.addAll(chunks);
+        long exactHeap = usedHeap() - before;
+        results.add(evaluate("exact", queries, parentOf, exactHeap, (q, k) -> exact.search(q.vector(), q.dept(), k)));
+
+        before = usedHeap();
+        InMemoryKnowledgeStore int8 = new InMemoryKnowledgeStore(true);
+        int8.addAll(chunks);
+        long int8Heap = usedHeap() - before;
+        results.add(evaluate("int8", queries, parentOf, int8Heap, (q, k) -> int8.search(q.vector(), q.dept(), k)));
+
+        before = usedHeap();
+        InMemoryKnowledgeStore hnsw = new InMemoryKnowledgeStore(false);
+        hnsw.addAll(chunks);
+        hnsw.enableHnsw(dir.resolve("eval.hnsw"), 16, 200, 64, 0);
+        long hnswHeap = usedHeap() - before;
+        results.add(evaluate("hnsw", queries, parentOf, hnswHeap, (q, k) -> hnsw.search(q.vector(), q.dept(), k)));
+
+        before = usedHeap();
+        AiBm25Index bm25 = AiBm25Index.build(documents);
+        long bm25Heap = usedHeap() - before;
+        results.add(evaluate("bm25", queries, parentOf, bm25Heap, (q, k) -> bm25.search(q.text(), q.dept(), k)));
+
+        results.add(evaluate("hybrid", queries, parentOf, exactHeap + bm25Heap, (q, k) -> AiRankFusion.reciprocalRank(
+                List.of(exact.search(q.vector(), q.dept(), k), bm25.search(q.text(), q.dept(), k)), 60, k)));
+
+        System.out.printf("%n========== RAG 검색 평가 (시나리오 %d개, 질의 %d개, 청크 %d개, 방해 문서 %d개, %d차원) ==========%n",
+                scenarios.size(), queries.size(), chunks.size(), DISTRACTORS, DIMENSION);
+        System.out.printf("%-8s %9s %9s %10s %8s %10s %10s %10s%n",
+                "backend", "recall@1", "recall@3", "recall@10", "MRR@10", "p50 (us)", "p99 (us)", "heap (MB)");
+        for (Result r : results) {
+            System.out.printf("%-8s %9.3f %9.3f %10.3f %8.3f %10.1f %10.1f %10.1f%n", r.backend(),
+                    recall(r.ranks(), 1), recall(r.ranks(), 3), recall(r.ranks(), 10), mrr(r.ranks(), 10),
+                    percentile(r.latencyNanos(), 0.50) / 1e3, percentile(r.latencyNanos(), 0.99) / 1e3,
+                    r.heapBytes() / 1024.0 / 1024.0);
+        }
+
+        // 재현성: 같은 입력이면 순위가 그대로 나와야 한다.
+        Result again = evaluate("exact", queries, parentOf, 0, (q, k) -> exact.search(q.vector(), q.dept(), k));
+        assertArrayEquals(results.get(0).ranks(), again.ranks());
+
+        double exactRecall = recall(results.get(0).ranks(), 10);
+        assertTrue(exactRecall > 0);
+        assertTrue(recall(results.get(1).ranks(), 10) >= exactRecall - 0.05, "int8 recall@10 하락이 크다");
+        assertTrue(recall(results.get(2).ranks(), 10) >= exactRecall - 0.05, "hnsw recall@10 하락이 크다");
+    }
+
+    // 질의마다 정답 문서의 순위 (1부터, 10위 밖이면 0)
+    private static Result evaluate(String backend, List<Query> queries, Map<String, String> parentOf,
+                                   long heapBytes, Retriever retriever) {
+        for (Query q : queries) retriever.search(q, CANDIDATES); // warm-up
+
+        int[] ranks = new int[queries.size()];
+        long[] latency = new long[queries.size() * ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < queries.size(); i++) {
+                Query q = queries.get(i);
+                long start = System.nanoTime();
+                List<KnowledgeStore.Hit> hits = retriever.search(q, CANDIDATES);
+                latency[round * queries.size() + i] = System.nanoTime() - start;
+                if (round == 0) ranks[i] = rankOf(hits, q.gold(), parentOf);
+            }
+        }
+        return new Result(backend, ranks, latency, heapBytes);
+    }
+
+    private static int rankOf(List<KnowledgeStore.Hit> hits, String gold, Map<String, String> parentOf) {
+        Set<String> seen = new LinkedHashSet<>();
+        for (KnowledgeStore.Hit hit : hits) {
+            String parent = parentOf.get(key(hit.dept(), hit.content()));
+            if (parent == null || !seen.add(parent)) continue;
+            if (parent.equals(gold)) return seen.size() <= 10 ? seen.size() : 0;
+        }
+        return 0;
+    }
+
+    private static double recall(int[] ranks, int k) {
+        return Arrays.stream(ranks).filter(r -> r > 0 && r <= k).count() / (double) ranks.length;
+    }
+
+    private static double mrr(int[] ranks, int k) {
+        return Arrays.stream(ranks).filter(r -> r > 0 && r <= k).mapToDouble(r -> 1.0 / r).sum() / ranks.length;
+    }
+
+    private static long percentile(long[] samples, double p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.min(Math.max(rank, 0), sorted.length - 1)];
+    }
+
+    private static void add(List<KnowledgeStore.Chunk> chunks, List<AiBm25Index.Document> documents,
+                            Map<String, String> parentOf, String id, String dept, String text) {
+        chunks.add(new KnowledgeStore.Chunk(KnowledgeStore.chunkKey(dept, text), text, dept, embed(text)));
+        documents.add(new AiBm25Index.Document(text, dept));
+        parentOf.put(key(dept, text), id);
+    }
+
+    private static String key(String dept, String content) {
+        return dept.toUpperCase(Locale.ROOT) + '\u0000' + content;
+    }
+
+    private static String documentText(JsonNode scenario) {
+        StringBuilder sb = new StringBuilder(scenario.path("aiMessage").asText().replace("**", ""));
+        JsonNode update = scenario.path("ticketUpdate");
+        for (String field : List.of("title", "purpose", "requirement")) {
+            if (update.hasNonNull(field)) sb.append('\n').append(update.get(field).asText());
+        }
+        return sb.toString();
+    }
+
+    private static List<Double> embed(String text) {
+        float[] v = DeterministicEmbedding.embed(text, DIMENSION);
+        List<Double> vector = new ArrayList<>(v.length);
+        for (float x : v) vector.add((double) x);
+        return vector;
+    }
+
+    private static JsonNode loadScenarios() throws Exception {
+        try (InputStream is = new ClassPathResource("data/design_scenario.json").getInputStream()) {
+            return new ObjectMapper().readTree(is).path("scenarios");
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
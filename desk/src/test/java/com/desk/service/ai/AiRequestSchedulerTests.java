@@ -0,0 +1,85 @@
+package com.desk.service.ai;
+
+import com.desk.util.AiUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LLM 요청 스케줄러 단위 테스트 (스프링 컨텍스트 불필요)
+ */
+class AiRequestSchedulerTests {
+
+    private AiRequestScheduler scheduler(int maxConcurrent) {
+        AiRequestScheduler scheduler = new AiRequestScheduler(new MockEnvironment());
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", maxConcurrent);
+        scheduler.init();
+        return scheduler;
+    }
+
+    @Test
+    @DisplayName("레인이 경쟁하면 weight 비율(8:1)로 슬롯을 받는다")
+    void weightedFairAcrossLanes() throws Exception {
+        AiRequestScheduler scheduler = scheduler(1);
+        AiRequestScheduler.Slot busy = scheduler.acquire(AiFeature.MEETING_SUMMARY).get();
+
+        List<CompletableFuture<AiRequestScheduler.Slot>> waiting = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            waiting.add(scheduler.acquire(AiFeature.CHAT_FILTER, 10_000));
+            waiting.add(scheduler.acquire(AiFeature.MEETING_SUMMARY, 10_000));
+        }
+
+        // 슬롯 1개를 돌려가며 누가 다음 슬롯을 받는지 기록
+        List<AiLane> order = new ArrayList<>();
+        AiRequestScheduler.Slot current = busy;
+        for (int i = 0; i < 10; i++) {
+            scheduler.release(current);
+            CompletableFuture<AiRequestScheduler.Slot> granted = waiting.stream()
+                    .filter(CompletableFuture::isDone).findFirst().orElseThrow();
+            waiting.remove(granted);
+            current = granted.get();
+            order.add(current.getLane());
+        }
+
+        long realtime = order.stream().filter(l -> l == AiLane.REALTIME).count();
+        assertTrue(realtime >= 8, "realtime lane should dominate: " + order);
+        assertTrue(order.contains(AiLane.BATCH), "batch lane must not starve: " + order);
+    }
+
+    @Test
+    @DisplayName("대기 허용 시간을 넘긴 요청은 실행되지 않고 AiUnavailableException 으로 끝난다")
+    void expiresAfterMaxWait() throws Exception {
+        AiRequestScheduler scheduler = scheduler(1);
+        AiRequestScheduler.Slot busy = scheduler.acquire(AiFeature.CHAT_FILTER).get();
+
+        CompletableFuture<AiRequestScheduler.Slot> late = scheduler.acquire(AiFeature.TICKET_ROUTING, 30);
+        ExecutionException e = assertThrows(ExecutionException.class, late::get);
+        assertInstanceOf(AiUnavailableException.class, e.getCause());
+
+        // 만료된 요청은 슬롯을 받지 않는다 → 다음 요청이 바로 실행된다.
+        scheduler.release(busy);
+        assertTrue(scheduler.acquire(AiFeature.TICKET_ROUTING).isDone());
+    }
+
+    @Test
+    @DisplayName("레인 동시 실행 상한: 전체 슬롯이 남아도 BATCH 는 1건씩만 실행")
+    void laneConcurrencyLimit() throws Exception {
+        AiRequestScheduler scheduler = scheduler(4);
+        AiRequestScheduler.Slot first = scheduler.acquire(AiFeature.MEETING_SUMMARY).get();
+        CompletableFuture<AiRequestScheduler.Slot> second = scheduler.acquire(AiFeature.MEETING_SUMMARY);
+
+        assertFalse(second.isDone());
+        assertTrue(scheduler.acquire(AiFeature.CHAT_FILTER).isDone());
+
+        scheduler.release(first);
+        assertTrue(second.isDone());
+    }
+}
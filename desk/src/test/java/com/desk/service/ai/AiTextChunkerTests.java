@@ -0,0 +1,68 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 지식 청크 분할기 단위 테스트
+ */
+class AiTextChunkerTests {
+
+    private static final String LONG = "입사 첫날에는 사원증을 받습니다. 노트북은 총무팀에서 수령합니다. 급여 계좌는 인사 시스템에 등록합니다."
+            + " 연차 신청은 그룹웨어 전자결재로 올립니다. 복지 포인트는 분기마다 지급됩니다. 보안 교육은 첫 주 안에 이수해야 합니다.";
+
+    @Test
+    @DisplayName("짧은 항목은 원문 그대로 청크 하나")
+    void keepsShortEntryWhole() {
+        assertEquals(List.of(new AiTextChunker.Chunk("짧은 항목입니다. v2.3 기준", 0)),
+                new AiTextChunker(200, 40).split("  짧은 항목입니다. v2.3 기준 "));
+        assertEquals(1, new AiTextChunker(0, 0).split(LONG).size());
+        assertTrue(new AiTextChunker(200, 40).split(" ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("문장 단위로 예산 안에서 묶고, 다음 청크는 앞 청크의 끝 문장으로 시작한다")
+    void splitsOnSentencesWithOverlap() {
+        List<AiTextChunker.Chunk> chunks = new AiTextChunker(40, 20).split(LONG);
+
+        assertTrue(chunks.size() > 1);
+        for (AiTextChunker.Chunk chunk : chunks) {
+            assertTrue(AiTokenEstimator.estimate(chunk.text()) <= 40, chunk.text());
+            assertTrue(chunk.text().endsWith("."), chunk.text()); // 문장 중간에서 자르지 않는다
+        }
+        AiTextChunker.Chunk second = chunks.get(1);
+        assertTrue(second.overlapChars() > 0);
+        String overlap = second.text().substring(0, second.overlapChars()).strip();
+        assertTrue(chunks.get(0).text().endsWith(overlap));
+        assertTrue(chunks.get(chunks.size() - 1).text().endsWith("보안 교육은 첫 주 안에 이수해야 합니다."));
+    }
+
+    @Test
+    @DisplayName("예산보다 긴 한 문장은 예산 크기로 자른다")
+    void hardSplitsLongSentence() {
+        List<AiTextChunker.Chunk> chunks = new AiTextChunker(5, 0).split("가나다라마바사아자차카타파하 abc");
+
+        assertEquals(List.of("가나다라마", "바사아자차", "카타파하 abc"),
+                chunks.stream().map(AiTextChunker.Chunk::text).toList());
+    }
+
+    @Test
+    @DisplayName("긴 문장은 AiTokenEstimator 기준으로 자른다 (조각은 예산 이내, 다음 글자를 붙이면 예산 초과)")
+    void hardSplitUsesEstimatorBudget() {
+        String sentence = "가a".repeat(30) + "bcd".repeat(20);
+        List<String> parts = new AiTextChunker(7, 0).split(sentence).stream()
+                .map(AiTextChunker.Chunk::text).toList();
+
+        assertEquals(sentence, String.join("", parts));
+        for (int i = 0; i < parts.size(); i++) {
+            assertTrue(AiTokenEstimator.estimate(parts.get(i)) <= 7, parts.get(i));
+            if (i < parts.size() - 1) {
+                assertTrue(AiTokenEstimator.estimate(parts.get(i) + parts.get(i + 1).charAt(0)) > 7, parts.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.desk.service.ai;
+
+import com.desk.util.AiQuotaExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 사용량 집계 / 슬라이딩 윈도우 한도 단위 테스트 (DB 불필요: 저장 주기 비활성화)
+ */
+class AiUsageAccountantTests {
+
+    private static final AiUsageAccountant.Caller KIM = new AiUsageAccountant.Caller("kim@desk.com", "DESIGN");
+    private static final AiUsageAccountant.Caller LEE = new AiUsageAccountant.Caller("lee@desk.com", "DESIGN");
+    private static final AiUsageAccountant.Caller PARK = new AiUsageAccountant.Caller("park@desk.com", "FINANCE");
+
+    private MockEnvironment env;
+    private AiUsageAccountant accountant;
+
+    @BeforeEach
+    void setUp() {
+        env = new MockEnvironment();
+        accountant = new AiUsageAccountant(null, env);
+        ReflectionTestUtils.setField(accountant, "enabled", true);
+        ReflectionTestUtils.setField(accountant, "windowMinutes", 60);
+        ReflectionTestUtils.setField(accountant, "memberMaxCalls", 3L);
+        ReflectionTestUtils.setField(accountant, "memberMaxTokens", 0L);
+        ReflectionTestUtils.setField(accountant, "departmentMaxCalls", 0L);
+        ReflectionTestUtils.setField(accountant, "departmentMaxTokens", 1_000L);
+        ReflectionTestUtils.setField(accountant, "exemptFeatures", "embedding");
+        ReflectionTestUtils.setField(accountant, "persistIntervalMs", 0L);
+        accountant.init();
+    }
+
+    @Test
+    @DisplayName("사용자 호출 수 한도를 넘으면 거절하고 다른 사용자는 영향 없다")
+    void enforcesMemberQuota() {
+        for (int i = 0; i < 3; i++) {
+            accountant.checkQuota(KIM, AiFeature.FILE_SEARCH);
+            accountant.recordCall(KIM, AiFeature.FILE_SEARCH, 100, true);
+        }
+
+        assertThrows(AiQuotaExceededException.class, () -> accountant.checkQuota(KIM, AiFeature.FILE_SEARCH));
+        assertDoesNotThrow(() -> accountant.checkQuota(LEE, AiFeature.FILE_SEARCH));
+    }
+
+    @Test
+    @DisplayName("부서 토큰 한도는 부서원 전체 합계로 판단하고, 부서별 설정으로 덮어쓸 수 있다")
+    void enforcesDepartmentTokenQuota() {
+        accountant.recordTokens(KIM, AiFeature.TICKET_INTERVIEW, 400, 200);
+        accountant.recordTokens(LEE, AiFeature.TICKET_INTERVIEW, 300, 100);
+        accountant.recordTokens(PARK, AiFeature.TICKET_INTERVIEW, 900, 0);
+
+        AiQuotaExceededException e = assertThrows(AiQuotaExceededException.class,
+                () -> accountant.checkQuota(LEE, AiFeature.TICKET_INTERVIEW));
+        assertTrue(e.getMessage().contains("DESIGN"));
+        assertDoesNotThrow(() -> accountant.checkQuota(PARK, AiFeature.TICKET_INTERVIEW));
+
+        env.setProperty("ai.quota.department.DESIGN.max-tokens", "5000");
+        assertDoesNotThrow(() -> accountant.checkQuota(LEE, AiFeature.TICKET_INTERVIEW));
+    }
+
+    @Test
+    @DisplayName("인증 정보 없는 호출과 예외 기능은 집계만 하고 제한하지 않는다")
+    void exemptsSystemCallerAndExemptFeatures() {
+        for (int i = 0; i < 10; i++) {
+            accountant.recordCall(AiUsageAccountant.Caller.SYSTEM, AiFeature.EMBEDDING, 5, true);
+            accountant.recordCall(KIM, AiFeature.EMBEDDING, 5, true);
+        }
+
+        assertDoesNotThrow(() -> accountant.checkQuota(AiUsageAccountant.Caller.SYSTEM, AiFeature.FILE_SEARCH));
+        assertDoesNotThrow(() -> accountant.checkQuota(KIM, AiFeature.EMBEDDING));
+        assertDoesNotThrow(() -> accountant.checkQuota(KIM, AiFeature.FILE_SEARCH)); // 임베딩 호출은 한도에 포함 안 됨
+    }
+
+    @Test
+    @DisplayName("실행 스레드에 바인딩된 호출 주체로 토큰이 귀속된다")
+    @SuppressWarnings("unchecked")
+    void attributesTokensToBoundCaller() {
+        accountant.callAs(PARK, () -> {
+            accountant.recordTokens(AiFeature.MEETING_SUMMARY, 700, 300);
+            return null;
+        });
+        assertEquals(AiUsageAccountant.Caller.SYSTEM, accountant.currentCaller()); // 바인딩 해제
+
+        Map<String, Object> departments = (Map<String, Object>) accountant.snapshot().get("departments");
+        Map<String, Object> finance = (Map<String, Object>) departments.get("FINANCE");
+        assertEquals(1_000L, finance.get("tokens"));
+    }
+
+    @Test
+    @DisplayName("윈도우 밖으로 밀려난 분 버킷은 합계에서 빠진다")
+    void slidesWindow() {
+        AiUsageAccountant.SlidingCounter counter = new AiUsageAccountant.SlidingCounter(60);
+        counter.add(1_000, 5, 50);
+        counter.add(1_030, 1, 10);
+
+        assertArrayEquals(new long[]{6, 60}, counter.sum(1_059, 60));
+        assertArrayEquals(new long[]{1, 10}, counter.sum(1_060, 60));
+        assertArrayEquals(new long[]{0, 0}, counter.sum(1_090, 60));
+
+        // 같은 슬롯을 재사용하면 이전 값은 초기화된다.
+        counter.add(1_060, 2, 20);
+        assertArrayEquals(new long[]{3, 30}, counter.sum(1_060, 60));
+    }
+}
@@ -0,0 +1,101 @@
+package com.desk.service.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * [RAG 벡터 검색 JMH 벤치마크] 문서 100k 개, top-3
+ *
+ * - legacyBoxed : 예전 방식 (List&lt;Double&gt; + 비교 때마다 코사인 재계산하는 PriorityQueue)
+ * - float32     : AiVectorStore (연속 float[], 정규화 내적, 최소 힙)
+ * - int8        : AiVectorStore(quantized)
+ *
+ * SIMD/스칼라 비교는 AiVectorStoreBenchmarkTests 가 -Dai.vector.simd 를 바꿔 두 번 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AiVectorStoreBenchmark {
+
+    private static final int TOP_K = 3;
+    private static final String[] DEPTS = {"DEVELOPMENT", "DESIGN", "SALES", "HR", "FINANCE", "PLANNING"};
+
+    @Param({"100000"})
+    public int documents;
+
+    // nomic-embed-text 차원
+    @Param({"768"})
+    public int dimension;
+
+    private List<List<Double>> legacyVectors;
+    private AiVectorStore floatStore;
+    private AiVectorStore int8Store;
+    private List<Double> query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        legacyVectors = new ArrayList<>(documents);
+        floatStore = new AiVectorStore(false);
+        int8Store = new AiVectorStore(true);
+        for (int i = 0; i < documents; i++) {
+            List<Double> v = randomVector(random);
+            String dept = DEPTS[i % DEPTS.length];
+            legacyVectors.add(v);
+            floatStore.add("doc-" + i, dept, v);
+            int8Store.add("doc-" + i, dept, v);
+        }
+        query = randomVector(random);
+    }
+
+    @Benchmark
+    public Object legacyBoxed() {
+        PriorityQueue<List<Double>> pq = new PriorityQueue<>(
+                (d1, d2) -> Double.compare(cosineSimilarity(query, d2), cosineSimilarity(query, d1)));
+        pq.addAll(legacyVectors);
+        List<List<Double>> top = new ArrayList<>(TOP_K);
+        for (int k = 0; k < TOP_K && !pq.isEmpty(); k++) top.add(pq.poll());
+        return top;
+    }
+
+    @Benchmark
+    public Object float32() {
+        return floatStore.search(query, null, TOP_K);
+    }
+
+    @Benchmark
+    public Object int8() {
+        return int8Store.search(query, null, TOP_K);
+    }
+
+    private List<Double> randomVector(Random random) {
+        List<Double> v = new ArrayList<>(dimension);
+        for (int d = 0; d < dimension; d++) v.add(random.nextGaussian());
+        return v;
+    }
+
+    // 예전 AITicketRAGServiceImpl.cosineSimilarity 그대로
+    private static double cosineSimilarity(List<Double> v1, List<Double> v2) {
+        if (v1.size() != v2.size()) return 0.0;
+        double dotProduct = 0.0, normA = 0.0, normB = 0.0;
+        for (int i = 0; i < v1.size(); i++) {
+            dotProduct += v1.get(i) * v2.get(i);
+            normA += Math.pow(v1.get(i), 2);
+            normB += Math.pow(v2.get(i), 2);
+        }
+        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -0,0 +1,59 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * AiVectorStoreBenchmark(JMH) 실행기. SIMD 켠 JVM / 끈 JVM 을 각각 fork 해서 비교한다.
+ * 문서 100k x 768차원 (예전 방식 boxed 벡터만 1.5GB 이상이므로 fork 힙을 4GB 로 잡는다)
+ *
+ * 실행: ./gradlew aiBenchmark  (기본 test 태스크에서는 제외)
+ */
+@Tag("benchmark")
+class AiVectorStoreBenchmarkTests {
+
+    @Test
+    void vectorSearchSimd() throws Exception {
+        report("SIMD", run(true));
+    }
+
+    @Test
+    void vectorSearchScalar() throws Exception {
+        report("SCALAR", run(false));
+    }
+
+    private Collection<RunResult> run(boolean simd) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(AiVectorStoreBenchmark.class.getName())
+                .forks(1)
+                .jvmArgsAppend("-Xmx4g", "--add-modules=jdk.incubator.vector", "-Dai.vector.simd=" + simd)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        assertFalse(results.isEmpty());
+        return results;
+    }
+
+    private static void report(String label, Collection<RunResult> results) {
+        System.out.println("\n========== RAG 벡터 검색 (" + label + ", 100k docs, top-3) ==========");
+        for (RunResult r : results) {
+            System.out.printf("%-14s %10.3f ± %.3f %s%n",
+                    r.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    r.getPrimaryResult().getScore(),
+                    r.getPrimaryResult().getScoreError(),
+                    r.getPrimaryResult().getScoreUnit());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RAG 벡터 저장소 (정규화 float[] / int8 / top-k 최소 힙) 단위 테스트
+ */
+class AiVectorStoreTests {
+
+    @Test
+    @DisplayName("코사인 유사도 순으로 상위 k 개를 돌려준다 (크기가 달라도 방향만 본다)")
+    void returnsTopKByCosine() {
+        AiVectorStore store = new AiVectorStore(false);
+        store.add("정확히 같은 방향(크기 10배)", "DEVELOPMENT", List.of(10.0, 0.0, 0.0));
+        store.add("조금 다름", "DEVELOPMENT", List.of(1.0, 0.3, 0.0));
+        store.add("많이 다름", "DEVELOPMENT", List.of(0.2, 1.0, 0.0));
+        store.add("반대", "DEVELOPMENT", List.of(-1.0, 0.0, 0.0));
+
+        List<AiVectorStore.Hit> hits = store.search(List.of(1.0, 0.0, 0.0), null, 3);
+
+        assertEquals(List.of("정확히 같은 방향(크기 10배)", "조금 다름", "많이 다름"),
+                hits.stream().map(AiVectorStore.Hit::content).toList());
+        assertEquals(1.0f, hits.get(0).score(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("부서 필터는 대소문자를 무시하고, 없는 부서면 결과가 없다")
+    void filtersByDepartment() {
+        AiVectorStore store = new AiVectorStore(false);
+        store.add("개발 문서", "DEVELOPMENT", List.of(1.0, 0.0));
+        store.add("디자인 문서", "DESIGN", List.of(1.0, 0.1));
+
+        assertEquals(List.of("디자인 문서"),
+                store.search(List.of(1.0, 0.0), "design", 3).stream().map(AiVectorStore.Hit::content).toList());
+        assertTrue(store.search(List.of(1.0, 0.0), "SALES", 3).isEmpty());
+        assertEquals(2, store.search(List.of(1.0, 0.0), null, 3).size());
+    }
+
+    @Test
+    @DisplayName("빈 벡터 / 차원이 다른 벡터는 저장하지 않고, 다른 차원 질의는 빈 결과")
+    void rejectsMismatchedDimension() {
+        AiVectorStore store = new AiVectorStore(false);
+        assertTrue(store.add("a", "HR", List.of(1.0, 2.0)));
+        assertFalse(store.add("b", "HR", List.of(1.0, 2.0, 3.0)));
+        assertFalse(store.add("c", "HR", List.of()));
+        assertFalse(store.add("d", "HR", List.of(0.0, 0.0)));
+
+        assertEquals(1, store.size());
+        assertTrue(store.search(List.of(1.0, 2.0, 3.0), null, 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("최소 힙 top-k 는 전체 정렬 결과와 같다 (용량 증가 포함)")
+    void heapMatchesFullSort() {
+        Random random = new Random(7);
+        AiVectorStore store = new AiVectorStore(false);
+        List<List<Double>> vectors = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            List<Double> v = randomVector(random, 32);
+            vectors.add(v);
+            store.add("doc-" + i, "COMMON", v);
+        }
+        List<Double> query = randomVector(random, 32);
+
+        List<Integer> expected = IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> cosine(query, vectors.get(i))).reversed())
+                .limit(10)
+                .toList();
+
+        assertEquals(expected, store.search(query, null, 10).stream().map(AiVectorStore.Hit::index).toList());
+    }
+
+    @Test
+    @DisplayName("int8 양자화는 메모리를 줄이고 상위 결과는 float 와 거의 같다")
+    void quantizedApproximatesFloat() {
+        Random random = new Random(11);
+        AiVectorStore exact = new AiVectorStore(false);
+        AiVectorStore quantized = new AiVectorStore(true);
+        for (int i = 0; i < 300; i++) {
+            List<Double> v = randomVector(random, 64);
+            exact.add("doc-" + i, "COMMON", v);
+            quantized.add("doc-" + i, "COMMON", v);
+        }
+        List<Double> query = randomVector(random, 64);
+
+        List<AiVectorStore.Hit> e = exact.search(query, null, 5);
+        List<AiVectorStore.Hit> q = quantized.search(query, null, 5);
+
+        assertEquals(e.get(0).index(), q.get(0).index());
+        for (int i = 0; i < e.size(); i++) {
+            assertEquals(e.get(i).score(), q.get(i).score(), 0.02);
+        }
+        assertTrue(quantized.vectorBytes() * 3 < exact.vectorBytes());
+    }
+
+    @Test
+    @DisplayName("SIMD / 스칼라 내적 결과가 같다 (꼬리 구간 포함)")
+    void dotProductsAgree() {
+        Random random = new Random(3);
+        for (int dim : new int[]{1, 7, 8, 17, 768}) {
+            float[] a = new float[dim];
+            float[] b = new float[dim + 4];
+            byte[] qa = new byte[dim];
+            byte[] qb = new byte[dim + 4];
+            for (int i = 0; i < dim; i++) {
+                a[i] = random.nextFloat() - 0.5f;
+                qa[i] = (byte) (random.nextInt(255) - 127);
+            }
+            for (int i = 0; i < dim + 4; i++) {
+                b[i] = random.nextFloat() - 0.5f;
+                qb[i] = (byte) (random.nextInt(255) - 127);
+            }
+            assertEquals(AiVectorMath.scalarDot(a, b, 4, dim), AiVectorMath.dot(a, b, 4, dim), 1e-4);
+            assertEquals(AiVectorMath.scalarDot(qa, qb, 4, dim), AiVectorMath.dot(qa, qb, 4, dim));
+        }
+    }
+
+    private static List<Double> randomVector(Random random, int dim) {
+        List<Double> v = new ArrayList<>(dim);
+        for (int d = 0; d < dim; d++) v.add(random.nextGaussian());
+        return v;
+    }
+
+    private static double cosine(List<Double> a, List<Double> b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.size(); i++) {
+            dot += a.get(i) * b.get(i);
+            na += a.get(i) * a.get(i);
+            nb += b.get(i) * b.get(i);
+        }
+        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+    }
+}
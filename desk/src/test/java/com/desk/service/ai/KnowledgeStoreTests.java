@@ -0,0 +1,94 @@
+package com.desk.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 지식 저장소 (청크 키 / 메모리 저장소 / pgvector 벡터 표기) 단위 테스트
+ */
+class KnowledgeStoreTests {
+
+    @Test
+    @DisplayName("청크 키는 부서와 본문이 같을 때만 같다")
+    void chunkKeyDependsOnDeptAndContent() {
+        String key = KnowledgeStore.chunkKey("HR", "연차 신청 방법");
+
+        assertEquals(64, key.length());
+        assertEquals(key, KnowledgeStore.chunkKey("HR", "연차 신청 방법"));
+        assertNotEquals(key, KnowledgeStore.chunkKey("FINANCE", "연차 신청 방법"));
+        assertNotEquals(key, KnowledgeStore.chunkKey("HR", "연차 신청 방법 "));
+    }
+
+    @Test
+    @DisplayName("메모리 저장소는 문서가 충분하면 HNSW 로 검색하고, 이후 추가분도 증분 색인한다")
+    void inMemoryStoreSwitchesToHnsw(@TempDir Path dir) {
+        Random random = new Random(1);
+        InMemoryKnowledgeStore store = new InMemoryKnowledgeStore(false);
+        store.addAll(chunks(random, 300, "doc-"));
+
+        store.enableHnsw(dir.resolve("k.hnsw"), 8, 64, 32, 1000);
+        assertNull(store.snapshot().get("hnsw")); // 1000 미만이면 전수 검색
+
+        store.enableHnsw(dir.resolve("k.hnsw"), 8, 64, 32, 100);
+        assertNotNull(store.snapshot().get("hnsw"));
+
+        List<Double> target = vector(random);
+        store.addAll(List.of(new KnowledgeStore.Chunk("k", "new-doc", "HR", target)));
+        List<KnowledgeStore.Hit> hits = store.search(target, "hr", 1);
+        assertEquals("new-doc", hits.get(0).content());
+        assertEquals("HR", hits.get(0).dept());
+    }
+
+    @Test
+    @DisplayName("메모리 저장소는 추가한 청크의 key 와 정규화 벡터를 순서대로 돌려준다 (재적재 재사용)")
+    void inMemoryStoreExposesStoredVectorsByKey() {
+        InMemoryKnowledgeStore store = new InMemoryKnowledgeStore(false);
+        store.addAll(List.of(
+                new KnowledgeStore.Chunk("a", "doc-a", "HR", List.of(3.0, 4.0)),
+                new KnowledgeStore.Chunk("empty", "doc-empty", "HR", List.of()),
+                new KnowledgeStore.Chunk("b", "doc-b", "DESIGN", List.of(0.0, 2.0))));
+
+        Map<String, double[]> stored = new LinkedHashMap<>();
+        store.forEachStored(stored::put);
+
+        assertEquals(List.of("a", "b"), List.copyOf(stored.keySet())); // 추가되지 않은 청크는 없다
+        assertArrayEquals(new double[]{0.6, 0.8}, stored.get("a"), 1e-6);
+        assertArrayEquals(new double[]{0.0, 1.0}, stored.get("b"), 1e-6);
+    }
+
+    @Test
+    @DisplayName("pgvector 텍스트 표기를 왕복 변환한다")
+    void pgVectorLiteralRoundTrip() {
+        List<Double> vector = List.of(0.5, -1.25, 3.0);
+
+        assertEquals("[0.5,-1.25,3.0]", PgVectorKnowledgeStore.toLiteral(vector));
+        assertArrayEquals(new double[]{0.5, -1.25, 3.0}, PgVectorKnowledgeStore.parseVector("[0.5,-1.25,3]"));
+        assertEquals(0, PgVectorKnowledgeStore.parseVector("[]").length);
+    }
+
+    private static List<KnowledgeStore.Chunk> chunks(Random random, int n, String prefix) {
+        List<KnowledgeStore.Chunk> chunks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String content = prefix + i;
+            String dept = i % 2 == 0 ? "HR" : "DESIGN";
+            chunks.add(new KnowledgeStore.Chunk(KnowledgeStore.chunkKey(dept, content), content, dept, vector(random)));
+        }
+        return chunks;
+    }
+
+    private static List<Double> vector(Random random) {
+        List<Double> v = new ArrayList<>(16);
+        for (int d = 0; d < 16; d++) v.add(random.nextGaussian());
+        return v;
+    }
+}
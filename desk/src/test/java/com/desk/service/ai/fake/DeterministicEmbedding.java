@@ -0,0 +1,49 @@
+package com.desk.service.ai.fake;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 결정적(deterministic) 로컬 임베딩
+ * - 문자 bigram 을 해시해서 dim 차원 버킷에 누적한 뒤 L2 정규화
+ * - 같은 입력은 항상 같은 벡터, 글자가 많이 겹치는 문장은 코사인 유사도가 높다.
+ * - 실제 모델 없이 RAG 검색/벤치마크를 재현 가능하게 돌리기 위한 용도
+ */
+public final class DeterministicEmbedding {
+
+    private DeterministicEmbedding() {
+    }
+
+    public static float[] embed(String text, int dim) {
+        float[] v = new float[dim];
+        String t = text == null ? "" : text.replaceAll("\\s+", " ").trim().toLowerCase();
+        if (t.isEmpty()) {
+            v[0] = 1f;
+            return v;
+        }
+        for (int i = 0; i < t.length(); i++) {
+            int end = Math.min(t.length(), i + 2);
+            int h = fnv1a(t.substring(i, end));
+            int bucket = Math.floorMod(h, dim);
+            // 해시 상위 비트로 부호를 정해 버킷 충돌 시 상쇄되도록 한다 (feature hashing)
+            v[bucket] += ((h >>> 31) == 0) ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) {
+            v[0] = 1f;
+            return v;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dim; i++) v[i] *= inv;
+        return v;
+    }
+
+    public static int fnv1a(String s) {
+        int h = 0x811c9dc5;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x01000193;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,11 @@
+package com.desk.service.ai.fake;
+
+/**
+ * 가짜 Ollama 서버 장애 주입 종류
+ */
+public enum FakeFault {
+    NONE,
+    HTTP_500,     // 5xx 응답
+    HANG,         // 응답 없이 hangMs 동안 대기 (timeout 유도)
+    MALFORMED     // <think> 블록 + 잡담이 섞인 깨진 JSON
+}
@@ -0,0 +1,42 @@
+package com.desk.service.ai.fake;
+
+import java.util.Random;
+
+/**
+ * 가짜 Ollama 서버의 응답 지연 분포
+ * - seed 가 같으면 같은 순서의 지연값을 생성한다 (재현 가능한 벤치마크용)
+ */
+public interface FakeLatency {
+
+    long nextDelayMs(Random random);
+
+    static FakeLatency none() {
+        return r -> 0L;
+    }
+
+    static FakeLatency fixed(long ms) {
+        return r -> ms;
+    }
+
+    static FakeLatency uniform(long minMs, long maxMs) {
+        return r -> minMs + (long) (r.nextDouble() * (maxMs - minMs));
+    }
+
+    /**
+     * 로그정규 분포 (LLM 추론 지연과 비슷한 긴 꼬리)
+     *
+     * @param medianMs 중앙값
+     * @param sigma    꼬리 두께 (0.3 ~ 1.0 정도)
+     */
+    static FakeLatency logNormal(long medianMs, double sigma) {
+        double mu = Math.log(Math.max(1, medianMs));
+        return r -> (long) Math.exp(mu + sigma * r.nextGaussian());
+    }
+
+    /**
+     * 기본 분포 + 일정 확률의 스파이크 (모델 로딩/GC 등 재현)
+     */
+    static FakeLatency withSpikes(FakeLatency base, double spikeRate, long spikeMs) {
+        return r -> r.nextDouble() < spikeRate ? spikeMs : base.nextDelayMs(r);
+    }
+}
@@ -0,0 +1,60 @@
+package com.desk.service.ai.fake;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * [fake-ollama 프로필 연결]
+ * 'fake-ollama' 프로필이 활성화된 컨텍스트에서 FakeOllamaServer 를 띄우고
+ * OLLAMA_BASE_URL 을 가짜 서버 주소로 덮어쓴다.
+ * → OllamaConfig.getBaseUrl() 을 쓰는 OllamaClient / aiRestTemplate(AIConfig) 호출이 모두 가짜 서버로 간다.
+ *
+ * 지연/장애 설정은 application-fake-ollama.properties 의 fake-ollama.* 값으로 조정한다.
+ * 사용: @ContextConfiguration(initializers = FakeOllamaInitializer.class) + @ActiveProfiles("fake-ollama")
+ */
+@Log4j2
+public class FakeOllamaInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public static final String PROFILE = "fake-ollama";
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        ConfigurableEnvironment env = context.getEnvironment();
+        if (!Arrays.asList(env.getActiveProfiles()).contains(PROFILE)) {
+            return;
+        }
+
+        long median = env.getProperty("fake-ollama.latency.median-ms", Long.class, 50L);
+        double sigma = env.getProperty("fake-ollama.latency.sigma", Double.class, 0.5);
+        double spikeRate = env.getProperty("fake-ollama.latency.spike-rate", Double.class, 0.0);
+        long spikeMs = env.getProperty("fake-ollama.latency.spike-ms", Long.class, 0L);
+
+        FakeOllamaServer server = FakeOllamaServer.builder()
+                .latency(FakeLatency.withSpikes(FakeLatency.logNormal(median, sigma), spikeRate, spikeMs))
+                .latency("/api/embeddings", FakeLatency.fixed(env.getProperty("fake-ollama.latency.embedding-ms", Long.class, 5L)))
+                .latency("/api/embed", FakeLatency.fixed(env.getProperty("fake-ollama.latency.embedding-ms", Long.class, 5L)))
+                .fault(FakeFault.HTTP_500, env.getProperty("fake-ollama.fault.http-500-rate", Double.class, 0.0))
+                .fault(FakeFault.MALFORMED, env.getProperty("fake-ollama.fault.malformed-rate", Double.class, 0.0))
+                .fault(FakeFault.HANG, env.getProperty("fake-ollama.fault.hang-rate", Double.class, 0.0))
+                .hangMs(env.getProperty("fake-ollama.fault.hang-ms", Long.class, 30_000L))
+                .embeddingDim(env.getProperty("fake-ollama.embedding-dim", Integer.class, 256))
+                .seed(env.getProperty("fake-ollama.seed", Long.class, 42L))
+                .build()
+                .start();
+
+        env.getPropertySources().addFirst(new MapPropertySource("fakeOllama",
+                Map.of("OLLAMA_BASE_URL", server.getBaseUrl())));
+        context.getBeanFactory().registerSingleton("fakeOllamaServer", server);
+        context.addApplicationListener((ApplicationListener<ContextClosedEvent>) e -> server.close());
+
+        log.info("[FakeOllama] profile '{}' active | OLLAMA_BASE_URL={}", PROFILE, server.getBaseUrl());
+    }
+}
@@ -0,0 +1,469 @@
+package com.desk.service.ai.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * [테스트 전용] 가짜 Ollama HTTP 서버
+ * - /api/chat, /api/generate, /api/embeddings, /api/embed, /api/tags, /api/ps 구현
+ * - 요청의 keep_alive 에 따라 로드된 모델 목록(/api/ps)을 흉내 낸다
+ * - 경로별 지연 분포(FakeLatency), 장애 주입(FakeFault), 고정 응답 / 프롬프트 해시 기반 결정적 응답
+ * - 실제 qwen3:8b 없이 AI 경로의 부하 테스트 / 장애 시나리오 테스트에 사용
+ *
+ * 사용 예)
+ * FakeOllamaServer server = FakeOllamaServer.builder()
+ *         .latency("/api/chat", FakeLatency.logNormal(800, 0.5))
+ *         .fault(FakeFault.HTTP_500, 0.05)
+ *         .build().start();
+ */
+@Log4j2
+public class FakeOllamaServer implements AutoCloseable {
+
+    public static final List<String> DEPTS = List.of("DEVELOPMENT", "DESIGN", "SALES", "HR", "FINANCE", "PLANNING");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int port;
+    private final FakeLatency defaultLatency;
+    private final Map<String, FakeLatency> latencyByPath;
+    private final Map<FakeFault, Double> faultRates;
+    private final long hangMs;
+    private final int embeddingDim;
+    private final Map<String, Function<JsonNode, String>> canned;
+    private final List<String> models;
+    private final Random random;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // 관측용 카운터
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    // 로드된 모델 → 만료 시각 (/api/ps)
+    private final Map<String, Instant> loadedModels = new ConcurrentHashMap<>();
+
+    private FakeOllamaServer(Builder b) {
+        this.port = b.port;
+        this.defaultLatency = b.defaultLatency;
+        this.latencyByPath = Map.copyOf(b.latencyByPath);
+        this.faultRates = new EnumMap<>(b.faultRates);
+        this.hangMs = b.hangMs;
+        this.embeddingDim = b.embeddingDim;
+        this.canned = Map.copyOf(b.canned);
+        this.models = List.copyOf(b.models);
+        this.random = new Random(b.seed);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public FakeOllamaServer start() {
+        // JDK HttpServer 기본값은 Nagle 사용 → 헤더/본문 분리 전송 시 delayed ACK 로 ~40ms 가 더해진다.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Fake Ollama server start failed", e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        for (String path : List.of("/api/chat", "/api/generate", "/api/embeddings", "/api/embed", "/api/tags", "/api/ps")) {
+            server.createContext(path, ex -> handle(path, ex));
+        }
+        server.start();
+        log.info("[FakeOllama] started | baseUrl={}", getBaseUrl());
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount(String path) {
+        AtomicLong c = requestCounts.get(path);
+        return c == null ? 0 : c.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * 모델 로드 여부 (keep_alive 만료 전인지)
+     */
+    public boolean isLoaded(String model) {
+        Instant expiresAt = loadedModels.get(model);
+        return expiresAt != null && Instant.now().isBefore(expiresAt);
+    }
+
+    /**
+     * 모델을 메모리에서 내린 상태로 만든다 (idle 만료 시뮬레이션)
+     */
+    public void unload(String model) {
+        loadedModels.remove(model);
+    }
+
+    public void resetStats() {
+        requestCounts.clear();
+        maxInFlight.set(inFlight.get());
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    // ---------------------------------------------------------
+    // 요청 처리
+    // ---------------------------------------------------------
+    private void handle(String path, HttpExchange ex) throws IOException {
+        requestCounts.computeIfAbsent(path, k -> new AtomicLong()).incrementAndGet();
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        try {
+            JsonNode body = readBody(ex);
+
+            FakeFault fault;
+            long delay;
+            synchronized (random) {
+                fault = pickFault();
+                delay = latencyByPath.getOrDefault(path, defaultLatency).nextDelayMs(random);
+            }
+
+            if (fault == FakeFault.HANG) {
+                sleep(hangMs);
+                ex.close();
+                return;
+            }
+            sleep(delay);
+
+            if (fault == FakeFault.HTTP_500) {
+                write(ex, 500, "{\"error\":\"injected failure\"}");
+                return;
+            }
+
+            String model = body.path("model").asText(null);
+            if (model != null && !"/api/ps".equals(path)) {
+                loadedModels.put(model, Instant.now().plus(parseKeepAlive(body.path("keep_alive").asText(null))));
+            }
+
+            String response = switch (path) {
+                case "/api/chat" -> chatResponse(body, fault == FakeFault.MALFORMED);
+                case "/api/generate" -> generateResponse(body, fault == FakeFault.MALFORMED);
+                case "/api/embeddings" -> embeddingsResponse(body);
+                case "/api/embed" -> embedResponse(body);
+                case "/api/ps" -> psResponse();
+                default -> tagsResponse();
+            };
+            write(ex, 200, response);
+        } catch (Exception e) {
+            log.warn("[FakeOllama] handler error | path={} | error={}", path, e.getMessage());
+            write(ex, 500, "{\"error\":\"fake server error\"}");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private FakeFault pickFault() {
+        double r = random.nextDouble();
+        double acc = 0;
+        for (Map.Entry<FakeFault, Double> e : faultRates.entrySet()) {
+            acc += e.getValue();
+            if (r < acc) return e.getKey();
+        }
+        return FakeFault.NONE;
+    }
+
+    private String chatResponse(JsonNode body, boolean malformed) throws IOException {
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode m : body.path("messages")) {
+            prompt.append(m.path("content").asText()).append('\n');
+        }
+        String content = canned.containsKey("/api/chat")
+                ? canned.get("/api/chat").apply(body)
+                : deterministicContent(prompt.toString());
+        if (malformed) content = corrupt(content);
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("model", body.path("model").asText("fake"));
+        resp.put("created_at", Instant.now().toString());
+        resp.put("message", Map.of("role", "assistant", "content", content));
+        resp.put("done", true);
+        resp.put("prompt_eval_count", approxTokens(prompt.toString()));
+        resp.put("eval_count", approxTokens(content));
+        return objectMapper.writeValueAsString(resp);
+    }
+
+    private String generateResponse(JsonNode body, boolean malformed) throws IOException {
+        String prompt = body.path("prompt").asText("");
+        String content = canned.containsKey("/api/generate")
+                ? canned.get("/api/generate").apply(body)
+                : deterministicContent(prompt);
+        if (malformed) content = corrupt(content);
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("model", body.path("model").asText("fake"));
+        resp.put("created_at", Instant.now().toString());
+        resp.put("response", content);
+        resp.put("done", true);
+        resp.put("prompt_eval_count", approxTokens(prompt));
+        resp.put("eval_count", approxTokens(content));
+        return objectMapper.writeValueAsString(resp);
+    }
+
+    private String tagsResponse() throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (String m : models) list.add(Map.of("name", m, "model", m));
+        return objectMapper.writeValueAsString(Map.of("models", list));
+    }
+
+    private String psResponse() throws IOException {
+        Instant now = Instant.now();
+        List<Map<String, Object>> list = new ArrayList<>();
+        loadedModels.forEach((m, expiresAt) -> {
+            if (now.isBefore(expiresAt)) {
+                list.add(Map.of("name", m, "model", m, "expires_at", expiresAt.toString()));
+            }
+        });
+        return objectMapper.writeValueAsString(Map.of("models", list));
+    }
+
+    /**
+     * keep_alive 형식: "30m", "10s", "1h", 숫자(초), 음수(무기한). 없으면 Ollama 기본값 5분.
+     */
+    private static Duration parseKeepAlive(String keepAlive) {
+        if (keepAlive == null || keepAlive.isBlank()) return Duration.ofMinutes(5);
+        String k = keepAlive.trim();
+        try {
+            if (k.startsWith("-")) return Duration.ofDays(365);
+            char unit = k.charAt(k.length() - 1);
+            if (Character.isDigit(unit)) return Duration.ofSeconds(Long.parseLong(k));
+            long n = Long.parseLong(k.substring(0, k.length() - 1));
+            return switch (unit) {
+                case 'h' -> Duration.ofHours(n);
+                case 'm' -> Duration.ofMinutes(n);
+                default -> Duration.ofSeconds(n);
+            };
+        } catch (NumberFormatException e) {
+            return Duration.ofMinutes(5);
+        }
+    }
+
+    private String embeddingsResponse(JsonNode body) throws IOException {
+        String text = body.path("prompt").asText("");
+        return objectMapper.writeValueAsString(Map.of("embedding", DeterministicEmbedding.embed(text, embeddingDim)));
+    }
+
+    private String embedResponse(JsonNode body) throws IOException {
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = body.path("input");
+        if (input.isArray()) {
+            input.forEach(n -> inputs.add(n.asText()));
+        } else {
+            inputs.add(input.asText(""));
+        }
+        List<float[]> embeddings = new ArrayList<>();
+        for (String in : inputs) embeddings.add(DeterministicEmbedding.embed(in, embeddingDim));
+        return objectMapper.writeValueAsString(Map.of(
+                "model", body.path("model").asText("fake"),
+                "embeddings", embeddings));
+    }
+
+    /**
+     * 프롬프트 종류를 판별해 그럴듯한 응답을 만든다. 같은 프롬프트 → 같은 응답.
+     */
+    private String deterministicContent(String prompt) throws IOException {
+        int h = DeterministicEmbedding.fnv1a(prompt);
+        if (prompt.contains("\"filteredMessage\"")) {
+            return objectMapper.writeValueAsString(Map.of(
+                    "filteredMessage", "확인 부탁드립니다. (ref-" + Integer.toHexString(h) + ")",
+                    "shouldCreateTicket", lastUserLine(prompt).contains("티켓")));
+        }
+        if (prompt.contains("\"updatedTicket\"")) {
+            Map<String, Object> ticket = new LinkedHashMap<>();
+            ticket.put("title", "업무 요청 " + Integer.toHexString(h & 0xffff));
+            ticket.put("content", "요청 요약");
+            ticket.put("purpose", "업무 목적");
+            ticket.put("requirement", "상세 요구사항");
+            ticket.put("deadline", LocalDate.now().plusDays(7).toString());
+            ticket.put("grade", "MIDDLE");
+            ticket.put("receivers", List.of());
+            ticket.put("completionRate", 80);
+            return objectMapper.writeValueAsString(Map.of(
+                    "analysis", "fake analysis",
+                    "updatedTicket", ticket,
+                    "responseToUser", "추가로 확인할 내용이 있으면 말씀해 주세요."));
+        }
+        if (prompt.contains("\"dateRange\"")) {
+            Map<String, Object> range = new LinkedHashMap<>();
+            range.put("from", null);
+            range.put("to", null);
+            Map<String, Object> parsed = new LinkedHashMap<>();
+            parsed.put("dateRange", range);
+            parsed.put("counterEmail", null);
+            parsed.put("department", null);
+            parsed.put("keyword", "");
+            parsed.put("senderOnly", false);
+            parsed.put("receiverOnly", false);
+            return objectMapper.writeValueAsString(parsed);
+        }
+        if (prompt.contains("\"attendees\"")) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("title", "회의 결과 정리");
+            m.put("overview", "회의 목적");
+            m.put("details", "상세 논의 사항");
+            m.put("shortSummary", "요약 1\n요약 2\n요약 3");
+            m.put("attendees", List.of());
+            m.put("deadline", LocalDate.now().plusDays(7).toString());
+            m.put("conclusion", "결론");
+            return objectMapper.writeValueAsString(m);
+        }
+        if (prompt.contains("수신 부서")) {
+            return DEPTS.get(Math.floorMod(h, DEPTS.size()));
+        }
+        if (prompt.contains("담당자 이름")) {
+            return "Team_Common";
+        }
+        return "OK";
+    }
+
+    private String corrupt(String content) {
+        return "<think>\n사용자 요청을 분석합니다...\n</think>\n다음은 결과입니다:\n```json\n" + content + ",\n```";
+    }
+
+    private static String lastUserLine(String prompt) {
+        String[] lines = prompt.strip().split("\n");
+        return lines.length == 0 ? "" : lines[lines.length - 1];
+    }
+
+    private static int approxTokens(String s) {
+        return s == null ? 0 : Math.max(1, s.length() / 2);
+    }
+
+    private JsonNode readBody(HttpExchange ex) throws IOException {
+        byte[] bytes = ex.getRequestBody().readAllBytes();
+        if (bytes.length == 0) return objectMapper.createObjectNode();
+        return objectMapper.readTree(bytes);
+    }
+
+    private static void write(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---------------------------------------------------------
+    // Builder
+    // ---------------------------------------------------------
+    public static class Builder {
+        private int port = 0; // 0 = 임의 포트
+        private FakeLatency defaultLatency = FakeLatency.none();
+        private final Map<String, FakeLatency> latencyByPath = new LinkedHashMap<>();
+        private final Map<FakeFault, Double> faultRates = new EnumMap<>(FakeFault.class);
+        private long hangMs = 30_000;
+        private int embeddingDim = 256;
+        private final Map<String, Function<JsonNode, String>> canned = new LinkedHashMap<>();
+        private final List<String> models = new ArrayList<>();
+        private long seed = 42L;
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder latency(FakeLatency latency) {
+            this.defaultLatency = latency;
+            return this;
+        }
+
+        public Builder latency(String path, FakeLatency latency) {
+            this.latencyByPath.put(path, latency);
+            return this;
+        }
+
+        public Builder fault(FakeFault fault, double rate) {
+            this.faultRates.put(fault, rate);
+            return this;
+        }
+
+        public Builder hangMs(long hangMs) {
+            this.hangMs = hangMs;
+            return this;
+        }
+
+        public Builder embeddingDim(int embeddingDim) {
+            this.embeddingDim = embeddingDim;
+            return this;
+        }
+
+        /**
+         * 경로별 고정 응답 (message.content / response 에 들어갈 문자열)
+         */
+        public Builder canned(String path, Function<JsonNode, String> responder) {
+            this.canned.put(path, responder);
+            return this;
+        }
+
+        /**
+         * /api/tags 로 노출할 모델 목록 (비어 있으면 빈 목록)
+         */
+        public Builder models(String... models) {
+            this.models.addAll(List.of(models));
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public FakeOllamaServer build() {
+            return new FakeOllamaServer(this);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.desk.service.ai.fake;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 벤치마크용 부하 실행기
+ * - threads 개의 클라이언트가 총 iterations 건을 나눠 호출 (closed-loop)
+ * - 호출별 지연을 모아 처리량 / p50 / p95 / p99 / max 계산
+ * - op 가 false 를 반환하면 fallback(성공이지만 AI 결과 아님)으로 집계
+ */
+@Log4j2
+public final class LoadRunner {
+
+    private LoadRunner() {
+    }
+
+    public static Result run(String name, int threads, int warmup, int iterations, Callable<Boolean> op) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            op.call();
+        }
+
+        long[] latencies = new long[iterations];
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicInteger fallbacks = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    int i;
+                    while ((i = cursor.getAndIncrement()) < iterations) {
+                        long s = System.nanoTime();
+                        try {
+                            if (!op.call()) fallbacks.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - s;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        Result r = new Result(name, threads, iterations,
+                iterations / (elapsed / 1e9),
+                toMs(percentile(latencies, 0.50)),
+                toMs(percentile(latencies, 0.95)),
+                toMs(percentile(latencies, 0.99)),
+                toMs(latencies[iterations - 1]),
+                fallbacks.get(), errors.get());
+        log.info("[Benchmark] {}", r);
+        return r;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record Result(String name, int threads, int iterations, double throughputPerSec,
+                         double p50Ms, double p95Ms, double p99Ms, double maxMs,
+                         int fallbacks, int errors) {
+
+        @Override
+        public String toString() {
+            return String.format("%-28s threads=%-3d n=%-5d thr=%8.1f/s p50=%7.1fms p95=%7.1fms p99=%7.1fms max=%7.1fms fallback=%d error=%d",
+                    name, threads, iterations, throughputPerSec, p50Ms, p95Ms, p99Ms, maxMs, fallbacks, errors);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.desk.service.chat.ai;
+
+import com.desk.dto.PageRequestDTO;
+import com.desk.dto.PageResponseDTO;
+import com.desk.dto.chat.AiChatJobDTO;
+import com.desk.dto.chat.ChatMessageCreateDTO;
+import com.desk.dto.chat.ChatMessageDTO;
+import com.desk.dto.chat.ChatReadUpdateDTO;
+import com.desk.service.chat.ChatMessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 채팅 AI 정제 작업 큐의 처리/재시도/dead-letter 판정 단위 테스트 (Redis 불필요)
+ */
+class AiChatJobQueueTests {
+
+    private final AtomicInteger aiCalls = new AtomicInteger();
+    private final List<String> applied = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    // 다른 워커가 이미 저장한 것으로 볼 jobId (isAiJobApplied)
+    private final Set<String> stored = new HashSet<>();
+    private final CountDownLatch appliedLatch = new CountDownLatch(1);
+
+    // applyAiResult 에서 던질 예외 (null 이면 성공)
+    private RuntimeException writeError;
+    private int writeErrorsLeft;
+
+    private AiChatJobQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        AiMessageProcessor processor = new AiMessageProcessor(null, null) {
+            @Override
+            public ProcessResult processMessage(String originalMessage, Boolean frontendAiEnabled) {
+                aiCalls.incrementAndGet();
+                return new ProcessResult("정제: " + originalMessage, false);
+            }
+        };
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("chatMessageService", new RecordingService());
+
+        queue = new AiChatJobQueue(null, processor, beans.getBeanProvider(ChatMessageService.class));
+        ReflectionTestUtils.setField(queue, "enabled", false);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(queue, "backoffMs", 10L);
+    }
+
+    @Test
+    @DisplayName("저장 실패 시 재시도하고, 재시도 때는 AI 를 다시 호출하지 않는다")
+    void retriesWithoutRepeatingAiCall() {
+        writeError = new IllegalStateException("db down");
+        writeErrorsLeft = 1;
+        AiChatJobDTO job = job("회의 자료 공유 부탁");
+
+        assertEquals(AiChatJobQueue.Outcome.RETRY, queue.process(job));
+        assertEquals(1, job.getAttempt());
+        assertEquals("정제: 회의 자료 공유 부탁", job.getProcessedContent());
+
+        assertEquals(AiChatJobQueue.Outcome.DONE, queue.process(job));
+        assertEquals(1, aiCalls.get());
+        assertEquals(List.of(job.getJobId()), applied);
+    }
+
+    @Test
+    @DisplayName("재시도 한도를 넘으면 dead-letter 로 보내고 발신자에게 알린다")
+    void deadLettersAfterMaxAttempts() {
+        writeError = new IllegalStateException("db down");
+        writeErrorsLeft = Integer.MAX_VALUE;
+        AiChatJobDTO job = job("안녕하세요");
+
+        assertEquals(AiChatJobQueue.Outcome.RETRY, queue.process(job));
+        assertEquals(AiChatJobQueue.Outcome.RETRY, queue.process(job));
+        assertEquals(AiChatJobQueue.Outcome.DEAD, queue.process(job));
+
+        assertEquals(List.of(job.getJobId()), failures);
+        assertTrue(job.getLastError().contains("db down"));
+    }
+
+    @Test
+    @DisplayName("다른 워커가 먼저 저장한 작업(유니크 위반)은 중복으로 보고 끝낸다")
+    void treatsUniqueViolationAsDuplicate() {
+        writeError = new DataIntegrityViolationException("ai_job_id");
+        writeErrorsLeft = 1;
+        AiChatJobDTO job = job("중복");
+        stored.add(job.getJobId());
+
+        assertEquals(AiChatJobQueue.Outcome.DUPLICATE, queue.process(job));
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    @DisplayName("저장된 메시지가 없는 제약 위반은 중복이 아니므로 재시도하고, 한도를 넘으면 dead-letter 후 알린다")
+    void otherIntegrityViolationIsRetried() {
+        writeError = new DataIntegrityViolationException("content too long");
+        writeErrorsLeft = Integer.MAX_VALUE;
+        AiChatJobDTO job = job("제약 위반");
+
+        assertEquals(AiChatJobQueue.Outcome.RETRY, queue.process(job));
+        assertEquals(AiChatJobQueue.Outcome.RETRY, queue.process(job));
+        assertEquals(AiChatJobQueue.Outcome.DEAD, queue.process(job));
+
+        assertEquals(0L, queue.snapshot().get("duplicates"));
+        assertEquals(List.of(job.getJobId()), failures);
+        assertTrue(job.getLastError().contains("content too long"));
+    }
+
+    @Test
+    @DisplayName("스트림 정리 경계: 마지막으로 전달된 id 바로 다음 id")
+    void nextStreamId() {
+        assertEquals("1700000000000-6", AiChatJobQueue.nextId("1700000000000-5"));
+        assertEquals("0-1", AiChatJobQueue.nextId("0-0"));
+    }
+
+    @Test
+    @DisplayName("재시도 대기 시간은 지수적으로 늘고 60초에서 멈춘다")
+    void backsOffExponentially() {
+        ReflectionTestUtils.setField(queue, "backoffMs", 2_000L);
+
+        assertEquals(2_000, queue.backoffFor(1));
+        assertEquals(4_000, queue.backoffFor(2));
+        assertEquals(8_000, queue.backoffFor(3));
+        assertEquals(60_000, queue.backoffFor(10));
+    }
+
+    @Test
+    @DisplayName("큐를 끄면 프로세스 안에서 바로 처리한다 (재시도 포함)")
+    void processesLocallyWhenDisabled() throws InterruptedException {
+        writeError = new IllegalStateException("일시 오류");
+        writeErrorsLeft = 1;
+        AiChatJobDTO job = job("로컬 처리");
+        job.setJobId(null);
+
+        queue.submit(job);
+
+        assertTrue(appliedLatch.await(5, TimeUnit.SECONDS));
+        assertNotNull(job.getJobId());
+        assertEquals(1L, queue.snapshot().get("localFallback"));
+    }
+
+    private static AiChatJobDTO job(String content) {
+        return AiChatJobDTO.builder()
+                .jobId("job-" + content.hashCode())
+                .roomId(1L)
+                .senderId("kim@desk.com")
+                .content(content)
+                .build();
+    }
+
+    // applyAiResult / notifyAiFailure 만 사용하는 기록용 서비스
+    private class RecordingService implements ChatMessageService {
+
+        @Override
+        public synchronized void applyAiResult(AiChatJobDTO job) {
+            if (writeError != null && writeErrorsLeft > 0) {
+                writeErrorsLeft--;
+                throw writeError;
+            }
+            applied.add(job.getJobId());
+            appliedLatch.countDown();
+        }
+
+        @Override
+        public boolean isAiJobApplied(String jobId) {
+            return stored.contains(jobId);
+        }
+
+        @Override
+        public void notifyAiFailure(AiChatJobDTO job) {
+            failures.add(job.getJobId());
+        }
+
+        @Override
+        public PageResponseDTO<ChatMessageDTO> getMessages(Long roomId, String userId, PageRequestDTO pageRequestDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChatMessageDTO sendMessage(Long roomId, ChatMessageCreateDTO createDTO, String senderId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChatMessageDTO sendMessageWithFiles(Long roomId, ChatMessageCreateDTO createDTO, List<MultipartFile> files, String senderId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void markAsRead(Long roomId, ChatReadUpdateDTO readDTO, String userId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChatMessageDTO createSystemMessage(Long roomId, String content, String actorId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
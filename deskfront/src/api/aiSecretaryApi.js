@@ -20,6 +20,20 @@ export const aiSecretaryApi = {
     }
   },
 
+  /**
+   * [AI 인터뷰 대화 종료]
+   * 티켓 전송/취소 시 서버의 대화 상태를 정리합니다. (실패해도 서버 TTL로 정리되므로 무시)
+   */
+  endConversation: async (conversationId) => {
+    try {
+      await jwtAxios.delete(
+        `${API_SERVER_HOST}/api/ai/ticket/chat/${encodeURIComponent(conversationId)}`
+      );
+    } catch (error) {
+      console.warn("AI Chat End Error (ignored):", error);
+    }
+  },
+
   /**
    * [AI 요약 요청]
    * Java Backend (/api/ai/summary)로 텍스트/파일을 보내 요약 데이터를 받습니다.
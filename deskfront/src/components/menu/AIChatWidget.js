@@ -79,6 +79,13 @@ const AIChatWidget = ({ onClose, chatRoomId, currentUserId }) => {
     onCloseRef.current = onClose;
   }, [onClose]);
 
+  // 위젯이 닫히면(전송 완료 / 닫기 버튼 / ESC) 서버의 인터뷰 대화 상태 정리
+  useEffect(() => {
+    return () => {
+      aiSecretaryApi.endConversation(conversationId);
+    };
+  }, [conversationId]);
+
   // ESC 키로 모달 닫기 및 애니메이션 초기화
   useEffect(() => {
     const handleKeyDown = (e) => {
@@ -568,6 +575,7 @@ try {
 
   const handleReset = () => {
     if (window.confirm("초기화하시겠습니까?")) {
+      aiSecretaryApi.endConversation(conversationId);
       setMessages([{ role: "assistant", content: "대화가 초기화되었습니다." }]);
       setMode(null);
       setAiFileResults([]);